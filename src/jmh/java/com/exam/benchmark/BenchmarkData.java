@@ -0,0 +1,275 @@
+package com.exam.benchmark;
+
+import com.exam.util.TestDataGenerator;
+import org.springframework.util.DigestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试数据集
+ * 按规模系数批量写入学院、教师、学生、班级、题库、试卷、考试和成绩，主键从1连续分配，
+ * 基准测试按主键范围取参数
+ */
+public class BenchmarkData {
+
+    /** 所有用户的明文密码 */
+    public static final String PASSWORD = "password";
+
+    private static final int BATCH_SIZE = 1000;
+
+    public final int teachers;
+    public final int students;
+    public final int classes;
+    public final int questionBanks;
+    public final int questions;
+    public final int papers;
+    public final int paperQuestions;
+    public final int exams;
+
+    private final Random random = new Random(42);
+
+    /**
+     * @param scale 规模系数，1对应2000名学生、5000道题目、5场考试
+     */
+    public BenchmarkData(int scale) {
+        this.teachers = 10 * scale;
+        this.students = 2000 * scale;
+        this.classes = students / 50;
+        this.questionBanks = 5;
+        this.questions = 5000 * scale;
+        this.papers = 5;
+        this.paperQuestions = 50;
+        this.exams = 5;
+    }
+
+    /**
+     * 学生的用户名，用户ID为teachers + studentId
+     */
+    public static String username(int userId) {
+        return "u" + userId;
+    }
+
+    public int studentUserId(int studentId) {
+        return teachers + studentId;
+    }
+
+    /**
+     * 第几个学生在某场考试中的成绩ID
+     */
+    public int scoreId(int examId, int studentId) {
+        return (examId - 1) * students + studentId;
+    }
+
+    public void load(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        String password = DigestUtils.md5DigestAsHex(PASSWORD.getBytes());
+
+        update(connection, "INSERT INTO college (college_id, college_name) VALUES (1, '计算机学院')");
+        update(connection, "INSERT INTO subject (subject_id, subject_name, college_id) VALUES (1, '程序设计', 1)");
+
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO user (user_id, username, password, role, status, created_time) VALUES (?, ?, ?, ?, 1, ?)")) {
+            Batch batch = new Batch(users);
+            for (int userId = 1; userId <= teachers + students; userId++) {
+                users.setInt(1, userId);
+                users.setString(2, username(userId));
+                users.setString(3, password);
+                users.setInt(4, userId <= teachers ? 1 : 2);
+                users.setTimestamp(5, now);
+                batch.add();
+            }
+            batch.flush();
+        }
+        try (PreparedStatement teacher = connection.prepareStatement(
+                "INSERT INTO teacher (teacher_id, user_id, name, permission, college_id) VALUES (?, ?, ?, 1, 1)")) {
+            Batch batch = new Batch(teacher);
+            for (int teacherId = 1; teacherId <= teachers; teacherId++) {
+                teacher.setInt(1, teacherId);
+                teacher.setInt(2, teacherId);
+                teacher.setString(3, TestDataGenerator.generateName());
+                batch.add();
+            }
+            batch.flush();
+        }
+        try (PreparedStatement student = connection.prepareStatement(
+                "INSERT INTO student (student_id, user_id, name, grade, college_id) VALUES (?, ?, ?, ?, 1)")) {
+            Batch batch = new Batch(student);
+            for (int studentId = 1; studentId <= students; studentId++) {
+                student.setInt(1, studentId);
+                student.setInt(2, studentUserId(studentId));
+                student.setString(3, TestDataGenerator.generateName());
+                student.setString(4, TestDataGenerator.generateGrade());
+                batch.add();
+            }
+            batch.flush();
+        }
+        try (PreparedStatement clazz = connection.prepareStatement(
+                "INSERT INTO class (class_id, teacher_id, class_name, subject_id) VALUES (?, ?, ?, 1)");
+             PreparedStatement member = connection.prepareStatement(
+                "INSERT INTO student_class (student_id, class_id, status, join_time) VALUES (?, ?, 1, ?)")) {
+            Batch batch = new Batch(clazz);
+            for (int classId = 1; classId <= classes; classId++) {
+                clazz.setInt(1, classId);
+                clazz.setInt(2, (classId - 1) % teachers + 1);
+                clazz.setString(3, "程序设计" + classId + "班");
+                batch.add();
+            }
+            batch.flush();
+            batch = new Batch(member);
+            for (int studentId = 1; studentId <= students; studentId++) {
+                member.setInt(1, studentId);
+                member.setInt(2, (studentId - 1) % classes + 1);
+                member.setTimestamp(3, now);
+                batch.add();
+            }
+            batch.flush();
+        }
+
+        loadQuestions(connection);
+        loadExams(connection, now);
+        connection.commit();
+    }
+
+    private void loadQuestions(Connection connection) throws SQLException {
+        try (PreparedStatement bank = connection.prepareStatement(
+                "INSERT INTO question_bank (qb_id, qb_name, subject_id) VALUES (?, ?, 1)")) {
+            Batch batch = new Batch(bank);
+            for (int qbId = 1; qbId <= questionBanks; qbId++) {
+                bank.setInt(1, qbId);
+                bank.setString(2, "题库" + qbId);
+                batch.add();
+            }
+            batch.flush();
+        }
+        try (PreparedStatement question = connection.prepareStatement(
+                "INSERT INTO question (question_id, qb_id, content, answer, type, difficulty) VALUES (?, ?, ?, ?, ?, ?)")) {
+            Batch batch = new Batch(question);
+            for (int questionId = 1; questionId <= questions; questionId++) {
+                int type = typeOf(questionId);
+                question.setInt(1, questionId);
+                question.setInt(2, (questionId - 1) % questionBanks + 1);
+                question.setString(3, TestDataGenerator.generateQuestionContent());
+                question.setString(4, type <= 2 ? "A" : TestDataGenerator.generateAnswer());
+                question.setInt(5, type);
+                question.setBigDecimal(6, BigDecimal.valueOf(10 + random.nextInt(81), 2));
+                batch.add();
+            }
+            batch.flush();
+        }
+        // 选项在题目全部写入后再写，批量写入时外键才能满足
+        try (PreparedStatement option = connection.prepareStatement(
+                "INSERT INTO question_option (question_id, content, is_correct) VALUES (?, ?, ?)")) {
+            Batch batch = new Batch(option);
+            for (int questionId = 1; questionId <= questions; questionId++) {
+                if (typeOf(questionId) > 2) {
+                    continue;
+                }
+                List<String> options = TestDataGenerator.generateOptions();
+                for (int i = 0; i < options.size(); i++) {
+                    option.setInt(1, questionId);
+                    option.setString(2, options.get(i));
+                    option.setBoolean(3, i == 0);
+                    batch.add();
+                }
+            }
+            batch.flush();
+        }
+    }
+
+    /**
+     * 题型1到5轮流分配，1、2为带选项的选择题
+     */
+    private static int typeOf(int questionId) {
+        return (questionId - 1) % 5 + 1;
+    }
+
+    private void loadExams(Connection connection, Timestamp now) throws SQLException {
+        try (PreparedStatement paper = connection.prepareStatement(
+                "INSERT INTO exam_paper (paper_id, paper_name, paper_status, subject_id, teacher_id, created_time, "
+                        + "paper_difficulty) VALUES (?, ?, 1, 1, ?, ?, 0.5)");
+             PreparedStatement paperQuestion = connection.prepareStatement(
+                "INSERT INTO exam_paper_question (paper_id, question_id, question_order, question_score) "
+                        + "VALUES (?, ?, ?, 2)")) {
+            Batch batch = new Batch(paperQuestion);
+            for (int paperId = 1; paperId <= papers; paperId++) {
+                paper.setInt(1, paperId);
+                paper.setString(2, "试卷" + paperId);
+                paper.setInt(3, (paperId - 1) % teachers + 1);
+                paper.setTimestamp(4, now);
+                paper.executeUpdate();
+                for (int order = 1; order <= paperQuestions; order++) {
+                    paperQuestion.setInt(1, paperId);
+                    paperQuestion.setInt(2, 1 + random.nextInt(questions));
+                    paperQuestion.setInt(3, order);
+                    batch.add();
+                }
+            }
+            batch.flush();
+        }
+        try (PreparedStatement exam = connection.prepareStatement(
+                "INSERT INTO exam (exam_id, exam_name, subject_id, paper_id, exam_start_time, exam_end_time, "
+                        + "exam_duration, created_time, teacher_id, exam_status) VALUES (?, ?, 1, ?, ?, ?, 120, ?, ?, 2)");
+             PreparedStatement score = connection.prepareStatement(
+                "INSERT INTO student_score (score_id, student_id, exam_id, score, upload_time) VALUES (?, ?, ?, ?, ?)")) {
+            Batch batch = new Batch(score);
+            for (int examId = 1; examId <= exams; examId++) {
+                exam.setInt(1, examId);
+                exam.setString(2, TestDataGenerator.generateExamName());
+                exam.setInt(3, (examId - 1) % papers + 1);
+                exam.setTimestamp(4, now);
+                exam.setTimestamp(5, now);
+                exam.setTimestamp(6, now);
+                exam.setInt(7, (examId - 1) % teachers + 1);
+                exam.executeUpdate();
+                for (int studentId = 1; studentId <= students; studentId++) {
+                    score.setInt(1, scoreId(examId, studentId));
+                    score.setInt(2, studentId);
+                    score.setInt(3, examId);
+                    score.setBigDecimal(4, BigDecimal.valueOf(4000 + random.nextInt(6001), 2));
+                    score.setTimestamp(5, now);
+                    batch.add();
+                }
+            }
+            batch.flush();
+        }
+    }
+
+    private static void update(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 每满BATCH_SIZE条执行一次批量写入
+     */
+    private static final class Batch {
+        private final PreparedStatement statement;
+        private int pending;
+
+        private Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private void add() throws SQLException {
+            statement.addBatch();
+            if (++pending >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.exam.benchmark;
+
+import com.exam.ExamSystemApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * 基准测试运行环境
+ * 在内存H2（MySQL模式）中按schema.sql建表并写入数据集，再以该库启动不含Web层的应用上下文
+ */
+public class BenchmarkEnvironment implements AutoCloseable {
+
+    private static final String URL = "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    private final BenchmarkData data;
+    private final Path searchIndexDir;
+    private final ConfigurableApplicationContext context;
+
+    /**
+     * @param scale 数据规模系数，可用-Dbenchmark.scale覆盖
+     */
+    public static BenchmarkEnvironment start(int scale) {
+        return new BenchmarkEnvironment(new BenchmarkData(Integer.getInteger("benchmark.scale", scale)));
+    }
+
+    private BenchmarkEnvironment(BenchmarkData data) {
+        this.data = data;
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection, new ByteArrayResource(h2Schema().getBytes(StandardCharsets.UTF_8)));
+            data.load(connection);
+            // 每次从数据库重建全文索引，不读取上次运行留下的索引文件
+            searchIndexDir = Files.createTempDirectory("benchmark-search-index");
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("初始化基准测试数据库失败", e);
+        }
+        // 测试类路径上的application.yml会覆盖主配置并激活test环境，所需配置均以命令行参数传入
+        this.context = new SpringApplicationBuilder(ExamSystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark",
+                        "--spring.autoconfigure.exclude="
+                                + "com.alibaba.druid.spring.boot.autoconfigure.DruidDataSourceAutoConfigure",
+                        "--spring.datasource.type=com.zaxxer.hikari.HikariDataSource",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.url=" + URL,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.sql.init.mode=never",
+                        "--mybatis.type-aliases-package=com.exam.entity",
+                        "--mybatis.mapper-locations=classpath:mapper/*Mapper.xml",
+                        "--mybatis.config-location=classpath:mybatis/mybatis-config.xml",
+                        "--logging.level.root=WARN",
+                        // 基准测试反复登录同一批用户，关闭登录限流
+                        "--exam.password.user-limit-per-minute=0",
+                        "--exam.password.ip-limit-per-minute=0",
+                        "--exam.search.index-dir=" + searchIndexDir,
+                        // 日志汇总回填使用MySQL日期函数，H2下失败后只统计启动后的日志
+                        "--logging.level.com.exam.service.impl.LogRollup=OFF");
+    }
+
+    public BenchmarkData getData() {
+        return data;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            connection.createStatement().execute("DROP ALL OBJECTS");
+        } catch (SQLException e) {
+            throw new IllegalStateException("清理基准测试数据库失败", e);
+        }
+        try {
+            FileSystemUtils.deleteRecursively(searchIndexDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("清理基准测试全文索引失败", e);
+        }
+    }
+
+    /**
+     * 把MySQL建表脚本转换为H2可执行的形式：去掉建库语句和分区定义，
+     * H2的索引名在库内全局唯一，去掉内联索引名
+     */
+    static String h2Schema() throws IOException {
+        String schema = StreamUtils.copyToString(
+                new ClassPathResource("sql/schema.sql").getInputStream(), StandardCharsets.UTF_8);
+        return schema
+                .replaceAll("(?m)^(DROP DATABASE|CREATE DATABASE|USE)\\b[^;]*;", "")
+                .replaceAll("\\s*PARTITION BY RANGE[\\s\\S]*?\\n\\);", ";")
+                .replaceAll("(?m)^(\\s*)INDEX\\s+\\w+\\s*\\(", "$1INDEX (")
+                // generatePaper未设置教师ID，基准测试中允许为空
+                + "\nALTER TABLE exam_paper ALTER COLUMN teacher_id SET NULL;";
+    }
+}
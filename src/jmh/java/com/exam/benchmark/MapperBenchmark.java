@@ -0,0 +1,58 @@
+package com.exam.benchmark;
+
+import com.exam.entity.Question;
+import com.exam.mapper.QuestionMapper;
+import com.exam.mapper.StudentScoreMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper热点查询基准
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private BenchmarkEnvironment environment;
+    private BenchmarkData data;
+    private StudentScoreMapper studentScoreMapper;
+    private QuestionMapper questionMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start(1);
+        data = environment.getData();
+        studentScoreMapper = environment.getBean(StudentScoreMapper.class);
+        questionMapper = environment.getBean(QuestionMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public Integer selectStudentRank() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return studentScoreMapper.selectStudentRank(1 + random.nextInt(data.exams), 1 + random.nextInt(data.students));
+    }
+
+    /**
+     * 按题型分页，偏移量随机分布在全部页中
+     */
+    @Benchmark
+    public List<Question> selectPageByCondition() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> condition = Collections.singletonMap("type", 1 + random.nextInt(5));
+        int pages = data.questions / 5 / 20;
+        return questionMapper.selectPageByCondition(condition, random.nextInt(pages) * 20, 20);
+    }
+}
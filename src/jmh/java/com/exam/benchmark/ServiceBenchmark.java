@@ -0,0 +1,157 @@
+package com.exam.benchmark;
+
+import com.exam.entity.ExamPaper;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.entity.User;
+import com.exam.entity.Question;
+import com.exam.service.ExamPaperService;
+import com.exam.service.QuestionService;
+import com.exam.service.StudentQuestionScoreService;
+import com.exam.service.UserService;
+import com.exam.service.impl.QuestionSearchIndex;
+import com.exam.utils.TokenUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务层热点方法基准
+ * 写入类基准在回滚的事务中执行，数据集在整个测试期间保持不变
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    /** 单次批量写入的答题记录数，对应一名学生提交一份试卷 */
+    private static final int ANSWERS_PER_BATCH = 50;
+
+    /** 题目内容检索的关键词，取自测试数据的题目模板 */
+    private static final String[] SEARCH_KEYWORDS = {"数据库索引", "消息队列", "多线程", "微服务架构的优缺点", "缓存"};
+
+    private BenchmarkEnvironment environment;
+    private BenchmarkData data;
+    private StudentQuestionScoreService studentQuestionScoreService;
+    private ExamPaperService examPaperService;
+    private UserService userService;
+    private QuestionService questionService;
+    private TransactionTemplate rollbackTemplate;
+    private Map<Integer, Integer> questionTypeCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start(1);
+        data = environment.getData();
+        studentQuestionScoreService = environment.getBean(StudentQuestionScoreService.class);
+        examPaperService = environment.getBean(ExamPaperService.class);
+        userService = environment.getBean(UserService.class);
+        questionService = environment.getBean(QuestionService.class);
+        awaitSearchIndex(environment.getBean(QuestionSearchIndex.class));
+        rollbackTemplate = new TransactionTemplate(environment.getBean(PlatformTransactionManager.class));
+
+        questionTypeCount = new LinkedHashMap<>();
+        questionTypeCount.put(1, 20);
+        questionTypeCount.put(2, 10);
+        questionTypeCount.put(3, 10);
+        questionTypeCount.put(5, 2);
+    }
+
+    private static void awaitSearchIndex(QuestionSearchIndex searchIndex) {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5);
+        while (!Boolean.TRUE.equals(searchIndex.getStatistics().get("ready"))) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("全文索引未在5分钟内就绪");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    /**
+     * 每个线程持有一个携带登录token的请求
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+        private ServletRequestAttributes attributes;
+
+        @Setup(Level.Trial)
+        public void setUp(ServiceBenchmark benchmark) {
+            int userId = benchmark.data.studentUserId(
+                    1 + ThreadLocalRandom.current().nextInt(benchmark.data.students));
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("token", TokenUtils.genToken(benchmark.userService.selectById(userId)));
+            attributes = new ServletRequestAttributes(request);
+        }
+    }
+
+    @Benchmark
+    public int batchInsertQuestionScores() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int examId = 1 + random.nextInt(data.exams);
+        int studentId = 1 + random.nextInt(data.students);
+        List<StudentQuestionScore> answers = new ArrayList<>(ANSWERS_PER_BATCH);
+        for (int i = 0; i < ANSWERS_PER_BATCH; i++) {
+            StudentQuestionScore answer = new StudentQuestionScore();
+            answer.setExamId(examId);
+            answer.setStudentId(studentId);
+            answer.setQuestionId(1 + random.nextInt(data.questions));
+            answer.setScoreId(data.scoreId(examId, studentId));
+            answer.setAnswer("A");
+            answer.setScore(BigDecimal.valueOf(2));
+            answers.add(answer);
+        }
+        return rollbackTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return studentQuestionScoreService.batchInsert(answers);
+        });
+    }
+
+    @Benchmark
+    public ExamPaper generatePaper() {
+        return rollbackTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return examPaperService.generatePaper(1, "基准试卷", new BigDecimal("0.5"), questionTypeCount);
+        });
+    }
+
+    @Benchmark
+    public User getCurrentUser(RequestState state) {
+        RequestContextHolder.setRequestAttributes(state.attributes);
+        try {
+            return TokenUtils.getCurrentUser();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public User login() {
+        int userId = data.studentUserId(1 + ThreadLocalRandom.current().nextInt(data.students));
+        return userService.login(BenchmarkData.username(userId), BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public List<Question> searchQuestions() {
+        String keyword = SEARCH_KEYWORDS[ThreadLocalRandom.current().nextInt(SEARCH_KEYWORDS.length)];
+        return questionService.searchQuestions(keyword, null, null, null, null, 20);
+    }
+}
@@ -3,9 +3,11 @@ package com.exam;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.exam.mapper")
+@EnableScheduling
 public class ExamSystemApplication {
     public static void main(String[] args) {
         SpringApplication.run(ExamSystemApplication.class, args);
@@ -0,0 +1,55 @@
+package com.exam.common;
+
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ */
+@Data
+public class CursorPage<T> {
+    private static final String CURSOR_PREFIX = "id:";
+
+    private List<T> records; // 当前页记录
+    private String nextCursor; // 下一页游标，没有更多数据时为null
+    private boolean hasMore; // 是否还有下一页
+
+    public CursorPage(List<T> records, String nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    /**
+     * 将主键编码为游标
+     */
+    public static String encodeCursor(Integer lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标中的主键
+     * @return 主键，游标为空时返回null
+     */
+    public static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(CURSOR_PREFIX)) {
+                throw new ServiceException("分页游标无效");
+            }
+            return Integer.valueOf(value.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException("分页游标无效");
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.exam.config;
+
+import com.exam.mapper.BaseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.ResolvableType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 通用Mapper语句生成器
+ * 启动时为每个继承BaseMapper的Mapper生成固定的参数化CRUD语句，
+ * 列清单取自该Mapper XML中的BaseResultMap并按实体缓存，结果直接映射到实体；
+ * Mapper XML中已自行定义的同名语句保持不变
+ */
+@Slf4j
+@Component
+public class BaseMapperStatementRegistrar implements BeanPostProcessor {
+
+    /** 用作列清单来源的结果映射ID */
+    static final String RESULT_MAP_ID = "BaseResultMap";
+
+    /** 按条件查询的语句及其条件参数名，条件中的键须为该表的属性名或列名 */
+    private static final Map<String, String> CONDITION_PARAMS = new LinkedHashMap<>();
+
+    static {
+        CONDITION_PARAMS.put("selectByCondition", "condition");
+        CONDITION_PARAMS.put("selectCountByCondition", "condition");
+        CONDITION_PARAMS.put("selectPageByCondition", "condition");
+        CONDITION_PARAMS.put("selectPageAfter", "condition");
+        CONDITION_PARAMS.put("selectByColumns", "columns");
+        CONDITION_PARAMS.put("selectByColumn", "column");
+        CONDITION_PARAMS.put("selectOneByColumn", "column");
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof SqlSessionFactory) {
+            registerStatements(((SqlSessionFactory) bean).getConfiguration());
+        }
+        return bean;
+    }
+
+    /**
+     * 为已注册的全部Mapper生成缺失的BaseMapper语句
+     * @return 生成的语句数
+     */
+    public static int registerStatements(Configuration configuration) {
+        int count = 0;
+        for (Class<?> mapperType : new ArrayList<>(configuration.getMapperRegistry().getMappers())) {
+            if (mapperType == BaseMapper.class || !BaseMapper.class.isAssignableFrom(mapperType)) {
+                continue;
+            }
+            Class<?> entityType = ResolvableType.forClass(mapperType).as(BaseMapper.class).resolveGeneric(0);
+            String namespace = mapperType.getName();
+            if (entityType == null || !configuration.hasResultMap(namespace + "." + RESULT_MAP_ID)) {
+                log.warn("{} 缺少实体类型或{}，跳过通用语句生成", namespace, RESULT_MAP_ID);
+                continue;
+            }
+            EntityTable table = EntityTable.of(tableName(entityType),
+                    configuration.getResultMap(namespace + "." + RESULT_MAP_ID));
+            Map<String, String> statements = buildStatements(table);
+            statements.keySet().removeIf(id -> configuration.hasStatement(namespace + "." + id, false));
+            if (statements.isEmpty()) {
+                continue;
+            }
+            String xml = toMapperXml(namespace, statements);
+            String resource = "generated:" + namespace;
+            new XMLMapperBuilder(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                    configuration, resource, configuration.getSqlFragments()).parse();
+            for (String id : statements.keySet()) {
+                String param = CONDITION_PARAMS.get(id);
+                if (param != null) {
+                    MetaObject statement = SystemMetaObject.forObject(configuration.getMappedStatement(namespace + "." + id));
+                    statement.setValue("sqlSource", new ConditionCheckingSqlSource(
+                            (SqlSource) statement.getValue("sqlSource"), table, param));
+                }
+            }
+            count += statements.size();
+        }
+        log.info("已生成通用Mapper语句{}条", count);
+        return count;
+    }
+
+    /**
+     * 实体类名转表名，如ExamPaper转为exam_paper
+     */
+    static String tableName(Class<?> entityType) {
+        return camelToUnderscore(entityType.getSimpleName());
+    }
+
+    private static String camelToUnderscore(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    sb.append('_');
+                }
+                sb.append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 生成BaseMapper接口各方法的语句，键为语句ID
+     */
+    static Map<String, String> buildStatements(EntityTable t) {
+        String resultMap = " resultMap=\"" + RESULT_MAP_ID + "\"";
+        String from = " FROM " + t.table;
+        String selectFrom = "SELECT " + t.columnList + from;
+        String byId = " WHERE " + t.idColumn + " = #{id}";
+
+        Map<String, String> s = new LinkedHashMap<>();
+        s.put("insert", "<insert id=\"insert\" useGeneratedKeys=\"true\" keyProperty=\"" + t.idProperty
+                + "\" keyColumn=\"" + t.idColumn + "\">"
+                + "INSERT INTO " + t.table + " (" + t.columnList + ") VALUES (" + t.values("") + ")</insert>");
+        s.put("batchInsert", "<insert id=\"batchInsert\" useGeneratedKeys=\"true\" keyProperty=\"" + t.idProperty
+                + "\" keyColumn=\"" + t.idColumn + "\">"
+                + "INSERT INTO " + t.table + " (" + t.columnList + ") VALUES "
+                + "<foreach collection=\"list\" item=\"item\" separator=\",\">(" + t.values("item.") + ")</foreach></insert>");
+        s.put("deleteById", "<delete id=\"deleteById\">DELETE" + from + byId + "</delete>");
+        s.put("batchDelete", "<delete id=\"batchDelete\">DELETE" + from + " WHERE " + t.idColumn + " IN "
+                + "<foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach></delete>");
+        s.put("updateById", "<update id=\"updateById\">" + t.update("") + "</update>");
+        s.put("batchUpdate", "<update id=\"batchUpdate\">"
+                + "<foreach collection=\"list\" item=\"item\" separator=\";\">" + t.update("item.") + "</foreach></update>");
+        s.put("selectById", "<select id=\"selectById\"" + resultMap + ">" + selectFrom + byId + "</select>");
+        s.put("selectAll", "<select id=\"selectAll\"" + resultMap + ">" + selectFrom + "</select>");
+        s.put("selectPage", "<select id=\"selectPage\"" + resultMap + ">" + selectFrom
+                + " LIMIT #{offset}, #{limit}</select>");
+        s.put("selectCount", "<select id=\"selectCount\" resultType=\"java.lang.Long\">SELECT COUNT(*)" + from + "</select>");
+        s.put("selectByCondition", "<select id=\"selectByCondition\"" + resultMap + ">" + selectFrom
+                + t.where("condition") + "</select>");
+        s.put("selectCountByCondition", "<select id=\"selectCountByCondition\" resultType=\"java.lang.Long\">"
+                + "SELECT COUNT(*)" + from + t.where("condition") + "</select>");
+        s.put("selectPageByCondition", "<select id=\"selectPageByCondition\"" + resultMap + ">" + selectFrom
+                + t.where("condition") + " LIMIT #{offset}, #{limit}</select>");
+        s.put("selectPageAfter", "<select id=\"selectPageAfter\"" + resultMap + ">" + selectFrom
+                + t.where("condition", "<if test=\"lastId != null\"> AND " + t.idColumn + " &gt; #{lastId}</if>")
+                + " ORDER BY " + t.idColumn + " LIMIT #{limit}</select>");
+        s.put("selectByColumn", "<select id=\"selectByColumn\"" + resultMap + ">" + selectFrom
+                + " WHERE " + t.columnChoice() + "</select>");
+        s.put("selectOneByColumn", "<select id=\"selectOneByColumn\"" + resultMap + ">" + selectFrom
+                + " WHERE " + t.columnChoice() + " LIMIT 1</select>");
+        s.put("selectByColumns", "<select id=\"selectByColumns\"" + resultMap + ">" + selectFrom
+                + t.where("columns") + "</select>");
+        return s;
+    }
+
+    private static String toMapperXml(String namespace, Map<String, String> statements) {
+        StringBuilder xml = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" ")
+                .append("\"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">")
+                .append("<mapper namespace=\"").append(namespace).append("\">");
+        statements.values().forEach(xml::append);
+        return xml.append("</mapper>").toString();
+    }
+
+    /**
+     * 实体对应的表结构：表名、主键及按结果映射顺序排列的列
+     */
+    static final class EntityTable {
+        final String table;
+        final String idColumn;
+        final String idProperty;
+        final List<String> columns;
+        final List<String> properties;
+        final String columnList;
+
+        private EntityTable(String table, String idColumn, String idProperty,
+                            List<String> columns, List<String> properties) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.idProperty = idProperty;
+            this.columns = columns;
+            this.properties = properties;
+            this.columnList = String.join(", ", columns);
+        }
+
+        /**
+         * 从结果映射提取列，忽略关联和集合映射
+         */
+        static EntityTable of(String table, ResultMap resultMap) {
+            List<String> columns = new ArrayList<>();
+            List<String> properties = new ArrayList<>();
+            String idColumn = null;
+            String idProperty = null;
+            for (ResultMapping mapping : resultMap.getResultMappings()) {
+                if (mapping.getNestedResultMapId() != null || mapping.getNestedQueryId() != null
+                        || mapping.getColumn() == null || mapping.getProperty() == null) {
+                    continue;
+                }
+                if (idColumn == null && mapping.getFlags().contains(ResultFlag.ID)) {
+                    idColumn = mapping.getColumn();
+                    idProperty = mapping.getProperty();
+                }
+                columns.add(mapping.getColumn());
+                properties.add(mapping.getProperty());
+            }
+            if (idColumn == null) {
+                throw new IllegalStateException(resultMap.getId() + " 未定义主键映射");
+            }
+            return new EntityTable(table, idColumn, idProperty, columns, properties);
+        }
+
+        private String values(String prefix) {
+            StringJoiner joiner = new StringJoiner(", ");
+            properties.forEach(p -> joiner.add("#{" + prefix + p + "}"));
+            return joiner.toString();
+        }
+
+        /**
+         * 按主键更新，只更新非空字段
+         */
+        private String update(String prefix) {
+            StringBuilder sb = new StringBuilder("UPDATE ").append(table).append(" <set>");
+            for (int i = 0; i < columns.size(); i++) {
+                if (!columns.get(i).equals(idColumn)) {
+                    String p = prefix + properties.get(i);
+                    sb.append("<if test=\"").append(p).append(" != null\">")
+                            .append(columns.get(i)).append(" = #{").append(p).append("}, </if>");
+                }
+            }
+            return sb.append("</set> WHERE ").append(idColumn)
+                    .append(" = #{").append(prefix).append(idProperty).append("}").toString();
+        }
+
+        /**
+         * 条件Map中的键可以是属性名或列名，不属于该表的键由ConditionCheckingSqlSource拒绝
+         */
+        private String where(String param) {
+            return where(param, "");
+        }
+
+        /**
+         * @param extra 附加在条件之后的固定子句，须以AND开头
+         */
+        private String where(String param, String extra) {
+            StringBuilder sb = new StringBuilder("<where><if test=\"").append(param).append(" != null\">");
+            for (int i = 0; i < columns.size(); i++) {
+                String column = columns.get(i);
+                sb.append(condition(param, properties.get(i), column));
+                if (!column.equals(properties.get(i))) {
+                    sb.append(condition(param, column, column));
+                }
+            }
+            return sb.append("</if>").append(extra).append("</where>").toString();
+        }
+
+        private static String condition(String param, String key, String column) {
+            String expr = param + "['" + key + "']";
+            return "<if test=\"" + expr + " != null\"> AND " + column + " = #{" + param + "." + key + "}</if>";
+        }
+
+        /**
+         * 按字段名选择查询列，字段名须为该表的列名或属性名
+         */
+        private String columnChoice() {
+            StringBuilder sb = new StringBuilder("<choose>");
+            for (int i = 0; i < columns.size(); i++) {
+                sb.append("<when test='column == \"").append(columns.get(i))
+                        .append("\" or column == \"").append(properties.get(i)).append("\"'>")
+                        .append(columns.get(i)).append(" = #{value}</when>");
+            }
+            return sb.append("<otherwise>1 = 0</otherwise></choose>").toString();
+        }
+
+        private boolean hasKey(Object key) {
+            return properties.contains(key) || columns.contains(key);
+        }
+    }
+
+    /**
+     * 校验条件键后再生成SQL
+     * 拼写错误的条件若被忽略，查询会匹配整张表，因此不属于该表的键直接拒绝
+     */
+    static final class ConditionCheckingSqlSource implements SqlSource {
+        private final SqlSource delegate;
+        private final EntityTable table;
+        private final String param;
+
+        ConditionCheckingSqlSource(SqlSource delegate, EntityTable table, String param) {
+            this.delegate = delegate;
+            this.table = table;
+            this.param = param;
+        }
+
+        @Override
+        public BoundSql getBoundSql(Object parameterObject) {
+            if (parameterObject instanceof Map && ((Map<?, ?>) parameterObject).containsKey(param)) {
+                Object value = ((Map<?, ?>) parameterObject).get(param);
+                if (value instanceof Map) {
+                    ((Map<?, ?>) value).keySet().forEach(this::check);
+                } else if (value != null) {
+                    check(value);
+                }
+            }
+            return delegate.getBoundSql(parameterObject);
+        }
+
+        private void check(Object key) {
+            if (!table.hasKey(key)) {
+                throw new IllegalArgumentException(table.table + "表不存在字段：" + key);
+            }
+        }
+    }
+}
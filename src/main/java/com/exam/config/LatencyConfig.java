@@ -0,0 +1,58 @@
+package com.exam.config;
+
+import com.exam.service.impl.LatencyMetrics;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * 耗时统计配置
+ * 对全部ServiceImpl的公共方法和全部Mapper语句记录耗时，可通过exam.latency.enabled关闭
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "exam.latency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyConfig {
+
+    private static final String SERVICE_PACKAGE = "com.exam.service.impl.";
+
+    /**
+     * 服务方法耗时切面
+     * 注册为基础设施角色，由事务使用的自动代理一并织入，包在事务之外，耗时包含提交
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceLatencyAdvisor(LatencyMetrics latencyMetrics) {
+        MethodInterceptor interceptor = invocation -> {
+            String method = invocation.getMethod().getDeclaringClass() == Object.class ? null
+                    : invocation.getThis().getClass().getSimpleName() + "." + invocation.getMethod().getName();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invocation.proceed();
+                failed = false;
+                return result;
+            } finally {
+                if (method != null) {
+                    latencyMetrics.record(method, System.nanoTime() - start, failed);
+                }
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(clazz -> clazz.getName().startsWith(SERVICE_PACKAGE)
+                        && clazz.getName().endsWith("ServiceImpl")), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public MapperLatencyInterceptor mapperLatencyInterceptor(LatencyMetrics latencyMetrics) {
+        return new MapperLatencyInterceptor(latencyMetrics);
+    }
+}
@@ -17,6 +17,7 @@ public class ExamStudent {
     private Boolean retakeNeeded;        // 是否需要重考
     private Boolean disciplinary;        // 违纪标记
     private String teacherComment;       // 教师评语
+    private Boolean variantServed;       // 是否下发过打乱顺序的试卷
     
     // 关联信息
     private Exam exam;                   // 考试信息
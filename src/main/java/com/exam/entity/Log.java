@@ -17,6 +17,7 @@ public class Log {
     private String ipAddress;        // IP地址
     private String deviceInfo;       // 设备信息
     private String status;           // 操作状态
+    private String replayKey;        // 补写幂等键，溢出到本地文件时生成
     
     // 关联信息
     private User user;               // 用户信息
@@ -6,6 +6,7 @@ import java.util.Map;
 
 /**
  * 基础Mapper接口
+ * 各Mapper未在XML中定义的方法由BaseMapperStatementRegistrar在启动时按BaseResultMap生成
  * @param <T> 实体类型
  */
 public interface BaseMapper<T> {
@@ -105,6 +106,19 @@ public interface BaseMapper<T> {
         @Param("limit") Integer limit
     );
 
+    /**
+     * 按主键游标分页查询，返回主键大于lastId的记录，按主键升序
+     * @param condition 查询条件，可为空
+     * @param lastId 上一页最后一条记录的主键，首页传null
+     * @param limit 每页记录数
+     * @return 记录列表
+     */
+    List<T> selectPageAfter(
+        @Param("condition") Map<String, Object> condition,
+        @Param("lastId") Integer lastId,
+        @Param("limit") Integer limit
+    );
+
     /**
      * 根据字段查询
      * @param column 字段名
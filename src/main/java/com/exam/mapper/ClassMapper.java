@@ -4,6 +4,7 @@ import com.exam.entity.Class;
 import com.exam.entity.Student;
 import com.exam.entity.Exam;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
@@ -71,6 +72,17 @@ public interface ClassMapper extends BaseMapper<Class> {
         @Param("examId") Integer examId
     );
 
+    /**
+     * 按考试汇总班级成绩，一次查询返回班级全部考试的平均分和各分数段人数
+     * 分数段按成绩占试卷总分的百分比划分，与成绩直方图一致
+     * @param examIds 考试ID过滤，为空时返回班级全部考试
+     * @return 返回格式 [{exam_id, exam_name, avg_score, count_90, count_80, count_70, count_60, count_0}, ...]
+     */
+    List<Map<String, Object>> selectExamScoreSummary(
+        @Param("classId") Integer classId,
+        @Param("examIds") List<Integer> examIds
+    );
+
     /**
      * 查询班级考试日程
      */
@@ -95,4 +107,9 @@ public interface ClassMapper extends BaseMapper<Class> {
         @Param("classId") Integer classId,
         @Param("studentIds") List<Integer> studentIds
     );
+
+    /**
+     * 流式查询班级学生（服务端游标，需在事务内遍历）
+     */
+    Cursor<Student> streamClassStudents(@Param("classId") Integer classId);
 } 
\ No newline at end of file
@@ -41,6 +41,16 @@ public interface ExamStudentMapper extends BaseMapper<ExamStudent> {
      */
     int batchInsert(@Param("list") List<ExamStudent> list);
 
+    /**
+     * 标记考生已下发打乱顺序的试卷
+     */
+    int markVariantServed(@Param("examId") Integer examId, @Param("studentId") Integer studentId);
+
+    /**
+     * 查询考试中下发过打乱顺序试卷的考生ID
+     */
+    List<Integer> selectVariantStudentIds(@Param("examId") Integer examId);
+
     /**
      * 更新学生考试开始和提交时间
      */
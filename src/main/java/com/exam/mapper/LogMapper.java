@@ -2,6 +2,8 @@ package com.exam.mapper;
 
 import com.exam.entity.Log;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
@@ -90,6 +92,39 @@ public interface LogMapper extends BaseMapper<Log> {
      */
     int deleteExpiredLogs(@Param("expireTime") Date expireTime);
 
+    /**
+     * 查询日志表分区，按分区顺序排列
+     * @return 返回格式 [{partition_name, description}, ...]，表未分区时为空
+     */
+    List<Map<String, Object>> selectPartitions();
+
+    /**
+     * 从末尾的p_future分区一次拆分出多个新分区
+     * @param partitions 分区名到分区上界（yyyy-MM-dd），按上界升序，由调用方生成
+     */
+    int addPartitions(@Param("partitions") Map<String, String> partitions);
+
+    /**
+     * 查询最早的日志时间，用于首次拆分p_future时确定第一个分区
+     */
+    Date selectEarliestCreatedTime();
+
+    /**
+     * 统计分区内的日志行数
+     */
+    int countPartitionRows(@Param("name") String name);
+
+    /**
+     * 将分区数据复制到log_archive
+     * @return 复制的行数
+     */
+    int archivePartition(@Param("name") String name);
+
+    /**
+     * 删除整个分区
+     */
+    int dropPartition(@Param("name") String name);
+
     /**
      * 批量清理日志
      */
@@ -104,7 +139,7 @@ public interface LogMapper extends BaseMapper<Log> {
     );
 
     /**
-     * 统计操作响应时间
+     * 统计时间范围内各方法的响应时间（微秒），数据来自method_latency快照
      */
     List<Map<String, Object>> analyzeResponseTime(
         @Param("startTime") Date startTime,
@@ -188,6 +223,14 @@ public interface LogMapper extends BaseMapper<Log> {
         @Param("endTime") Date endTime
     );
 
+    /**
+     * 统计每日异常次数
+     */
+    List<Map<String, Object>> countDailyExceptions(
+        @Param("startTime") Date startTime,
+        @Param("endTime") Date endTime
+    );
+
     /**
      * 查询高频操作用户
      */
@@ -197,4 +240,49 @@ public interface LogMapper extends BaseMapper<Log> {
      * 查询可疑操作日志
      */
     List<Log> selectSuspiciousLogs();
-} 
\ No newline at end of file
+
+    /**
+     * 流式查询时间范围内的日志（服务端游标，需在事务内遍历）
+     * @param status 操作状态，为空时不限
+     */
+    Cursor<Log> streamByTimeRange(
+        @Param("startTime") Date startTime,
+        @Param("endTime") Date endTime,
+        @Param("status") String status
+    );
+
+    /**
+     * 按小时和统计维度汇总日志，用于启动时回填内存汇总（服务端游标）
+     * @param startTime 只汇总不早于该时间的日志
+     * @param endTime 只汇总早于该时间的日志
+     * @return 每行包含stat_hour（yyyy-MM-dd HH:00:00）、action_type、status、user_id、ip_address、object_type、op_count
+     */
+    Cursor<Map<String, Object>> streamRollupCounts(@Param("startTime") Date startTime, @Param("endTime") Date endTime);
+
+    /**
+     * 查询回填时间范围内仍存在的日志ID，条件与streamRollupCounts一致，用于回填时按日志ID去重
+     */
+    List<Integer> selectExistingLogIds(@Param("startTime") Date startTime, @Param("endTime") Date endTime,
+                                       @Param("ids") Collection<Integer> ids);
+
+    /**
+     * 查询时间范围内已入库的补写幂等键，补写本地文件时跳过上次已写入的日志
+     */
+    List<String> selectExistingReplayKeys(@Param("startTime") Date startTime, @Param("endTime") Date endTime,
+                                          @Param("keys") Collection<String> keys);
+
+    /**
+     * 累加每分钟汇总，行格式与log_rollup_minute列一致
+     */
+    int upsertRollupMinute(@Param("rows") List<Map<String, Object>> rows);
+
+    /**
+     * 累加每日汇总，行格式与log_rollup_day列一致
+     */
+    int upsertRollupDay(@Param("rows") List<Map<String, Object>> rows);
+
+    /**
+     * 写入方法耗时快照，行格式与method_latency列一致
+     */
+    int insertLatencySnapshots(@Param("rows") List<Map<String, Object>> rows);
+}
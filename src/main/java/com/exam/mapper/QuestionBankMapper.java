@@ -3,6 +3,7 @@ package com.exam.mapper;
 import com.exam.entity.QuestionBank;
 import com.exam.entity.Question;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;
@@ -107,4 +108,9 @@ public interface QuestionBankMapper extends BaseMapper<QuestionBank> {
      * 查询热门题库
      */
     List<QuestionBank> selectHotBanks(@Param("limit") Integer limit);
+
+    /**
+     * 流式查询题库题目及选项（服务端游标，需在事务内遍历）
+     */
+    Cursor<Question> streamQuestionsWithOptions(@Param("qbId") Integer qbId);
 } 
\ No newline at end of file
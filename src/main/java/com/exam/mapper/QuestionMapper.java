@@ -3,7 +3,9 @@ package com.exam.mapper;
 import com.exam.entity.Question;
 import com.exam.entity.QuestionOption;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -123,4 +125,42 @@ public interface QuestionMapper extends BaseMapper<Question> {
         @Param("questionIds") List<Integer> questionIds,
         @Param("difficulties") List<BigDecimal> difficulties
     );
-} 
\ No newline at end of file
+
+    /**
+     * 流式查询学科的组卷题目池：题目ID、题型、难度及被试卷引用的次数，不含未设置难度的题目
+     */
+    Cursor<Map<String, Object>> streamPaperPool(@Param("subjectId") Integer subjectId);
+
+    /**
+     * 流式查询全文索引的题目及选项，按题目ID升序
+     * @param afterId 只查询ID大于该值的题目，为null时查询全部
+     */
+    Cursor<Question> streamSearchDocuments(@Param("afterId") Integer afterId);
+
+    /**
+     * 查询全文索引的题目及选项
+     */
+    List<Question> selectSearchDocuments(@Param("questionIds") Collection<Integer> questionIds);
+
+    /**
+     * 查询被试卷或答题记录引用的题目ID
+     */
+    List<Integer> selectReferencedIds(@Param("questionIds") Collection<Integer> questionIds);
+
+    /**
+     * 查询包含这些题目的试卷ID
+     */
+    List<Integer> selectPaperIdsByQuestionIds(@Param("questionIds") Collection<Integer> questionIds);
+
+    /**
+     * 按内容模糊查询并过滤，全文索引不可用时使用
+     */
+    List<Question> searchByContent(
+        @Param("content") String content,
+        @Param("qbId") Integer qbId,
+        @Param("type") Integer type,
+        @Param("minDifficulty") BigDecimal minDifficulty,
+        @Param("maxDifficulty") BigDecimal maxDifficulty,
+        @Param("limit") Integer limit
+    );
+}
@@ -13,6 +13,11 @@ public interface QuestionOptionMapper extends BaseMapper<QuestionOption> {
      */
     List<QuestionOption> selectByQuestionId(@Param("questionId") Integer questionId);
 
+    /**
+     * 根据试卷ID查询试卷全部题目的选项列表
+     */
+    List<QuestionOption> selectByPaperId(@Param("paperId") Integer paperId);
+
     /**
      * 批量插入选项
      */
@@ -23,6 +28,11 @@ public interface QuestionOptionMapper extends BaseMapper<QuestionOption> {
      */
     int deleteByQuestionId(@Param("questionId") Integer questionId);
 
+    /**
+     * 批量删除题目的选项
+     */
+    int deleteByQuestionIds(@Param("questionIds") List<Integer> questionIds);
+
     /**
      * 批量更新选项
      */
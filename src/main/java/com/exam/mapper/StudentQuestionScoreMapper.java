@@ -29,6 +29,27 @@ public interface StudentQuestionScoreMapper extends BaseMapper<StudentQuestionSc
         @Param("studentId") Integer studentId
     );
 
+    /**
+     * 根据考试ID查询所有题目得分记录（按学生分组排序）
+     */
+    List<StudentQuestionScore> selectByExamId(@Param("examId") Integer examId);
+
+    /**
+     * 查询某场考试中某道题的全部得分
+     */
+    List<BigDecimal> selectScoresByExamAndQuestion(
+        @Param("examId") Integer examId,
+        @Param("questionId") Integer questionId
+    );
+
+    /**
+     * 查询某场考试中某道题已批改的得分，未批改的记录不返回
+     */
+    List<BigDecimal> selectGradedScoresByExamAndQuestion(
+        @Param("examId") Integer examId,
+        @Param("questionId") Integer questionId
+    );
+
     /**
      * 根据题目ID查询所有学生的得分列表
      */
@@ -2,6 +2,7 @@ package com.exam.mapper;
 
 import com.exam.entity.StudentScore;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +51,11 @@ public interface StudentScoreMapper extends BaseMapper<StudentScore> {
      */
     int batchUpdateScores(@Param("scores") List<StudentScore> scores);
 
+    /**
+     * 批量写入成绩，已有成绩时覆盖，依赖(student_id, exam_id)唯一键
+     */
+    int batchUpsertScores(@Param("scores") List<StudentScore> scores);
+
     /**
      * 查询学生成绩排名
      */
@@ -91,6 +97,16 @@ public interface StudentScoreMapper extends BaseMapper<StudentScore> {
         @Param("studentId") Integer studentId
     );
 
+    /**
+     * 汇总学生的考试成绩
+     * @param academicTerm 学期（yyyy-M，按试卷学年学期的年月匹配），为null时汇总全部考试
+     * @return 包含total_exams、avg_score、highest_score、lowest_score、pass_rate（及格率百分比）
+     */
+    Map<String, Object> selectScoreSummary(
+        @Param("studentId") Integer studentId,
+        @Param("academicTerm") String academicTerm
+    );
+
     /**
      * 查询成绩分布
      */
@@ -123,5 +139,8 @@ public interface StudentScoreMapper extends BaseMapper<StudentScore> {
         @Param("subjectId") Integer subjectId
     );
 
-
+    /**
+     * 流式查询考试全部成绩，按成绩降序（服务端游标，需在事务内遍历）
+     */
+    Cursor<StudentScore> streamExamScores(@Param("examId") Integer examId);
 } 
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.exam.mapper;
 
 import com.exam.entity.User;
 import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Date;
 
@@ -20,6 +21,11 @@ public interface UserMapper extends BaseMapper<User> {
      */
     List<User> selectByRole(@Param("role") Integer role);
 
+    /**
+     * 根据用户ID批量查询用户
+     */
+    List<User> selectByIds(@Param("userIds") Collection<Integer> userIds);
+
     /**
      * 更新用户状态
      */
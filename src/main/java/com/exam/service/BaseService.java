@@ -1,5 +1,6 @@
 package com.exam.service;
 
+import com.exam.common.CursorPage;
 import java.util.List;
 import java.util.Map;
 
@@ -72,4 +73,12 @@ public interface BaseService<T> {
      * 条件分页查询
      */
     List<T> selectPageByCondition(Map<String, Object> condition, Integer pageNum, Integer pageSize);
+
+    /**
+     * 游标分页查询，按主键顺序翻页，每页开销与页码无关
+     * @param cursor 上一页返回的游标，首页传null
+     * @param pageSize 每页记录数
+     * @param condition 查询条件，可为空
+     */
+    CursorPage<T> selectPageAfter(String cursor, Integer pageSize, Map<String, Object> condition);
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.exam.service;
 import com.exam.entity.Class;
 import com.exam.entity.Student;
 import com.exam.entity.Exam;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
@@ -104,6 +105,14 @@ public interface ClassService extends BaseService<Class> {
      * @return 统计信息
      */
     Map<String, Object> getClassStatistics(Integer classId);
+
+    /**
+     * 批量获取班级各次考试的平均分和成绩分布，分布按成绩占试卷总分的百分比分段
+     * @param classId 班级ID
+     * @param examIds 考试ID过滤，为空时返回班级全部考试
+     * @return 每项包含examId、examName、avgScore、distribution
+     */
+    List<Map<String, Object>> getClassExamAnalytics(Integer classId, List<Integer> examIds);
     
     /**
      * 导出班级学生名单
@@ -119,4 +128,11 @@ public interface ClassService extends BaseService<Class> {
      * @return 导入结果
      */
     int importStudents(Integer classId, List<Student> students);
+
+    /**
+     * 流式导出班级学生名单为CSV
+     * @param out 输出流，由调用方关闭
+     * @return 导出行数
+     */
+    long exportStudentList(Integer classId, OutputStream out);
 } 
\ No newline at end of file
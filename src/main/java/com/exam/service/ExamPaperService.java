@@ -121,4 +121,15 @@ public interface ExamPaperService extends BaseService<ExamPaper> {
      */
     ExamPaper generatePaper(Integer subjectId, String paperName, 
                           BigDecimal difficulty, Map<Integer, Integer> questionTypeCount);
+
+    /**
+     * 按总分自动组卷
+     * 各题分值按题型默认分值等比例缩放到指定总分，按分值加权的平均难度不超出目标难度的容差，
+     * 优先选用被试卷引用次数较少的题目
+     * @param difficulty 目标平均难度，为null时不限制难度
+     * @param totalScore 试卷总分，须为0.5的整数倍；为null时按题型默认分值
+     * @return 组卷结果；题目数量不足或无法满足难度要求时返回null
+     */
+    ExamPaper generatePaper(Integer subjectId, String paperName, BigDecimal difficulty,
+                          Map<Integer, Integer> questionTypeCount, BigDecimal totalScore);
 } 
\ No newline at end of file
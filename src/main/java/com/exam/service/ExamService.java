@@ -119,4 +119,17 @@ public interface ExamService extends BaseService<Exam> {
      * @return 进行状态
      */
     Map<String, Object> getExamProgress(Integer examId);
+    
+    /**
+     * 考生申请进入考试
+     * @param examId 考试ID
+     * @param studentId 学生ID
+     * @return admitted为是否已入场；已入场时questions为试卷题目，未入场时wait_ms为建议等待时长
+     */
+    Map<String, Object> enterExam(Integer examId, Integer studentId);
+    
+    /**
+     * 获取各考试入场排队统计
+     */
+    Map<String, Object> getAdmissionStatistics();
 } 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.exam.service;
+
+import java.util.Map;
+
+/**
+ * 自动批改服务接口
+ */
+public interface GradingService {
+
+    /**
+     * 自动批改考试中的客观题（单选、多选、判断）及与标准答案一致的填空题，并汇总写入学生总成绩
+     * @param examId 考试ID
+     * @return 批改统计，包含学生数、批改题目数、耗时等
+     */
+    Map<String, Object> gradeObjectiveQuestions(Integer examId);
+}
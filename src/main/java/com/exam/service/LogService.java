@@ -1,6 +1,7 @@
 package com.exam.service;
 
 import com.exam.entity.Log;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
@@ -74,6 +75,16 @@ public interface LogService extends BaseService<Log> {
      * 查询高频操作用户
      */
     List<Map<String, Object>> getFrequentUsers(Integer limit);
+
+    /**
+     * 分析用户各时段的操作分布
+     */
+    List<Map<String, Object>> analyzeUserBehavior(Integer userId, Date startTime, Date endTime);
+
+    /**
+     * 按日期统计系统操作
+     */
+    List<Map<String, Object>> getSystemOperations(Date startTime, Date endTime);
     
     /**
      * 查询可疑操作日志
@@ -85,7 +96,7 @@ public interface LogService extends BaseService<Log> {
      * @param userId 用户ID
      * @param ipAddress IP地址
      * @param deviceInfo 设备信息
-     * @return 记录结果
+     * @return 记录结果，日志异步写入，已接收即返回1
      */
     int logLogin(Integer userId, String ipAddress, String deviceInfo);
     
@@ -95,17 +106,35 @@ public interface LogService extends BaseService<Log> {
      * @param operationType 操作类型
      * @param description 操作描述
      * @param ipAddress IP地址
-     * @return 记录结果
+     * @return 记录结果，日志异步写入，已接收即返回1
      */
     int logOperation(Integer userId, Integer operationType, String description, String ipAddress);
     
     /**
      * 记录系统异常日志
      * @param error 异常信息
-     * @return 记录结果
+     * @return 记录结果，日志异步写入，已接收即返回1
      */
     int logException(String error);
 
+    /**
+     * 查询审计日志写入队列状态
+     */
+    Map<String, Object> getAuditLogStatistics();
+
+    /**
+     * 查询启动以来各服务方法和Mapper语句的耗时统计
+     * @return 每项包含method、call_count、error_count及以毫秒计的avg/min/max/p50/p99/p999
+     */
+    List<Map<String, Object>> getLatencyStatistics();
+
+    /**
+     * 统计时间范围内各方法的响应时间
+     * @return 每项包含method_name、call_count、error_count及以微秒计的响应时间，
+     *         数据来自exam.latency.persist开启后定期写入的快照
+     */
+    List<Map<String, Object>> analyzeResponseTime(Date startTime, Date endTime);
+
     /**
      * 清理过期日志
      * @param days 保留天数
@@ -128,4 +157,18 @@ public interface LogService extends BaseService<Log> {
      * @return 日志数据
      */
     Map<String, Object> exportExceptionLogs(Date startTime, Date endTime);
+
+    /**
+     * 流式导出时间范围内的操作日志为CSV
+     * @param out 输出流，由调用方关闭
+     * @return 导出行数
+     */
+    long exportOperationLogs(Date startTime, Date endTime, OutputStream out);
+
+    /**
+     * 流式导出时间范围内的异常日志为CSV
+     * @param out 输出流，由调用方关闭
+     * @return 导出行数
+     */
+    long exportExceptionLogs(Date startTime, Date endTime, OutputStream out);
 } 
\ No newline at end of file
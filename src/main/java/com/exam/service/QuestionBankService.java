@@ -2,6 +2,7 @@ package com.exam.service;
 
 import com.exam.entity.QuestionBank;
 import com.exam.entity.Question;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;
@@ -111,4 +112,20 @@ public interface QuestionBankService extends BaseService<QuestionBank> {
      * @return 导出数据
      */
     Map<String, Object> exportBank(Integer qbId);
+
+    /**
+     * 流式导出题库题目及选项为NDJSON，每行一道题
+     * @param out 输出流，由调用方关闭
+     * @return 导出题目数
+     */
+    long exportBank(Integer qbId, OutputStream out);
+
+    /**
+     * 题目查重
+     * 按题目ID顺序比较，与更早的同题型题目近似重复的题目视为重复题
+     * @param qbId 题库ID，为null时检查全部题目
+     * @param remove 是否删除未被试卷和答题记录引用的重复题
+     * @return duplicates为重复题列表（questionId、duplicateOf、distance），removed为删除的题目数
+     */
+    Map<String, Object> deduplicate(Integer qbId, boolean remove);
 } 
\ No newline at end of file
@@ -27,9 +27,21 @@ public interface QuestionService extends BaseService<Question> {
     List<Question> getByDifficultyRange(BigDecimal minDifficulty, BigDecimal maxDifficulty);
     
     /**
-     * 根据题目内容模糊查询
+     * 根据题目内容查询，按相关度排序
      */
     List<Question> getByContent(String content);
+
+    /**
+     * 按题目和选项内容全文检索
+     * 中文按相邻两字匹配，全部字词命中的题目按相关度排序
+     * @param qbId 题库ID，为null时不限
+     * @param type 题型，为null时不限
+     * @param minDifficulty 最低难度，为null时不限
+     * @param maxDifficulty 最高难度，为null时不限
+     * @param limit 最多返回的题目数，为null时按exam.search.max-results
+     */
+    List<Question> searchQuestions(String keyword, Integer qbId, Integer type,
+                                   BigDecimal minDifficulty, BigDecimal maxDifficulty, Integer limit);
     
     /**
      * 批量查询题目
@@ -113,10 +125,23 @@ public interface QuestionService extends BaseService<Question> {
     
     /**
      * 批量导入题目
+     * 与所属题库已有题目及同批题目近似重复的题目按exam.dedup.import-action跳过或只记录
      * @param questions 题目列表
      * @return 导入结果
      */
     int batchImport(List<Question> questions);
+
+    /**
+     * 导入前检查题目是否与所属题库的已有题目或同批题目近似重复
+     * @return 重复的题目：index为列表下标，duplicateOf为重复的已有题目ID，
+     *         duplicateOfIndex为重复的同批题目下标，distance为指纹差异位数
+     */
+    List<Map<String, Object>> checkImportDuplicates(List<Question> questions);
+
+    /**
+     * 获取题库题目、试卷题目、题目选项读缓存的命中统计
+     */
+    Map<String, Object> getReadCacheStatistics();
     
 
 } 
\ No newline at end of file
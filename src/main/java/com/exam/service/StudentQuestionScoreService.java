@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 学生题目得分服务接口
@@ -38,6 +39,26 @@ public interface StudentQuestionScoreService extends BaseService<StudentQuestion
      */
     int batchInsert(List<StudentQuestionScore> list);
     
+    /**
+     * 异步提交学生答题记录
+     * 记录进入提交队列，与其他学生的提交合并为批量写入
+     * @param list 题目得分记录列表
+     * @return 记录提交到数据库后完成，值为写入行数
+     */
+    CompletableFuture<Integer> submitAnswers(List<StudentQuestionScore> list);
+    
+    /**
+     * 刷新指定考试的待写入答题记录
+     * @param examId 考试ID
+     * @return 此前提交的记录全部写入后完成，值为该考试已写入的记录数
+     */
+    CompletableFuture<Integer> flushSubmissions(Integer examId);
+    
+    /**
+     * 查询答题提交队列状态
+     */
+    Map<String, Object> getSubmissionStatistics();
+    
     /**
      * 更新题目得分和批改状态
      */
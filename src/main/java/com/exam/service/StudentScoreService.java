@@ -1,6 +1,7 @@
 package com.exam.service;
 
 import com.exam.entity.StudentScore;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;
@@ -50,6 +51,16 @@ public interface StudentScoreService extends BaseService<StudentScore> {
      * 查询学生成绩排名
      */
     Integer getStudentRank(Integer examId, Integer studentId);
+
+    /**
+     * 查询学生成绩百分位，即成绩低于该学生的人数占比（0-100）
+     */
+    BigDecimal getStudentPercentile(Integer examId, Integer studentId);
+
+    /**
+     * 查询考试前N名，每项包含student_id、score、rank
+     */
+    List<Map<String, Object>> getTopRanking(Integer examId, Integer limit);
     
     /**
      * 查询班级成绩排名
@@ -76,6 +87,16 @@ public interface StudentScoreService extends BaseService<StudentScore> {
      * 查询成绩分布
      */
     List<Map<String, Object>> getScoreDistribution(Integer examId, Integer classId);
+
+    /**
+     * 按固定分段宽度查询成绩分布，如10分一档、5分一档
+     */
+    List<Map<String, Object>> getScoreDistribution(Integer examId, Integer classId, Integer width);
+
+    /**
+     * 按自定义分段下界查询成绩分布，下界须升序
+     */
+    List<Map<String, Object>> getScoreDistribution(Integer examId, Integer classId, int[] lowerBounds);
     
     /**
      * 查询优秀学生名单
@@ -108,4 +129,11 @@ public interface StudentScoreService extends BaseService<StudentScore> {
      * @return 导入结果
      */
     int importScores(List<StudentScore> scores);
+
+    /**
+     * 流式导出考试全部学生成绩为CSV，按成绩降序并附排名
+     * @param out 输出流，由调用方关闭
+     * @return 导出行数
+     */
+    long exportExamScores(Integer examId, OutputStream out);
 } 
\ No newline at end of file
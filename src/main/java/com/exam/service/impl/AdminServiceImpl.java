@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 管理员服务实现类
@@ -19,6 +20,9 @@ public class AdminServiceImpl extends BaseServiceImpl<Admin, AdminMapper> implem
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private TokenKeyRing tokenKeyRing;
+
     @Override
     public Admin getByUserId(Integer userId) {
         return baseMapper.selectByUserId(userId);
@@ -39,6 +43,35 @@ public class AdminServiceImpl extends BaseServiceImpl<Admin, AdminMapper> implem
         return baseMapper.batchUpdateOther(adminIds, other);
     }
 
+    @Override
+    public int updateById(Admin admin) {
+        // token中携带管理员ID，变更后吊销此前签发的token
+        int rows = baseMapper.updateById(admin);
+        tokenKeyRing.revokeAdmins(Collections.singletonList(admin.getAdminId()));
+        return rows;
+    }
+
+    @Override
+    public int batchUpdate(List<Admin> list) {
+        int rows = baseMapper.batchUpdate(list);
+        tokenKeyRing.revokeAdmins(list.stream().map(Admin::getAdminId).collect(Collectors.toList()));
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        int rows = baseMapper.deleteById(id);
+        tokenKeyRing.revokeAdmins(Collections.singletonList(id));
+        return rows;
+    }
+
+    @Override
+    public int batchDelete(List<Integer> ids) {
+        int rows = baseMapper.batchDelete(ids);
+        tokenKeyRing.revokeAdmins(ids);
+        return rows;
+    }
+
     @Override
     public List<Map<String, Object>> getAdminLogs(Integer adminId, Date startTime, Date endTime) {
         return baseMapper.selectAdminLogs(adminId, startTime, endTime);
@@ -0,0 +1,263 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.entity.QuestionOption;
+import com.exam.mapper.ExamPaperMapper;
+import com.exam.mapper.QuestionOptionMapper;
+import com.exam.utils.AnswerUtils;
+import com.exam.utils.PaperVariant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 试卷答案缓存
+ * 按试卷ID缓存预编译后的答案（题型、分值、正确选项位掩码、规范化填空答案），首次使用时加载
+ * 试卷题目分值或状态变更时失效
+ */
+@Component
+public class AnswerKeyCache {
+
+    @Autowired
+    private ExamPaperMapper examPaperMapper;
+
+    @Autowired
+    private QuestionOptionMapper questionOptionMapper;
+
+    private final Map<Integer, PaperAnswerKey> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 获取试卷答案，未缓存时从数据库加载
+     */
+    public PaperAnswerKey get(Integer paperId) {
+        return cache.computeIfAbsent(paperId, this::load);
+    }
+
+    /**
+     * 使试卷答案失效
+     * 处于事务中时提交后再失效一次，避免提交前被并发请求以旧数据重新加载
+     */
+    public void invalidate(Integer paperId) {
+        if (paperId == null) {
+            return;
+        }
+        TransactionHooks.invalidate(() -> cache.remove(paperId));
+    }
+
+    /**
+     * 批量使试卷答案失效
+     */
+    public void invalidateAll(Collection<Integer> paperIds) {
+        if (paperIds != null) {
+            paperIds.forEach(this::invalidate);
+        }
+    }
+
+    /**
+     * 当前缓存的试卷数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private PaperAnswerKey load(Integer paperId) {
+        Map<Integer, List<QuestionOption>> optionsByQuestion = new HashMap<>();
+        for (QuestionOption option : questionOptionMapper.selectByPaperId(paperId)) {
+            optionsByQuestion.computeIfAbsent(option.getQuestionId(), k -> new ArrayList<>()).add(option);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(examPaperMapper.selectPaperQuestionsWithScore(paperId));
+        rows.sort(Comparator.comparingInt(row -> ((Number) row.get("question_id")).intValue()));
+
+        int n = rows.size();
+        int[] questionIds = new int[n];
+        byte[] types = new byte[n];
+        int[] maxScores = new int[n];
+        int[] correctMasks = new int[n];
+        byte[] optionCounts = new byte[n];
+        byte[] judgeAnswers = new byte[n];
+        String[] fillAnswers = new String[n];
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> row = rows.get(i);
+            questionIds[i] = ((Number) row.get("question_id")).intValue();
+            types[i] = ((Number) row.get("type")).byteValue();
+            Object questionScore = row.get("question_score");
+            maxScores[i] = questionScore == null ? 0 : new BigDecimal(questionScore.toString())
+                    .setScale(PaperAnswerKey.SCORE_SCALE, RoundingMode.HALF_UP).unscaledValue().intValue();
+            String answer = (String) row.get("answer");
+
+            // 优先使用选项表中的正确标记，未标记时回退到题目答案
+            List<QuestionOption> options = optionsByQuestion.getOrDefault(questionIds[i], Collections.emptyList());
+            optionCounts[i] = (byte) Math.min(options.size(), AnswerUtils.MAX_OPTIONS);
+            for (int j = 0; j < options.size() && j < AnswerUtils.MAX_OPTIONS; j++) {
+                if (Boolean.TRUE.equals(options.get(j).getIsCorrect())) {
+                    correctMasks[i] |= 1 << j;
+                }
+            }
+            judgeAnswers[i] = PaperAnswerKey.JUDGE_UNKNOWN;
+            if (types[i] == PaperAnswerKey.TYPE_JUDGE) {
+                Boolean judge = AnswerUtils.parseJudge(answer);
+                if (judge != null) {
+                    judgeAnswers[i] = judge ? PaperAnswerKey.JUDGE_TRUE : PaperAnswerKey.JUDGE_FALSE;
+                }
+            } else if (types[i] == PaperAnswerKey.TYPE_FILL) {
+                fillAnswers[i] = AnswerUtils.normalizeFill(answer);
+            } else if (correctMasks[i] == 0 && types[i] < PaperAnswerKey.TYPE_JUDGE) {
+                correctMasks[i] = AnswerUtils.parseChoiceMask(answer);
+            }
+        }
+        return new PaperAnswerKey(paperId, questionIds, types, maxScores, correctMasks, optionCounts,
+                judgeAnswers, fillAnswers);
+    }
+
+    /**
+     * 预编译的试卷答案，创建后不可变，按题目ID升序存储
+     */
+    public static final class PaperAnswerKey {
+        public static final int TYPE_SINGLE = 0;
+        public static final int TYPE_MULTIPLE = 1;
+        public static final int TYPE_JUDGE = 2;
+        public static final int TYPE_FILL = 3;
+
+        /** 分值以0.01分为单位存储，与question_score的DECIMAL(5,2)一致 */
+        static final int SCORE_SCALE = 2;
+
+        static final byte JUDGE_UNKNOWN = -1;
+        static final byte JUDGE_FALSE = 0;
+        static final byte JUDGE_TRUE = 1;
+
+        private final Integer paperId;
+        private final int[] questionIds;
+        private final byte[] types;
+        private final int[] maxScores;
+        private final int[] correctMasks;
+        private final byte[] optionCounts;
+        private final byte[] judgeAnswers;
+        private final String[] fillAnswers;
+
+        PaperAnswerKey(Integer paperId, int[] questionIds, byte[] types, int[] maxScores,
+                       int[] correctMasks, byte[] optionCounts, byte[] judgeAnswers, String[] fillAnswers) {
+            this.paperId = paperId;
+            this.questionIds = questionIds;
+            this.types = types;
+            this.maxScores = maxScores;
+            this.correctMasks = correctMasks;
+            this.optionCounts = optionCounts;
+            this.judgeAnswers = judgeAnswers;
+            this.fillAnswers = fillAnswers;
+        }
+
+        public Integer getPaperId() {
+            return paperId;
+        }
+
+        /**
+         * 试卷题目数
+         */
+        public int size() {
+            return questionIds.length;
+        }
+
+        /**
+         * 查找题目下标
+         * @return 题目在试卷中的下标，不在试卷中时返回负数
+         */
+        public int indexOf(Integer questionId) {
+            return questionId == null ? -1 : Arrays.binarySearch(questionIds, questionId);
+        }
+
+        public int questionId(int index) {
+            return questionIds[index];
+        }
+
+        public int type(int index) {
+            return types[index];
+        }
+
+        /**
+         * 选项数，无选项的题目为0
+         */
+        public int optionCount(int index) {
+            return optionCounts[index];
+        }
+
+        public BigDecimal maxScore(int index) {
+            return BigDecimal.valueOf(maxScores[index], SCORE_SCALE);
+        }
+
+        /**
+         * 试卷总分
+         */
+        public BigDecimal totalScore() {
+            long total = 0;
+            for (int maxScore : maxScores) {
+                total += maxScore;
+            }
+            return BigDecimal.valueOf(total, SCORE_SCALE);
+        }
+
+        /**
+         * 得分是否为满分
+         */
+        public boolean isFullScore(int index, BigDecimal score) {
+            return score != null && score.compareTo(maxScore(index)) == 0;
+        }
+
+        /**
+         * 计算单条作答得分
+         * 单选、多选、判断题全对得满分否则0分；填空题与规范化答案一致得满分，否则留待人工批改
+         * @return 得分；题目不在试卷中、非客观题或答案无法判定时返回null
+         */
+        public BigDecimal grade(Integer questionId, String answer) {
+            return grade(questionId, answer, null);
+        }
+
+        /**
+         * 计算考生试卷变体中的作答得分，单选、多选题的作答按变体种子还原为原始选项后比较
+         * @param variantSeed 考生的变体种子，为null时作答即为原始选项
+         */
+        public BigDecimal grade(Integer questionId, String answer, Long variantSeed) {
+            int index = indexOf(questionId);
+            if (index < 0) {
+                return null;
+            }
+            boolean correct;
+            switch (types[index]) {
+                case TYPE_SINGLE:
+                case TYPE_MULTIPLE:
+                    if (correctMasks[index] == 0) {
+                        return null;
+                    }
+                    int mask = AnswerUtils.parseChoiceMask(answer);
+                    if (variantSeed != null && optionCounts[index] > 1) {
+                        mask = PaperVariant.toCanonicalMask(variantSeed, questionId, optionCounts[index], mask);
+                    }
+                    correct = correctMasks[index] == mask;
+                    break;
+                case TYPE_JUDGE:
+                    if (correctMasks[index] != 0) {
+                        correct = correctMasks[index] == AnswerUtils.parseChoiceMask(answer);
+                    } else if (judgeAnswers[index] != JUDGE_UNKNOWN) {
+                        Boolean judge = AnswerUtils.parseJudge(answer);
+                        correct = judge != null && judge == (judgeAnswers[index] == JUDGE_TRUE);
+                    } else {
+                        return null;
+                    }
+                    break;
+                case TYPE_FILL:
+                    if (fillAnswers[index] == null || !fillAnswers[index].equals(AnswerUtils.normalizeFill(answer))) {
+                        return null;
+                    }
+                    correct = true;
+                    break;
+                default:
+                    return null;
+            }
+            return correct ? maxScore(index) : BigDecimal.ZERO.setScale(SCORE_SCALE);
+        }
+    }
+}
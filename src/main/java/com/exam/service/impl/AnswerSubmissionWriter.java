@@ -0,0 +1,257 @@
+package com.exam.service.impl;
+
+import com.exam.common.ServiceException;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.mapper.StudentQuestionScoreMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 答题提交写入器
+ * 将各学生提交的答题记录放入有界队列，由单个写线程合并为大批量JDBC批处理后组提交；
+ * 整批失败时逐个提交重试，只有出错的提交失败
+ */
+@Slf4j
+@Component
+public class AnswerSubmissionWriter {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    /** 队列容量（按提交次数计） */
+    @Value("${exam.submission.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /** 单次组提交的最大记录数 */
+    @Value("${exam.submission.batch-size:2000}")
+    private int batchSize;
+
+    /** 组提交等待合并的最长时间（毫秒） */
+    @Value("${exam.submission.linger-ms:20}")
+    private long lingerMs;
+
+    /** 队列满时提交方的最长等待时间（毫秒） */
+    @Value("${exam.submission.offer-timeout-ms:3000}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<Submission> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final LongAdder committedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder committedBatches = new LongAdder();
+    private final Map<Integer, LongAdder> examCommittedRows = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runLoop, "answer-submission-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 写线程最多100ms后感知关闭标记，排空队列后退出
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交一批答题记录
+     * 队列已满时最多等待offerTimeoutMs，仍无空间则拒绝，由调用方稍后重试
+     * @param records 已校验的答题记录
+     * @return 记录写入数据库并提交后完成，值为写入行数
+     */
+    public CompletableFuture<Integer> submit(List<StudentQuestionScore> records) {
+        Submission submission = new Submission(null, new ArrayList<>(records));
+        enqueue(submission);
+        return submission.future;
+    }
+
+    /**
+     * 请求刷新指定考试的答题记录
+     * 在此之前入队的所有记录提交后完成
+     * @param examId 考试ID
+     * @return 值为该考试累计已提交的记录数
+     */
+    public CompletableFuture<Integer> flush(Integer examId) {
+        Submission marker = new Submission(examId, Collections.emptyList());
+        enqueue(marker);
+        return marker.future;
+    }
+
+    /**
+     * 获取写入器运行状态
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("queueSize", queue.size());
+        statistics.put("queueCapacity", queueCapacity);
+        statistics.put("committedRows", committedRows.sum());
+        statistics.put("failedRows", failedRows.sum());
+        statistics.put("committedBatches", committedBatches.sum());
+        return statistics;
+    }
+
+    private void enqueue(Submission submission) {
+        if (!running) {
+            throw new ServiceException("答题提交通道已关闭");
+        }
+        try {
+            if (!queue.offer(submission, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ServiceException("提交人数过多，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("答题提交被中断");
+        }
+    }
+
+    private void runLoop() {
+        List<Submission> pending = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+                int rows = first.records.size();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+
+                // 在等待窗口内继续合并后续提交，遇到刷新标记立即提交
+                while (rows < batchSize && !first.isMarker()) {
+                    long remaining = deadline - System.nanoTime();
+                    Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    pending.add(next);
+                    rows += next.records.size();
+                    if (next.isMarker()) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 写线程被中断，排空队列后写入
+                queue.drainTo(pending);
+            }
+            if (!pending.isEmpty()) {
+                writeBatch(pending);
+                pending.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Submission> batch) {
+        List<Submission> submissions = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            if (!submission.isMarker()) {
+                submissions.add(submission);
+            }
+        }
+        if (!submissions.isEmpty()) {
+            try {
+                insert(submissions);
+                committed(submissions);
+            } catch (Exception e) {
+                if (submissions.size() == 1) {
+                    fail(submissions.get(0), e);
+                } else {
+                    // 一条记录出错会使整批回滚，逐个提交重试，只有出错的提交失败
+                    log.warn("批量写入题目得分记录失败，逐个提交重试，提交数：{}", submissions.size(), e);
+                    for (Submission submission : submissions) {
+                        try {
+                            insert(Collections.singletonList(submission));
+                            committed(Collections.singletonList(submission));
+                        } catch (Exception retryFailure) {
+                            fail(submission, retryFailure);
+                        }
+                    }
+                }
+            }
+        }
+        for (Submission submission : batch) {
+            if (submission.isMarker()) {
+                LongAdder examRows = examCommittedRows.get(submission.examId);
+                submission.future.complete(examRows == null ? 0 : examRows.intValue());
+            }
+        }
+    }
+
+    /**
+     * 在一个批处理事务中写入提交的全部记录
+     */
+    private void insert(List<Submission> submissions) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            StudentQuestionScoreMapper mapper = session.getMapper(StudentQuestionScoreMapper.class);
+            for (Submission submission : submissions) {
+                for (StudentQuestionScore record : submission.records) {
+                    mapper.insert(record);
+                }
+            }
+            session.flushStatements();
+            session.commit();
+        }
+    }
+
+    /**
+     * 提交成功后更新统计和直方图，并通知提交方
+     */
+    private void committed(List<Submission> submissions) {
+        committedBatches.increment();
+        for (Submission submission : submissions) {
+            committedRows.add(submission.records.size());
+            scoreHistogramCache.applyQuestionScores(submission.records);
+            for (StudentQuestionScore record : submission.records) {
+                examCommittedRows.computeIfAbsent(record.getExamId(), k -> new LongAdder()).increment();
+            }
+            submission.future.complete(submission.records.size());
+        }
+    }
+
+    private void fail(Submission submission, Exception e) {
+        log.error("写入题目得分记录失败，记录数：{}", submission.records.size(), e);
+        failedRows.add(submission.records.size());
+        submission.future.completeExceptionally(new ServiceException("批量写入题目得分记录失败"));
+    }
+
+    /**
+     * 队列元素：一次答题提交或一个考试刷新标记
+     */
+    private static final class Submission {
+        private final Integer examId;
+        private final List<StudentQuestionScore> records;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        private Submission(Integer examId, List<StudentQuestionScore> records) {
+            this.examId = examId;
+            this.records = records;
+        }
+
+        private boolean isMarker() {
+            return examId != null;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.exam.service.impl;
+
+import cn.hutool.core.util.IdUtil;
+import com.exam.entity.Log;
+import com.exam.mapper.LogMapper;
+import com.exam.utils.BoundedRingBuffer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志写入器
+ * 请求线程只把日志放入无锁环形队列，由单个写线程按条数或时间间隔合并为批量插入，
+ * 日志写入不再占用业务事务的连接。写线程空闲时按刷新间隔休眠，队列达到一批时由追加方唤醒。
+ * 批量插入失败的日志按溢出策略处理：SPILL写入本地文件，BLOCK重试后写入本地文件，DROP_OLDEST丢弃。
+ * 写入本地文件的日志带有幂等键，补写中断后重新补写时跳过已入库的日志
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    /**
+     * 队列已满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 等待写线程腾出空间 */
+        BLOCK,
+        /** 丢弃队列中最早的日志 */
+        DROP_OLDEST,
+        /** 写入本地文件，下次启动时补写入库 */
+        SPILL
+    }
+
+    private static final ObjectMapper SPILL_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"));
+
+    /** BLOCK策略下等待队列空间的间隔（纳秒） */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** BLOCK策略下批量插入失败后的重试次数，仍失败时写入本地文件 */
+    private static final int WRITE_RETRIES = 3;
+
+    /** 重试间隔（毫秒） */
+    private static final long RETRY_INTERVAL_MS = 1000;
+
+    @Autowired
+    private LogMapper logMapper;
+
+    @Autowired
+    private LogRollup logRollup;
+
+    /** 队列容量，向上取整为2的幂 */
+    @Value("${exam.audit-log.capacity:8192}")
+    private int capacity;
+
+    /** 单次批量插入的最大条数 */
+    @Value("${exam.audit-log.batch-size:500}")
+    private int batchSize;
+
+    /** 未满一批时的最长等待时间（毫秒） */
+    @Value("${exam.audit-log.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${exam.audit-log.overflow-policy:SPILL}")
+    private OverflowPolicy overflowPolicy;
+
+    /** SPILL策略的本地文件，每行一条JSON */
+    @Value("${exam.audit-log.spill-file:logs/audit-log-spill.ndjson}")
+    private String spillFile;
+
+    private BoundedRingBuffer<Log> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    /** 本地文件的写入流，首次溢出时打开，停止时关闭，由spill的同步锁保护 */
+    private BufferedWriter spillWriter;
+
+    private final LongAdder writtenRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder droppedRows = new LongAdder();
+    private final LongAdder spilledRows = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        buffer = new BoundedRingBuffer<>(capacity);
+        // 在任何日志溢出前取走上次的文件，之后的溢出写入新文件
+        Path replaying = prepareReplay();
+        running = true;
+        writerThread = new Thread(() -> runLoop(replaying), "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 写线程排空队列后退出
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeSpillWriter();
+    }
+
+    /**
+     * 追加一条日志，不等待入库
+     */
+    public void append(Log record) {
+        LogServiceImpl.defaultCreatedTime(record);
+        if (buffer.offer(record)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        LockSupport.unpark(writerThread);
+        if (!running) {
+            // 已关闭时直接写入，不再经过队列
+            writeOrSpill(Collections.singletonList(record));
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                while (!buffer.offer(record)) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!buffer.offer(record)) {
+                    if (buffer.poll() != null) {
+                        droppedRows.increment();
+                    }
+                }
+                break;
+            default:
+                spill(record);
+        }
+    }
+
+    /**
+     * 获取写入器运行状态
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("queueSize", buffer.size());
+        statistics.put("queueCapacity", buffer.capacity());
+        statistics.put("overflowPolicy", overflowPolicy.name());
+        statistics.put("writtenRows", writtenRows.sum());
+        statistics.put("failedRows", failedRows.sum());
+        statistics.put("droppedRows", droppedRows.sum());
+        statistics.put("spilledRows", spilledRows.sum());
+        return statistics;
+    }
+
+    private void runLoop(Path replaying) {
+        if (replaying != null) {
+            replaySpillFile(replaying);
+        }
+        List<Log> pending = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long batchStart = 0;
+        while (running || !buffer.isEmpty()) {
+            Log record = buffer.poll();
+            if (record != null) {
+                if (pending.isEmpty()) {
+                    batchStart = System.nanoTime();
+                }
+                pending.add(record);
+                if (pending.size() >= batchSize) {
+                    writeOrSpill(pending);
+                    pending = new ArrayList<>(batchSize);
+                }
+                continue;
+            }
+            // 队列已空：未满一批时等到刷新时间，没有待写日志时休眠一个刷新间隔，期间可被追加方或停止唤醒
+            long waitNanos = flushIntervalNanos;
+            if (!pending.isEmpty()) {
+                waitNanos = batchStart + flushIntervalNanos - System.nanoTime();
+                if (waitNanos <= 0) {
+                    writeOrSpill(pending);
+                    pending = new ArrayList<>(batchSize);
+                    continue;
+                }
+            }
+            LockSupport.parkNanos(this, waitNanos);
+        }
+        if (!pending.isEmpty()) {
+            writeOrSpill(pending);
+        }
+    }
+
+    /**
+     * 批量插入，失败时按溢出策略处理
+     */
+    private void writeOrSpill(List<Log> records) {
+        if (write(records)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            for (int attempt = 0; attempt < WRITE_RETRIES && running; attempt++) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MS));
+                if (write(records)) {
+                    return;
+                }
+            }
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            droppedRows.add(records.size());
+            return;
+        }
+        spill(records);
+    }
+
+    /**
+     * @return 是否写入成功
+     */
+    private boolean write(List<Log> records) {
+        try {
+            logMapper.batchInsert(records);
+            writtenRows.add(records.size());
+        } catch (Exception e) {
+            log.error("批量写入审计日志失败，记录数：{}", records.size(), e);
+            failedRows.add(records.size());
+            return false;
+        }
+        logRollup.record(records);
+        return true;
+    }
+
+    /**
+     * 补写一批本地文件中的日志，跳过幂等键已入库的日志
+     * @return 是否写入成功
+     */
+    private boolean replay(List<Log> records) {
+        Set<String> keys = new HashSet<>();
+        Date start = null;
+        Date end = null;
+        for (Log record : records) {
+            if (record.getReplayKey() != null) {
+                keys.add(record.getReplayKey());
+                Date time = record.getCreatedTime();
+                start = start == null || time.before(start) ? time : start;
+                end = end == null || time.after(end) ? time : end;
+            }
+        }
+        List<Log> remaining = records;
+        if (!keys.isEmpty()) {
+            Set<String> existing;
+            try {
+                existing = new HashSet<>(logMapper.selectExistingReplayKeys(start, end, keys));
+            } catch (Exception e) {
+                log.error("查询已补写的审计日志失败，记录数：{}", records.size(), e);
+                failedRows.add(records.size());
+                return false;
+            }
+            if (!existing.isEmpty()) {
+                remaining = new ArrayList<>(records.size());
+                for (Log record : records) {
+                    if (!existing.contains(record.getReplayKey())) {
+                        remaining.add(record);
+                    }
+                }
+            }
+        }
+        return remaining.isEmpty() || write(remaining);
+    }
+
+    private void spill(Log record) {
+        spill(Collections.singletonList(record));
+    }
+
+    /**
+     * 追加到本地文件，尚无幂等键的日志先生成幂等键
+     * @return 是否写入成功
+     */
+    private synchronized boolean spill(List<Log> records) {
+        for (Log record : records) {
+            if (record.getReplayKey() == null) {
+                record.setReplayKey(IdUtil.fastSimpleUUID());
+            }
+        }
+        try {
+            if (spillWriter == null) {
+                Path path = Paths.get(spillFile);
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                spillWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (Log record : records) {
+                spillWriter.write(SPILL_MAPPER.writeValueAsString(record));
+                spillWriter.newLine();
+            }
+            spillWriter.flush();
+            spilledRows.add(records.size());
+            return true;
+        } catch (IOException e) {
+            log.error("审计日志写入本地文件失败", e);
+            droppedRows.add(records.size());
+            closeSpillWriter();
+            return false;
+        }
+    }
+
+    private synchronized void closeSpillWriter() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            log.warn("关闭审计日志本地文件失败", e);
+        }
+        spillWriter = null;
+    }
+
+    /**
+     * 把上次运行溢出的文件并入待补写文件，上次补写中断留下的待补写文件保留其内容
+     * @return 待补写文件，没有时返回null
+     */
+    private Path prepareReplay() {
+        Path path = Paths.get(spillFile);
+        Path replaying = path.resolveSibling(path.getFileName() + ".replaying");
+        try {
+            if (Files.exists(path)) {
+                if (Files.exists(replaying)) {
+                    try (OutputStream out = Files.newOutputStream(replaying, StandardOpenOption.APPEND)) {
+                        Files.copy(path, out);
+                    }
+                    Files.delete(path);
+                } else {
+                    Files.move(path, replaying);
+                }
+            }
+        } catch (IOException e) {
+            log.error("准备补写本地审计日志失败：{}", path, e);
+        }
+        return Files.exists(replaying) ? replaying : null;
+    }
+
+    /**
+     * 将上次运行溢出到本地文件的日志补写入库
+     * 写入失败的批次及其后的日志重新写入溢出文件，全部入库或转存后才删除待补写文件；
+     * 补写中断后再次补写时，按幂等键跳过已入库的日志
+     */
+    private void replaySpillFile(Path replaying) {
+        List<Log> records = new ArrayList<>(batchSize);
+        boolean databaseAvailable = true;
+        boolean kept = true;
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                records.add(SPILL_MAPPER.readValue(line, Log.class));
+                if (records.size() >= batchSize) {
+                    databaseAvailable = databaseAvailable && replay(records);
+                    kept &= databaseAvailable || spill(records);
+                    records = new ArrayList<>(batchSize);
+                }
+            }
+            if (!records.isEmpty()) {
+                databaseAvailable = databaseAvailable && replay(records);
+                kept &= databaseAvailable || spill(records);
+            }
+        } catch (IOException e) {
+            log.error("补写本地审计日志失败：{}", replaying, e);
+            return;
+        }
+        if (!kept) {
+            log.error("部分审计日志未能入库或转存，保留待补写文件：{}", replaying);
+            return;
+        }
+        try {
+            Files.delete(replaying);
+        } catch (IOException e) {
+            log.error("删除已补写的本地审计日志失败：{}", replaying, e);
+        }
+    }
+}
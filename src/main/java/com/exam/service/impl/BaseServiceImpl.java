@@ -1,9 +1,13 @@
 package com.exam.service.impl;
 
+import com.exam.common.CursorPage;
+import com.exam.common.ServiceException;
 import com.exam.mapper.BaseMapper;
 import com.exam.service.BaseService;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import javax.annotation.Resource;
+import org.springframework.core.ResolvableType;
 import java.util.List;
 import java.util.Map;
 
@@ -15,11 +19,20 @@ import java.util.Map;
 public abstract class BaseServiceImpl<T, M extends BaseMapper<T>> implements BaseService<T> {
 
     /**
-     * 使用@Resource注解替代@Autowired来处理泛型注入
+     * 按泛型类型注入；@Resource按字段名会注入扫描出的BaseMapper本身
      */
-    @Resource
+    @Autowired
     protected M baseMapper;
 
+    /** 游标分页单页最大记录数 */
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    /** 实体主键属性名，首次游标分页时从BaseResultMap解析 */
+    private volatile String idProperty;
+
     @Override
     public int insert(T record) {
         return baseMapper.insert(record);
@@ -86,4 +99,31 @@ public abstract class BaseServiceImpl<T, M extends BaseMapper<T>> implements Bas
         int offset = (pageNum - 1) * pageSize;
         return baseMapper.selectPageByCondition(condition, offset, pageSize);
     }
+
+    @Override
+    public CursorPage<T> selectPageAfter(String cursor, Integer pageSize, Map<String, Object> condition) {
+        if (pageSize == null || pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            throw new ServiceException("每页记录数须在1到" + MAX_CURSOR_PAGE_SIZE + "之间");
+        }
+        Integer lastId = CursorPage.decodeCursor(cursor);
+        // 多取一条判断是否还有下一页
+        List<T> records = baseMapper.selectPageAfter(condition, lastId, pageSize + 1);
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            Object id = SystemMetaObject.forObject(records.get(pageSize - 1)).getValue(getIdProperty());
+            nextCursor = CursorPage.encodeCursor((Integer) id);
+        }
+        return new CursorPage<>(records, nextCursor);
+    }
+
+    private String getIdProperty() {
+        if (idProperty == null) {
+            Class<?> mapperType = ResolvableType.forClass(getClass()).as(BaseServiceImpl.class).resolveGeneric(1);
+            idProperty = sqlSessionFactory.getConfiguration()
+                    .getResultMap(mapperType.getName() + ".BaseResultMap")
+                    .getIdResultMappings().get(0).getProperty();
+        }
+        return idProperty;
+    }
 } 
\ No newline at end of file
@@ -7,9 +7,14 @@ import com.exam.mapper.ClassMapper;
 import com.exam.mapper.StudentMapper;
 import com.exam.mapper.ExamMapper;
 import com.exam.service.ClassService;
+import com.exam.utils.ExportWriter;
+import com.exam.utils.ScoreHistogram;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 
 /**
@@ -19,12 +24,19 @@ import java.util.*;
 @Transactional
 public class ClassServiceImpl extends BaseServiceImpl<Class, ClassMapper> implements ClassService {
 
+    /** selectExamScoreSummary的分段人数列及对应分段名称，分段为占试卷总分的百分比 */
+    private static final String[] SUMMARY_COLUMNS = {"count_90", "count_80", "count_70", "count_60", "count_0"};
+    private static final String[] SUMMARY_RANGES = {"90-100", "80-89", "70-79", "60-69", "0-59"};
+
     @Autowired
     private StudentMapper studentMapper;
     
     @Autowired
     private ExamMapper examMapper;
 
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
     @Override
     public List<Class> getByTeacherId(Integer teacherId) {
         return baseMapper.selectByTeacherId(teacherId);
@@ -77,7 +89,7 @@ public class ClassServiceImpl extends BaseServiceImpl<Class, ClassMapper> implem
 
     @Override
     public List<Map<String, Object>> getScoreDistribution(Integer classId, Integer examId) {
-        return baseMapper.selectScoreDistribution(classId, examId);
+        return scoreHistogramCache.getClassHistogram(examId, classId).distribution(ScoreHistogram.DEFAULT_BOUNDS, null);
     }
 
     @Override
@@ -87,11 +99,13 @@ public class ClassServiceImpl extends BaseServiceImpl<Class, ClassMapper> implem
 
     @Override
     public int batchAddStudents(Integer classId, List<Integer> studentIds) {
+        scoreHistogramCache.invalidateClass(classId);
         return baseMapper.batchAddStudents(classId, studentIds);
     }
 
     @Override
     public int batchRemoveStudents(Integer classId, List<Integer> studentIds) {
+        scoreHistogramCache.invalidateClass(classId);
         return baseMapper.batchRemoveStudents(classId, studentIds);
     }
 
@@ -151,21 +165,39 @@ public class ClassServiceImpl extends BaseServiceImpl<Class, ClassMapper> implem
         List<Exam> exams = getClassExams(classId);
         statistics.put("exams", exams);
         
-        // 统计各次考试平均分
-        List<Map<String, Object>> examScores = new ArrayList<>();
-        for (Exam exam : exams) {
-            Map<String, Object> examScore = new HashMap<>();
-            examScore.put("examId", exam.getExamId());
-            examScore.put("examName", exam.getExamName());
-            examScore.put("avgScore", getAvgScore(classId, exam.getExamId()));
-            examScore.put("distribution", getScoreDistribution(classId, exam.getExamId()));
-            examScores.add(examScore);
-        }
-        statistics.put("examScores", examScores);
+        // 统计各次考试平均分和成绩分布，一次分组查询
+        statistics.put("examScores", getClassExamAnalytics(classId, null));
         
         return statistics;
     }
 
+    @Override
+    public List<Map<String, Object>> getClassExamAnalytics(Integer classId, List<Integer> examIds) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> row : baseMapper.selectExamScoreSummary(classId, examIds)) {
+            Map<String, Object> examScore = new HashMap<>();
+            examScore.put("examId", row.get("exam_id"));
+            examScore.put("examName", row.get("exam_name"));
+            Object avgScore = row.get("avg_score");
+            examScore.put("avgScore", avgScore == null ? null : ((Number) avgScore).doubleValue());
+
+            // 分段从高到低，只包含有数据的分段
+            List<Map<String, Object>> distribution = new ArrayList<>();
+            for (int i = 0; i < SUMMARY_RANGES.length; i++) {
+                Object count = row.get(SUMMARY_COLUMNS[i]);
+                if (count != null && ((Number) count).longValue() > 0) {
+                    Map<String, Object> range = new HashMap<>();
+                    range.put("score_range", SUMMARY_RANGES[i]);
+                    range.put("count", ((Number) count).longValue());
+                    distribution.add(range);
+                }
+            }
+            examScore.put("distribution", distribution);
+            result.add(examScore);
+        }
+        return result;
+    }
+
     @Override
     public Map<String, Object> exportStudentList(Integer classId) {
         Map<String, Object> data = new HashMap<>();
@@ -210,4 +242,23 @@ public class ClassServiceImpl extends BaseServiceImpl<Class, ClassMapper> implem
         // 建立班级和学生的关联
         return batchAddStudents(classId, studentIds);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportStudentList(Integer classId, OutputStream out) {
+        long rows = 0;
+        try (Cursor<Student> students = baseMapper.streamClassStudents(classId)) {
+            ExportWriter writer = new ExportWriter(out).writeBom();
+            writer.writeCsvRow("学生ID", "用户ID", "姓名", "年级", "学院ID", "备注");
+            for (Student student : students) {
+                writer.writeCsvRow(student.getStudentId(), student.getUserId(), student.getName(),
+                        student.getGrade(), student.getCollegeId(), student.getOther());
+                rows++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("导出班级学生名单失败", e);
+        }
+        return rows;
+    }
 } 
\ No newline at end of file
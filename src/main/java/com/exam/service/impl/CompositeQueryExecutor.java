@@ -0,0 +1,164 @@
+package com.exam.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 组合查询执行器
+ * 统计接口中相互独立的子查询并发执行，耗时取决于最慢的子查询；
+ * 单个子查询失败或超时只缺少该项结果，不影响其余结果
+ */
+@Slf4j
+@Component
+public class CompositeQueryExecutor {
+
+    /** 结果中记录未完成子查询名称的键 */
+    public static final String INCOMPLETE_KEY = "incompleteQueries";
+
+    /** 线程数，0表示按连接池最大连接数的一半 */
+    @Value("${exam.composite.pool-size:0}")
+    private int poolSize;
+
+    /** 等待执行的子查询数上限，超过后该子查询直接记为未完成，不占用调用线程 */
+    @Value("${exam.composite.queue-capacity:200}")
+    private int queueCapacity;
+
+    /** 子查询默认超时时间（毫秒） */
+    @Value("${exam.composite.timeout-ms:3000}")
+    private long timeoutMs;
+
+    @Value("${spring.datasource.druid.max-active:20}")
+    private int maxActive;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        // 为其他请求保留一半连接
+        int threads = poolSize > 0 ? poolSize : Math.max(maxActive / 2, 1);
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new WorkerThread(runnable, "composite-query-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 创建一个组合查询
+     */
+    public CompositeQuery query() {
+        return new CompositeQuery();
+    }
+
+    /**
+     * 一组按名称区分的子查询
+     */
+    public final class CompositeQuery {
+
+        private final Map<String, Callable<?>> queries = new LinkedHashMap<>();
+        private final Map<String, Long> timeouts = new HashMap<>();
+
+        private CompositeQuery() {
+        }
+
+        /**
+         * 添加子查询，使用默认超时时间
+         */
+        public CompositeQuery add(String key, Callable<?> query) {
+            return add(key, query, timeoutMs);
+        }
+
+        /**
+         * 添加子查询
+         * @param timeoutMs 自执行开始起的超时时间（毫秒）
+         */
+        public CompositeQuery add(String key, Callable<?> query, long timeoutMs) {
+            queries.put(key, query);
+            timeouts.put(key, timeoutMs);
+            return this;
+        }
+
+        /**
+         * 并发执行全部子查询并等待完成或超时
+         * @return 子查询名称到结果的映射；失败或超时的子查询不出现在结果中，
+         *         其名称列在INCOMPLETE_KEY下，全部成功时不含该键
+         */
+        public Map<String, Object> execute() {
+            Map<String, Object> results = new HashMap<>();
+            List<String> incomplete = new ArrayList<>();
+
+            // 已在执行器线程中时直接顺序执行，避免嵌套提交占满线程
+            if (Thread.currentThread() instanceof WorkerThread) {
+                for (Map.Entry<String, Callable<?>> entry : queries.entrySet()) {
+                    try {
+                        results.put(entry.getKey(), entry.getValue().call());
+                    } catch (Exception e) {
+                        log.warn("子查询{}失败", entry.getKey(), e);
+                        incomplete.add(entry.getKey());
+                    }
+                }
+                return complete(results, incomplete);
+            }
+
+            long start = System.nanoTime();
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Callable<?>> entry : queries.entrySet()) {
+                try {
+                    futures.put(entry.getKey(), executor.submit(entry.getValue()));
+                } catch (RejectedExecutionException e) {
+                    log.warn("子查询{}被拒绝，等待队列已满", entry.getKey());
+                    incomplete.add(entry.getKey());
+                }
+            }
+            for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+                String key = entry.getKey();
+                long remaining = start + TimeUnit.MILLISECONDS.toNanos(timeouts.get(key)) - System.nanoTime();
+                try {
+                    results.put(key, entry.getValue().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    log.warn("子查询{}超时，超时时间：{}ms", key, timeouts.get(key));
+                    entry.getValue().cancel(true);
+                    incomplete.add(key);
+                } catch (ExecutionException e) {
+                    log.warn("子查询{}失败", key, e.getCause());
+                    incomplete.add(key);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    entry.getValue().cancel(true);
+                    incomplete.add(key);
+                }
+            }
+            return complete(results, incomplete);
+        }
+
+        private Map<String, Object> complete(Map<String, Object> results, List<String> incomplete) {
+            if (!incomplete.isEmpty()) {
+                results.put(INCOMPLETE_KEY, incomplete);
+            }
+            return results;
+        }
+    }
+
+    private static final class WorkerThread extends Thread {
+        private WorkerThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
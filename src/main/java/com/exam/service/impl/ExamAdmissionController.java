@@ -0,0 +1,296 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.common.ServiceException;
+import com.exam.entity.Exam;
+import com.exam.entity.ExamClass;
+import com.exam.entity.Question;
+import com.exam.entity.QuestionOption;
+import com.exam.entity.Student;
+import com.exam.mapper.ExamClassMapper;
+import com.exam.mapper.ExamMapper;
+import com.exam.mapper.ExamPaperMapper;
+import com.exam.mapper.QuestionOptionMapper;
+import com.exam.service.ClassService;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 考试入场控制
+ * 考试开始前lead-minutes分钟预加载试卷、答案和考生名单，入场请求按admits-per-second分配入场时间，
+ * 未到入场时间的考生返回建议等待时长，数据库只承受平滑增长的加载请求。
+ * 考试信息或试卷变更后重新加载，考试结束后清理
+ */
+@Slf4j
+@Component
+public class ExamAdmissionController {
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private ExamClassMapper examClassMapper;
+
+    @Autowired
+    private ClassService classService;
+
+    @Autowired
+    private ExamPaperMapper examPaperMapper;
+
+    @Autowired
+    private QuestionOptionMapper questionOptionMapper;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    /** 提前预加载的分钟数 */
+    @Value("${exam.admission.lead-minutes:10}")
+    private int leadMinutes;
+
+    /** 每场考试每秒放行的考生数 */
+    @Value("${exam.admission.admits-per-second:50}")
+    private int admitsPerSecond;
+
+    private final Map<Integer, ExamAdmission> admissions = new ConcurrentHashMap<>();
+
+    private final LongAdder warmups = new LongAdder();
+
+    /**
+     * 预加载即将开始的考试，清理已结束的考试
+     */
+    @Scheduled(fixedDelayString = "${exam.admission.scan-interval-ms:60000}")
+    public void prewarm() {
+        long now = System.currentTimeMillis();
+        admissions.values().removeIf(admission -> admission.endTime < now);
+        Date until = new Date(now + TimeUnit.MINUTES.toMillis(leadMinutes));
+        for (Exam exam : examMapper.selectByTimeRange(new Date(now), until)) {
+            try {
+                get(exam.getExamId(), exam);
+            } catch (RuntimeException e) {
+                log.error("预加载考试失败，考试ID：{}", exam.getExamId(), e);
+            }
+        }
+    }
+
+    /**
+     * 申请入场
+     * 同一考生重复申请时沿用已分配的入场时间
+     * @throws ServiceException 考试不存在或考生不在考试名单中时
+     */
+    public Admission admit(Integer examId, Integer studentId) {
+        ExamAdmission admission = get(examId, null);
+        if (!admission.roster.contains(studentId)) {
+            throw new ServiceException("考生不在本场考试名单中");
+        }
+        long now = System.nanoTime();
+        long slot = admission.slots.computeIfAbsent(studentId, id -> admission.reserve(now));
+        if (slot <= now) {
+            if (admission.entered.add(studentId)) {
+                admission.admitted.increment();
+            }
+            return new Admission(true, 0, 0, admission.queueDepth(now), admission.questions);
+        }
+        long waitNanos = slot - now;
+        return new Admission(false, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1,
+                (int) (waitNanos / admission.intervalNanos) + 1, admission.queueDepth(now), null);
+    }
+
+    /**
+     * 使考试的预加载数据失效，已分配的入场时间一并清除
+     * 处于事务中时完成后再失效一次，避免提交前被并发请求以旧数据重新加载
+     */
+    public void invalidate(Integer examId) {
+        if (examId != null) {
+            TransactionHooks.invalidate(() -> admissions.remove(examId));
+        }
+    }
+
+    /**
+     * 使用该试卷的考试全部失效
+     */
+    public void invalidatePapers(Collection<Integer> paperIds) {
+        if (paperIds != null && !paperIds.isEmpty()) {
+            Set<Integer> ids = new HashSet<>(paperIds);
+            TransactionHooks.invalidate(() -> admissions.values().removeIf(admission -> ids.contains(admission.paperId)));
+        }
+    }
+
+    /**
+     * 各考试的入场排队统计
+     */
+    public Map<String, Object> getStatistics() {
+        long now = System.nanoTime();
+        List<Map<String, Object>> exams = new ArrayList<>();
+        admissions.forEach((examId, admission) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("exam_id", examId);
+            row.put("roster_size", admission.roster.size());
+            row.put("reserved", admission.slots.size());
+            row.put("admitted", admission.admitted.sum());
+            row.put("queue_depth", admission.queueDepth(now));
+            row.put("wait_ms", TimeUnit.NANOSECONDS.toMillis(admission.pendingNanos(now)));
+            exams.add(row);
+        });
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmups", warmups.sum());
+        stats.put("exams", exams);
+        return stats;
+    }
+
+    private ExamAdmission get(Integer examId, Exam exam) {
+        ExamAdmission admission = admissions.get(examId);
+        if (admission != null) {
+            return admission;
+        }
+        return admissions.computeIfAbsent(examId, id -> load(exam != null ? exam : examMapper.selectById(id)));
+    }
+
+    private ExamAdmission load(Exam exam) {
+        if (exam == null) {
+            throw new ServiceException("考试不存在");
+        }
+        Set<Integer> roster = new HashSet<>();
+        for (ExamClass examClass : examClassMapper.selectByExamId(exam.getExamId())) {
+            for (Student student : classService.getClassStudents(examClass.getClassId())) {
+                roster.add(student.getStudentId());
+            }
+        }
+        warmups.increment();
+        return new ExamAdmission(exam, roster, loadPaper(exam.getPaperId()), admitsPerSecond);
+    }
+
+    /**
+     * 加载考生看到的试卷：不含答案和正确选项，附带分值
+     */
+    private List<Question> loadPaper(Integer paperId) {
+        PaperAnswerKey answerKey = answerKeyCache.get(paperId);
+        Map<Integer, List<QuestionOption>> options = new HashMap<>();
+        for (QuestionOption option : questionOptionMapper.selectByPaperId(paperId)) {
+            QuestionOption visible = new QuestionOption();
+            visible.setOptionId(option.getOptionId());
+            visible.setQuestionId(option.getQuestionId());
+            visible.setContent(option.getContent());
+            options.computeIfAbsent(option.getQuestionId(), k -> new ArrayList<>()).add(visible);
+        }
+        List<Question> questions = new ArrayList<>();
+        for (Question question : examPaperMapper.selectPaperQuestions(paperId)) {
+            question.setAnswer(null);
+            question.setOptions(options.getOrDefault(question.getQuestionId(), Collections.emptyList()));
+            int index = answerKey.indexOf(question.getQuestionId());
+            if (index >= 0) {
+                question.setScore(answerKey.maxScore(index));
+            }
+            questions.add(question);
+        }
+        return Collections.unmodifiableList(questions);
+    }
+
+    /**
+     * 入场申请结果
+     */
+    public static final class Admission {
+        private final boolean admitted;
+        private final long waitMillis;
+        private final int position;
+        private final int queueDepth;
+        private final List<Question> questions;
+
+        Admission(boolean admitted, long waitMillis, int position, int queueDepth, List<Question> questions) {
+            this.admitted = admitted;
+            this.waitMillis = waitMillis;
+            this.position = position;
+            this.queueDepth = queueDepth;
+            this.questions = questions;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+
+        /**
+         * 建议等待多久后再次申请，已入场时为0
+         */
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        /**
+         * 排在该考生之前的人数（含本人），已入场时为0
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * 当前等待入场的考生数
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * 已入场时为预加载的试卷，多个考生共享，调用方不得修改；未入场时为null
+         */
+        public List<Question> getQuestions() {
+            return questions;
+        }
+    }
+
+    /**
+     * 单场考试的预加载数据和入场时间分配
+     */
+    private static final class ExamAdmission {
+        private final Integer paperId;
+        private final long endTime;
+        private final Set<Integer> roster;
+        private final List<Question> questions;
+        private final long intervalNanos;
+        private final Map<Integer, Long> slots = new ConcurrentHashMap<>();
+        private final Set<Integer> entered = ConcurrentHashMap.newKeySet();
+        private final LongAdder admitted = new LongAdder();
+        /** 下一个可分配的入场时间（System.nanoTime） */
+        private volatile long nextSlot = Long.MIN_VALUE;
+
+        private ExamAdmission(Exam exam, Set<Integer> roster, List<Question> questions, int admitsPerSecond) {
+            this.paperId = exam.getPaperId();
+            this.endTime = exam.getExamEndTime() == null ? Long.MAX_VALUE : exam.getExamEndTime().getTime();
+            this.roster = roster;
+            this.questions = questions;
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(admitsPerSecond, 1);
+        }
+
+        /**
+         * 分配下一个入场时间，空闲时立即入场
+         */
+        private synchronized long reserve(long now) {
+            long slot = nextSlot == Long.MIN_VALUE || nextSlot - now < 0 ? now : nextSlot;
+            nextSlot = slot + intervalNanos;
+            return slot;
+        }
+
+        /**
+         * 新申请的考生需要等待的时长
+         */
+        private long pendingNanos(long now) {
+            long next = nextSlot;
+            return next == Long.MIN_VALUE ? 0 : Math.max(next - now, 0);
+        }
+
+        /**
+         * 已分配但未到入场时间的人数
+         */
+        private int queueDepth(long now) {
+            long pending = pendingNanos(now);
+            return pending == 0 ? 0 : (int) ((pending + intervalNanos - 1) / intervalNanos) - 1;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.exam.service.impl;
 
+import com.exam.common.ServiceException;
 import com.exam.entity.ExamPaper;
+import com.exam.entity.ExamPaperQuestion;
 import com.exam.entity.Question;
 import com.exam.mapper.ExamPaperMapper;
-import com.exam.mapper.QuestionMapper;
+import com.exam.mapper.ExamPaperQuestionMapper;
 import com.exam.service.ExamPaperService;
+import com.exam.utils.PaperAssembler;
+import com.exam.utils.ScoreHistogram;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +23,22 @@ import java.math.BigDecimal;
 public class ExamPaperServiceImpl extends BaseServiceImpl<ExamPaper, ExamPaperMapper> implements ExamPaperService {
 
     @Autowired
-    private QuestionMapper questionMapper;
+    private ExamPaperQuestionMapper examPaperQuestionMapper;
+
+    @Autowired
+    private QuestionPoolCache questionPoolCache;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @Autowired
+    private ExamAdmissionController examAdmissionController;
+
+    @Autowired
+    private QuestionReadCache questionReadCache;
 
     @Override
     public List<ExamPaper> getBySubjectId(Integer subjectId) {
@@ -48,6 +67,7 @@ public class ExamPaperServiceImpl extends BaseServiceImpl<ExamPaper, ExamPaperMa
 
     @Override
     public int updateStatus(Integer paperId, Integer status) {
+        answerKeyCache.invalidate(paperId);
         return baseMapper.updateStatus(paperId, status);
     }
 
@@ -58,7 +78,7 @@ public class ExamPaperServiceImpl extends BaseServiceImpl<ExamPaper, ExamPaperMa
 
     @Override
     public List<Question> getPaperQuestions(Integer paperId) {
-        return baseMapper.selectPaperQuestions(paperId);
+        return questionReadCache.getPaperQuestions(paperId);
     }
 
     @Override
@@ -68,11 +88,19 @@ public class ExamPaperServiceImpl extends BaseServiceImpl<ExamPaper, ExamPaperMa
 
     @Override
     public int updateQuestionScore(Integer paperId, Integer questionId, BigDecimal score) {
+        answerKeyCache.invalidate(paperId);
+        examAdmissionController.invalidatePapers(Collections.singletonList(paperId));
+        questionReadCache.invalidatePaper(paperId);
+        scoreHistogramCache.invalidatePaper(paperId);
         return baseMapper.updateQuestionScore(paperId, questionId, score);
     }
 
     @Override
     public int batchUpdateQuestionScores(Integer paperId, List<Integer> questionIds, List<BigDecimal> scores) {
+        answerKeyCache.invalidate(paperId);
+        examAdmissionController.invalidatePapers(Collections.singletonList(paperId));
+        questionReadCache.invalidatePaper(paperId);
+        scoreHistogramCache.invalidatePaper(paperId);
         return baseMapper.batchUpdateQuestionScores(paperId, questionIds, scores);
     }
 
@@ -93,7 +121,7 @@ public class ExamPaperServiceImpl extends BaseServiceImpl<ExamPaper, ExamPaperMa
 
     @Override
     public List<Map<String, Object>> getScoreDistribution(Integer paperId) {
-        return baseMapper.selectScoreDistribution(paperId);
+        return scoreHistogramCache.getPaperHistogram(paperId).distribution(ScoreHistogram.DEFAULT_BOUNDS, null);
     }
 
     @Override
@@ -108,105 +136,135 @@ public class ExamPaperServiceImpl extends BaseServiceImpl<ExamPaper, ExamPaperMa
 
     @Override
     public int batchPublish(List<Integer> paperIds) {
+        answerKeyCache.invalidateAll(paperIds);
         return baseMapper.batchPublish(paperIds);
     }
 
     @Override
     public int batchUpdateStatus(List<Integer> paperIds, Integer status) {
+        answerKeyCache.invalidateAll(paperIds);
         return baseMapper.batchUpdateStatus(paperIds, status);
     }
 
     @Override
     public int copyPaper(Integer sourcePaperId, String newPaperName) {
+        questionPoolCache.clear();
         return baseMapper.copyPaper(sourcePaperId, newPaperName);
     }
 
     @Override
-    public ExamPaper generatePaper(Integer subjectId, String paperName, 
+    public ExamPaper generatePaper(Integer subjectId, String paperName,
                                  BigDecimal difficulty, Map<Integer, Integer> questionTypeCount) {
+        return generatePaper(subjectId, paperName, difficulty, questionTypeCount, null);
+    }
+
+    @Override
+    public ExamPaper generatePaper(Integer subjectId, String paperName, BigDecimal difficulty,
+                                   Map<Integer, Integer> questionTypeCount, BigDecimal totalScore) {
+        // 按题型展开题位
+        List<Integer> types = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : questionTypeCount.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                types.add(entry.getKey());
+            }
+        }
+        if (types.isEmpty()) {
+            throw new ServiceException("组卷题目数量不能为0");
+        }
+        int[] slotTypes = types.stream().mapToInt(Integer::intValue).toArray();
+        int[] halfPoints = allocateScores(slotTypes, totalScore);
+
+        // 题目数量不足或无法满足难度要求时不创建试卷
+        PaperAssembler.Result result = questionPoolCache.assemble(subjectId, slotTypes, halfPoints, difficulty);
+        if (result == null || !result.isWithinTolerance()) {
+            return null;
+        }
+
         // 创建新试卷
         ExamPaper paper = new ExamPaper();
         paper.setSubjectId(subjectId);
         paper.setPaperName(paperName);
-        paper.setPaperDifficulty(difficulty);
+        paper.setPaperDifficulty(BigDecimal.valueOf(result.getDifficulty(), 2));
         paper.setPaperStatus(0); // 未发布
         baseMapper.insert(paper);
-        
-        // 根据题型和数量选择题目
-        List<Question> selectedQuestions = new ArrayList<>();
-        BigDecimal totalScore = BigDecimal.ZERO;
-        
-        for (Map.Entry<Integer, Integer> entry : questionTypeCount.entrySet()) {
-            Integer questionType = entry.getKey();
-            Integer count = entry.getValue();
-            
-            // 根据难度范围和题型查询题目
-            BigDecimal minDifficulty = difficulty.subtract(new BigDecimal("0.2"));
-            BigDecimal maxDifficulty = difficulty.add(new BigDecimal("0.2"));
-            Map<String, Object> condition = new HashMap<>();
-            condition.put("type", questionType);
-            condition.put("minDifficulty", minDifficulty);
-            condition.put("maxDifficulty", maxDifficulty);
-            condition.put("subjectId", subjectId);
-            
-            List<Question> questions = questionMapper.selectByCondition(condition);
-            if (questions.size() < count) {
-                // 题目数量不足
-                return null;
-            }
-            
-            // 随机选择指定数量的题目
-            Collections.shuffle(questions);
-            selectedQuestions.addAll(questions.subList(0, count));
-            
-            // 计算题目分值
-            BigDecimal questionScore;
-            switch (questionType) {
-                case 1: // 单选题
-                    questionScore = new BigDecimal("2");
-                    break;
-                case 2: // 多选题
-                    questionScore = new BigDecimal("4");
-                    break;
-                case 3: // 判断题
-                    questionScore = new BigDecimal("1");
-                    break;
-                case 4: // 填空题
-                    questionScore = new BigDecimal("3");
-                    break;
-                case 5: // 简答题
-                    questionScore = new BigDecimal("10");
-                    break;
-                default:
-                    questionScore = new BigDecimal("2");
-            }
-            
-            totalScore = totalScore.add(questionScore.multiply(new BigDecimal(count)));
-        }
-        
+
         // 添加题目到试卷
-        List<Integer> questionIds = new ArrayList<>();
-        List<BigDecimal> scores = new ArrayList<>();
-        for (Question question : selectedQuestions) {
-            questionIds.add(question.getQuestionId());
-            // 根据题型设置分值
-            BigDecimal score;
-            switch (question.getType()) {
-                case 1: scores.add(new BigDecimal("2")); break;
-                case 2: scores.add(new BigDecimal("4")); break;
-                case 3: scores.add(new BigDecimal("1")); break;
-                case 4: scores.add(new BigDecimal("3")); break;
-                case 5: scores.add(new BigDecimal("10")); break;
-                default: scores.add(new BigDecimal("2"));
-            }
+        int[] questionIds = result.getQuestionIds();
+        List<ExamPaperQuestion> paperQuestions = new ArrayList<>(questionIds.length);
+        int total = 0;
+        for (int i = 0; i < questionIds.length; i++) {
+            ExamPaperQuestion paperQuestion = new ExamPaperQuestion();
+            paperQuestion.setPaperId(paper.getPaperId());
+            paperQuestion.setQuestionId(questionIds[i]);
+            paperQuestion.setQuestionOrder(i + 1);
+            paperQuestion.setQuestionScore(BigDecimal.valueOf(halfPoints[i] * 5L, 1));
+            paperQuestions.add(paperQuestion);
+            total += halfPoints[i];
         }
-        
-        baseMapper.batchUpdateQuestionScores(paper.getPaperId(), questionIds, scores);
-        
-        // 更新试卷总分
-        paper.setTotalScore(totalScore);
-        baseMapper.updateById(paper);
-        
+        examPaperQuestionMapper.batchInsert(paperQuestions);
+
+        paper.setTotalScore(BigDecimal.valueOf(total * 5L, 1));
         return paper;
     }
+
+    /**
+     * 各题位分值，以0.5分为单位
+     * 未指定总分时按题型默认分值；指定总分时按默认分值等比例缩放，取整后的余数从默认分值最高的题目起逐题调整0.5分
+     */
+    static int[] allocateScores(int[] slotTypes, BigDecimal totalScore) {
+        int n = slotTypes.length;
+        int[] defaults = new int[n];
+        long defaultSum = 0;
+        for (int i = 0; i < n; i++) {
+            defaults[i] = defaultHalfPoints(slotTypes[i]);
+            defaultSum += defaults[i];
+        }
+        if (totalScore == null) {
+            return defaults;
+        }
+        BigDecimal halves = totalScore.multiply(BigDecimal.valueOf(2));
+        if (halves.signum() <= 0 || halves.stripTrailingZeros().scale() > 0) {
+            throw new ServiceException("试卷总分须为0.5的整数倍");
+        }
+        long target = halves.longValue();
+        if (target < n) {
+            throw new ServiceException("试卷总分过低，每道题至少0.5分");
+        }
+        int[] points = new int[n];
+        long assigned = 0;
+        for (int i = 0; i < n; i++) {
+            points[i] = (int) Math.max(1, defaults[i] * target / defaultSum);
+            assigned += points[i];
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(defaults[b], defaults[a]));
+        for (int k = 0; assigned != target; k = (k + 1) % n) {
+            int i = order[k];
+            if (assigned < target) {
+                points[i]++;
+                assigned++;
+            } else if (points[i] > 1) {
+                points[i]--;
+                assigned--;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * 题型默认分值，以0.5分为单位
+     */
+    private static int defaultHalfPoints(int type) {
+        switch (type) {
+            case 1: return 4;   // 单选题 2分
+            case 2: return 8;   // 多选题 4分
+            case 3: return 2;   // 判断题 1分
+            case 4: return 6;   // 填空题 3分
+            case 5: return 20;  // 简答题 10分
+            default: return 4;
+        }
+    }
 } 
\ No newline at end of file
@@ -5,8 +5,10 @@ import com.exam.mapper.ExamMapper;
 import com.exam.mapper.ExamStudentMapper;
 import com.exam.mapper.StudentScoreMapper;
 import com.exam.service.ExamService;
+import com.exam.utils.ScoreHistogram;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
@@ -23,6 +25,18 @@ public class ExamServiceImpl extends BaseServiceImpl<Exam, ExamMapper> implement
     @Autowired
     private StudentScoreMapper studentScoreMapper;
 
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @Autowired
+    private CompositeQueryExecutor compositeQueryExecutor;
+
+    @Autowired
+    private ExamAdmissionController examAdmissionController;
+
+    @Autowired
+    private PaperVariants paperVariants;
+
     @Override
     public List<Exam> getBySubjectId(Integer subjectId) {
         return baseMapper.selectBySubjectId(subjectId);
@@ -90,14 +104,28 @@ public class ExamServiceImpl extends BaseServiceImpl<Exam, ExamMapper> implement
 
     @Override
     public int batchAddExamClass(Integer examId, List<Integer> classIds) {
+        examAdmissionController.invalidate(examId);
         return baseMapper.batchInsertExamClass(examId, classIds);
     }
 
     @Override
     public int removeExamClass(Integer examId, Integer classId) {
+        examAdmissionController.invalidate(examId);
         return baseMapper.deleteExamClass(examId, classId);
     }
 
+    @Override
+    public int updateById(Exam exam) {
+        examAdmissionController.invalidate(exam.getExamId());
+        return baseMapper.updateById(exam);
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        examAdmissionController.invalidate(id);
+        return baseMapper.deleteById(id);
+    }
+
     @Override
     public int publishExam(Integer examId) {
         // 检查考试是否可以发布
@@ -132,6 +160,7 @@ public class ExamServiceImpl extends BaseServiceImpl<Exam, ExamMapper> implement
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> getExamStatistics(Integer examId) {
         Map<String, Object> statistics = new HashMap<>();
         
@@ -141,42 +170,70 @@ public class ExamServiceImpl extends BaseServiceImpl<Exam, ExamMapper> implement
             return statistics;
         }
         
-        // 统计考试参与情况
-        Map<String, Object> participation = examStudentMapper.countExamParticipation(examId);
-        statistics.putAll(participation);
-        
-        // 统计考试成绩分布
-        List<Map<String, Object>> scoreDistribution = studentScoreMapper.selectScoreDistribution(examId, null);
-        statistics.put("scoreDistribution", scoreDistribution);
-        
-        // 获取最高分、最低分、平均分
+        // 各项统计相互独立，并发查询
+        Map<String, Object> results = compositeQueryExecutor.query()
+                // 统计考试参与情况
+                .add("participation", () -> examStudentMapper.countExamParticipation(examId))
+                // 统计考试成绩分布
+                .add("scoreDistribution", () -> scoreHistogramCache.getExamHistogram(examId)
+                        .distribution(ScoreHistogram.DEFAULT_BOUNDS, null))
+                // 获取最高分、平均分
+                .add("maxScore", () -> studentScoreMapper.selectTopStudents(examId, 1))
+                .add("avgScore", () -> studentScoreMapper.selectByExamId(examId).stream()
+                        .mapToDouble(score -> score.getScore().doubleValue())
+                        .average()
+                        .orElse(0.0))
+                .execute();
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> participation = (Map<String, Object>) results.remove("participation");
+        if (participation != null) {
+            statistics.putAll(participation);
+        }
         Map<String, Object> scoreStats = new HashMap<>();
-        scoreStats.put("maxScore", studentScoreMapper.selectTopStudents(examId, 1));
-        scoreStats.put("avgScore", studentScoreMapper.selectByExamId(examId).stream()
-                .mapToDouble(score -> score.getScore().doubleValue())
-                .average()
-                .orElse(0.0));
+        scoreStats.put("maxScore", results.remove("maxScore"));
+        scoreStats.put("avgScore", results.remove("avgScore"));
         statistics.put("scoreStats", scoreStats);
+        statistics.putAll(results);
         
         return statistics;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> getExamProgress(Integer examId) {
-        Map<String, Object> progress = new HashMap<>();
-        
-        // 获取考试进行状态
-        List<Map<String, Object>> examProgress = examStudentMapper.selectExamProgress(examId);
-        progress.put("progress", examProgress);
-        
-        // 获取考试时间异常的学生
-        List<Map<String, Object>> abnormalStudents = examStudentMapper.selectAbnormalTimeStudents(examId, 30);
-        progress.put("abnormalStudents", abnormalStudents);
-        
-        // 获取考试完成率
-        Map<String, Object> completionRate = examStudentMapper.selectExamCompletionRate(examId, null);
-        progress.put("completionRate", completionRate);
-        
-        return progress;
+        return compositeQueryExecutor.query()
+                // 获取考试进行状态
+                .add("progress", () -> examStudentMapper.selectExamProgress(examId))
+                // 获取考试时间异常的学生
+                .add("abnormalStudents", () -> examStudentMapper.selectAbnormalTimeStudents(examId, 30))
+                // 获取考试完成率
+                .add("completionRate", () -> examStudentMapper.selectExamCompletionRate(examId, null))
+                .execute();
+    }
+
+    /**
+     * 入场由预加载数据应答，不在事务中执行
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> enterExam(Integer examId, Integer studentId) {
+        ExamAdmissionController.Admission admission = examAdmissionController.admit(examId, studentId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("admitted", admission.isAdmitted());
+        result.put("wait_ms", admission.getWaitMillis());
+        result.put("position", admission.getPosition());
+        result.put("queue_depth", admission.getQueueDepth());
+        if (admission.isAdmitted()) {
+            // 每个考生的题目和选项顺序不同
+            result.put("questions", paperVariants.apply(examId, studentId, admission.getQuestions()));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getAdmissionStatistics() {
+        return examAdmissionController.getStatistics();
     }
 } 
\ No newline at end of file
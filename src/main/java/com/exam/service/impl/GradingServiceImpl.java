@@ -0,0 +1,198 @@
+package com.exam.service.impl;
+
+import com.exam.common.ServiceException;
+import com.exam.entity.Exam;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.entity.StudentScore;
+import com.exam.mapper.ExamMapper;
+import com.exam.mapper.StudentQuestionScoreMapper;
+import com.exam.mapper.StudentScoreMapper;
+import com.exam.service.GradingService;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 自动批改服务实现类
+ */
+@Service
+@Transactional
+public class GradingServiceImpl implements GradingService {
+
+    /** 单个批改任务处理的学生数阈值，超过则继续拆分 */
+    private static final int STUDENTS_PER_TASK = 256;
+
+    /** 单次写回的记录数 */
+    private static final int WRITE_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private StudentQuestionScoreMapper studentQuestionScoreMapper;
+
+    @Autowired
+    private StudentScoreMapper studentScoreMapper;
+
+    @Autowired
+    private AnswerSubmissionWriter answerSubmissionWriter;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private PaperVariants paperVariants;
+
+    @Autowired
+    private ScoreRankingCache scoreRankingCache;
+
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @Override
+    public Map<String, Object> gradeObjectiveQuestions(Integer examId) {
+        long start = System.currentTimeMillis();
+        Exam exam = examMapper.selectById(examId);
+        if (exam == null) {
+            throw new ServiceException("考试不存在");
+        }
+
+        // 确保提交队列中该考试的答题记录已全部落库
+        answerSubmissionWriter.flush(examId).join();
+
+        // 试卷答案从缓存获取，不再逐次关联查询
+        PaperAnswerKey answerKey = answerKeyCache.get(exam.getPaperId());
+
+        // 按学生分组，记录已按学生ID排序
+        List<StudentQuestionScore> records = studentQuestionScoreMapper.selectByExamId(examId);
+        List<List<StudentQuestionScore>> students = groupByStudent(records);
+
+        // 按学生拆分并行批改，同一趟计算学生总分
+        GradingResult result = ForkJoinPool.commonPool()
+                .invoke(new GradingTask(students, 0, students.size(), answerKey, examId,
+                        paperVariants, paperVariants.variantStudents(examId)));
+
+        // 写回题目得分
+        for (int i = 0; i < result.gradedRecords.size(); i += WRITE_CHUNK_SIZE) {
+            studentQuestionScoreMapper.batchUpdateScore(
+                    result.gradedRecords.subList(i, Math.min(i + WRITE_CHUNK_SIZE, result.gradedRecords.size())));
+        }
+
+        // 汇总写入学生总成绩，尚无成绩记录的学生新增
+        for (int i = 0; i < result.totals.size(); i += WRITE_CHUNK_SIZE) {
+            studentScoreMapper.batchUpsertScores(
+                    result.totals.subList(i, Math.min(i + WRITE_CHUNK_SIZE, result.totals.size())));
+        }
+        scoreRankingCache.applyScores(result.totals, true);
+        scoreHistogramCache.applyScores(result.totals, true);
+        scoreHistogramCache.invalidateQuestions(examId);
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("examId", examId);
+        statistics.put("studentCount", students.size());
+        statistics.put("recordCount", records.size());
+        statistics.put("gradedCount", result.gradedRecords.size());
+        statistics.put("elapsedMillis", System.currentTimeMillis() - start);
+        return statistics;
+    }
+
+    private List<List<StudentQuestionScore>> groupByStudent(List<StudentQuestionScore> records) {
+        List<List<StudentQuestionScore>> students = new ArrayList<>();
+        List<StudentQuestionScore> current = null;
+        Integer currentStudentId = null;
+        for (StudentQuestionScore record : records) {
+            if (current == null || !record.getStudentId().equals(currentStudentId)) {
+                current = new ArrayList<>();
+                currentStudentId = record.getStudentId();
+                students.add(current);
+            }
+            current.add(record);
+        }
+        return students;
+    }
+
+    /**
+     * 批改结果：待写回的题目得分与学生总分
+     */
+    private static final class GradingResult {
+        private final List<Map<String, Object>> gradedRecords = new ArrayList<>();
+        private final List<StudentScore> totals = new ArrayList<>();
+
+        private GradingResult merge(GradingResult other) {
+            gradedRecords.addAll(other.gradedRecords);
+            totals.addAll(other.totals);
+            return this;
+        }
+    }
+
+    /**
+     * 按学生区间拆分的批改任务
+     */
+    private static final class GradingTask extends RecursiveTask<GradingResult> {
+        private final List<List<StudentQuestionScore>> students;
+        private final int from;
+        private final int to;
+        private final PaperAnswerKey answerKey;
+        private final Integer examId;
+        private final PaperVariants variants;
+        private final Set<Integer> variantStudents;
+
+        private GradingTask(List<List<StudentQuestionScore>> students, int from, int to,
+                            PaperAnswerKey answerKey, Integer examId,
+                            PaperVariants variants, Set<Integer> variantStudents) {
+            this.students = students;
+            this.from = from;
+            this.to = to;
+            this.answerKey = answerKey;
+            this.examId = examId;
+            this.variants = variants;
+            this.variantStudents = variantStudents;
+        }
+
+        @Override
+        protected GradingResult compute() {
+            if (to - from > STUDENTS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                GradingTask left = new GradingTask(students, from, mid, answerKey, examId, variants, variantStudents);
+                GradingTask right = new GradingTask(students, mid, to, answerKey, examId, variants, variantStudents);
+                left.fork();
+                GradingResult rightResult = right.compute();
+                return left.join().merge(rightResult);
+            }
+
+            GradingResult result = new GradingResult();
+            for (int i = from; i < to; i++) {
+                List<StudentQuestionScore> records = students.get(i);
+                BigDecimal total = BigDecimal.ZERO;
+                // 作答按考生看到的选项保存，拿到变体的考生按变体种子还原后批改
+                Long seed = variants.seed(examId, records.get(0).getStudentId(), variantStudents);
+                for (StudentQuestionScore record : records) {
+                    BigDecimal score = answerKey.grade(record.getQuestionId(), record.getAnswer(), seed);
+                    if (score != null) {
+                        record.setScore(score);
+                        record.setStatus(1);
+                        Map<String, Object> graded = new HashMap<>();
+                        graded.put("recordId", record.getRecordId());
+                        graded.put("score", score);
+                        result.gradedRecords.add(graded);
+                    }
+                    if (record.getScore() != null) {
+                        total = total.add(record.getScore());
+                    }
+                }
+                StudentScore studentScore = new StudentScore();
+                studentScore.setStudentId(records.get(0).getStudentId());
+                studentScore.setExamId(examId);
+                studentScore.setScore(total);
+                result.totals.add(studentScore);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.exam.service.impl;
+
+import com.exam.utils.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时统计
+ * 按方法名累计调用次数、异常次数和耗时直方图，服务方法和Mapper语句分别以
+ * "类名.方法名"和语句ID为键
+ */
+@Component
+public class LatencyMetrics {
+
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    /** 上次取区间快照时各方法的累计快照 */
+    private final Map<String, LatencyHistogram.Snapshot> lastSnapshots = new HashMap<>();
+
+    /**
+     * 记录一次调用
+     * @param nanos 耗时（纳秒）
+     * @param failed 是否抛出异常
+     */
+    public void record(String method, long nanos, boolean failed) {
+        MethodStats stats = methods.get(method);
+        if (stats == null) {
+            stats = methods.computeIfAbsent(method, k -> new MethodStats());
+        }
+        stats.histogram.record(nanos);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * 启动以来各方法的耗时统计，按总耗时从高到低
+     * @return 每项包含method、call_count、error_count及以毫秒计的avg/min/max/p50/p99/p999
+     */
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> result = new ArrayList<>(methods.size());
+        methods.forEach((method, stats) -> {
+            LatencyHistogram.Snapshot snapshot = stats.histogram.snapshot();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", method);
+            row.put("call_count", snapshot.getCount());
+            row.put("error_count", stats.errors.sum());
+            row.put("avg_ms", toMillis(snapshot.getMean()));
+            row.put("min_ms", toMillis(snapshot.getMin()));
+            row.put("max_ms", toMillis(snapshot.getMax()));
+            row.put("p50_ms", toMillis(snapshot.percentile(50)));
+            row.put("p99_ms", toMillis(snapshot.percentile(99)));
+            row.put("p999_ms", toMillis(snapshot.percentile(99.9)));
+            row.put("total_ms", toMillis(snapshot.getMean() * snapshot.getCount()));
+            result.add(row);
+        });
+        result.sort((a, b) -> Double.compare((Double) b.get("total_ms"), (Double) a.get("total_ms")));
+        return result;
+    }
+
+    /**
+     * 取上次调用以来有调用的方法及其区间统计，用于定期持久化
+     * @return 方法名到区间快照的映射
+     */
+    public synchronized Map<String, Interval> drainIntervals() {
+        Map<String, Interval> intervals = new HashMap<>();
+        methods.forEach((method, stats) -> {
+            LatencyHistogram.Snapshot current = stats.histogram.snapshot();
+            long errors = stats.errors.sum();
+            LatencyHistogram.Snapshot previous = lastSnapshots.put(method, current);
+            Long previousErrors = stats.lastErrors;
+            stats.lastErrors = errors;
+            LatencyHistogram.Snapshot delta = previous == null ? current : current.since(previous);
+            if (delta.getCount() > 0) {
+                intervals.put(method, new Interval(delta, errors - (previousErrors == null ? 0 : previousErrors)));
+            }
+        });
+        return intervals;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+    }
+
+    /**
+     * 一个持久化区间内的统计
+     */
+    public static final class Interval {
+        private final LatencyHistogram.Snapshot histogram;
+        private final long errors;
+
+        private Interval(LatencyHistogram.Snapshot histogram, long errors) {
+            this.histogram = histogram;
+            this.errors = errors;
+        }
+
+        public LatencyHistogram.Snapshot getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+    }
+
+    private static final class MethodStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        /** 仅在drainIntervals中读写 */
+        private Long lastErrors;
+    }
+}
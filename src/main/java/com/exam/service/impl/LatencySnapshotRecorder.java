@@ -0,0 +1,80 @@
+package com.exam.service.impl;
+
+import com.exam.mapper.LogMapper;
+import com.exam.utils.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 耗时快照持久化
+ * 定期把上个区间内各方法的耗时统计写入method_latency，供analyzeResponseTime按时间范围查询
+ */
+@Slf4j
+@Component
+public class LatencySnapshotRecorder {
+
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+
+    @Autowired
+    private LogMapper logMapper;
+
+    @Value("${exam.latency.persist:false}")
+    private boolean persist;
+
+    private Date lastSnapshotTime = new Date();
+
+    /**
+     * 写入上次快照以来的区间统计
+     * @return 写入的方法数
+     */
+    @Scheduled(fixedDelayString = "${exam.latency.snapshot-interval-ms:60000}")
+    public synchronized int snapshot() {
+        if (!persist) {
+            return 0;
+        }
+        Date startTime = lastSnapshotTime;
+        Date endTime = new Date();
+        Map<String, LatencyMetrics.Interval> intervals = latencyMetrics.drainIntervals();
+        lastSnapshotTime = endTime;
+        if (intervals.isEmpty()) {
+            return 0;
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(intervals.size());
+        intervals.forEach((method, interval) -> {
+            LatencyHistogram.Snapshot histogram = interval.getHistogram();
+            Map<String, Object> row = new HashMap<>();
+            row.put("method_name", method);
+            row.put("start_time", startTime);
+            row.put("end_time", endTime);
+            row.put("call_count", histogram.getCount());
+            row.put("error_count", interval.getErrors());
+            row.put("total_us", toMicros(Math.round(histogram.getMean() * histogram.getCount())));
+            row.put("min_us", toMicros(histogram.getMin()));
+            row.put("max_us", toMicros(histogram.getMax()));
+            row.put("p50_us", toMicros(histogram.percentile(50)));
+            row.put("p99_us", toMicros(histogram.percentile(99)));
+            row.put("p999_us", toMicros(histogram.percentile(99.9)));
+            rows.add(row);
+        });
+        try {
+            logMapper.insertLatencySnapshots(rows);
+        } catch (Exception e) {
+            // 区间统计已取出，写入失败时丢弃该区间
+            log.error("写入耗时快照失败，方法数：{}", rows.size(), e);
+            return 0;
+        }
+        return rows.size();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,192 @@
+package com.exam.service.impl;
+
+import com.exam.mapper.LogMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 日志分区管理
+ * 日志表按created_time范围分区，定期向后预建分区；过期日志按分区整体归档或删除，
+ * 不再逐行DELETE
+ */
+@Slf4j
+@Component
+public class LogPartitionManager {
+
+    /**
+     * 分区粒度
+     */
+    public enum Granularity {
+        DAY,
+        MONTH
+    }
+
+    /** 兜底分区，容纳尚未建分区的时间段 */
+    static final String FUTURE_PARTITION = "p_future";
+
+    /** 分区名只允许p加日期数字，拼接进DDL前校验 */
+    private static final Pattern PARTITION_NAME = Pattern.compile("p\\d{6}(\\d{2})?");
+
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter DAY_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    @Autowired
+    private LogMapper logMapper;
+
+    @Value("${exam.log-partition.granularity:MONTH}")
+    private Granularity granularity;
+
+    /** 向后预建的分区数 */
+    @Value("${exam.log-partition.precreate:3}")
+    private int precreate;
+
+    /** 删除前是否复制到log_archive */
+    @Value("${exam.log-partition.archive:false}")
+    private boolean archive;
+
+    /**
+     * 启动时预建分区，避免停机跨过维护时间后新时段的日志全部落入p_future
+     */
+    @PostConstruct
+    public void init() {
+        maintain();
+    }
+
+    /**
+     * 定期预建分区
+     */
+    @Scheduled(cron = "${exam.log-partition.maintain-cron:0 10 0 * * ?}")
+    public void maintain() {
+        try {
+            ensurePartitions(LocalDate.now());
+        } catch (Exception e) {
+            log.error("日志分区维护失败", e);
+        }
+    }
+
+    /**
+     * 确保当前时段及之后precreate个时段的分区已存在
+     * 只有p_future时从最早的日志所在时段开始建分区，避免历史日志全部落入第一个分区而无法按期删除；
+     * 缺少的分区在一次REORGANIZE中拆出，p_future中的日志只复制一次
+     * @return 新建的分区数，日志表未分区时为0
+     */
+    public synchronized int ensurePartitions(LocalDate today) {
+        List<Partition> partitions = loadPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        LocalDate lastBound = null;
+        for (Partition partition : partitions) {
+            if (partition.upperBound != null) {
+                lastBound = partition.upperBound;
+            }
+        }
+        LocalDate periodStart = periodStart(today);
+        LocalDate target = periodStart;
+        for (int i = 0; i <= precreate; i++) {
+            target = nextPeriod(target);
+        }
+
+        LocalDate start = lastBound;
+        if (start == null) {
+            Date earliest = logMapper.selectEarliestCreatedTime();
+            LocalDate earliestDate = earliest == null ? today
+                    : earliest.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            start = periodStart(earliestDate.isBefore(today) ? earliestDate : today);
+        }
+        Map<String, String> partitionsToAdd = new LinkedHashMap<>();
+        while (!nextPeriod(start).isAfter(target)) {
+            LocalDate bound = nextPeriod(start);
+            partitionsToAdd.put(partitionName(start), bound.toString());
+            start = bound;
+        }
+        if (!partitionsToAdd.isEmpty()) {
+            logMapper.addPartitions(partitionsToAdd);
+            log.info("新建日志分区{}", partitionsToAdd);
+        }
+        return partitionsToAdd.size();
+    }
+
+    /**
+     * 归档或删除全部早于截止时间的分区，截止时间所在的分区保留
+     * @return 删除的日志行数，删除前精确统计；日志表未分区时为0
+     */
+    public synchronized int dropExpired(LocalDateTime expireTime) {
+        int rows = 0;
+        for (Partition partition : loadPartitions()) {
+            if (partition.upperBound == null || partition.upperBound.atStartOfDay().isAfter(expireTime)) {
+                continue;
+            }
+            // information_schema中的TABLE_ROWS只是估算值，返回的删除行数以分区内实际行数为准
+            int count = archive ? logMapper.archivePartition(partition.name)
+                    : logMapper.countPartitionRows(partition.name);
+            logMapper.dropPartition(partition.name);
+            log.info("{}日志分区{}，行数{}", archive ? "归档并删除" : "删除", partition.name, count);
+            rows += count;
+        }
+        return rows;
+    }
+
+    /**
+     * 读取日志表分区，p_future的上界为null
+     * @return 日志表未分区时为空
+     */
+    private List<Partition> loadPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        for (Map<String, Object> row : logMapper.selectPartitions()) {
+            String name = (String) row.get("partition_name");
+            if (!FUTURE_PARTITION.equals(name) && !PARTITION_NAME.matcher(name).matches()) {
+                log.warn("跳过无法识别的日志分区{}", name);
+                continue;
+            }
+            partitions.add(new Partition(name, parseBound((String) row.get("description"))));
+        }
+        return partitions;
+    }
+
+    /**
+     * 解析分区上界，如'2026-11-01'或'2026-11-01 00:00:00'
+     */
+    private static LocalDate parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return granularity == Granularity.DAY ? date : date.withDayOfMonth(1);
+    }
+
+    private LocalDate nextPeriod(LocalDate periodStart) {
+        return granularity == Granularity.DAY ? periodStart.plusDays(1) : periodStart.plusMonths(1);
+    }
+
+    private String partitionName(LocalDate periodStart) {
+        return periodStart.format(granularity == Granularity.DAY ? DAY_NAME : MONTH_NAME);
+    }
+
+    private static final class Partition {
+        private final String name;
+        /** 不含的上界，p_future为null */
+        private final LocalDate upperBound;
+
+        private Partition(String name, LocalDate upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Log;
+import com.exam.entity.User;
+import com.exam.mapper.LogMapper;
+import com.exam.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 日志汇总
+ * 启动时从log表回填，之后随日志写入在内存中累加，日志统计查询直接读取内存汇总；
+ * 每分钟的增量定期累加到log_rollup_minute和log_rollup_day。
+ * 内存汇总按小时分桶，只保留最近exam.log-rollup.retention-days天，过期的小时从合计中减去；
+ * 带时间范围的查询按小时取整
+ */
+@Slf4j
+@Component
+public class LogRollup {
+
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 只写入早于该分钟数的增量，给延迟到达的日志留出时间 */
+    private static final long FLUSH_DELAY_MINUTES = 2;
+
+    /** 按日志ID去重时每次查询的ID数 */
+    private static final int ID_BATCH_SIZE = 1000;
+
+    /** 对应log_rollup_minute、log_rollup_day的object_type长度 */
+    private static final int OBJECT_TYPE_LENGTH = 255;
+
+    @Value("${exam.log-rollup.retention-days:180}")
+    private int retentionDays = 180;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private LogMapper logMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    private volatile Counters counters = new Counters();
+
+    /** 重建期间到达的日志，重建完成后补入新汇总 */
+    private volatile List<Log> rebuilding;
+
+    /** 记录日志持读锁，重建切换汇总和移除过期小时持写锁 */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 待写入汇总表的每分钟增量 */
+    private final Map<MinuteKey, LongAdder> pendingMinutes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("日志汇总回填失败，统计结果只包含启动后的日志", e);
+        }
+    }
+
+    /**
+     * 记录已入库的日志
+     */
+    public void record(Collection<Log> logs) {
+        lock.readLock().lock();
+        try {
+            Counters current = counters;
+            List<Log> pending = rebuilding;
+            for (Log record : logs) {
+                LocalDateTime time = toLocalDateTime(record.getCreatedTime());
+                Dimensions dimensions = Dimensions.of(record);
+                current.add(dimensions, time.truncatedTo(ChronoUnit.HOURS), 1);
+                pendingMinutes.computeIfAbsent(new MinuteKey(time.truncatedTo(ChronoUnit.MINUTES), dimensions),
+                        k -> new LongAdder()).increment();
+                if (pending != null) {
+                    pending.add(record);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从log表重建保留期内的内存汇总，用于启动
+     * 回填与去重查询在同一会话的同一事务中执行，读取同一快照；重建期间到达的日志按日志ID
+     * 查询是否已被回填统计，未统计的补入新汇总，没有日志ID的按写入时间判断
+     */
+    public synchronized void rebuild() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        Date startTime = toDate(retentionStart(cutoff));
+        Date endTime = toDate(cutoff);
+        rebuilding = Collections.synchronizedList(new ArrayList<>());
+        Counters next = new Counters();
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            LogMapper mapper = session.getMapper(LogMapper.class);
+            try (Cursor<Map<String, Object>> cursor = mapper.streamRollupCounts(startTime, endTime)) {
+                for (Map<String, Object> row : cursor) {
+                    Dimensions dimensions = new Dimensions(toInteger(row.get("action_type")),
+                            (String) row.get("status"), toInteger(row.get("user_id")),
+                            (String) row.get("ip_address"), truncate((String) row.get("object_type")));
+                    next.add(dimensions, LocalDateTime.parse((String) row.get("stat_hour"), HOUR_FORMAT),
+                            ((Number) row.get("op_count")).longValue());
+                }
+            } catch (IOException e) {
+                log.warn("关闭日志汇总游标失败", e);
+            }
+
+            lock.writeLock().lock();
+            try {
+                Set<Integer> counted = selectCounted(mapper, startTime, endTime, rebuilding);
+                for (Log record : rebuilding) {
+                    LocalDateTime time = toLocalDateTime(record.getCreatedTime());
+                    boolean backfilled = record.getLogId() == null
+                            ? time.isBefore(cutoff) : counted.contains(record.getLogId());
+                    if (!backfilled) {
+                        next.add(Dimensions.of(record), time.truncatedTo(ChronoUnit.HOURS), 1);
+                    }
+                }
+                counters = next;
+            } finally {
+                rebuilding = null;
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            rebuilding = null;
+            throw e;
+        }
+    }
+
+    /**
+     * 重建期间到达的日志中已被回填统计的日志ID
+     */
+    private static Set<Integer> selectCounted(LogMapper mapper, Date startTime, Date endTime, List<Log> records) {
+        List<Integer> ids = new ArrayList<>();
+        for (Log record : records) {
+            if (record.getLogId() != null) {
+                ids.add(record.getLogId());
+            }
+        }
+        Set<Integer> counted = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            counted.addAll(mapper.selectExistingLogIds(startTime, endTime,
+                    ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()))));
+        }
+        return counted;
+    }
+
+    /**
+     * 移除早于指定时间所在小时的内存汇总，用于日志清理之后；截止时间所在小时保留
+     */
+    public void expire(LocalDateTime before) {
+        lock.writeLock().lock();
+        try {
+            counters.expire(before.truncatedTo(ChronoUnit.HOURS));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 将已结束分钟的增量累加到汇总表，并移除超出保留期的内存汇总
+     */
+    @Scheduled(fixedDelayString = "${exam.log-rollup.flush-interval-ms:60000}")
+    public void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        expire(retentionStart(now));
+        flush(now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(FLUSH_DELAY_MINUTES));
+    }
+
+    /**
+     * 关闭前写入全部增量，包括尚未结束的分钟
+     */
+    @PreDestroy
+    public void stop() {
+        flush(LocalDateTime.MAX);
+    }
+
+    private void flush(LocalDateTime before) {
+        Map<MinuteKey, Long> minutes = new HashMap<>();
+        // 持写锁取出增量，此时没有记录线程持有将被移除的计数器
+        lock.writeLock().lock();
+        try {
+            for (Iterator<Map.Entry<MinuteKey, LongAdder>> it = pendingMinutes.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<MinuteKey, LongAdder> entry = it.next();
+                if (entry.getKey().minute.isBefore(before)) {
+                    minutes.put(entry.getKey(), entry.getValue().sum());
+                    it.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (minutes.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> minuteRows = new ArrayList<>(minutes.size());
+        Map<MinuteKey, Long> hours = new HashMap<>();
+        for (Map.Entry<MinuteKey, Long> entry : minutes.entrySet()) {
+            minuteRows.add(toRow(entry.getKey().dimensions, entry.getValue(), "stat_minute", entry.getKey().minute));
+            hours.merge(new MinuteKey(entry.getKey().minute.truncatedTo(ChronoUnit.HOURS), entry.getKey().dimensions),
+                    entry.getValue(), Long::sum);
+        }
+        List<Map<String, Object>> dayRows = new ArrayList<>(hours.size());
+        for (Map.Entry<MinuteKey, Long> entry : hours.entrySet()) {
+            Map<String, Object> row = toRow(entry.getKey().dimensions, entry.getValue(),
+                    "stat_date", java.sql.Date.valueOf(entry.getKey().minute.toLocalDate()));
+            row.put("hour_of_day", entry.getKey().minute.getHour());
+            dayRows.add(row);
+        }
+        try {
+            logMapper.upsertRollupMinute(minuteRows);
+            logMapper.upsertRollupDay(dayRows);
+        } catch (Exception e) {
+            log.error("写入日志汇总表失败，分钟数：{}", minuteRows.size(), e);
+            // 放回待写入增量，下次重试
+            minutes.forEach((key, count) -> pendingMinutes.computeIfAbsent(key, k -> new LongAdder()).add(count));
+        }
+    }
+
+    /**
+     * 按操作类型统计
+     * @return 每项包含action_type、count
+     */
+    public List<Map<String, Object>> countByOperationType() {
+        return toCountRows(counters.byActionType, "action_type", false);
+    }
+
+    /**
+     * 按操作状态统计
+     * @return 每项包含status、count
+     */
+    public List<Map<String, Object>> countByStatus() {
+        return toCountRows(counters.byStatus, "status", false);
+    }
+
+    /**
+     * 按IP地址统计，次数从高到低
+     * @return 每项包含ip_address、count
+     */
+    public List<Map<String, Object>> countByIpAddress() {
+        return toCountRows(counters.byIpAddress, "ip_address", true);
+    }
+
+    /**
+     * 统计每日操作次数
+     * @return 每项包含date、count，按日期升序
+     */
+    public List<Map<String, Object>> countDailyOperations(Date startTime, Date endTime) {
+        Map<LocalDate, Long> days = new TreeMap<>();
+        for (Map.Entry<LocalDateTime, Hour> entry : range(counters.hours, startTime, endTime).entrySet()) {
+            days.merge(entry.getKey().toLocalDate(), entry.getValue().total.sum(), Long::sum);
+        }
+        List<Map<String, Object>> result = new ArrayList<>(days.size());
+        days.forEach((date, count) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("date", java.sql.Date.valueOf(date));
+            row.put("count", count);
+            result.add(row);
+        });
+        return result;
+    }
+
+    /**
+     * 查询操作次数最多的用户
+     * @return 每项包含user_id、username、operation_count
+     */
+    public List<Map<String, Object>> getFrequentUsers(int limit) {
+        List<Map.Entry<Object, LongAdder>> users = new ArrayList<>(counters.byUser.entrySet());
+        users.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        users = users.subList(0, Math.min(limit, users.size()));
+        Set<Integer> userIds = new HashSet<>();
+        for (Map.Entry<Object, LongAdder> entry : users) {
+            if (fromKey(entry.getKey()) != null) {
+                userIds.add((Integer) entry.getKey());
+            }
+        }
+        Map<Integer, String> usernames = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (User user : userMapper.selectByIds(userIds)) {
+                usernames.put(user.getUserId(), user.getUsername());
+            }
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<Object, LongAdder> entry : users) {
+            Integer userId = (Integer) fromKey(entry.getKey());
+            Map<String, Object> row = new HashMap<>();
+            row.put("user_id", userId);
+            row.put("username", usernames.get(userId));
+            row.put("operation_count", entry.getValue().sum());
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * 分析用户各时段的操作分布
+     * @return 每项包含action_type、action_count、hour_of_day（两位小时），按小时、操作类型排序
+     */
+    public List<Map<String, Object>> analyzeUserBehavior(Integer userId, Date startTime, Date endTime) {
+        Map<List<Object>, Long> counts = new TreeMap<>(Comparator
+                .comparing((List<Object> key) -> (String) key.get(0))
+                .thenComparing(key -> (Integer) key.get(1), Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (Map.Entry<LocalDateTime, Hour> hour : range(counters.hours, startTime, endTime).entrySet()) {
+            Map<Object, LongAdder> actions = hour.getValue().userActions.get(toKey(userId));
+            if (actions != null) {
+                String hourOfDay = String.format("%02d", hour.getKey().getHour());
+                actions.forEach((action, count) ->
+                        counts.merge(Arrays.asList(hourOfDay, fromKey(action)), count.sum(), Long::sum));
+            }
+        }
+        List<Map<String, Object>> result = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("action_type", key.get(1));
+            row.put("action_count", count);
+            row.put("hour_of_day", key.get(0));
+            result.add(row);
+        });
+        return result;
+    }
+
+    /**
+     * 按日期、操作类型和操作对象统计系统操作
+     * @return 每项包含action_type、object_type、operation_count、operation_date（yyyy-MM-dd），按日期降序
+     */
+    public List<Map<String, Object>> getSystemOperations(Date startTime, Date endTime) {
+        Map<LocalDate, Map<List<Object>, Long>> days = new TreeMap<>(Comparator.reverseOrder());
+        for (Map.Entry<LocalDateTime, Hour> hour : range(counters.hours, startTime, endTime).entrySet()) {
+            Map<List<Object>, Long> day = days.computeIfAbsent(hour.getKey().toLocalDate(), k -> new HashMap<>());
+            hour.getValue().operations.forEach((key, count) -> day.merge(key, count.sum(), Long::sum));
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        days.forEach((date, operations) -> operations.forEach((key, count) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("action_type", key.get(0));
+            row.put("object_type", key.get(1));
+            row.put("operation_count", count);
+            row.put("operation_date", date.toString());
+            result.add(row);
+        }));
+        return result;
+    }
+
+    private static <V> NavigableMap<LocalDateTime, V> range(ConcurrentSkipListMap<LocalDateTime, V> map,
+                                                            Date startTime, Date endTime) {
+        NavigableMap<LocalDateTime, V> result = map;
+        if (startTime != null) {
+            result = result.tailMap(toLocalDateTime(startTime).truncatedTo(ChronoUnit.HOURS), true);
+        }
+        if (endTime != null) {
+            result = result.headMap(toLocalDateTime(endTime), true);
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> toCountRows(Map<Object, LongAdder> counts, String column,
+                                                         boolean descending) {
+        List<Map<String, Object>> result = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put(column, fromKey(key));
+            row.put("count", count.sum());
+            result.add(row);
+        });
+        if (descending) {
+            result.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+        }
+        return result;
+    }
+
+    private static Map<String, Object> toRow(Dimensions dimensions, long count, String timeColumn, Object time) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(timeColumn, time);
+        row.put("action_type", dimensions.actionType);
+        row.put("status", dimensions.status);
+        row.put("user_id", dimensions.userId);
+        row.put("ip_address", dimensions.ipAddress);
+        row.put("object_type", dimensions.objectType);
+        row.put("op_count", count);
+        return row;
+    }
+
+    private LocalDateTime retentionStart(LocalDateTime now) {
+        return now.truncatedTo(ChronoUnit.HOURS).minusDays(retentionDays);
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static String truncate(String objectType) {
+        return objectType == null || objectType.length() <= OBJECT_TYPE_LENGTH
+                ? objectType : objectType.substring(0, OBJECT_TYPE_LENGTH);
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault());
+    }
+
+    private static Integer toInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    /** ConcurrentHashMap不允许空键，空值以NULL_KEY代替 */
+    private static final Object NULL_KEY = new Object();
+
+    private static Object toKey(Object value) {
+        return value == null ? NULL_KEY : value;
+    }
+
+    private static Object fromKey(Object key) {
+        return key == NULL_KEY ? null : key;
+    }
+
+    /**
+     * 内存汇总：保留期内的合计，以及按小时分桶的各查询索引
+     */
+    private static final class Counters {
+        private final Map<Object, LongAdder> byActionType = new ConcurrentHashMap<>();
+        private final Map<Object, LongAdder> byStatus = new ConcurrentHashMap<>();
+        private final Map<Object, LongAdder> byIpAddress = new ConcurrentHashMap<>();
+        private final Map<Object, LongAdder> byUser = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<LocalDateTime, Hour> hours = new ConcurrentSkipListMap<>();
+
+        private void add(Dimensions dimensions, LocalDateTime hour, long count) {
+            increment(byActionType, toKey(dimensions.actionType), count);
+            increment(byStatus, toKey(dimensions.status), count);
+            increment(byIpAddress, toKey(dimensions.ipAddress), count);
+            increment(byUser, toKey(dimensions.userId), count);
+            hours.computeIfAbsent(hour, k -> new Hour()).add(dimensions, count);
+        }
+
+        /**
+         * 移除早于指定小时的分桶并从合计中减去，调用方持写锁
+         */
+        private void expire(LocalDateTime before) {
+            NavigableMap<LocalDateTime, Hour> expired = hours.headMap(before, false);
+            for (Hour hour : expired.values()) {
+                subtract(byActionType, hour.byActionType);
+                subtract(byStatus, hour.byStatus);
+                subtract(byIpAddress, hour.byIpAddress);
+                subtract(byUser, hour.byUser);
+            }
+            expired.clear();
+        }
+
+        private static void subtract(Map<Object, LongAdder> totals, Map<Object, LongAdder> counts) {
+            counts.forEach((key, count) -> {
+                LongAdder total = totals.get(key);
+                if (total != null) {
+                    total.add(-count.sum());
+                    if (total.sum() <= 0) {
+                        totals.remove(key);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 一小时内的汇总
+     */
+    private static final class Hour {
+        private final LongAdder total = new LongAdder();
+        private final Map<Object, LongAdder> byActionType = new ConcurrentHashMap<>();
+        private final Map<Object, LongAdder> byStatus = new ConcurrentHashMap<>();
+        private final Map<Object, LongAdder> byIpAddress = new ConcurrentHashMap<>();
+        private final Map<Object, LongAdder> byUser = new ConcurrentHashMap<>();
+        private final Map<Object, Map<Object, LongAdder>> userActions = new ConcurrentHashMap<>();
+        private final Map<List<Object>, LongAdder> operations = new ConcurrentHashMap<>();
+
+        private void add(Dimensions dimensions, long count) {
+            total.add(count);
+            increment(byActionType, toKey(dimensions.actionType), count);
+            increment(byStatus, toKey(dimensions.status), count);
+            increment(byIpAddress, toKey(dimensions.ipAddress), count);
+            increment(byUser, toKey(dimensions.userId), count);
+            increment(userActions.computeIfAbsent(toKey(dimensions.userId), k -> new ConcurrentHashMap<>()),
+                    toKey(dimensions.actionType), count);
+            increment(operations, Arrays.asList(dimensions.actionType, dimensions.objectType), count);
+        }
+    }
+
+    private static <K> void increment(Map<K, LongAdder> map, K key, long count) {
+        map.computeIfAbsent(key, k -> new LongAdder()).add(count);
+    }
+
+    /**
+     * 汇总维度
+     */
+    private static final class Dimensions {
+        private final Integer actionType;
+        private final String status;
+        private final Integer userId;
+        private final String ipAddress;
+        private final String objectType;
+
+        private Dimensions(Integer actionType, String status, Integer userId, String ipAddress, String objectType) {
+            this.actionType = actionType;
+            this.status = status;
+            this.userId = userId;
+            this.ipAddress = ipAddress;
+            this.objectType = objectType;
+        }
+
+        private static Dimensions of(Log record) {
+            return new Dimensions(record.getActionType(), record.getStatus(), record.getUserId(),
+                    record.getIpAddress(), truncate(record.getObjectType()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Dimensions)) {
+                return false;
+            }
+            Dimensions that = (Dimensions) o;
+            return Objects.equals(actionType, that.actionType) && Objects.equals(status, that.status)
+                    && Objects.equals(userId, that.userId) && Objects.equals(ipAddress, that.ipAddress)
+                    && Objects.equals(objectType, that.objectType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(actionType, status, userId, ipAddress, objectType);
+        }
+    }
+
+    private static final class MinuteKey {
+        private final LocalDateTime minute;
+        private final Dimensions dimensions;
+
+        private MinuteKey(LocalDateTime minute, Dimensions dimensions) {
+            this.minute = minute;
+            this.dimensions = dimensions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MinuteKey)) {
+                return false;
+            }
+            MinuteKey that = (MinuteKey) o;
+            return minute.equals(that.minute) && dimensions.equals(that.dimensions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(minute, dimensions);
+        }
+    }
+}
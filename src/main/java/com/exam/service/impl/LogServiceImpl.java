@@ -1,12 +1,20 @@
 package com.exam.service.impl;
 
+import com.exam.common.TransactionHooks;
 import com.exam.entity.Log;
 import com.exam.mapper.LogMapper;
 import com.exam.mapper.UserMapper;
 import com.exam.service.LogService;
+import com.exam.utils.ExportWriter;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 /**
@@ -19,6 +27,35 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private LogPartitionManager logPartitionManager;
+
+    @Autowired
+    private LogRollup logRollup;
+
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+
+    @Override
+    public int insert(Log record) {
+        defaultCreatedTime(record);
+        int rows = super.insert(record);
+        TransactionHooks.afterCommit(() -> logRollup.record(Collections.singletonList(record)));
+        return rows;
+    }
+
+    @Override
+    public int batchInsert(List<Log> list) {
+        list.forEach(LogServiceImpl::defaultCreatedTime);
+        int rows = super.batchInsert(list);
+        List<Log> records = new ArrayList<>(list);
+        TransactionHooks.afterCommit(() -> logRollup.record(records));
+        return rows;
+    }
+
     @Override
     public List<Log> getByUserId(Integer userId) {
         return baseMapper.selectByUserId(userId);
@@ -61,27 +98,37 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
 
     @Override
     public List<Map<String, Object>> countByOperationType() {
-        return baseMapper.countByOperationType();
+        return logRollup.countByOperationType();
     }
 
     @Override
     public List<Map<String, Object>> countByStatus() {
-        return baseMapper.countByStatus();
+        return logRollup.countByStatus();
     }
 
     @Override
     public List<Map<String, Object>> countByIpAddress() {
-        return baseMapper.countByIpAddress();
+        return logRollup.countByIpAddress();
     }
 
     @Override
     public List<Map<String, Object>> countDailyOperations(Date startTime, Date endTime) {
-        return baseMapper.countDailyOperations(startTime, endTime);
+        return logRollup.countDailyOperations(startTime, endTime);
     }
 
     @Override
     public List<Map<String, Object>> getFrequentUsers(Integer limit) {
-        return baseMapper.selectFrequentUsers(limit);
+        return logRollup.getFrequentUsers(limit);
+    }
+
+    @Override
+    public List<Map<String, Object>> analyzeUserBehavior(Integer userId, Date startTime, Date endTime) {
+        return logRollup.analyzeUserBehavior(userId, startTime, endTime);
+    }
+
+    @Override
+    public List<Map<String, Object>> getSystemOperations(Date startTime, Date endTime) {
+        return logRollup.getSystemOperations(startTime, endTime);
     }
 
     @Override
@@ -90,6 +137,7 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int logLogin(Integer userId, String ipAddress, String deviceInfo) {
         Log log = new Log();
         log.setUserId(userId);
@@ -100,10 +148,12 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
         log.setCreatedTime(new Date());
         log.setStatus("SUCCESS");
         
-        return baseMapper.insert(log);
+        auditLogWriter.append(log);
+        return 1;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int logOperation(Integer userId, Integer operationType, String description, String ipAddress) {
         Log log = new Log();
         log.setUserId(userId);
@@ -113,10 +163,12 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
         log.setCreatedTime(new Date());
         log.setStatus("SUCCESS");
         
-        return baseMapper.insert(log);
+        auditLogWriter.append(log);
+        return 1;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int logException(String error) {
         Log log = new Log();
         log.setActionType(5);
@@ -124,16 +176,40 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
         log.setCreatedTime(new Date());
         log.setStatus("ERROR");
 
-        return baseMapper.insert(log);
+        auditLogWriter.append(log);
+        return 1;
     }
 
     @Override
+    public Map<String, Object> getAuditLogStatistics() {
+        return auditLogWriter.getStatistics();
+    }
+
+    @Override
+    public List<Map<String, Object>> getLatencyStatistics() {
+        return latencyMetrics.getStatistics();
+    }
+
+    @Override
+    public List<Map<String, Object>> analyzeResponseTime(Date startTime, Date endTime) {
+        return baseMapper.analyzeResponseTime(startTime, endTime);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int cleanExpiredLogs(Integer days) {
         Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.DAY_OF_MONTH, -days);
         Date expireDate = calendar.getTime();
         
-        return baseMapper.deleteExpiredLogs(expireDate);
+        // 整个过期的分区直接删除，分区DDL会隐式提交，因此不在事务中执行
+        LocalDateTime cutoff = LocalDateTime.ofInstant(expireDate.toInstant(), ZoneId.systemDefault());
+        int dropped = logPartitionManager.dropExpired(cutoff);
+        // 截止时间所在分区中的过期日志逐行删除，只扫描该分区；未分区时即为原逐行删除
+        int deleted = dropped + baseMapper.deleteExpiredLogs(expireDate);
+        // 内存汇总中移除已删除日志所在的小时，无需重新扫描log表
+        logRollup.expire(cutoff);
+        return deleted;
     }
 
     @Override
@@ -177,4 +253,45 @@ public class LogServiceImpl extends BaseServiceImpl<Log, LogMapper> implements L
 
         return data;
     }
-} 
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOperationLogs(Date startTime, Date endTime, OutputStream out) {
+        return exportLogs(startTime, endTime, null, out);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportExceptionLogs(Date startTime, Date endTime, OutputStream out) {
+        return exportLogs(startTime, endTime, "ERROR", out);
+    }
+
+    /**
+     * 通过服务端游标逐行写出日志，内存占用与日志量无关
+     */
+    private long exportLogs(Date startTime, Date endTime, String status, OutputStream out) {
+        long rows = 0;
+        try (Cursor<Log> logs = baseMapper.streamByTimeRange(startTime, endTime, status)) {
+            ExportWriter writer = new ExportWriter(out).writeBom();
+            writer.writeCsvRow("日志ID", "用户ID", "操作类型", "操作描述", "操作时间", "操作对象", "IP地址", "设备信息", "操作状态");
+            for (Log log : logs) {
+                writer.writeCsvRow(log.getLogId(), log.getUserId(), log.getActionType(), log.getActionDescription(),
+                        log.getCreatedTime(), log.getObjectType(), log.getIpAddress(), log.getDeviceInfo(), log.getStatus());
+                rows++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("导出日志失败", e);
+        }
+        return rows;
+    }
+
+    /**
+     * created_time是分区键且不允许为空，未指定时取当前时间
+     */
+    static void defaultCreatedTime(Log record) {
+        if (record != null && record.getCreatedTime() == null) {
+            record.setCreatedTime(new Date());
+        }
+    }
+}
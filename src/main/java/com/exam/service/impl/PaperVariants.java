@@ -0,0 +1,100 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Question;
+import com.exam.entity.QuestionOption;
+import com.exam.mapper.ExamStudentMapper;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import com.exam.utils.AnswerUtils;
+import com.exam.utils.PaperVariant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 考生试卷变体
+ * 入场时按考试ID和学生ID打乱共享试卷的题目顺序和选择题选项顺序，试卷不写入数据库，
+ * 只在exam_student上标记该考生拿到的是变体；作答按考生看到的选项保存，
+ * 批改时只对标记过的考生按同一种子还原，开关切换不影响已下发的试卷
+ */
+@Component
+public class PaperVariants {
+
+    @Autowired
+    private ExamStudentMapper examStudentMapper;
+
+    @Value("${exam.paper-variant.enabled:true}")
+    private boolean enabled = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 考生的变体种子
+     * @param variantStudents 下发过变体的考生，见{@link #variantStudents(Integer)}
+     * @return 考生拿到的是原始试卷时返回null
+     */
+    public Long seed(Integer examId, Integer studentId, Set<Integer> variantStudents) {
+        return variantStudents.contains(studentId) ? PaperVariant.seed(examId, studentId) : null;
+    }
+
+    /**
+     * 考试中下发过变体的考生
+     */
+    public Set<Integer> variantStudents(Integer examId) {
+        return new HashSet<>(examStudentMapper.selectVariantStudentIds(examId));
+    }
+
+    /**
+     * 生成考生看到的试卷，启用时先标记考生再下发变体
+     * @param questions 共享试卷，不会被修改
+     * @return 按变体重排的题目副本；未启用时返回原列表
+     */
+    public List<Question> apply(Integer examId, Integer studentId, List<Question> questions) {
+        if (!enabled || questions == null) {
+            return questions;
+        }
+        examStudentMapper.markVariantServed(examId, studentId);
+        long seed = PaperVariant.seed(examId, studentId);
+        int[] order = PaperVariant.questionOrder(seed, questions.size());
+        List<Question> variant = new ArrayList<>(questions.size());
+        for (int index : order) {
+            variant.add(copy(questions.get(index), seed));
+        }
+        return variant;
+    }
+
+    /**
+     * 复制题目，单选、多选题的选项按变体重排
+     */
+    private static Question copy(Question source, long seed) {
+        Question question = new Question();
+        question.setQuestionId(source.getQuestionId());
+        question.setQbId(source.getQbId());
+        question.setContent(source.getContent());
+        question.setAnswer(source.getAnswer());
+        question.setType(source.getType());
+        question.setDifficulty(source.getDifficulty());
+        question.setQuestionBank(source.getQuestionBank());
+        question.setTypeName(source.getTypeName());
+        question.setScore(source.getScore());
+        List<QuestionOption> options = source.getOptions();
+        Integer type = source.getType();
+        if (options != null && options.size() > 1 && options.size() <= AnswerUtils.MAX_OPTIONS && type != null
+                && (type == PaperAnswerKey.TYPE_SINGLE || type == PaperAnswerKey.TYPE_MULTIPLE)) {
+            int[] optionOrder = PaperVariant.optionOrder(seed, source.getQuestionId(), options.size());
+            List<QuestionOption> shuffled = new ArrayList<>(options.size());
+            for (int index : optionOrder) {
+                shuffled.add(options.get(index));
+            }
+            options = shuffled;
+        }
+        question.setOptions(options);
+        return question;
+    }
+}
@@ -0,0 +1,205 @@
+package com.exam.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.exam.common.ServiceException;
+import com.exam.utils.KeyedRateLimiter;
+import com.exam.utils.Md5PasswordHash;
+import com.exam.utils.PasswordHashAlgorithm;
+import com.exam.utils.Pbkdf2PasswordHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码哈希
+ * 新密码按exam.password.algorithm计算，校验时按存储格式识别算法，旧算法或参数偏低的密码登录成功后重新计算。
+ * 哈希在独立的有界线程池中执行，排队已满时直接拒绝，请求线程最多等待timeout-ms；
+ * 登录前按用户名和IP限流，超限的请求不查询数据库
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    @Value("${exam.password.algorithm:" + Pbkdf2PasswordHash.ID + "}")
+    private String algorithm;
+
+    @Value("${exam.password.iterations:310000}")
+    private int iterations;
+
+    /** 哈希线程数，0表示CPU核数 */
+    @Value("${exam.password.threads:0}")
+    private int threads;
+
+    @Value("${exam.password.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${exam.password.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${exam.password.user-limit-per-minute:10}")
+    private int userLimitPerMinute;
+
+    @Value("${exam.password.ip-limit-per-minute:600}")
+    private int ipLimitPerMinute;
+
+    private final List<PasswordHashAlgorithm> algorithms = new ArrayList<>();
+    private PasswordHashAlgorithm current;
+    private ThreadPoolExecutor executor;
+    private KeyedRateLimiter userLimiter;
+    private KeyedRateLimiter ipLimiter;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        algorithms.add(new Pbkdf2PasswordHash(iterations));
+        algorithms.add(new Md5PasswordHash());
+        current = algorithms.stream().filter(a -> a.id().equals(algorithm)).findFirst()
+                .orElseThrow(() -> new IllegalStateException("不支持的密码算法：" + algorithm));
+
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        userLimiter = new KeyedRateLimiter(userLimitPerMinute);
+        ipLimiter = new KeyedRateLimiter(ipLimitPerMinute);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 登录前限流，按用户名和当前请求IP分别计数
+     * @throws ServiceException 超出限额时
+     */
+    public void checkLoginRate(String username) {
+        String ip = currentIp();
+        if (!userLimiter.tryAcquire(username) || !ipLimiter.tryAcquire(ip)) {
+            rateLimited.increment();
+            throw new ServiceException("登录尝试过于频繁，请稍后再试");
+        }
+    }
+
+    /**
+     * 以当前算法计算存储值
+     */
+    public String hash(String password) {
+        return submit(() -> current.hash(password));
+    }
+
+    /**
+     * 校验密码，存储值为null或格式无法识别时返回false
+     */
+    public boolean matches(String password, String encoded) {
+        PasswordHashAlgorithm matched = find(encoded);
+        if (matched == null) {
+            return false;
+        }
+        return submit(() -> matched.matches(password, encoded));
+    }
+
+    /**
+     * 用户不存在时执行一次等价计算，使响应时间不暴露用户名是否存在
+     */
+    public void matchNothing(String password) {
+        submit(() -> current.hash(password));
+    }
+
+    /**
+     * 存储值是否应改用当前算法和参数重新计算
+     */
+    public boolean needsRehash(String encoded) {
+        PasswordHashAlgorithm matched = find(encoded);
+        return matched != current || matched.needsRehash(encoded);
+    }
+
+    /**
+     * 记录一次登录时的重新计算
+     */
+    public void recordRehash() {
+        rehashed.increment();
+    }
+
+    /**
+     * 哈希线程池和限流统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("algorithm", current.id());
+        stats.put("active_threads", executor.getActiveCount());
+        stats.put("queue_depth", executor.getQueue().size());
+        stats.put("rejected", rejected.sum());
+        stats.put("rate_limited", rateLimited.sum());
+        stats.put("rehashed", rehashed.sum());
+        stats.put("tracked_users", userLimiter.size());
+        stats.put("tracked_ips", ipLimiter.size());
+        return stats;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeLimiters() {
+        userLimiter.purge();
+        ipLimiter.purge();
+    }
+
+    private PasswordHashAlgorithm find(String encoded) {
+        if (StrUtil.isEmpty(encoded)) {
+            return null;
+        }
+        return algorithms.stream().filter(a -> a.supports(encoded)).findFirst().orElse(null);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceException("登录人数过多，请稍后再试");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceException("登录人数过多，请稍后再试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceException("密码校验被中断");
+        } catch (ExecutionException e) {
+            log.error("密码哈希计算失败", e.getCause());
+            throw new ServiceException("密码校验失败");
+        }
+    }
+
+    private static String currentIp() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+    }
+}
@@ -4,10 +4,15 @@ import com.exam.entity.QuestionBank;
 import com.exam.entity.Question;
 import com.exam.mapper.QuestionBankMapper;
 import com.exam.mapper.QuestionMapper;
+import com.exam.mapper.QuestionOptionMapper;
 import com.exam.service.QuestionBankService;
+import com.exam.utils.ExportWriter;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.math.BigDecimal;
 
@@ -21,6 +26,38 @@ public class QuestionBankServiceImpl extends BaseServiceImpl<QuestionBank, Quest
     @Autowired
     private QuestionMapper questionMapper;
 
+    @Autowired
+    private QuestionOptionMapper questionOptionMapper;
+
+    @Autowired
+    private QuestionPoolCache questionPoolCache;
+
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    private QuestionDeduplicator questionDeduplicator;
+
+    @Autowired
+    private QuestionReadCache questionReadCache;
+
+    /**
+     * 题库所属学科变更或删除题库时题目池随之变化
+     */
+    @Override
+    public int updateById(QuestionBank record) {
+        questionPoolCache.clear();
+        return baseMapper.updateById(record);
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindexBanks(Collections.singletonList(id));
+        questionReadCache.invalidateBanks(Collections.singletonList(id));
+        return baseMapper.deleteById(id);
+    }
+
     @Override
     public List<QuestionBank> getBySubjectId(Integer subjectId) {
         return baseMapper.selectBySubjectId(subjectId);
@@ -43,27 +80,39 @@ public class QuestionBankServiceImpl extends BaseServiceImpl<QuestionBank, Quest
 
     @Override
     public int addQuestion(Integer qbId, Integer questionId) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(Collections.singletonList(questionId));
+        questionReadCache.clearQuestions();
         return baseMapper.addQuestion(qbId, questionId);
     }
 
     @Override
     public int batchAddQuestions(Integer qbId, List<Integer> questionIds) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(questionIds);
+        questionReadCache.clearQuestions();
         return baseMapper.batchAddQuestions(qbId, questionIds);
     }
 
     @Override
     public int removeQuestion(Integer qbId, Integer questionId) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(Collections.singletonList(questionId));
+        questionReadCache.clearQuestions();
         return baseMapper.removeQuestion(qbId, questionId);
     }
 
     @Override
     public int batchRemoveQuestions(Integer qbId, List<Integer> questionIds) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(questionIds);
+        questionReadCache.clearQuestions();
         return baseMapper.batchRemoveQuestions(qbId, questionIds);
     }
 
     @Override
     public List<Question> getQuestions(Integer qbId) {
-        return baseMapper.selectQuestions(qbId);
+        return questionReadCache.getBankQuestions(qbId);
     }
 
     @Override
@@ -89,11 +138,18 @@ public class QuestionBankServiceImpl extends BaseServiceImpl<QuestionBank, Quest
 
     @Override
     public int copyBank(Integer sourceQbId, String newBankName, Integer subjectId) {
+        questionPoolCache.clear();
+        questionSearchIndex.indexNewQuestions();
         return baseMapper.copyBank(sourceQbId, newBankName, subjectId);
     }
 
     @Override
     public int mergeBanks(Integer targetQbId, List<Integer> sourceQbIds) {
+        questionPoolCache.clear();
+        List<Integer> qbIds = new ArrayList<>(sourceQbIds);
+        qbIds.add(targetQbId);
+        questionSearchIndex.reindexBanks(qbIds);
+        questionReadCache.clearQuestions();
         return baseMapper.mergeBanks(targetQbId, sourceQbIds);
     }
 
@@ -109,12 +165,19 @@ public class QuestionBankServiceImpl extends BaseServiceImpl<QuestionBank, Quest
 
     @Override
     public int importBank(QuestionBank bank, List<Question> questions) {
+        questionPoolCache.clear();
         // 先插入题库
         int result = baseMapper.insert(bank);
         if (result == 0) {
             return 0;
         }
         
+        // 题目归入新题库，去掉同批中近似重复的题目
+        for (Question question : questions) {
+            question.setQbId(bank.getQbId());
+        }
+        questions = questionDeduplicator.filterImport(questions, false);
+
         // 批量插入题目
         if (!questions.isEmpty()) {
             questionMapper.batchInsert(questions);
@@ -127,6 +190,7 @@ public class QuestionBankServiceImpl extends BaseServiceImpl<QuestionBank, Quest
             
             // 建立题库和题目的关联
             baseMapper.batchAddQuestions(bank.getQbId(), questionIds);
+            questionSearchIndex.indexNewQuestions();
         }
         
         return result;
@@ -154,4 +218,64 @@ public class QuestionBankServiceImpl extends BaseServiceImpl<QuestionBank, Quest
         
         return data;
     }
-} 
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBank(Integer qbId, OutputStream out) {
+        long rows = 0;
+        try (Cursor<Question> questions = baseMapper.streamQuestionsWithOptions(qbId)) {
+            ExportWriter writer = new ExportWriter(out);
+            for (Question question : questions) {
+                writer.writeJsonLine(question);
+                rows++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("导出题库失败", e);
+        }
+        return rows;
+    }
+
+    @Override
+    public Map<String, Object> deduplicate(Integer qbId, boolean remove) {
+        List<Map<String, Object>> duplicates = questionDeduplicator.scan(qbId);
+        List<Integer> removedIds = new ArrayList<>();
+        if (remove) {
+            List<Integer> questionIds = new ArrayList<>(duplicates.size());
+            for (Map<String, Object> duplicate : duplicates) {
+                questionIds.add((Integer) duplicate.get("questionId"));
+            }
+            // 被试卷或答题记录引用的重复题只保留标记
+            for (int from = 0; from < questionIds.size(); from += 1000) {
+                List<Integer> batch = questionIds.subList(from, Math.min(from + 1000, questionIds.size()));
+                Set<Integer> referenced = new HashSet<>(questionMapper.selectReferencedIds(batch));
+                List<Integer> unused = new ArrayList<>();
+                for (Integer questionId : batch) {
+                    if (!referenced.contains(questionId)) {
+                        unused.add(questionId);
+                    }
+                }
+                if (!unused.isEmpty()) {
+                    questionOptionMapper.deleteByQuestionIds(unused);
+                    questionMapper.batchDelete(unused);
+                    removedIds.addAll(unused);
+                }
+            }
+            if (!removedIds.isEmpty()) {
+                questionPoolCache.clear();
+                questionSearchIndex.reindex(removedIds);
+                questionReadCache.invalidateOptions(removedIds);
+                // 删除的题目没有被试卷引用，只影响题库题目
+                if (qbId != null) {
+                    questionReadCache.invalidateBanks(Collections.singletonList(qbId));
+                } else {
+                    questionReadCache.clearBanks();
+                }
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("duplicates", duplicates);
+        result.put("removed", removedIds.size());
+        return result;
+    }
+}
@@ -0,0 +1,198 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Question;
+import com.exam.entity.QuestionOption;
+import com.exam.mapper.QuestionBankMapper;
+import com.exam.mapper.QuestionMapper;
+import com.exam.utils.BigramTokenizer;
+import com.exam.utils.SimHash;
+import com.exam.utils.SimHashIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 题目查重
+ * 按题目内容和选项内容计算SimHash指纹，同题库、同题型且汉明距离不超过max-distance的题目视为重复，
+ * 复制到其他题库的题目不算重复。
+ * 导入时与所属题库的已有题目及同批中靠前的题目比较；全库查重按题目ID单次流式扫描，
+ * 内存中只保留不重复题目的指纹
+ */
+@Slf4j
+@Component
+public class QuestionDeduplicator {
+
+    /** 导入时去掉重复题目 */
+    public static final String ACTION_SKIP = "skip";
+    /** 导入时保留重复题目，只记录日志 */
+    public static final String ACTION_FLAG = "flag";
+    /** 导入时不查重 */
+    public static final String ACTION_NONE = "none";
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private QuestionBankMapper questionBankMapper;
+
+    /** 判定为重复的最大汉明距离（64位指纹） */
+    @Value("${exam.dedup.max-distance:3}")
+    private int maxDistance = 3;
+
+    /** 导入时对重复题目的处理：skip、flag或none */
+    @Value("${exam.dedup.import-action:skip}")
+    private String importAction = ACTION_SKIP;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder scans = new LongAdder();
+
+    /**
+     * 按import-action处理导入的题目，需在事务内调用
+     * @param compareExisting 是否与题目所属题库的已有题目比较，导入到新建题库时为false
+     * @return 需要写入的题目：skip时去掉重复题目，flag和none时原样返回
+     */
+    public List<Question> filterImport(List<Question> questions, boolean compareExisting) {
+        if (ACTION_NONE.equals(importAction) || questions.isEmpty()) {
+            return questions;
+        }
+        List<Map<String, Object>> found = checkImport(questions, compareExisting);
+        if (found.isEmpty()) {
+            return questions;
+        }
+        for (Map<String, Object> duplicate : found) {
+            log.warn("导入题目疑似重复：{}", duplicate);
+        }
+        if (!ACTION_SKIP.equals(importAction)) {
+            return questions;
+        }
+        Set<Integer> indexes = new HashSet<>();
+        for (Map<String, Object> duplicate : found) {
+            indexes.add((Integer) duplicate.get("index"));
+        }
+        List<Question> kept = new ArrayList<>(questions.size() - indexes.size());
+        for (int i = 0; i < questions.size(); i++) {
+            if (!indexes.contains(i)) {
+                kept.add(questions.get(i));
+            }
+        }
+        skipped.add(indexes.size());
+        return kept;
+    }
+
+    /**
+     * 检查导入的题目是否重复，需在事务内调用
+     * @param compareExisting 是否与题目所属题库的已有题目比较
+     * @return 重复的题目：index为导入列表中的下标，与已有题目重复时duplicateOf为其ID，
+     *         与同批题目重复时duplicateOfIndex为其下标，distance为指纹的汉明距离
+     */
+    public List<Map<String, Object>> checkImport(List<Question> questions, boolean compareExisting) {
+        Map<Integer, Map<Integer, SimHashIndex>> banks = new HashMap<>();
+        List<Map<String, Object>> found = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i++) {
+            Question question = questions.get(i);
+            Integer qbId = question.getQbId();
+            Map<Integer, SimHashIndex> byType = banks.computeIfAbsent(qbId,
+                    key -> compareExisting && key != null ? loadBank(key) : new HashMap<>());
+            SimHashIndex index = byType.computeIfAbsent(question.getType(), key -> new SimHashIndex(maxDistance));
+            long fingerprint = fingerprint(question);
+            SimHashIndex.Match match = index.nearest(fingerprint);
+            if (match == null) {
+                // 同批题目以负数编号，与已有题目的ID区分
+                index.add(-(i + 1), fingerprint);
+                continue;
+            }
+            Map<String, Object> duplicate = new LinkedHashMap<>();
+            duplicate.put("index", i);
+            duplicate.put("duplicateOf", match.getId() > 0 ? match.getId() : null);
+            duplicate.put("duplicateOfIndex", match.getId() < 0 ? -match.getId() - 1 : null);
+            duplicate.put("distance", match.getDistance());
+            found.add(duplicate);
+        }
+        checked.add(questions.size());
+        duplicates.add(found.size());
+        return found;
+    }
+
+    /**
+     * 全库或单个题库查重
+     * 按题目ID顺序流式扫描，与同题库中更早的同题型题目重复的题目指向其中最相近的一道
+     * @param qbId 题库ID，为null时逐个题库扫描全部题目
+     * @return 重复的题目：questionId、duplicateOf、distance
+     */
+    public List<Map<String, Object>> scan(Integer qbId) {
+        Map<Integer, Map<Integer, SimHashIndex>> banks = new HashMap<>();
+        List<Map<String, Object>> found = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<Question> cursor = qbId == null
+                     ? session.getMapper(QuestionMapper.class).streamSearchDocuments(null)
+                     : session.getMapper(QuestionBankMapper.class).streamQuestionsWithOptions(qbId)) {
+            for (Question question : cursor) {
+                SimHashIndex index = banks.computeIfAbsent(question.getQbId(), key -> new HashMap<>())
+                        .computeIfAbsent(question.getType(), key -> new SimHashIndex(maxDistance));
+                long fingerprint = fingerprint(question);
+                SimHashIndex.Match match = index.nearest(fingerprint);
+                if (match == null) {
+                    index.add(question.getQuestionId(), fingerprint);
+                    continue;
+                }
+                Map<String, Object> duplicate = new LinkedHashMap<>();
+                duplicate.put("questionId", question.getQuestionId());
+                duplicate.put("duplicateOf", match.getId());
+                duplicate.put("distance", match.getDistance());
+                found.add(duplicate);
+            }
+        } catch (IOException e) {
+            log.warn("关闭查重游标失败", e);
+        }
+        scans.increment();
+        return found;
+    }
+
+    /**
+     * 查重统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checked", checked.sum());
+        stats.put("duplicates", duplicates.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("scans", scans.sum());
+        return stats;
+    }
+
+    /**
+     * 题库已有题目的指纹，按题型分组
+     */
+    private Map<Integer, SimHashIndex> loadBank(Integer qbId) {
+        Map<Integer, SimHashIndex> byType = new HashMap<>();
+        try (Cursor<Question> cursor = questionBankMapper.streamQuestionsWithOptions(qbId)) {
+            for (Question question : cursor) {
+                byType.computeIfAbsent(question.getType(), key -> new SimHashIndex(maxDistance))
+                        .add(question.getQuestionId(), fingerprint(question));
+            }
+        } catch (IOException e) {
+            log.warn("关闭查重游标失败", e);
+        }
+        return byType;
+    }
+
+    static long fingerprint(Question question) {
+        List<String> tokens = BigramTokenizer.tokenize(question.getContent());
+        if (question.getOptions() != null) {
+            for (QuestionOption option : question.getOptions()) {
+                tokens.addAll(BigramTokenizer.tokenize(option.getContent()));
+            }
+        }
+        return SimHash.fingerprint(tokens);
+    }
+}
@@ -0,0 +1,153 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.mapper.QuestionMapper;
+import com.exam.utils.PaperAssembler;
+import com.exam.utils.QuestionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 组卷题目池缓存
+ * 按学科缓存题目池，首次组卷时加载；组卷结果在事务提交后累加到题目使用次数，
+ * 使后续组卷优先选择较少使用的题目。题目、题库或试卷题目变更时清空
+ */
+@Slf4j
+@Component
+public class QuestionPoolCache {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    /** 平均难度允许偏离目标的范围 */
+    @Value("${exam.paper.difficulty-tolerance:0.05}")
+    private BigDecimal difficultyTolerance;
+
+    /** 每个题位至少保留的候选题数（倍数），候选题按使用次数从少到多选取 */
+    @Value("${exam.paper.candidate-factor:8}")
+    private int candidateFactor;
+
+    /** 每层候选题内局部搜索的最大替换次数 */
+    @Value("${exam.paper.max-iterations:5000}")
+    private int maxIterations;
+
+    private final Map<Integer, QuestionPool> pools = new ConcurrentHashMap<>();
+
+    /** 每次清空加1，加载期间发生过清空的结果不写入缓存 */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder assembled = new LongAdder();
+    private final LongAdder infeasible = new LongAdder();
+
+    /**
+     * 从学科题目池组卷，事务提交后累加选中题目的使用次数
+     * @param slotTypes 各题位的题型
+     * @param slotWeights 各题位的分值（0.5分为1）
+     * @param difficulty 目标平均难度，为null时不限制难度
+     * @return 组卷结果；题目数不足时返回null
+     */
+    public PaperAssembler.Result assemble(Integer subjectId, int[] slotTypes, int[] slotWeights, BigDecimal difficulty) {
+        QuestionPool pool = get(subjectId);
+        PaperAssembler.Result result = new PaperAssembler(candidateFactor, maxIterations).assemble(pool,
+                slotTypes, slotWeights, difficulty == null ? null : hundredths(difficulty),
+                hundredths(difficultyTolerance), new SplittableRandom());
+        if (result == null || !result.isWithinTolerance()) {
+            infeasible.increment();
+            return result;
+        }
+        assembled.increment();
+        int[] indexes = result.getIndexes();
+        TransactionHooks.afterCommit(() -> recordUsage(subjectId, pool, indexes));
+        return result;
+    }
+
+    /**
+     * 获取学科题目池，未缓存时从数据库加载
+     */
+    public QuestionPool get(Integer subjectId) {
+        QuestionPool pool = pools.get(subjectId);
+        if (pool != null) {
+            return pool;
+        }
+        long version = invalidations.get();
+        pool = load(subjectId);
+        synchronized (pools) {
+            if (version == invalidations.get()) {
+                QuestionPool existing = pools.putIfAbsent(subjectId, pool);
+                return existing != null ? existing : pool;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 清空全部题目池
+     * 处于事务中时提交后再清空一次，避免提交前被并发请求以旧数据重新加载
+     */
+    public void clear() {
+        TransactionHooks.invalidate(this::remove);
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<Integer, Integer> sizes = new TreeMap<>();
+        pools.forEach((subjectId, pool) -> sizes.put(subjectId, pool.size()));
+        stats.put("pools", sizes);
+        stats.put("loads", loads.sum());
+        stats.put("assembled", assembled.sum());
+        stats.put("infeasible", infeasible.sum());
+        return stats;
+    }
+
+    private QuestionPool load(Integer subjectId) {
+        QuestionPool.Builder builder = QuestionPool.builder();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<Map<String, Object>> rows = session.getMapper(QuestionMapper.class).streamPaperPool(subjectId)) {
+            for (Map<String, Object> row : rows) {
+                builder.add(((Number) row.get("question_id")).intValue(), ((Number) row.get("type")).intValue(),
+                        hundredths((BigDecimal) row.get("difficulty")), ((Number) row.get("usage_count")).intValue());
+            }
+        } catch (IOException e) {
+            log.warn("关闭题目池游标失败", e);
+        }
+        loads.increment();
+        return builder.build();
+    }
+
+    private void recordUsage(Integer subjectId, QuestionPool pool, int[] indexes) {
+        // 题目池已被清空重建时，重建结果已包含本次组卷
+        if (pools.get(subjectId) == pool) {
+            for (int index : indexes) {
+                pool.recordUsage(index);
+            }
+        }
+    }
+
+    private void remove() {
+        synchronized (pools) {
+            invalidations.incrementAndGet();
+            pools.clear();
+        }
+    }
+
+    private static int hundredths(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().intValue();
+    }
+}
@@ -0,0 +1,206 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.entity.Question;
+import com.exam.entity.QuestionOption;
+import com.exam.mapper.QuestionBankMapper;
+import com.exam.mapper.QuestionMapper;
+import com.exam.utils.CacheRegion;
+import com.exam.utils.CacheStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * 题目读缓存
+ * 分题库题目、试卷题目、题目选项三个区域缓存考试期间读多写少的查询结果。
+ * 本地缓存未命中时先查询二级缓存（存在CacheStore Bean时），再查询数据库；
+ * 空结果不缓存，新建的题库和试卷不会读到此前缓存的空列表。返回副本，调用方修改不影响缓存
+ */
+@Component
+public class QuestionReadCache {
+
+    public static final String BANK_QUESTIONS = "bank_questions";
+    public static final String PAPER_QUESTIONS = "paper_questions";
+    public static final String QUESTION_OPTIONS = "question_options";
+
+    @Autowired
+    private QuestionBankMapper questionBankMapper;
+
+    @Autowired
+    private QuestionMapper questionMapper;
+
+    @Autowired(required = false)
+    private CacheStore cacheStore;
+
+    @Value("${exam.read-cache.enabled:true}")
+    private boolean enabled = true;
+
+    /** 每个区域本地最多缓存的题目或选项数 */
+    @Value("${exam.read-cache.max-items:100000}")
+    private long maxItems = 100000;
+
+    /** 本地缓存写入后的有效期（秒），多实例部署时即其他实例修改后的最长延迟 */
+    @Value("${exam.read-cache.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+
+    private CacheRegion<Integer, List<Question>> bankQuestions;
+    private CacheRegion<Integer, List<Question>> paperQuestions;
+    private CacheRegion<Integer, List<QuestionOption>> questionOptions;
+
+    @PostConstruct
+    public void init() {
+        long ttlMillis = ttlSeconds * 1000;
+        bankQuestions = new CacheRegion<>(BANK_QUESTIONS, maxItems, ttlMillis, List::size, cacheStore);
+        paperQuestions = new CacheRegion<>(PAPER_QUESTIONS, maxItems, ttlMillis, List::size, cacheStore);
+        questionOptions = new CacheRegion<>(QUESTION_OPTIONS, maxItems, ttlMillis, List::size, cacheStore);
+    }
+
+    /**
+     * 题库中的题目
+     */
+    public List<Question> getBankQuestions(Integer qbId) {
+        if (!enabled || qbId == null) {
+            return questionBankMapper.selectQuestions(qbId);
+        }
+        return copyQuestions(bankQuestions.get(qbId, key -> nonEmpty(questionBankMapper.selectQuestions(key))));
+    }
+
+    /**
+     * 试卷中的题目，按题目顺序
+     */
+    public List<Question> getPaperQuestions(Integer paperId) {
+        if (!enabled || paperId == null) {
+            return questionMapper.selectByPaperId(paperId);
+        }
+        return copyQuestions(paperQuestions.get(paperId, key -> nonEmpty(questionMapper.selectByPaperId(key))));
+    }
+
+    /**
+     * 题目的选项
+     */
+    public List<QuestionOption> getOptions(Integer questionId) {
+        if (!enabled || questionId == null) {
+            return questionMapper.selectOptions(questionId);
+        }
+        List<QuestionOption> options = questionOptions.get(questionId,
+                key -> nonEmpty(questionMapper.selectOptions(key)));
+        List<QuestionOption> result = new ArrayList<>(options == null ? 0 : options.size());
+        if (options != null) {
+            for (QuestionOption option : options) {
+                result.add(copy(option));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 题库的题目增减后失效
+     * 处于事务中时提交后再失效一次，避免提交前被并发请求以旧数据重新加载
+     */
+    public void invalidateBanks(Collection<Integer> qbIds) {
+        Set<Integer> ids = nonNull(qbIds);
+        if (!ids.isEmpty()) {
+            TransactionHooks.invalidate(() -> ids.forEach(bankQuestions::invalidate));
+        }
+    }
+
+    /**
+     * 试卷题目或分值变更后失效
+     */
+    public void invalidatePaper(Integer paperId) {
+        if (paperId != null) {
+            TransactionHooks.invalidate(() -> paperQuestions.invalidate(paperId));
+        }
+    }
+
+    /**
+     * 题目的选项变更后失效
+     */
+    public void invalidateOptions(Collection<Integer> questionIds) {
+        Set<Integer> ids = nonNull(questionIds);
+        if (!ids.isEmpty()) {
+            TransactionHooks.invalidate(() -> ids.forEach(questionOptions::invalidate));
+        }
+    }
+
+    /**
+     * 清空题库题目，用于无法确定所属题库的题目删除
+     */
+    public void clearBanks() {
+        TransactionHooks.invalidate(bankQuestions::clear);
+    }
+
+    /**
+     * 清空题库题目和试卷题目，用于题目内容、难度或所属题库的修改，
+     * 引用这些题目的试卷无法直接确定
+     */
+    public void clearQuestions() {
+        TransactionHooks.invalidate(() -> {
+            bankQuestions.clear();
+            paperQuestions.clear();
+        });
+    }
+
+    /**
+     * 各区域的命中统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("shared_store", cacheStore != null);
+        for (CacheRegion<?, ?> region : Arrays.asList(bankQuestions, paperQuestions, questionOptions)) {
+            stats.put(region.getName(), region.getStatistics());
+        }
+        return stats;
+    }
+
+    private static Set<Integer> nonNull(Collection<Integer> ids) {
+        Set<Integer> result = new HashSet<>();
+        if (ids != null) {
+            for (Integer id : ids) {
+                if (id != null) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<T> nonEmpty(List<T> list) {
+        return list == null || list.isEmpty() ? null : list;
+    }
+
+    private static List<Question> copyQuestions(List<Question> questions) {
+        List<Question> result = new ArrayList<>(questions == null ? 0 : questions.size());
+        if (questions != null) {
+            for (Question question : questions) {
+                result.add(copy(question));
+            }
+        }
+        return result;
+    }
+
+    private static Question copy(Question source) {
+        Question question = new Question();
+        question.setQuestionId(source.getQuestionId());
+        question.setQbId(source.getQbId());
+        question.setContent(source.getContent());
+        question.setAnswer(source.getAnswer());
+        question.setType(source.getType());
+        question.setDifficulty(source.getDifficulty());
+        return question;
+    }
+
+    private static QuestionOption copy(QuestionOption source) {
+        QuestionOption option = new QuestionOption();
+        option.setOptionId(source.getOptionId());
+        option.setQuestionId(source.getQuestionId());
+        option.setContent(source.getContent());
+        option.setIsCorrect(source.getIsCorrect());
+        return option;
+    }
+}
@@ -0,0 +1,378 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.entity.Question;
+import com.exam.entity.QuestionOption;
+import com.exam.mapper.QuestionMapper;
+import com.exam.utils.BigramTokenizer;
+import com.exam.utils.SearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 题目全文索引
+ * 对题目内容和选项内容建立中文二元倒排索引，替代content LIKE的全表扫描。
+ * 启动时读取本地索引文件并重放文件写出后的变更记录，没有索引文件时从数据库全量构建；
+ * 题目和选项变更在事务提交后由后台线程增量更新并追加到变更记录，定期合并写回索引文件。
+ * 未经服务层的修改由每天的全量重建兜底，索引未就绪时查询退回数据库模糊查询
+ */
+@Slf4j
+@Component
+public class QuestionSearchIndex {
+
+    private static final String INDEX_FILE = "questions.idx";
+    private static final String CHANGE_LOG = "changes.log";
+
+    /** 每次从数据库加载的题目数 */
+    private static final int LOAD_BATCH = 500;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private QuestionMapper questionMapper;
+
+    @Value("${exam.search.enabled:true}")
+    private boolean enabled = true;
+
+    /** 索引文件目录 */
+    @Value("${exam.search.index-dir:data/search-index}")
+    private String indexDir = "data/search-index";
+
+    /** 未合并的变更达到该数量时合并主段 */
+    @Value("${exam.search.merge-threshold:5000}")
+    private int mergeThreshold = 5000;
+
+    /** 单次查询最多返回的题目数 */
+    @Value("${exam.search.max-results:200}")
+    private int maxResults = 200;
+
+    private volatile SearchIndex index;
+
+    /** 变更、合并、写文件和重建都在该线程上依次执行 */
+    private ExecutorService executor;
+
+    private boolean dirty;
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "question-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            executor.execute(this::open);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (enabled) {
+            executor.execute(this::persist);
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 全文检索题目
+     * @param minDifficulty 最低难度，为null时不限；限定难度时不含未设置难度的题目
+     * @param limit 最多返回的题目数，为null或超过max-results时按max-results
+     * @return 按相关度排列的题目ID；索引未就绪或查询没有可检索的字词时返回null
+     */
+    public List<Integer> search(String keyword, Integer qbId, Integer type, BigDecimal minDifficulty,
+                                BigDecimal maxDifficulty, Integer limit) {
+        SearchIndex current = index;
+        if (current == null || BigramTokenizer.tokenizeQuery(keyword).isEmpty()) {
+            return null;
+        }
+        searches.increment();
+        int size = limit == null ? maxResults : Math.min(limit, maxResults);
+        List<SearchIndex.Hit> hits = current.search(keyword, qbId, type, hundredths(minDifficulty),
+                hundredths(maxDifficulty), size);
+        List<Integer> questionIds = new ArrayList<>(hits.size());
+        for (SearchIndex.Hit hit : hits) {
+            questionIds.add(hit.getQuestionId());
+        }
+        return questionIds;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * 事务提交后重新索引题目，已删除的题目从索引中移除
+     */
+    public void reindex(Collection<Integer> questionIds) {
+        List<Integer> ids = new ArrayList<>();
+        for (Integer questionId : questionIds) {
+            if (questionId != null) {
+                ids.add(questionId);
+            }
+        }
+        if (!ids.isEmpty()) {
+            afterCommit(() -> apply(ids));
+        }
+    }
+
+    /**
+     * 事务提交后索引新插入的题目，用于无法取得自增ID的批量插入
+     * 只补充ID大于已索引最大ID的题目，乱序提交的题目由全量重建补齐
+     */
+    public void indexNewQuestions() {
+        afterCommit(this::applyNew);
+    }
+
+    /**
+     * 事务提交后重新索引题库内的题目，用于合并、删除题库等按题库的批量修改
+     */
+    public void reindexBanks(Collection<Integer> qbIds) {
+        List<Integer> banks = new ArrayList<>(qbIds);
+        afterCommit(() -> {
+            SearchIndex current = index;
+            if (current == null) {
+                return;
+            }
+            Set<Integer> questionIds = new TreeSet<>(current.questionIdsInBanks(banks));
+            for (Integer qbId : banks) {
+                for (Question question : questionMapper.selectByBankId(qbId)) {
+                    questionIds.add(question.getQuestionId());
+                }
+            }
+            apply(new ArrayList<>(questionIds));
+        });
+    }
+
+    /**
+     * 从数据库全量重建
+     */
+    @Scheduled(cron = "${exam.search.rebuild-cron:0 30 3 * * ?}")
+    public void requestRebuild() {
+        if (enabled && rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    /**
+     * 定期把变更合并写回索引文件
+     */
+    @Scheduled(fixedDelayString = "${exam.search.flush-interval-ms:60000}")
+    public void flush() {
+        if (enabled) {
+            executor.execute(this::persist);
+        }
+    }
+
+    /**
+     * 索引统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        SearchIndex current = index;
+        stats.put("ready", current != null);
+        if (current != null) {
+            stats.put("documents", current.size());
+            stats.put("terms", current.termCount());
+            stats.put("pendingChanges", current.pendingChanges());
+        }
+        stats.put("searches", searches.sum());
+        stats.put("updates", updates.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> submit(task));
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("更新全文索引失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("全文索引已停止，忽略本次更新");
+        }
+    }
+
+    /**
+     * 读取索引文件并重放变更记录，失败时全量重建
+     */
+    private void open() {
+        Path file = Paths.get(indexDir, INDEX_FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                SearchIndex loaded = SearchIndex.read(in);
+                List<Integer> changed = readChangeLog();
+                index = loaded;
+                apply(changed);
+                log.info("全文索引已加载，题目数：{}，重放变更：{}", loaded.size(), changed.size());
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("读取全文索引文件失败，从数据库重建", e);
+            }
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        try {
+            SearchIndex.Builder builder = SearchIndex.builder();
+            try (SqlSession session = sqlSessionFactory.openSession();
+                 Cursor<Question> cursor = session.getMapper(QuestionMapper.class).streamSearchDocuments(null)) {
+                for (Question question : cursor) {
+                    builder.add(toDocument(question));
+                }
+            }
+            index = builder.build();
+            dirty = true;
+            rebuilds.increment();
+            persist();
+        } catch (IOException | RuntimeException e) {
+            log.error("重建全文索引失败", e);
+        }
+    }
+
+    private void apply(List<Integer> questionIds) {
+        SearchIndex current = index;
+        if (current == null || questionIds.isEmpty()) {
+            return;
+        }
+        appendChangeLog(questionIds);
+        for (int from = 0; from < questionIds.size(); from += LOAD_BATCH) {
+            List<Integer> batch = questionIds.subList(from, Math.min(from + LOAD_BATCH, questionIds.size()));
+            Set<Integer> missing = new HashSet<>(batch);
+            for (Question question : questionMapper.selectSearchDocuments(batch)) {
+                current.upsert(toDocument(question));
+                missing.remove(question.getQuestionId());
+            }
+            for (Integer questionId : missing) {
+                current.delete(questionId);
+            }
+        }
+        updates.add(questionIds.size());
+        dirty = true;
+        if (current.pendingChanges() >= mergeThreshold) {
+            current.compact();
+        }
+    }
+
+    private void applyNew() {
+        SearchIndex current = index;
+        if (current == null) {
+            return;
+        }
+        List<Integer> questionIds = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<Question> cursor = session.getMapper(QuestionMapper.class)
+                     .streamSearchDocuments(current.maxQuestionId())) {
+            for (Question question : cursor) {
+                questionIds.add(question.getQuestionId());
+            }
+        } catch (IOException e) {
+            log.warn("关闭全文索引游标失败", e);
+        }
+        apply(questionIds);
+    }
+
+    /**
+     * 合并变更，写入临时文件后替换索引文件并清空变更记录
+     */
+    private void persist() {
+        SearchIndex current = index;
+        if (current == null || !dirty) {
+            return;
+        }
+        try {
+            Path dir = Files.createDirectories(Paths.get(indexDir));
+            Path temp = dir.resolve(INDEX_FILE + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                current.write(out);
+            }
+            Files.move(temp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(dir.resolve(CHANGE_LOG));
+            dirty = false;
+        } catch (IOException e) {
+            log.error("写入全文索引文件失败", e);
+        }
+    }
+
+    private void appendChangeLog(List<Integer> questionIds) {
+        try {
+            Path dir = Files.createDirectories(Paths.get(indexDir));
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                    dir.resolve(CHANGE_LOG), StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                for (Integer questionId : questionIds) {
+                    out.writeInt(questionId);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("写入全文索引变更记录失败", e);
+        }
+    }
+
+    private List<Integer> readChangeLog() throws IOException {
+        Path file = Paths.get(indexDir, CHANGE_LOG);
+        Set<Integer> questionIds = new TreeSet<>();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                // 最后一条可能只写了一半
+                while (in.available() >= Integer.BYTES) {
+                    questionIds.add(in.readInt());
+                }
+            }
+        }
+        return new ArrayList<>(questionIds);
+    }
+
+    private static SearchIndex.Document toDocument(Question question) {
+        List<String> tokens = BigramTokenizer.tokenize(question.getContent());
+        if (question.getOptions() != null) {
+            for (QuestionOption option : question.getOptions()) {
+                tokens.addAll(BigramTokenizer.tokenize(option.getContent()));
+            }
+        }
+        return SearchIndex.Document.of(question.getQuestionId(), question.getQbId(), question.getType(),
+                hundredths(question.getDifficulty()), tokens);
+    }
+
+    private static Integer hundredths(BigDecimal value) {
+        return value == null ? null : value.setScale(2, RoundingMode.HALF_UP).unscaledValue().intValue();
+    }
+}
@@ -7,6 +7,7 @@ import com.exam.mapper.QuestionOptionMapper;
 import com.exam.service.QuestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import java.math.BigDecimal;
@@ -21,6 +22,83 @@ public class QuestionServiceImpl extends BaseServiceImpl<Question, QuestionMappe
     @Autowired
     private QuestionOptionMapper optionMapper;
 
+    @Autowired
+    private QuestionPoolCache questionPoolCache;
+
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    private QuestionDeduplicator questionDeduplicator;
+
+    @Autowired
+    private QuestionReadCache questionReadCache;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @Autowired
+    private ExamAdmissionController examAdmissionController;
+
+    @Override
+    public int insert(Question record) {
+        questionPoolCache.clear();
+        questionReadCache.invalidateBanks(Collections.singletonList(record.getQbId()));
+        int result = baseMapper.insert(record);
+        questionSearchIndex.reindex(Collections.singletonList(record.getQuestionId()));
+        return result;
+    }
+
+    @Override
+    public int batchInsert(List<Question> list) {
+        questionPoolCache.clear();
+        questionReadCache.invalidateBanks(bankIds(list));
+        int result = baseMapper.batchInsert(list);
+        questionSearchIndex.indexNewQuestions();
+        return result;
+    }
+
+    @Override
+    public int updateById(Question record) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(Collections.singletonList(record.getQuestionId()));
+        questionReadCache.clearQuestions();
+        invalidateAnswerKeys(Collections.singletonList(record.getQuestionId()));
+        return baseMapper.updateById(record);
+    }
+
+    @Override
+    public int batchUpdate(List<Question> list) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(questionIds(list));
+        questionReadCache.clearQuestions();
+        invalidateAnswerKeys(questionIds(list));
+        return baseMapper.batchUpdate(list);
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(Collections.singletonList(id));
+        questionReadCache.clearQuestions();
+        questionReadCache.invalidateOptions(Collections.singletonList(id));
+        invalidateAnswerKeys(Collections.singletonList(id));
+        return baseMapper.deleteById(id);
+    }
+
+    @Override
+    public int batchDelete(List<Integer> ids) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(ids);
+        questionReadCache.clearQuestions();
+        questionReadCache.invalidateOptions(ids);
+        invalidateAnswerKeys(ids);
+        return baseMapper.batchDelete(ids);
+    }
+
     @Override
     public List<Question> getByBankId(Integer qbId) {
         return baseMapper.selectByBankId(qbId);
@@ -38,7 +116,35 @@ public class QuestionServiceImpl extends BaseServiceImpl<Question, QuestionMappe
 
     @Override
     public List<Question> getByContent(String content) {
-        return baseMapper.selectByContent(content);
+        return searchQuestions(content, null, null, null, null, null);
+    }
+
+    @Override
+    public List<Question> searchQuestions(String keyword, Integer qbId, Integer type,
+                                          BigDecimal minDifficulty, BigDecimal maxDifficulty, Integer limit) {
+        List<Integer> questionIds = questionSearchIndex.search(keyword, qbId, type, minDifficulty, maxDifficulty, limit);
+        if (questionIds == null) {
+            // 索引未就绪或查询没有可检索的字词
+            int size = limit == null ? questionSearchIndex.getMaxResults()
+                    : Math.min(limit, questionSearchIndex.getMaxResults());
+            return baseMapper.searchByContent(keyword, qbId, type, minDifficulty, maxDifficulty, size);
+        }
+        if (questionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 按相关度顺序返回
+        Map<Integer, Question> questions = new HashMap<>();
+        for (Question question : baseMapper.selectByIds(questionIds)) {
+            questions.put(question.getQuestionId(), question);
+        }
+        List<Question> result = new ArrayList<>(questionIds.size());
+        for (Integer questionId : questionIds) {
+            Question question = questions.get(questionId);
+            if (question != null) {
+                result.add(question);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -48,41 +154,59 @@ public class QuestionServiceImpl extends BaseServiceImpl<Question, QuestionMappe
 
     @Override
     public List<QuestionOption> getOptions(Integer questionId) {
-        return baseMapper.selectOptions(questionId);
+        return questionReadCache.getOptions(questionId);
     }
 
     @Override
     public int addOption(Integer questionId, QuestionOption option) {
+        questionSearchIndex.reindex(Collections.singletonList(questionId));
+        questionReadCache.invalidateOptions(Collections.singletonList(questionId));
+        invalidateAnswerKeys(Collections.singletonList(questionId));
         return baseMapper.insertOption(questionId, option);
     }
 
     @Override
     public int batchAddOptions(Integer questionId, List<QuestionOption> options) {
+        questionSearchIndex.reindex(Collections.singletonList(questionId));
+        questionReadCache.invalidateOptions(Collections.singletonList(questionId));
+        invalidateAnswerKeys(Collections.singletonList(questionId));
         return baseMapper.batchInsertOptions(questionId, options);
     }
 
     @Override
     public int updateOption(Integer optionId, QuestionOption option) {
+        optionChanged(optionId);
         return baseMapper.updateOption(optionId, option);
     }
 
     @Override
     public int deleteOption(Integer optionId) {
+        optionChanged(optionId);
         return baseMapper.deleteOption(optionId);
     }
 
     @Override
     public List<Question> getByPaperId(Integer paperId) {
-        return baseMapper.selectByPaperId(paperId);
+        return questionReadCache.getPaperQuestions(paperId);
     }
 
     @Override
     public int batchAddToPaper(Integer paperId, List<Integer> questionIds, List<BigDecimal> scores) {
+        questionPoolCache.clear();
+        questionReadCache.invalidatePaper(paperId);
+        answerKeyCache.invalidate(paperId);
+        scoreHistogramCache.invalidatePaper(paperId);
+        examAdmissionController.invalidatePapers(Collections.singletonList(paperId));
         return baseMapper.batchAddToPaper(paperId, questionIds, scores);
     }
 
     @Override
     public int removeFromPaper(Integer paperId, Integer questionId) {
+        questionPoolCache.clear();
+        questionReadCache.invalidatePaper(paperId);
+        answerKeyCache.invalidate(paperId);
+        scoreHistogramCache.invalidatePaper(paperId);
+        examAdmissionController.invalidatePapers(Collections.singletonList(paperId));
         return baseMapper.removeFromPaper(paperId, questionId);
     }
 
@@ -113,16 +237,23 @@ public class QuestionServiceImpl extends BaseServiceImpl<Question, QuestionMappe
 
     @Override
     public int updateDifficulty(Integer questionId, BigDecimal difficulty) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(Collections.singletonList(questionId));
+        questionReadCache.clearQuestions();
         return baseMapper.updateDifficulty(questionId, difficulty);
     }
 
     @Override
     public int batchUpdateDifficulty(List<Integer> questionIds, List<BigDecimal> difficulties) {
+        questionPoolCache.clear();
+        questionSearchIndex.reindex(questionIds);
+        questionReadCache.clearQuestions();
         return baseMapper.batchUpdateDifficulty(questionIds, difficulties);
     }
 
     @Override
     public int batchImport(List<Question> questions) {
+        questionPoolCache.clear();
         // 批量导入前进行数据验证
         for (Question question : questions) {
             if (question.getContent() == null || question.getType() == null) {
@@ -135,7 +266,13 @@ public class QuestionServiceImpl extends BaseServiceImpl<Question, QuestionMappe
             }
         }
         
+        questions = questionDeduplicator.filterImport(questions, true);
+        if (questions.isEmpty()) {
+            return 0;
+        }
+        questionReadCache.invalidateBanks(bankIds(questions));
         int result = baseMapper.batchInsert(questions);
+        questionSearchIndex.indexNewQuestions();
         
         // 批量插入选项
         for (Question question : questions) {
@@ -147,4 +284,54 @@ public class QuestionServiceImpl extends BaseServiceImpl<Question, QuestionMappe
         return result;
     }
 
-} 
\ No newline at end of file
+    @Override
+    public List<Map<String, Object>> checkImportDuplicates(List<Question> questions) {
+        return questionDeduplicator.checkImport(questions, true);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getReadCacheStatistics() {
+        return questionReadCache.getStatistics();
+    }
+
+    /**
+     * 选项所属题目在事务提交后重新索引，其选项缓存和所在试卷的答案失效
+     */
+    private void optionChanged(Integer optionId) {
+        QuestionOption existing = optionMapper.selectById(optionId);
+        if (existing != null) {
+            List<Integer> questionIds = Collections.singletonList(existing.getQuestionId());
+            questionSearchIndex.reindex(questionIds);
+            questionReadCache.invalidateOptions(questionIds);
+            invalidateAnswerKeys(questionIds);
+        }
+    }
+
+    /**
+     * 答案、题型或选项变更后，包含这些题目的试卷答案和预加载的考试试卷失效
+     */
+    private void invalidateAnswerKeys(List<Integer> questionIds) {
+        if (questionIds != null && !questionIds.isEmpty()) {
+            List<Integer> paperIds = baseMapper.selectPaperIdsByQuestionIds(questionIds);
+            answerKeyCache.invalidateAll(paperIds);
+            examAdmissionController.invalidatePapers(paperIds);
+        }
+    }
+
+    private static Set<Integer> bankIds(List<Question> questions) {
+        Set<Integer> qbIds = new HashSet<>();
+        for (Question question : questions) {
+            qbIds.add(question.getQbId());
+        }
+        return qbIds;
+    }
+
+    private static List<Integer> questionIds(List<Question> questions) {
+        List<Integer> questionIds = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            questionIds.add(question.getQuestionId());
+        }
+        return questionIds;
+    }
+}
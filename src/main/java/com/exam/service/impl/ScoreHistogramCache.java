@@ -0,0 +1,481 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.entity.Exam;
+import com.exam.entity.StudentClass;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.entity.StudentScore;
+import com.exam.mapper.ExamMapper;
+import com.exam.mapper.StudentClassMapper;
+import com.exam.mapper.StudentQuestionScoreMapper;
+import com.exam.mapper.StudentScoreMapper;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import com.exam.utils.ScoreHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 成绩直方图缓存
+ * 按考试、考试+班级、考试+题目维护1分一档的直方图，首次查询时加载，之后随成绩写入增量维护，
+ * 分数段统计不再对成绩表执行分组查询。总分直方图按试卷总分确定档位数；
+ * 考试和题目直方图各自超过max-exams场考试时淘汰最久未查询的考试
+ */
+@Component
+public class ScoreHistogramCache {
+
+    /** 试卷总分未知时总分直方图的满分，与原分组查询的90-100一致 */
+    private static final int DEFAULT_EXAM_MAX_SCORE = 100;
+
+    /** 题目直方图按得分率（0-100）计数 */
+    private static final int QUESTION_MAX_PERCENT = 100;
+
+    /** 版本分段数，成绩写入只影响同一分段中正在加载的考试 */
+    private static final int VERSION_STRIPES = 64;
+
+    @Autowired
+    private StudentScoreMapper studentScoreMapper;
+
+    @Autowired
+    private StudentClassMapper studentClassMapper;
+
+    @Autowired
+    private StudentQuestionScoreMapper studentQuestionScoreMapper;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    /** 每种直方图最多缓存的考试数 */
+    @Value("${exam.score-cache.max-exams:200}")
+    private int maxExams = 200;
+
+    /** 由自身加锁保护，按访问顺序淘汰 */
+    private final Map<Integer, ExamHistograms> exams = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 由自身加锁保护，按访问顺序淘汰；内层按题目ID */
+    private final Map<Integer, Map<Integer, QuestionHistogram>> questions = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 总分和题目得分的版本，加载期间所在分段版本发生变化的结果不写入缓存 */
+    private final AtomicLongArray examVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLongArray questionVersions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * 考试总分直方图快照
+     */
+    public ScoreHistogram getExamHistogram(Integer examId) {
+        ExamHistograms histograms = getExam(examId);
+        histograms.lock.readLock().lock();
+        try {
+            return histograms.exam.snapshot();
+        } finally {
+            histograms.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 班级在某场考试中的总分直方图快照，班级成员取自student_class
+     */
+    public ScoreHistogram getClassHistogram(Integer examId, Integer classId) {
+        ExamHistograms histograms = getExam(examId);
+        histograms.lock.readLock().lock();
+        try {
+            ClassHistogram histogram = histograms.classes.get(classId);
+            if (histogram != null) {
+                return histogram.histogram.snapshot();
+            }
+        } finally {
+            histograms.lock.readLock().unlock();
+        }
+
+        Set<Integer> members = new HashSet<>();
+        for (StudentClass studentClass : studentClassMapper.selectByClassId(classId)) {
+            members.add(studentClass.getStudentId());
+        }
+        histograms.lock.writeLock().lock();
+        try {
+            ClassHistogram histogram = histograms.classes.get(classId);
+            if (histogram == null) {
+                histogram = new ClassHistogram(members, histograms.exam.maxScore());
+                for (Map.Entry<Integer, BigDecimal> entry : histograms.scores.entrySet()) {
+                    if (members.contains(entry.getKey())) {
+                        histogram.histogram.add(entry.getValue());
+                    }
+                }
+                histograms.classes.put(classId, histogram);
+            }
+            return histogram.histogram.snapshot();
+        } finally {
+            histograms.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 试卷在各场考试中的总分直方图合计
+     */
+    public ScoreHistogram getPaperHistogram(Integer paperId) {
+        ScoreHistogram result = new ScoreHistogram(paperMaxScore(paperId));
+        for (Exam exam : examMapper.selectByPaperId(paperId)) {
+            result.addAll(getExamHistogram(exam.getExamId()));
+        }
+        return result;
+    }
+
+    /**
+     * 题目得分率直方图快照
+     * @return 考试不存在或题目不在该考试试卷中时返回null
+     */
+    public ScoreHistogram getQuestionHistogram(Integer examId, Integer questionId) {
+        QuestionHistogram histogram;
+        synchronized (questions) {
+            Map<Integer, QuestionHistogram> examQuestions = questions.get(examId);
+            histogram = examQuestions == null ? null : examQuestions.get(questionId);
+        }
+        if (histogram == null) {
+            BigDecimal maxScore = getQuestionMaxScore(examId, questionId);
+            if (maxScore == null) {
+                return null;
+            }
+            long version = questionVersions.get(stripe(examId));
+            QuestionHistogram loaded = loadQuestion(examId, questionId, maxScore);
+            histogram = loaded;
+            synchronized (questions) {
+                if (version == questionVersions.get(stripe(examId))) {
+                    QuestionHistogram existing = questions.computeIfAbsent(examId, k -> new HashMap<>())
+                            .putIfAbsent(questionId, loaded);
+                    if (existing != null) {
+                        histogram = existing;
+                    }
+                    evict(questions);
+                }
+            }
+        }
+        synchronized (histogram) {
+            return histogram.histogram.snapshot();
+        }
+    }
+
+    /**
+     * 应用总分写入，处于事务中时在提交后应用
+     * @param insert true: 新增或覆盖；false: 仅更新已存在的学生
+     */
+    public void applyScores(List<StudentScore> scores, boolean insert) {
+        if (scores == null || scores.isEmpty()) {
+            return;
+        }
+        List<StudentScore> snapshot = new ArrayList<>(scores);
+        TransactionHooks.afterCommit(() -> {
+            // 正在加载的考试可能读到提交前的成绩，使其结果不写入缓存
+            for (StudentScore score : snapshot) {
+                if (score.getExamId() != null) {
+                    examVersions.incrementAndGet(stripe(score.getExamId()));
+                }
+            }
+            for (StudentScore score : snapshot) {
+                ExamHistograms histograms;
+                synchronized (exams) {
+                    histograms = exams.get(score.getExamId());
+                }
+                if (histograms == null || score.getStudentId() == null) {
+                    // 未加载的考试在首次查询时从数据库加载
+                    continue;
+                }
+                histograms.lock.writeLock().lock();
+                try {
+                    if (insert || histograms.scores.containsKey(score.getStudentId())) {
+                        histograms.put(score.getStudentId(), score.getScore());
+                    }
+                } finally {
+                    histograms.lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 应用新增的题目得分记录，处于事务中时在提交后应用
+     * 未批改的记录不计入，批改后随题目直方图失效重新加载
+     */
+    public void applyQuestionScores(List<StudentQuestionScore> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        List<StudentQuestionScore> snapshot = new ArrayList<>(records);
+        TransactionHooks.afterCommit(() -> {
+            for (StudentQuestionScore record : snapshot) {
+                if (record.getExamId() != null) {
+                    questionVersions.incrementAndGet(stripe(record.getExamId()));
+                }
+            }
+            for (StudentQuestionScore record : snapshot) {
+                QuestionHistogram histogram;
+                synchronized (questions) {
+                    Map<Integer, QuestionHistogram> examQuestions = questions.get(record.getExamId());
+                    histogram = examQuestions == null ? null : examQuestions.get(record.getQuestionId());
+                }
+                if (histogram == null || !isGraded(record)) {
+                    continue;
+                }
+                synchronized (histogram) {
+                    histogram.histogram.add(histogram.percentOf(record.getScore()));
+                }
+            }
+        });
+    }
+
+    /**
+     * 使考试总分直方图失效，下次查询时重新加载
+     */
+    public void invalidate(Integer examId) {
+        removeExam(examId);
+        TransactionHooks.afterCommit(() -> removeExam(examId));
+    }
+
+    /**
+     * 使全部考试总分直方图失效
+     */
+    public void invalidateAll() {
+        removeExam(null);
+        TransactionHooks.afterCommit(() -> removeExam(null));
+    }
+
+    /**
+     * 试卷题目或分值变更后，使使用该试卷的考试的总分和题目直方图失效，满分随之变化
+     */
+    public void invalidatePaper(Integer paperId) {
+        if (paperId == null) {
+            return;
+        }
+        for (Exam exam : examMapper.selectByPaperId(paperId)) {
+            invalidate(exam.getExamId());
+            invalidateQuestions(exam.getExamId());
+        }
+    }
+
+    /**
+     * 班级成员变更后使班级直方图失效
+     */
+    public void invalidateClass(Integer classId) {
+        Runnable action = () -> {
+            List<ExamHistograms> loaded;
+            synchronized (exams) {
+                loaded = new ArrayList<>(exams.values());
+            }
+            for (ExamHistograms histograms : loaded) {
+                histograms.lock.writeLock().lock();
+                try {
+                    histograms.classes.remove(classId);
+                } finally {
+                    histograms.lock.writeLock().unlock();
+                }
+            }
+        };
+        action.run();
+        TransactionHooks.afterCommit(action);
+    }
+
+    /**
+     * 使考试的题目直方图失效，用于无法得知原得分的更新
+     */
+    public void invalidateQuestions(Integer examId) {
+        removeQuestions(examId);
+        TransactionHooks.afterCommit(() -> removeQuestions(examId));
+    }
+
+    /**
+     * 使全部题目直方图失效
+     */
+    public void invalidateAllQuestions() {
+        removeQuestions(null);
+        TransactionHooks.afterCommit(() -> removeQuestions(null));
+    }
+
+    private ExamHistograms getExam(Integer examId) {
+        synchronized (exams) {
+            ExamHistograms histograms = exams.get(examId);
+            if (histograms != null) {
+                return histograms;
+            }
+        }
+        long version = examVersions.get(stripe(examId));
+        ExamHistograms loaded = loadExam(examId);
+        synchronized (exams) {
+            if (version != examVersions.get(stripe(examId))) {
+                return loaded;
+            }
+            ExamHistograms existing = exams.putIfAbsent(examId, loaded);
+            evict(exams);
+            return existing != null ? existing : loaded;
+        }
+    }
+
+    private ExamHistograms loadExam(Integer examId) {
+        Exam exam = examMapper.selectById(examId);
+        ExamHistograms histograms = new ExamHistograms(paperMaxScore(exam == null ? null : exam.getPaperId()));
+        for (StudentScore score : studentScoreMapper.selectByExamId(examId)) {
+            histograms.put(score.getStudentId(), score.getScore());
+        }
+        return histograms;
+    }
+
+    private QuestionHistogram loadQuestion(Integer examId, Integer questionId, BigDecimal maxScore) {
+        QuestionHistogram histogram = new QuestionHistogram(maxScore);
+        for (BigDecimal score : studentQuestionScoreMapper.selectGradedScoresByExamAndQuestion(examId, questionId)) {
+            histogram.histogram.add(histogram.percentOf(score));
+        }
+        return histogram;
+    }
+
+    private BigDecimal getQuestionMaxScore(Integer examId, Integer questionId) {
+        Exam exam = examMapper.selectById(examId);
+        if (exam == null || exam.getPaperId() == null) {
+            return null;
+        }
+        PaperAnswerKey answerKey = answerKeyCache.get(exam.getPaperId());
+        int index = answerKey.indexOf(questionId);
+        return index < 0 ? null : answerKey.maxScore(index);
+    }
+
+    /**
+     * 试卷总分向上取整，试卷不存在或没有题目时取默认满分
+     */
+    private int paperMaxScore(Integer paperId) {
+        if (paperId == null) {
+            return DEFAULT_EXAM_MAX_SCORE;
+        }
+        BigDecimal total = answerKeyCache.get(paperId).totalScore();
+        return total.signum() > 0 ? total.setScale(0, RoundingMode.CEILING).intValue() : DEFAULT_EXAM_MAX_SCORE;
+    }
+
+    /**
+     * 移除考试总分直方图，examId为null时全部移除
+     */
+    private void removeExam(Integer examId) {
+        synchronized (exams) {
+            bump(examVersions, examId);
+            if (examId == null) {
+                exams.clear();
+            } else {
+                exams.remove(examId);
+            }
+        }
+    }
+
+    private void removeQuestions(Integer examId) {
+        synchronized (questions) {
+            bump(questionVersions, examId);
+            if (examId == null) {
+                questions.clear();
+            } else {
+                questions.remove(examId);
+            }
+        }
+    }
+
+    /**
+     * examId为null时所有分段加1
+     */
+    private static void bump(AtomicLongArray versions, Integer examId) {
+        if (examId != null) {
+            versions.incrementAndGet(stripe(examId));
+            return;
+        }
+        for (int i = 0; i < versions.length(); i++) {
+            versions.incrementAndGet(i);
+        }
+    }
+
+    private void evict(Map<Integer, ?> cache) {
+        Iterator<?> iterator = cache.values().iterator();
+        while (cache.size() > maxExams && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 未批改的记录得分为空，或提交时补为0但状态仍为未批改
+     */
+    private static boolean isGraded(StudentQuestionScore record) {
+        return record.getScore() != null && !Integer.valueOf(0).equals(record.getStatus());
+    }
+
+    private static int stripe(Integer examId) {
+        return (examId.hashCode() * 0x9E3779B9) >>> 26;
+    }
+
+    /**
+     * 单场考试的总分直方图及已加载的班级直方图，由同一把读写锁保护
+     */
+    private static final class ExamHistograms {
+        private final Map<Integer, BigDecimal> scores = new HashMap<>();
+        private final ScoreHistogram exam;
+        private final Map<Integer, ClassHistogram> classes = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private ExamHistograms(int maxScore) {
+            this.exam = new ScoreHistogram(maxScore);
+        }
+
+        /**
+         * 写入或移动学生成绩，score为null时移除
+         */
+        private void put(Integer studentId, BigDecimal score) {
+            BigDecimal previous = score == null ? scores.remove(studentId) : scores.put(studentId, score);
+            if (previous != null) {
+                exam.remove(previous);
+            }
+            if (score != null) {
+                exam.add(score);
+            }
+            for (ClassHistogram histogram : classes.values()) {
+                if (histogram.members.contains(studentId)) {
+                    if (previous != null) {
+                        histogram.histogram.remove(previous);
+                    }
+                    if (score != null) {
+                        histogram.histogram.add(score);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class ClassHistogram {
+        private final Set<Integer> members;
+        private final ScoreHistogram histogram;
+
+        private ClassHistogram(Set<Integer> members, int maxScore) {
+            this.members = members;
+            this.histogram = new ScoreHistogram(maxScore);
+        }
+    }
+
+    private static final class QuestionHistogram {
+        private final BigDecimal maxScore;
+        private final ScoreHistogram histogram = new ScoreHistogram(QUESTION_MAX_PERCENT);
+
+        private QuestionHistogram(BigDecimal maxScore) {
+            this.maxScore = maxScore;
+        }
+
+        /**
+         * 得分率向下取整，满分为0时计入0
+         */
+        private BigDecimal percentOf(BigDecimal score) {
+            if (maxScore.signum() <= 0) {
+                return BigDecimal.ZERO;
+            }
+            return score.multiply(BigDecimal.valueOf(100)).divide(maxScore, 0, RoundingMode.FLOOR);
+        }
+    }
+}
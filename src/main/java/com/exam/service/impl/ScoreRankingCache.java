@@ -0,0 +1,248 @@
+package com.exam.service.impl;
+
+import com.exam.common.TransactionHooks;
+import com.exam.entity.StudentScore;
+import com.exam.mapper.StudentScoreMapper;
+import com.exam.utils.ScoreRankTree;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 考试排名缓存
+ * 每场考试首次查询时从student_score加载为顺序统计树，之后随成绩写入增量维护，
+ * 名次、百分位和前N名查询不再执行窗口函数排序。超过max-exams场时淘汰最久未查询的考试。
+ * 同一考试的并发首次查询共用一次加载
+ */
+@Component
+public class ScoreRankingCache {
+
+    /** 分数精度，与score的DECIMAL(5,2)一致 */
+    private static final int SCORE_SCALE = 2;
+
+    @Autowired
+    private StudentScoreMapper studentScoreMapper;
+
+    /** 最多缓存的考试数 */
+    @Value("${exam.score-cache.max-exams:200}")
+    private int maxExams = 200;
+
+    private final Map<Integer, ExamEntry> rankings = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 学生名次
+     * @return 学生无成绩时返回null
+     */
+    public Integer getRank(Integer examId, Integer studentId) {
+        ExamRanking ranking = get(examId);
+        ranking.lock.readLock().lock();
+        try {
+            return ranking.tree.rank(studentId);
+        } finally {
+            ranking.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 学生百分位：成绩低于该学生的人数占比（0-100）
+     * @return 学生无成绩时返回null
+     */
+    public BigDecimal getPercentile(Integer examId, Integer studentId) {
+        ExamRanking ranking = get(examId);
+        ranking.lock.readLock().lock();
+        try {
+            Integer bucket = ranking.tree.bucketOf(studentId);
+            if (bucket == null) {
+                return null;
+            }
+            return BigDecimal.valueOf(ranking.tree.countBelow(bucket) * 100L)
+                    .divide(BigDecimal.valueOf(ranking.tree.size()), 2, RoundingMode.HALF_UP);
+        } finally {
+            ranking.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 前N名
+     * @return 每项包含student_id、score、rank
+     */
+    public List<Map<String, Object>> getTop(Integer examId, int limit) {
+        ExamRanking ranking = get(examId);
+        List<int[]> top;
+        ranking.lock.readLock().lock();
+        try {
+            top = ranking.tree.top(limit);
+        } finally {
+            ranking.lock.readLock().unlock();
+        }
+        List<Map<String, Object>> result = new ArrayList<>(top.size());
+        for (int[] item : top) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("student_id", item[0]);
+            row.put("score", BigDecimal.valueOf(item[1], SCORE_SCALE));
+            row.put("rank", item[2]);
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * 考试有成绩的学生数
+     */
+    public int getCount(Integer examId) {
+        ExamRanking ranking = get(examId);
+        ranking.lock.readLock().lock();
+        try {
+            return ranking.tree.size();
+        } finally {
+            ranking.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 应用成绩写入，处于事务中时在提交后应用
+     * @param insert true: 新增或覆盖；false: 仅更新已存在的学生
+     */
+    public void applyScores(List<StudentScore> scores, boolean insert) {
+        if (scores == null || scores.isEmpty()) {
+            return;
+        }
+        List<StudentScore> snapshot = new ArrayList<>(scores);
+        TransactionHooks.afterCommit(() -> {
+            for (StudentScore score : snapshot) {
+                ExamRanking ranking;
+                synchronized (rankings) {
+                    ExamEntry entry = rankings.get(score.getExamId());
+                    if (entry == null) {
+                        // 未加载的考试在首次查询时从数据库加载
+                        continue;
+                    }
+                    if (!entry.ranking.isDone()) {
+                        // 正在加载的考试可能读到提交前的成绩，使其结果不写入缓存
+                        entry.stale = true;
+                        continue;
+                    }
+                    ranking = entry.ranking.join();
+                }
+                if (score.getStudentId() == null) {
+                    continue;
+                }
+                ranking.lock.writeLock().lock();
+                try {
+                    if (score.getScore() == null) {
+                        ranking.tree.remove(score.getStudentId());
+                    } else if (insert || ranking.tree.contains(score.getStudentId())) {
+                        ranking.tree.put(score.getStudentId(), toBucket(score.getScore()));
+                    }
+                } finally {
+                    ranking.lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 使考试排名失效，下次查询时重新加载
+     */
+    public void invalidate(Integer examId) {
+        TransactionHooks.invalidate(() -> remove(examId));
+    }
+
+    /**
+     * 使全部考试排名失效
+     */
+    public void invalidateAll() {
+        TransactionHooks.invalidate(() -> remove(null));
+    }
+
+    private ExamRanking get(Integer examId) {
+        ExamEntry entry;
+        boolean loader = false;
+        synchronized (rankings) {
+            int size = rankings.size();
+            entry = rankings.computeIfAbsent(examId, id -> new ExamEntry());
+            if (rankings.size() > size) {
+                loader = true;
+                Iterator<ExamEntry> iterator = rankings.values().iterator();
+                while (rankings.size() > maxExams && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        if (loader) {
+            return load(examId, entry);
+        }
+        try {
+            return entry.ranking.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 移除考试排名，examId为null时全部移除；正在进行的加载结果不再写入缓存
+     */
+    private void remove(Integer examId) {
+        synchronized (rankings) {
+            if (examId == null) {
+                rankings.clear();
+            } else {
+                rankings.remove(examId);
+            }
+        }
+    }
+
+    /**
+     * 加载考试排名并通知等待同一加载的查询；加载期间有成绩写入时结果只返回给本次等待者
+     */
+    private ExamRanking load(Integer examId, ExamEntry entry) {
+        ExamRanking ranking = new ExamRanking();
+        try {
+            for (StudentScore score : studentScoreMapper.selectByExamId(examId)) {
+                if (score.getScore() != null) {
+                    ranking.tree.put(score.getStudentId(), toBucket(score.getScore()));
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (rankings) {
+                rankings.remove(examId, entry);
+            }
+            entry.ranking.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (rankings) {
+            if (entry.stale) {
+                rankings.remove(examId, entry);
+            }
+            entry.ranking.complete(ranking);
+        }
+        return ranking;
+    }
+
+    private static int toBucket(BigDecimal score) {
+        return score.setScale(SCORE_SCALE, RoundingMode.HALF_UP).unscaledValue().intValue();
+    }
+
+    private static final class ExamEntry {
+        private final CompletableFuture<ExamRanking> ranking = new CompletableFuture<>();
+        /** 加载期间有成绩写入，由rankings锁保护 */
+        private boolean stale;
+    }
+
+    private static final class ExamRanking {
+        private final ScoreRankTree tree = new ScoreRankTree();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+}
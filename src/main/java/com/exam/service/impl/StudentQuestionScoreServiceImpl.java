@@ -1,15 +1,21 @@
 package com.exam.service.impl;
 
+import com.exam.entity.Exam;
 import com.exam.entity.StudentQuestionScore;
 import com.exam.mapper.StudentQuestionScoreMapper;
 import com.exam.mapper.ExamMapper;
 import com.exam.mapper.QuestionMapper;
 import com.exam.service.StudentQuestionScoreService;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import com.exam.utils.ScoreHistogram;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * 学生题目得分服务实现类
@@ -24,6 +30,18 @@ public class StudentQuestionScoreServiceImpl extends BaseServiceImpl<StudentQues
     @Autowired
     private QuestionMapper questionMapper;
 
+    @Autowired
+    private AnswerSubmissionWriter answerSubmissionWriter;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @Autowired
+    private CompositeQueryExecutor compositeQueryExecutor;
+
     @Override
     public List<StudentQuestionScore> getByScoreId(Integer scoreId) {
         return baseMapper.selectByScoreId(scoreId);
@@ -47,6 +65,42 @@ public class StudentQuestionScoreServiceImpl extends BaseServiceImpl<StudentQues
         }
 
         // 数据验证
+        prepareRecords(list);
+
+        try {
+            int rows = baseMapper.batchInsert(list);
+            scoreHistogramCache.applyQuestionScores(list);
+            return rows;
+        } catch (Exception e) {
+            throw new RuntimeException("批量插入题目得分记录失败", e);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Integer> submitAnswers(List<StudentQuestionScore> list) {
+        if (list == null || list.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        prepareRecords(list);
+        return answerSubmissionWriter.submit(list);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Integer> flushSubmissions(Integer examId) {
+        return answerSubmissionWriter.flush(examId);
+    }
+
+    @Override
+    public Map<String, Object> getSubmissionStatistics() {
+        return answerSubmissionWriter.getStatistics();
+    }
+
+    /**
+     * 校验答题记录必填字段并补全默认值
+     */
+    private void prepareRecords(List<StudentQuestionScore> list) {
         for (StudentQuestionScore record : list) {
             // 必填字段验证
             if (record.getExamId() == null || record.getStudentId() == null || 
@@ -64,32 +118,62 @@ public class StudentQuestionScoreServiceImpl extends BaseServiceImpl<StudentQues
                 record.setScore(BigDecimal.ZERO);
             }
         }
-
-        try {
-            return baseMapper.batchInsert(list);
-        } catch (Exception e) {
-            throw new RuntimeException("批量插入题目得分记录失败", e);
-        }
     }
 
     @Override
     public int updateScoreAndStatus(Integer recordId, BigDecimal score, String status) {
+        scoreHistogramCache.invalidateAllQuestions();
         return baseMapper.updateScoreAndStatus(recordId, score, status);
     }
 
     @Override
     public int batchUpdateScore(List<Map<String, Object>> records) {
+        scoreHistogramCache.invalidateAllQuestions();
         return baseMapper.batchUpdateScore(records);
     }
 
     @Override
     public Map<String, Object> calculateQuestionCorrectRate(Integer questionId, Integer examId) {
-        return baseMapper.calculateQuestionCorrectRate(questionId, examId);
+        // 满分由缓存的试卷答案给出，只需查询该题得分
+        BigDecimal maxScore = getMaxScore(questionId, examId);
+        List<BigDecimal> scores = maxScore == null
+                ? Collections.emptyList() : baseMapper.selectScoresByExamAndQuestion(examId, questionId);
+        int correctCount = 0;
+        for (BigDecimal score : scores) {
+            if (score != null && score.compareTo(maxScore) == 0) {
+                correctCount++;
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("total_answers", scores.size());
+        result.put("correct_count", correctCount);
+        result.put("correct_rate", scores.isEmpty() ? null
+                : BigDecimal.valueOf(correctCount * 100L).divide(BigDecimal.valueOf(scores.size()), 2, RoundingMode.HALF_UP));
+        return result;
     }
 
     @Override
     public List<Map<String, Object>> analyzeScoreDistribution(Integer questionId, Integer examId) {
-        return baseMapper.analyzeScoreDistribution(questionId, examId);
+        ScoreHistogram histogram = scoreHistogramCache.getQuestionHistogram(examId, questionId);
+        if (histogram == null) {
+            return new ArrayList<>();
+        }
+        // 区间从高到低：90-100%、80-89%、70-79%、60-69%、0-59%
+        return histogram.distribution(ScoreHistogram.DEFAULT_BOUNDS, "%");
+    }
+
+    /**
+     * 从试卷答案缓存中获取题目满分
+     * @return 考试不存在或题目不在该考试试卷中时返回null
+     */
+    private BigDecimal getMaxScore(Integer questionId, Integer examId) {
+        Exam exam = examMapper.selectById(examId);
+        if (exam == null || exam.getPaperId() == null) {
+            return null;
+        }
+        PaperAnswerKey answerKey = answerKeyCache.get(exam.getPaperId());
+        int index = answerKey.indexOf(questionId);
+        return index < 0 ? null : answerKey.maxScore(index);
     }
 
     @Override
@@ -138,28 +222,22 @@ public class StudentQuestionScoreServiceImpl extends BaseServiceImpl<StudentQues
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> exportQuestionScoreReport(Integer examId, Integer questionId) {
-        Map<String, Object> report = new HashMap<>();
-        
-        // 获取考试信息
-        report.put("exam", examMapper.selectById(examId));
-        
-        // 获取题目信息
-        report.put("question", questionMapper.selectById(questionId));
-        
-        // 获取得分分布
-        report.put("scoreDistribution", analyzeScoreDistribution(questionId, examId));
-        
-        // 获取答题时间分布
-        report.put("timeDistribution", analyzeAnswerTimeDistribution(questionId, examId));
-        
-        // 获取正确率
-        report.put("correctRate", calculateQuestionCorrectRate(questionId, examId));
-        
-        // 获取平均分
-        report.put("averageScore", calculateAverageScore(questionId, examId));
-        
-        return report;
+        return compositeQueryExecutor.query()
+                // 获取考试信息
+                .add("exam", () -> examMapper.selectById(examId))
+                // 获取题目信息
+                .add("question", () -> questionMapper.selectById(questionId))
+                // 获取得分分布
+                .add("scoreDistribution", () -> analyzeScoreDistribution(questionId, examId))
+                // 获取答题时间分布
+                .add("timeDistribution", () -> analyzeAnswerTimeDistribution(questionId, examId))
+                // 获取正确率
+                .add("correctRate", () -> calculateQuestionCorrectRate(questionId, examId))
+                // 获取平均分
+                .add("averageScore", () -> calculateAverageScore(questionId, examId))
+                .execute();
     }
 
     @Override
@@ -186,7 +264,9 @@ public class StudentQuestionScoreServiceImpl extends BaseServiceImpl<StudentQues
         if (record.getStatus() == null) {
             record.setStatus(0);
         }
-        return baseMapper.insert(record);
+        int rows = baseMapper.insert(record);
+        scoreHistogramCache.applyQuestionScores(Collections.singletonList(record));
+        return rows;
     }
 
 } 
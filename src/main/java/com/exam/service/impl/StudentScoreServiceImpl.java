@@ -6,9 +6,15 @@ import com.exam.mapper.StudentScoreMapper;
 import com.exam.mapper.ExamMapper;
 import com.exam.mapper.StudentMapper;
 import com.exam.service.StudentScoreService;
+import com.exam.utils.ExportWriter;
+import com.exam.utils.ScoreHistogram;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.math.BigDecimal;
 
@@ -25,6 +31,59 @@ public class StudentScoreServiceImpl extends BaseServiceImpl<StudentScore, Stude
     @Autowired
     private StudentMapper studentMapper;
 
+    @Autowired
+    private ScoreRankingCache scoreRankingCache;
+
+    @Autowired
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @Autowired
+    private CompositeQueryExecutor compositeQueryExecutor;
+
+    @Override
+    public int insert(StudentScore record) {
+        int rows = super.insert(record);
+        scoreRankingCache.applyScores(Collections.singletonList(record), true);
+        scoreHistogramCache.applyScores(Collections.singletonList(record), true);
+        return rows;
+    }
+
+    @Override
+    public int batchInsert(List<StudentScore> list) {
+        int rows = super.batchInsert(list);
+        scoreRankingCache.applyScores(list, true);
+        scoreHistogramCache.applyScores(list, true);
+        return rows;
+    }
+
+    @Override
+    public int updateById(StudentScore record) {
+        scoreRankingCache.invalidateAll();
+        scoreHistogramCache.invalidateAll();
+        return super.updateById(record);
+    }
+
+    @Override
+    public int batchUpdate(List<StudentScore> list) {
+        scoreRankingCache.invalidateAll();
+        scoreHistogramCache.invalidateAll();
+        return super.batchUpdate(list);
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        scoreRankingCache.invalidateAll();
+        scoreHistogramCache.invalidateAll();
+        return super.deleteById(id);
+    }
+
+    @Override
+    public int batchDelete(List<Integer> ids) {
+        scoreRankingCache.invalidateAll();
+        scoreHistogramCache.invalidateAll();
+        return super.batchDelete(ids);
+    }
+
     @Override
     public List<StudentScore> getByStudentId(Integer studentId) {
         return baseMapper.selectByStudentId(studentId);
@@ -47,22 +106,43 @@ public class StudentScoreServiceImpl extends BaseServiceImpl<StudentScore, Stude
 
     @Override
     public List<StudentScore> getExamScoreStats(Integer examId) {
-        return baseMapper.selectExamScoreStats(examId);
+        // 名次取自排名缓存，不再执行窗口函数排序
+        List<StudentScore> scores = baseMapper.selectByExamId(examId);
+        for (StudentScore score : scores) {
+            score.setRank(scoreRankingCache.getRank(examId, score.getStudentId()));
+        }
+        return scores;
     }
 
     @Override
     public int batchInsertScores(List<StudentScore> scores) {
-        return baseMapper.batchInsertScores(scores);
+        int rows = baseMapper.batchInsertScores(scores);
+        scoreRankingCache.applyScores(scores, true);
+        scoreHistogramCache.applyScores(scores, true);
+        return rows;
     }
 
     @Override
     public int batchUpdateScores(List<StudentScore> scores) {
-        return baseMapper.batchUpdateScores(scores);
+        int rows = baseMapper.batchUpdateScores(scores);
+        scoreRankingCache.applyScores(scores, false);
+        scoreHistogramCache.applyScores(scores, false);
+        return rows;
     }
 
     @Override
     public Integer getStudentRank(Integer examId, Integer studentId) {
-        return baseMapper.selectStudentRank(examId, studentId);
+        return scoreRankingCache.getRank(examId, studentId);
+    }
+
+    @Override
+    public BigDecimal getStudentPercentile(Integer examId, Integer studentId) {
+        return scoreRankingCache.getPercentile(examId, studentId);
+    }
+
+    @Override
+    public List<Map<String, Object>> getTopRanking(Integer examId, Integer limit) {
+        return scoreRankingCache.getTop(examId, limit);
     }
 
     @Override
@@ -88,7 +168,25 @@ public class StudentScoreServiceImpl extends BaseServiceImpl<StudentScore, Stude
 
     @Override
     public List<Map<String, Object>> getScoreDistribution(Integer examId, Integer classId) {
-        return baseMapper.selectScoreDistribution(examId, classId);
+        return getScoreDistribution(examId, classId, ScoreHistogram.DEFAULT_BOUNDS);
+    }
+
+    @Override
+    public List<Map<String, Object>> getScoreDistribution(Integer examId, Integer classId, Integer width) {
+        return getHistogram(examId, classId).distributionByWidth(width, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> getScoreDistribution(Integer examId, Integer classId, int[] lowerBounds) {
+        return getHistogram(examId, classId).distribution(lowerBounds, null);
+    }
+
+    /**
+     * 分数段统计取自直方图缓存，classId为空时统计整场考试
+     */
+    private ScoreHistogram getHistogram(Integer examId, Integer classId) {
+        return classId == null ? scoreHistogramCache.getExamHistogram(examId)
+                : scoreHistogramCache.getClassHistogram(examId, classId);
     }
 
     @Override
@@ -108,36 +206,46 @@ public class StudentScoreServiceImpl extends BaseServiceImpl<StudentScore, Stude
 
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> exportScoreReport(Integer examId, Integer studentId) {
-        Map<String, Object> report = new HashMap<>();
-        
-        // 获取考试信息
-        Exam exam = examMapper.selectById(examId);
-        report.put("exam", examMapper.selectById(examId));
-        
-        // 获取学生信息
-        report.put("student", studentMapper.selectById(studentId));
-        
-        // 获取成绩信息
-        StudentScore score = getByExamAndStudent(examId, studentId);
-        report.put("score", score);
-        
-        if (score != null) {
-            // 获取排名信息
-            report.put("rank", getStudentRank(examId, studentId));
-            
-            // 获取成绩分布
-            report.put("distribution", getScoreDistribution(examId, null));
-            
-            // 获取历史成绩趋势
-            report.put("trend", getScoreTrend(studentId, exam.getSubjectId(), null, null));
-            
-            // 获取进步情况分析
-            report.put("improvement", analyzeScoreImprovement(studentId, exam.getSubjectId()));
+        Map<String, Object> report = compositeQueryExecutor.query()
+                // 获取考试信息
+                .add("exam", () -> examMapper.selectById(examId))
+                // 获取学生信息
+                .add("student", () -> studentMapper.selectById(studentId))
+                // 获取成绩信息
+                .add("score", () -> getByExamAndStudent(examId, studentId))
+                .execute();
+
+        Exam exam = (Exam) report.get("exam");
+        if (exam != null && report.get("score") != null) {
+            CompositeQueryExecutor.CompositeQuery details = compositeQueryExecutor.query()
+                    // 获取排名信息
+                    .add("rank", () -> getStudentRank(examId, studentId))
+                    // 获取成绩分布
+                    .add("distribution", () -> getScoreDistribution(examId, null))
+                    // 获取历史成绩趋势
+                    .add("trend", () -> getScoreTrend(studentId, exam.getSubjectId(), null, null))
+                    // 获取进步情况分析
+                    .add("improvement", () -> analyzeScoreImprovement(studentId, exam.getSubjectId()));
+            mergeResults(report, details.execute());
         }
         return report;
     }
 
+    /**
+     * 合并两次组合查询的结果，未完成的子查询名称合并为一个列表
+     */
+    @SuppressWarnings("unchecked")
+    private void mergeResults(Map<String, Object> report, Map<String, Object> results) {
+        List<String> incomplete = (List<String>) results.remove(CompositeQueryExecutor.INCOMPLETE_KEY);
+        report.putAll(results);
+        if (incomplete != null) {
+            ((List<String>) report.computeIfAbsent(CompositeQueryExecutor.INCOMPLETE_KEY, k -> new ArrayList<>()))
+                    .addAll(incomplete);
+        }
+    }
+
     @Override
     public int importScores(List<StudentScore> scores) {
         // 批量导入前进行数据验证
@@ -154,4 +262,29 @@ public class StudentScoreServiceImpl extends BaseServiceImpl<StudentScore, Stude
         
         return batchInsertScores(scores);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportExamScores(Integer examId, OutputStream out) {
+        long rows = 0;
+        try (Cursor<StudentScore> scores = baseMapper.streamExamScores(examId)) {
+            ExportWriter writer = new ExportWriter(out).writeBom();
+            writer.writeCsvRow("排名", "学生ID", "姓名", "成绩", "上传时间");
+            // 结果已按成绩降序，同分同名次
+            long rank = 0;
+            BigDecimal previous = null;
+            for (StudentScore score : scores) {
+                rows++;
+                if (previous == null || score.getScore() == null || previous.compareTo(score.getScore()) != 0) {
+                    rank = rows;
+                }
+                previous = score.getScore();
+                writer.writeCsvRow(rank, score.getStudentId(), score.getStudentName(), score.getScore(), score.getUploadTime());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("导出成绩失败", e);
+        }
+        return rows;
+    }
 } 
\ No newline at end of file
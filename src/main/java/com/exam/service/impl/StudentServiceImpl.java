@@ -3,11 +3,14 @@ package com.exam.service.impl;
 import com.exam.entity.Student;
 import com.exam.entity.StudentClass;
 import com.exam.entity.StudentScore;
+import com.exam.mapper.ClassMapper;
 import com.exam.mapper.StudentMapper;
 import com.exam.service.StudentService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 学生服务实现类
@@ -16,6 +19,12 @@ import java.util.*;
 @Transactional
 public class StudentServiceImpl extends BaseServiceImpl<Student, StudentMapper> implements StudentService {
 
+    @Autowired
+    private ClassMapper classMapper;
+
+    @Autowired
+    private TokenKeyRing tokenKeyRing;
+
     @Override
     public Student getByUserId(Integer userId) {
         return baseMapper.selectByUserId(userId);
@@ -41,6 +50,35 @@ public class StudentServiceImpl extends BaseServiceImpl<Student, StudentMapper>
         return baseMapper.updateOther(studentId, other);
     }
 
+    @Override
+    public int updateById(Student student) {
+        // token中携带学生ID和学院ID，变更后吊销此前签发的token
+        int rows = baseMapper.updateById(student);
+        tokenKeyRing.revokeStudents(Collections.singletonList(student.getStudentId()));
+        return rows;
+    }
+
+    @Override
+    public int batchUpdate(List<Student> list) {
+        int rows = baseMapper.batchUpdate(list);
+        tokenKeyRing.revokeStudents(list.stream().map(Student::getStudentId).collect(Collectors.toList()));
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        int rows = baseMapper.deleteById(id);
+        tokenKeyRing.revokeStudents(Collections.singletonList(id));
+        return rows;
+    }
+
+    @Override
+    public int batchDelete(List<Integer> ids) {
+        int rows = baseMapper.batchDelete(ids);
+        tokenKeyRing.revokeStudents(ids);
+        return rows;
+    }
+
     @Override
     public List<StudentClass> getStudentClasses(Integer studentId) {
         return baseMapper.selectStudentClasses(studentId);
@@ -89,9 +127,8 @@ public class StudentServiceImpl extends BaseServiceImpl<Student, StudentMapper>
 
     @Override
     public Long countStudentsByClass(Integer classId) {
-        Map<String, Object> condition = new HashMap<>();
-        condition.put("classId", classId);
-        return baseMapper.selectCountByCondition(condition);
+        // student表没有班级列，按班级成员关系统计
+        return classMapper.countStudents(classId);
     }
 
     @Override
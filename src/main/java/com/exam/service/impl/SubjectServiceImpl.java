@@ -8,6 +8,7 @@ import com.exam.mapper.ExamMapper;
 import com.exam.service.SubjectService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
@@ -24,6 +25,9 @@ public class SubjectServiceImpl extends BaseServiceImpl<Subject, SubjectMapper>
     @Autowired
     private ExamMapper examMapper;
 
+    @Autowired
+    private CompositeQueryExecutor compositeQueryExecutor;
+
     @Override
     public List<Subject> getByCollegeId(Integer collegeId) {
         return baseMapper.selectByCollegeId(collegeId);
@@ -115,6 +119,7 @@ public class SubjectServiceImpl extends BaseServiceImpl<Subject, SubjectMapper>
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> getSubjectStatistics(Integer subjectId) {
         Map<String, Object> statistics = new HashMap<>();
         
@@ -125,29 +130,39 @@ public class SubjectServiceImpl extends BaseServiceImpl<Subject, SubjectMapper>
         }
         statistics.put("subject", subject);
         
-        // 获取教师列表
-        List<Map<String, Object>> teachers = teacherMapper.selectBySubjectId(subjectId);
-        statistics.put("teachers", teachers);
-        
-        // 统计考试信息
-        List<Map<String, Object>> examStats = countExamsBySubject();
-        for (Map<String, Object> stat : examStats) {
-            if (subjectId.equals(stat.get("subjectId"))) {
-                statistics.put("examStats", stat);
-                break;
-            }
+        Map<String, Object> results = compositeQueryExecutor.query()
+                // 获取教师列表
+                .add("teachers", () -> teacherMapper.selectBySubjectId(subjectId))
+                // 统计考试信息
+                .add("examStats", this::countExamsBySubject)
+                // 统计成绩信息
+                .add("scoreStats", this::getAvgScoreBySubject)
+                .execute();
+
+        statistics.put("teachers", results.get("teachers"));
+        putSubjectStat(statistics, "examStats", results, subjectId);
+        putSubjectStat(statistics, "scoreStats", results, subjectId);
+        if (results.containsKey(CompositeQueryExecutor.INCOMPLETE_KEY)) {
+            statistics.put(CompositeQueryExecutor.INCOMPLETE_KEY, results.get(CompositeQueryExecutor.INCOMPLETE_KEY));
         }
         
-        // 统计成绩信息
-        List<Map<String, Object>> scoreStats = getAvgScoreBySubject();
-        for (Map<String, Object> stat : scoreStats) {
+        return statistics;
+    }
+
+    /**
+     * 从按学科分组的统计结果中取出指定学科的一项
+     */
+    @SuppressWarnings("unchecked")
+    private void putSubjectStat(Map<String, Object> statistics, String key, Map<String, Object> results, Integer subjectId) {
+        List<Map<String, Object>> stats = (List<Map<String, Object>>) results.get(key);
+        if (stats == null) {
+            return;
+        }
+        for (Map<String, Object> stat : stats) {
             if (subjectId.equals(stat.get("subjectId"))) {
-                statistics.put("scoreStats", stat);
+                statistics.put(key, stat);
                 break;
             }
         }
-        
-        return statistics;
     }
-
-} 
\ No newline at end of file
+}
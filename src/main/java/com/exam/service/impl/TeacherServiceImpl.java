@@ -4,9 +4,11 @@ import com.exam.entity.Teacher;
 import com.exam.entity.Class;
 import com.exam.mapper.TeacherMapper;
 import com.exam.service.TeacherService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 教师服务实现类
@@ -15,6 +17,9 @@ import java.util.*;
 @Transactional
 public class TeacherServiceImpl extends BaseServiceImpl<Teacher, TeacherMapper> implements TeacherService {
 
+    @Autowired
+    private TokenKeyRing tokenKeyRing;
+
     @Override
     public Teacher getByUserId(Integer userId) {
         return baseMapper.selectByUserId(userId);
@@ -42,12 +47,45 @@ public class TeacherServiceImpl extends BaseServiceImpl<Teacher, TeacherMapper>
 
     @Override
     public int updatePermission(Integer teacherId, Integer permission) {
-        return baseMapper.updatePermission(teacherId, permission);
+        // token中携带权限等级，变更提交后吊销此前签发的token
+        int rows = baseMapper.updatePermission(teacherId, permission);
+        tokenKeyRing.revokeTeachers(Collections.singletonList(teacherId));
+        return rows;
     }
 
     @Override
     public int batchUpdatePermission(List<Integer> teacherIds, Integer permission) {
-        return baseMapper.batchUpdatePermission(teacherIds, permission);
+        int rows = baseMapper.batchUpdatePermission(teacherIds, permission);
+        tokenKeyRing.revokeTeachers(teacherIds);
+        return rows;
+    }
+
+    @Override
+    public int updateById(Teacher teacher) {
+        int rows = baseMapper.updateById(teacher);
+        tokenKeyRing.revokeTeachers(Collections.singletonList(teacher.getTeacherId()));
+        return rows;
+    }
+
+    @Override
+    public int batchUpdate(List<Teacher> list) {
+        int rows = baseMapper.batchUpdate(list);
+        tokenKeyRing.revokeTeachers(list.stream().map(Teacher::getTeacherId).collect(Collectors.toList()));
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        int rows = baseMapper.deleteById(id);
+        tokenKeyRing.revokeTeachers(Collections.singletonList(id));
+        return rows;
+    }
+
+    @Override
+    public int batchDelete(List<Integer> ids) {
+        int rows = baseMapper.batchDelete(ids);
+        tokenKeyRing.revokeTeachers(ids);
+        return rows;
     }
 
     @Override
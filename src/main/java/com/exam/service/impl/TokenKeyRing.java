@@ -0,0 +1,282 @@
+package com.exam.service.impl;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.exam.common.ServiceException;
+import com.exam.common.TransactionHooks;
+import com.exam.entity.Admin;
+import com.exam.entity.Student;
+import com.exam.entity.Teacher;
+import com.exam.entity.User;
+import com.exam.mapper.AdminMapper;
+import com.exam.mapper.StudentMapper;
+import com.exam.mapper.TeacherMapper;
+import com.exam.utils.TokenClaims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端token签发与校验
+ * token头部的kid指明签名密钥：当前密钥签发，配置中的其他密钥仅用于校验，轮换时新密钥设为当前密钥，
+ * 旧密钥保留到其签发的token全部过期。吊销记录只保存在内存中，按token ID或用户、学生、教师、管理员吊销，
+ * 处于事务中时在提交后吊销，避免提交前签发的token仍携带旧信息；超过token有效期后清理
+ */
+@Slf4j
+@Component
+public class TokenKeyRing {
+
+    private static final int ROLE_ADMIN = 0;
+    private static final int ROLE_TEACHER = 1;
+    private static final int ROLE_STUDENT = 2;
+
+    /** 允许未配置密钥、使用随机密钥启动的环境 */
+    private static final String[] RANDOM_KEY_PROFILES = {"dev", "test", "benchmark"};
+
+    @Autowired
+    private TeacherMapper teacherMapper;
+
+    @Autowired
+    private StudentMapper studentMapper;
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    @Autowired
+    private Environment environment;
+
+    /** 签名密钥，格式为kid:secret，多个以逗号分隔 */
+    @Value("${exam.token.keys:}")
+    private String keys;
+
+    @Value("${exam.token.active-key:}")
+    private String activeKeyId;
+
+    @Value("${exam.token.expire-hours:2}")
+    private int expireHours;
+
+    private volatile Map<String, Algorithm> algorithms = Collections.emptyMap();
+
+    /** 已吊销的token ID -> token过期时间 */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /** 用户ID -> 吊销时间，此前签发的token无效 */
+    private final Map<Integer, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    /** 学生ID -> 吊销时间，学生信息变更后此前签发的token无效 */
+    private final Map<Integer, Long> revokedStudents = new ConcurrentHashMap<>();
+
+    /** 教师ID -> 吊销时间，权限变更后此前签发的token无效 */
+    private final Map<Integer, Long> revokedTeachers = new ConcurrentHashMap<>();
+
+    /** 管理员ID -> 吊销时间，管理员信息变更后此前签发的token无效 */
+    private final Map<Integer, Long> revokedAdmins = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, Algorithm> loaded = new LinkedHashMap<>();
+        for (String entry : StrUtil.split(keys, ',', true, true)) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0 || colon == entry.length() - 1) {
+                throw new IllegalStateException("exam.token.keys格式应为kid:secret：" + entry);
+            }
+            loaded.put(entry.substring(0, colon), Algorithm.HMAC256(entry.substring(colon + 1)));
+        }
+        if (loaded.isEmpty()) {
+            if (!environment.acceptsProfiles(Profiles.of(RANDOM_KEY_PROFILES))) {
+                throw new IllegalStateException("未配置exam.token.keys，仅dev、test、benchmark环境允许使用随机签名密钥");
+            }
+            // 开发和测试环境使用随机密钥，重启后此前签发的token全部失效
+            activeKeyId = "local";
+            loaded.put(activeKeyId, Algorithm.HMAC256(RandomUtil.randomString(64)));
+            log.warn("未配置exam.token.keys，使用随机签名密钥");
+        } else if (StrUtil.isBlank(activeKeyId)) {
+            activeKeyId = loaded.keySet().iterator().next();
+        } else if (!loaded.containsKey(activeKeyId)) {
+            throw new IllegalStateException("exam.token.active-key不在exam.token.keys中：" + activeKeyId);
+        }
+        algorithms = loaded;
+    }
+
+    /**
+     * 为登录用户签发token，写入角色及对应的学生、教师或管理员信息
+     */
+    public String issue(User user) {
+        long now = System.currentTimeMillis();
+        JWTCreator.Builder builder = JWT.create()
+                .withKeyId(activeKeyId)
+                .withAudience(String.valueOf(user.getUserId()))
+                .withJWTId(IdUtil.fastSimpleUUID())
+                .withIssuedAt(new Date(now))
+                .withClaim(TokenClaims.ISSUED_AT_MILLIS, now)
+                .withExpiresAt(DateUtil.offsetHour(new Date(now), expireHours))
+                .withClaim(TokenClaims.ROLE, user.getRole());
+        Integer role = user.getRole();
+        if (role != null && role == ROLE_TEACHER) {
+            Teacher teacher = teacherMapper.selectByUserId(user.getUserId());
+            if (teacher != null) {
+                builder.withClaim(TokenClaims.TEACHER_ID, teacher.getTeacherId())
+                        .withClaim(TokenClaims.COLLEGE_ID, teacher.getCollegeId())
+                        .withClaim(TokenClaims.PERMISSION, teacher.getPermission());
+            }
+        } else if (role != null && role == ROLE_STUDENT) {
+            Student student = studentMapper.selectByUserId(user.getUserId());
+            if (student != null) {
+                builder.withClaim(TokenClaims.STUDENT_ID, student.getStudentId())
+                        .withClaim(TokenClaims.COLLEGE_ID, student.getCollegeId());
+            }
+        } else if (role != null && role == ROLE_ADMIN) {
+            Admin admin = adminMapper.selectByUserId(user.getUserId());
+            if (admin != null) {
+                builder.withClaim(TokenClaims.ADMIN_ID, admin.getAdminId());
+            }
+        } else {
+            throw new ServiceException("未知的用户角色：" + role);
+        }
+        return builder.sign(algorithms.get(activeKeyId));
+    }
+
+    /**
+     * 校验签名、有效期和吊销记录，不访问数据库
+     * @return 授权信息；token无效时返回null
+     */
+    public TokenClaims verify(String token) {
+        try {
+            return verify(JWT.decode(token));
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 校验已解码的token
+     * @return 授权信息；token无效时返回null
+     */
+    public TokenClaims verify(DecodedJWT jwt) {
+        Algorithm algorithm = jwt.getKeyId() == null ? null : algorithms.get(jwt.getKeyId());
+        if (algorithm == null || jwt.getAudience() == null || jwt.getAudience().isEmpty()
+                || jwt.getExpiresAt() == null) {
+            return null;
+        }
+        try {
+            JWT.require(algorithm).build().verify(jwt);
+            TokenClaims claims = TokenClaims.of(jwt);
+            return isRevoked(claims) ? null : claims;
+        } catch (JWTVerificationException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否已吊销
+     */
+    public boolean isRevoked(TokenClaims claims) {
+        if (claims.getTokenId() != null && revokedTokens.containsKey(claims.getTokenId())) {
+            return true;
+        }
+        return isRevoked(revokedUsers, claims.getUserId(), claims.getIssuedAt())
+                || isRevoked(revokedStudents, claims.getStudentId(), claims.getIssuedAt())
+                || isRevoked(revokedTeachers, claims.getTeacherId(), claims.getIssuedAt())
+                || isRevoked(revokedAdmins, claims.getAdminId(), claims.getIssuedAt());
+    }
+
+    /**
+     * 吊销单个token，用于退出登录
+     */
+    public void revoke(TokenClaims claims) {
+        if (claims.getTokenId() != null) {
+            revokedTokens.put(claims.getTokenId(), claims.getExpiresAt());
+        }
+    }
+
+    /**
+     * 吊销用户此前签发的全部token，用于禁用账号、修改密码和删除用户
+     */
+    public void revokeUsers(Collection<Integer> userIds) {
+        revokeAfterCommit(revokedUsers, userIds);
+    }
+
+    /**
+     * 吊销学生此前签发的全部token，用于学生信息变更和删除
+     */
+    public void revokeStudents(Collection<Integer> studentIds) {
+        revokeAfterCommit(revokedStudents, studentIds);
+    }
+
+    /**
+     * 吊销教师此前签发的全部token，用于权限变更
+     */
+    public void revokeTeachers(Collection<Integer> teacherIds) {
+        revokeAfterCommit(revokedTeachers, teacherIds);
+    }
+
+    /**
+     * 吊销管理员此前签发的全部token，用于管理员信息变更和删除
+     */
+    public void revokeAdmins(Collection<Integer> adminIds) {
+        revokeAfterCommit(revokedAdmins, adminIds);
+    }
+
+    /**
+     * 清理已超过token有效期的吊销记录
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void purge() {
+        long now = System.currentTimeMillis();
+        long oldestValid = now - TimeUnit.HOURS.toMillis(expireHours);
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        for (Map<Integer, Long> revoked : Arrays.asList(revokedUsers, revokedStudents, revokedTeachers, revokedAdmins)) {
+            revoked.values().removeIf(revokedAt -> revokedAt < oldestValid);
+        }
+    }
+
+    /**
+     * 密钥和吊销记录统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active_key", activeKeyId);
+        stats.put("keys", new ArrayList<>(algorithms.keySet()));
+        stats.put("revoked_tokens", revokedTokens.size());
+        stats.put("revoked_users", revokedUsers.size());
+        stats.put("revoked_students", revokedStudents.size());
+        stats.put("revoked_teachers", revokedTeachers.size());
+        stats.put("revoked_admins", revokedAdmins.size());
+        return stats;
+    }
+
+    /**
+     * 处于事务中时在提交后记录吊销时间，此前签发的token包括提交前以旧信息签发的token
+     */
+    private static void revokeAfterCommit(Map<Integer, Long> revoked, Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<Integer> snapshot = new ArrayList<>(ids);
+        TransactionHooks.afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            snapshot.stream().filter(Objects::nonNull).forEach(id -> revoked.put(id, now));
+        });
+    }
+
+    private static boolean isRevoked(Map<Integer, Long> revoked, Integer id, long issuedAt) {
+        Long revokedAt = id == null ? null : revoked.get(id);
+        return revokedAt != null && issuedAt <= revokedAt;
+    }
+}
@@ -0,0 +1,213 @@
+package com.exam.service.impl;
+
+import cn.hutool.crypto.SecureUtil;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.exam.common.TransactionHooks;
+import com.exam.entity.User;
+import com.exam.mapper.UserMapper;
+import com.exam.utils.TokenClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证token缓存
+ * 按token的SHA-256摘要缓存签名校验结果和对应用户，有效期与token过期时间一致，
+ * 容量满时淘汰最久未使用的条目，过期条目定期清理。用户状态、密码等变更时按用户ID失效；
+ * 服务端签发的token命中缓存时仍检查吊销记录
+ */
+@Component
+public class TokenUserCache {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private TokenKeyRing tokenKeyRing;
+
+    @Value("${exam.token-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 每次失效加1，加载期间发生过失效的结果不写入缓存 */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 校验token并返回对应用户
+     * 服务端签发的token以服务端密钥校验，旧格式token以用户当前密码校验，未缓存时查询一次用户
+     * @return 用户副本；token无效、已过期或用户不存在时返回null
+     */
+    public User resolve(String token) {
+        String key = SecureUtil.sha256(token);
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry != null && (entry.expiresAt <= now
+                    || entry.claims != null && tokenKeyRing.isRevoked(entry.claims))) {
+                cache.remove(key);
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            hits.increment();
+            return copy(entry.user);
+        }
+        misses.increment();
+
+        long version = invalidations.get();
+        Entry loaded = load(token);
+        if (loaded == null) {
+            return null;
+        }
+        // 未设置过期时间的token不缓存
+        if (loaded.expiresAt > 0) {
+            synchronized (cache) {
+                if (version == invalidations.get()) {
+                    cache.put(key, loaded);
+                    evict();
+                }
+            }
+        }
+        return copy(loaded.user);
+    }
+
+    /**
+     * 使用户的全部token缓存失效
+     * 处于事务中时提交后再失效一次，避免提交前被并发请求以旧数据重新加载
+     */
+    public void invalidate(Integer userId) {
+        if (userId != null) {
+            invalidateAll(Collections.singleton(userId));
+        }
+    }
+
+    /**
+     * 批量使用户的token缓存失效
+     */
+    public void invalidateAll(Collection<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = new HashSet<>(userIds);
+        TransactionHooks.invalidate(() -> remove(ids));
+    }
+
+    /**
+     * 清空缓存，用于无法确定受影响用户的批量变更
+     */
+    public void clear() {
+        synchronized (cache) {
+            invalidations.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    /**
+     * 清理已过期的条目
+     */
+    @Scheduled(fixedDelayString = "${exam.token-cache.purge-interval-ms:60000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("max_size", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    private Entry load(String token) {
+        try {
+            DecodedJWT decoded = JWT.decode(token);
+            if (decoded.getKeyId() != null) {
+                TokenClaims claims = tokenKeyRing.verify(decoded);
+                User user = claims == null ? null : userMapper.selectById(claims.getUserId());
+                return user == null ? null : new Entry(user, claims, claims.getExpiresAt());
+            }
+            if (decoded.getAudience() == null || decoded.getAudience().isEmpty()) {
+                return null;
+            }
+            User user = userMapper.selectById(Integer.valueOf(decoded.getAudience().get(0)));
+            if (user == null || user.getPassword() == null) {
+                return null;
+            }
+            JWT.require(Algorithm.HMAC256(user.getPassword())).build().verify(decoded);
+            Date expiresAt = decoded.getExpiresAt();
+            return new Entry(user, null, expiresAt == null ? 0 : expiresAt.getTime());
+        } catch (JWTVerificationException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void remove(Set<Integer> userIds) {
+        synchronized (cache) {
+            invalidations.incrementAndGet();
+            cache.values().removeIf(entry -> userIds.contains(entry.user.getUserId()));
+        }
+    }
+
+    /**
+     * 超出容量时从头部淘汰最久未使用的条目，已过期的条目由purge清理
+     */
+    private void evict() {
+        Iterator<Entry> iterator = cache.values().iterator();
+        while (cache.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 返回副本，调用方修改不影响缓存
+     */
+    private static User copy(User source) {
+        User user = new User();
+        user.setUserId(source.getUserId());
+        user.setUsername(source.getUsername());
+        user.setPassword(source.getPassword());
+        user.setRole(source.getRole());
+        user.setStatus(source.getStatus());
+        user.setSex(source.getSex());
+        user.setPhone(source.getPhone());
+        user.setEmail(source.getEmail());
+        user.setCreatedTime(source.getCreatedTime());
+        return user;
+    }
+
+    private static final class Entry {
+        private final User user;
+        /** 服务端签发的token的授权信息，旧格式token为null */
+        private final TokenClaims claims;
+        private final long expiresAt;
+
+        private Entry(User user, TokenClaims claims, long expiresAt) {
+            this.user = user;
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
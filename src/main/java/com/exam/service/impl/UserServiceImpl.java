@@ -3,11 +3,14 @@ package com.exam.service.impl;
 import com.exam.entity.User;
 import com.exam.mapper.UserMapper;
 import com.exam.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.DigestUtils;
+import java.util.Collections;
 import java.util.List;
 import java.util.Date;
+import java.util.stream.Collectors;
 
 /**
  * 用户服务实现类
@@ -16,44 +19,122 @@ import java.util.Date;
 @Transactional
 public class UserServiceImpl extends BaseServiceImpl<User, UserMapper> implements UserService {
 
+    @Autowired
+    private TokenUserCache tokenUserCache;
+
+    @Autowired
+    private TokenKeyRing tokenKeyRing;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    /**
+     * 密码哈希耗时较长，不在事务中执行，计算期间不占用数据库连接
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User login(String username, String password) {
+        passwordHasher.checkLoginRate(username);
         User user = baseMapper.selectByUsername(username);
-        if (user != null && user.getPassword().equals(DigestUtils.md5DigestAsHex(password.getBytes()))) {
-            return user;
+        if (user == null) {
+            passwordHasher.matchNothing(password);
+            return null;
+        }
+        if (!passwordHasher.matches(password, user.getPassword())) {
+            return null;
+        }
+        // 旧算法的密码登录成功后改存为当前算法
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            String encoded = passwordHasher.hash(password);
+            baseMapper.updatePassword(user.getUserId(), encoded);
+            tokenUserCache.invalidate(user.getUserId());
+            passwordHasher.recordRehash();
+            user.setPassword(encoded);
         }
-        return null;
+        return user;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int register(User user) {
         // 检查用户名是否已存在
         if (baseMapper.selectByUsername(user.getUsername()) != null) {
             return 0;
         }
         // 密码加密
-        user.setPassword(DigestUtils.md5DigestAsHex(user.getPassword().getBytes()));
+        user.setPassword(passwordHasher.hash(user.getPassword()));
         user.setCreatedTime(new Date());
         return baseMapper.insert(user);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int updatePassword(Integer userId, String oldPassword, String newPassword) {
         User user = baseMapper.selectById(userId);
-        if (user != null && user.getPassword().equals(DigestUtils.md5DigestAsHex(oldPassword.getBytes()))) {
-            return baseMapper.updatePassword(userId, DigestUtils.md5DigestAsHex(newPassword.getBytes()));
+        if (user != null && passwordHasher.matches(oldPassword, user.getPassword())) {
+            String encoded = passwordHasher.hash(newPassword);
+            // 不在事务中，更新后再失效，避免并发请求在更新前以旧密码重新加载缓存
+            int rows = baseMapper.updatePassword(userId, encoded);
+            tokenUserCache.invalidate(userId);
+            tokenKeyRing.revokeUsers(Collections.singletonList(userId));
+            return rows;
         }
         return 0;
     }
 
     @Override
     public int updateStatus(Integer userId, Boolean status) {
-        return baseMapper.updateStatus(userId, status);
+        tokenUserCache.invalidate(userId);
+        int rows = baseMapper.updateStatus(userId, status);
+        if (!Boolean.TRUE.equals(status)) {
+            tokenKeyRing.revokeUsers(Collections.singletonList(userId));
+        }
+        return rows;
     }
 
     @Override
     public int batchUpdateStatus(List<Integer> userIds, Boolean status) {
-        return baseMapper.batchUpdateStatus(userIds, status);
+        tokenUserCache.invalidateAll(userIds);
+        int rows = baseMapper.batchUpdateStatus(userIds, status);
+        if (!Boolean.TRUE.equals(status)) {
+            tokenKeyRing.revokeUsers(userIds);
+        }
+        return rows;
+    }
+
+    @Override
+    public int updateById(User user) {
+        tokenUserCache.invalidate(user.getUserId());
+        int rows = baseMapper.updateById(user);
+        // token中携带角色，角色、密码或状态变更提交后吊销此前签发的token
+        if (user.getRole() != null || user.getPassword() != null || Boolean.FALSE.equals(user.getStatus())) {
+            tokenKeyRing.revokeUsers(Collections.singletonList(user.getUserId()));
+        }
+        return rows;
+    }
+
+    @Override
+    public int batchUpdate(List<User> list) {
+        list.forEach(user -> tokenUserCache.invalidate(user.getUserId()));
+        int rows = baseMapper.batchUpdate(list);
+        tokenKeyRing.revokeUsers(list.stream().map(User::getUserId).collect(Collectors.toList()));
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Integer id) {
+        tokenUserCache.invalidate(id);
+        int rows = baseMapper.deleteById(id);
+        tokenKeyRing.revokeUsers(Collections.singletonList(id));
+        return rows;
+    }
+
+    @Override
+    public int batchDelete(List<Integer> ids) {
+        tokenUserCache.invalidateAll(ids);
+        int rows = baseMapper.batchDelete(ids);
+        tokenKeyRing.revokeUsers(ids);
+        return rows;
     }
 
     @Override
@@ -68,6 +149,7 @@ public class UserServiceImpl extends BaseServiceImpl<User, UserMapper> implement
 
     @Override
     public int updateContact(Integer userId, String phone, String email) {
+        tokenUserCache.invalidate(userId);
         return baseMapper.updateContact(userId, phone, email);
     }
 
@@ -83,6 +165,7 @@ public class UserServiceImpl extends BaseServiceImpl<User, UserMapper> implement
 
     @Override
     public int updateCreatedTime(Integer userId, Date createdTime) {
+        tokenUserCache.invalidate(userId);
         return baseMapper.updateCreatedTime(userId, createdTime);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.exam.utils;
+
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * 答案解析工具类
+ */
+public class AnswerUtils {
+
+    /** 单题最多支持的选项数（位掩码位数） */
+    public static final int MAX_OPTIONS = 26;
+
+    private AnswerUtils() {
+    }
+
+    /**
+     * 将选项字母答案解析为位掩码，A对应第0位
+     * 支持"A"、"AC"、"A,C"、"a c"等写法，无法识别的字符忽略
+     * @return 位掩码，答案为空时返回0
+     */
+    public static int parseChoiceMask(String answer) {
+        if (StrUtil.isBlank(answer)) {
+            return 0;
+        }
+        int mask = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            char c = Character.toUpperCase(answer.charAt(i));
+            if (c >= 'A' && c < 'A' + MAX_OPTIONS) {
+                mask |= 1 << (c - 'A');
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 将位掩码还原为选项字母答案，如0b101还原为"AC"
+     */
+    public static String formatChoiceMask(int mask) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < MAX_OPTIONS; i++) {
+            if ((mask & (1 << i)) != 0) {
+                sb.append((char) ('A' + i));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 规范化填空题答案：全角转半角、去除所有空白、英文字母转小写
+     * @return 规范化后的答案，答案为空时返回null
+     */
+    public static String normalizeFill(String answer) {
+        if (StrUtil.isBlank(answer)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(answer.length());
+        for (int i = 0; i < answer.length(); i++) {
+            char c = answer.charAt(i);
+            if (c == '　') {
+                continue;
+            }
+            if (c >= '！' && c <= '～') {
+                c = (char) (c - 0xFEE0);
+            }
+            if (!Character.isWhitespace(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    /**
+     * 解析判断题答案
+     * @return true: 正确；false: 错误；null: 无法识别
+     */
+    public static Boolean parseJudge(String answer) {
+        if (StrUtil.isBlank(answer)) {
+            return null;
+        }
+        switch (answer.trim().toUpperCase()) {
+            case "正确":
+            case "对":
+            case "是":
+            case "√":
+            case "T":
+            case "TRUE":
+            case "Y":
+            case "1":
+                return Boolean.TRUE;
+            case "错误":
+            case "错":
+            case "否":
+            case "×":
+            case "F":
+            case "FALSE":
+            case "N":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
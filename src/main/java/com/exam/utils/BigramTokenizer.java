@@ -0,0 +1,91 @@
+package com.exam.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 中文二元分词
+ * 连续的中日韩文字按相邻两字切分，每段的最后一个字再单独成词，单字查询可按词典前缀命中；
+ * 连续的字母和数字整体成词并转为小写。全角字符先转为半角
+ */
+public final class BigramTokenizer {
+
+    /** 字母数字词的最大长度，超出部分截断 */
+    static final int MAX_WORD_LENGTH = 32;
+
+    private BigramTokenizer() {
+    }
+
+    /**
+     * 建索引用的分词，保留重复词用于词频
+     */
+    public static List<String> tokenize(String text) {
+        return split(text, true);
+    }
+
+    /**
+     * 查询用的分词，去重
+     * 两字以上的中文片段只取二元词，单字和字母数字词需按前缀匹配，见{@link #isPrefix(String)}
+     */
+    public static List<String> tokenizeQuery(String text) {
+        return new ArrayList<>(new LinkedHashSet<>(split(text, false)));
+    }
+
+    /**
+     * 查询词是否按前缀匹配：中文二元词精确匹配，单字和字母数字词按前缀匹配
+     */
+    public static boolean isPrefix(String term) {
+        int count = term.codePointCount(0, term.length());
+        return count != 2 || !isCjk(term.codePointAt(0));
+    }
+
+    private static List<String> split(String text, boolean indexing) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int[] cps = text.codePoints().map(BigramTokenizer::normalize).toArray();
+        int i = 0;
+        while (i < cps.length) {
+            int end = i;
+            if (isCjk(cps[i])) {
+                while (end < cps.length && isCjk(cps[end])) {
+                    end++;
+                }
+                for (int j = i; j + 1 < end; j++) {
+                    tokens.add(new String(cps, j, 2));
+                }
+                if (indexing || end - i == 1) {
+                    tokens.add(new String(cps, end - 1, 1));
+                }
+            } else if (Character.isLetterOrDigit(cps[i])) {
+                while (end < cps.length && !isCjk(cps[end]) && Character.isLetterOrDigit(cps[end])) {
+                    end++;
+                }
+                tokens.add(new String(cps, i, Math.min(end - i, MAX_WORD_LENGTH)).toLowerCase(Locale.ROOT));
+            } else {
+                end++;
+            }
+            i = end;
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 全角字母数字和符号转为半角
+     */
+    private static int normalize(int cp) {
+        if (cp >= 0xFF01 && cp <= 0xFF5E) {
+            return cp - 0xFEE0;
+        }
+        return cp == 0x3000 ? ' ' : cp;
+    }
+}
@@ -0,0 +1,244 @@
+package com.exam.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 读穿透缓存区域
+ * 本地缓存按权重（如列表长度）限制容量，超出时淘汰最久未使用的条目，写入超过ttl后过期；
+ * 未命中时依次查询二级缓存和加载函数，同一键的并发加载只执行一次。
+ * 条目带版本戳：键失效时所在分段的版本加1，清空时代数加1，版本不符的条目视为未命中，
+ * 加载期间版本发生变化的结果不写入缓存
+ * @param <K> 键类型
+ * @param <V> 值类型，缓存后不应再修改
+ */
+public class CacheRegion<K, V> {
+
+    /** 版本分段数，键失效只影响同一分段中正在加载的结果 */
+    private static final int STRIPES = 64;
+
+    private final String name;
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToIntFunction<? super V> weigher;
+    private final CacheStore store;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, FutureTask<V>> loading = new ConcurrentHashMap<>();
+    private final long[] stamps = new long[STRIPES];
+    private long generation;
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxWeight 本地缓存条目的最大总权重
+     * @param ttlMillis 写入后的有效期，不大于0时不过期
+     * @param weigher 条目权重，至少按1计
+     * @param store 二级缓存，为null时只使用本地缓存
+     */
+    public CacheRegion(String name, long maxWeight, long ttlMillis, ToIntFunction<? super V> weigher,
+                       CacheStore store) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.store = store;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 读取缓存，未命中时加载
+     * @param loader 加载函数，返回null时不缓存
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.version == version(key) && entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.value;
+                }
+                remove(key);
+            }
+        }
+        misses.increment();
+
+        FutureTask<V> task = new FutureTask<>(() -> load(key, loader));
+        FutureTask<V> running = loading.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                loading.remove(key, task);
+            }
+        }
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("加载缓存失败：" + name, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待缓存加载时被中断：" + name, e);
+        }
+    }
+
+    /**
+     * 使键失效
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            stamps[stripe(key)]++;
+            remove(key);
+        }
+        invalidations.increment();
+        if (store != null) {
+            store.remove(name, key);
+        }
+    }
+
+    /**
+     * 清空区域
+     */
+    public void clear() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+            weight = 0;
+        }
+        invalidations.increment();
+        if (store != null) {
+            store.clear(name);
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+            stats.put("weight", weight);
+        }
+        stats.put("max_weight", maxWeight);
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("store_hits", storeHits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        long version;
+        synchronized (entries) {
+            version = version(key);
+        }
+        V value = store == null ? null : (V) store.get(name, key);
+        boolean loaded = value == null;
+        if (loaded) {
+            value = loader.apply(key);
+            loads.increment();
+            if (value == null) {
+                return null;
+            }
+        } else {
+            storeHits.increment();
+        }
+
+        synchronized (entries) {
+            if (version != version(key)) {
+                return value;
+            }
+            long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+            remove(key);
+            Entry<V> entry = new Entry<>(value, version, expiresAt, Math.max(1, weigher.applyAsInt(value)));
+            entries.put(key, entry);
+            weight += entry.weight;
+            evict();
+        }
+        if (loaded && store != null) {
+            store.put(name, key, value);
+            // 写入期间已失效时撤回，避免旧值留在二级缓存
+            boolean stale;
+            synchronized (entries) {
+                stale = version != version(key);
+            }
+            if (stale) {
+                store.remove(name, key);
+            }
+        }
+        return value;
+    }
+
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 代数和分段版本都只增不减，两者之和变化即说明其一发生过变化
+     */
+    private long version(K key) {
+        return generation + stamps[stripe(key)];
+    }
+
+    private static int stripe(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> 26;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long version;
+        private final long expiresAt;
+        private final int weight;
+
+        private Entry(V value, long version, long expiresAt, int weight) {
+            this.value = value;
+            this.version = version;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.exam.utils;
+
+/**
+ * 二级缓存存储
+ * 多实例部署时以共享存储（如Redis）实现并注册为Bean，本地缓存未命中时先查询此处再查询数据库。
+ * 值的序列化和过期由实现自行处理
+ */
+public interface CacheStore {
+
+    /**
+     * @return 缓存值，不存在时返回null
+     */
+    Object get(String region, Object key);
+
+    void put(String region, Object key, Object value);
+
+    void remove(String region, Object key);
+
+    /**
+     * 清空区域内的全部缓存
+     */
+    void clear(String region);
+}
@@ -0,0 +1,85 @@
+package com.exam.utils;
+
+import cn.hutool.core.date.DateUtil;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 流式导出写入器
+ * 逐行写出CSV或NDJSON，只占用固定大小的缓冲区；不关闭调用方传入的输出流
+ */
+public class ExportWriter implements Flushable {
+
+    /** 写缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+
+    private final Writer writer;
+
+    public ExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * 写入UTF-8 BOM，便于Excel正确识别中文CSV
+     */
+    public ExportWriter writeBom() throws IOException {
+        writer.write('\uFEFF');
+        return this;
+    }
+
+    /**
+     * 写入一行CSV，含逗号、引号或换行的值加引号转义
+     */
+    public void writeCsvRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * 写入一行JSON（NDJSON格式）
+     */
+    public void writeJsonLine(Object value) throws IOException {
+        OBJECT_MAPPER.writeValue(writer, value);
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeCsvValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof Date ? DateUtil.formatDateTime((Date) value) : value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,77 @@
+package com.exam.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按键限流的令牌桶
+ * 每个键的桶容量为每分钟许可数，按时间匀速补充；长时间未使用的桶由purge清理
+ */
+public class KeyedRateLimiter {
+
+    private final int permitsPerMinute;
+    private final double permitsPerNano;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param permitsPerMinute 每分钟许可数，不大于0时不限流
+     */
+    public KeyedRateLimiter(int permitsPerMinute) {
+        this.permitsPerMinute = permitsPerMinute;
+        this.permitsPerNano = permitsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+    }
+
+    /**
+     * 尝试获取一个许可
+     * @return 未超出限额时返回true
+     */
+    public boolean tryAcquire(String key) {
+        if (permitsPerMinute <= 0 || key == null) {
+            return true;
+        }
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    boolean tryAcquire(String key, long now) {
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(permitsPerMinute, now));
+        synchronized (bucket) {
+            bucket.tokens = Math.min(permitsPerMinute, bucket.tokens + (now - bucket.updatedAt) * permitsPerNano);
+            bucket.updatedAt = now;
+            if (bucket.tokens < 1) {
+                return false;
+            }
+            bucket.tokens -= 1;
+            return true;
+        }
+    }
+
+    /**
+     * 清理已补满的桶，补满后与新建的桶等价
+     */
+    public void purge() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> {
+            synchronized (bucket) {
+                return bucket.tokens + (now - bucket.updatedAt) * permitsPerNano >= permitsPerMinute;
+            }
+        });
+    }
+
+    /**
+     * 当前跟踪的键数
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.exam.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时直方图
+ * 按对数线性分桶记录纳秒耗时，每个2的幂区间分为64个子桶，分位数相对误差不超过1/64；
+ * 记录只做原子自增，不加锁，可多线程并发写入
+ */
+public class LatencyHistogram {
+
+    /** 子桶数，小于该值的耗时逐纳秒计数 */
+    private static final int SUB_BUCKETS = 128;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /** 可区分的最大耗时约18分钟，更长的计入最后一个桶 */
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒），负数按0计
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 重试
+        }
+        while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+            // 重试
+        }
+    }
+
+    /**
+     * 当前计数的快照，并发记录时各项之间可能有少量偏差
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        long count = total.get();
+        return new Snapshot(copy, count, sum.get(), count == 0 ? 0 : min.get(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * 桶内的最大耗时
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long mantissa = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * 直方图快照，不再变化
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long min, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 分位数耗时（纳秒），取所在桶的上界且不超过最大值
+         * @param percentile 0到100
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 本快照与更早快照之间的增量
+         * 最小值和最大值无法相减，取区间内桶的边界估算
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[counts.length];
+            int first = -1;
+            int last = -1;
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - earlier.counts[i];
+                if (delta[i] > 0) {
+                    if (first < 0) {
+                        first = i;
+                    }
+                    last = i;
+                }
+            }
+            long deltaCount = count - earlier.count;
+            if (first < 0 || deltaCount <= 0) {
+                return new Snapshot(delta, 0, 0, 0, 0);
+            }
+            long low = Math.max(first == 0 ? 0 : highestValueOf(first - 1) + 1, min);
+            long high = Math.min(highestValueOf(last), max);
+            return new Snapshot(delta, deltaCount, sum - earlier.sum, low, high);
+        }
+    }
+}
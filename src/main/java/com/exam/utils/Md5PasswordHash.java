@@ -0,0 +1,40 @@
+package com.exam.utils;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 旧版无盐MD5密码，只用于校验已有密码，登录成功后改存为当前算法
+ */
+public class Md5PasswordHash implements PasswordHashAlgorithm {
+
+    public static final String ID = "md5";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public boolean supports(String encoded) {
+        return encoded != null && encoded.length() == 32 && encoded.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    @Override
+    public String hash(String password) {
+        return DigestUtils.md5DigestAsHex(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean matches(String password, String encoded) {
+        return MessageDigest.isEqual(hash(password).getBytes(StandardCharsets.US_ASCII),
+                encoded.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        return true;
+    }
+}
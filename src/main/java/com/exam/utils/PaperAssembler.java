@@ -0,0 +1,256 @@
+package com.exam.utils;
+
+import java.util.*;
+
+/**
+ * 组卷求解器
+ * 试卷由若干题位组成，每个题位有题型和分值（权重）。各题型先按使用次数取最少使用的一层候选题，
+ * 在候选题中按难度分层随机抽取初始解，再逐题替换为同题型、难度更接近所需值的未选题目，
+ * 直到按分值加权的平均难度落在目标±容差内；候选层内无解时放宽使用次数上限后重试
+ */
+public class PaperAssembler {
+
+    /** 使用次数直方图的档数，最后一档包含更高的使用次数 */
+    private static final int USAGE_BUCKETS = 64;
+
+    /** 寻找替换题目时向两侧最多检查的候选数 */
+    private static final int SCAN_LIMIT = 64;
+
+    /** 每个题位的候选题数下限（相对题位数的倍数） */
+    private final int candidateFactor;
+
+    /** 每一层候选题内局部搜索的最大替换尝试次数 */
+    private final int maxIterations;
+
+    public PaperAssembler(int candidateFactor, int maxIterations) {
+        this.candidateFactor = Math.max(candidateFactor, 1);
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * 组卷
+     * @param slotTypes 各题位的题型
+     * @param slotWeights 各题位的分值，用作难度加权，须为正数
+     * @param target 目标平均难度，单位0.01；为null时不限制难度
+     * @param tolerance 允许偏离目标的难度，单位0.01
+     * @return 组卷结果；某题型题目数不足时返回null
+     */
+    public Result assemble(QuestionPool pool, int[] slotTypes, int[] slotWeights,
+                           Integer target, int tolerance, SplittableRandom random) {
+        int n = slotTypes.length;
+        // 按题型分组题位
+        Map<Integer, List<Integer>> slotsByType = new LinkedHashMap<>();
+        for (int slot = 0; slot < n; slot++) {
+            slotsByType.computeIfAbsent(slotTypes[slot], k -> new ArrayList<>()).add(slot);
+        }
+        int groups = slotsByType.size();
+        int[][] groupSlots = new int[groups][];
+        int[][] groupRanges = new int[groups][];
+        int[] slotGroup = new int[n];
+        int g = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : slotsByType.entrySet()) {
+            int[] range = pool.range(entry.getKey());
+            if (range == null || range[1] - range[0] < entry.getValue().size()) {
+                return null;
+            }
+            groupRanges[g] = range;
+            groupSlots[g] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            for (int slot : groupSlots[g]) {
+                slotGroup[slot] = g;
+            }
+            g++;
+        }
+
+        long factor = candidateFactor;
+        Result best = null;
+        int iterations = 0;
+        while (true) {
+            boolean exhausted = true;
+            int[][] candidates = new int[groups][];
+            for (g = 0; g < groups; g++) {
+                candidates[g] = candidates(pool, groupRanges[g], groupSlots[g].length * factor);
+                exhausted &= candidates[g].length == groupRanges[g][1] - groupRanges[g][0];
+            }
+            Result result = search(pool, slotWeights, slotGroup, groupSlots, candidates, target, tolerance, random);
+            iterations += result.iterations;
+            if (best == null || result.deviation < best.deviation) {
+                best = result;
+            }
+            if (best.withinTolerance || exhausted) {
+                best.iterations = iterations;
+                return best;
+            }
+            factor *= 4;
+        }
+    }
+
+    /**
+     * 题型范围内使用次数最少的一层候选题，至少need道（不足时取全部），按难度升序
+     */
+    private static int[] candidates(QuestionPool pool, int[] range, long need) {
+        int from = range[0];
+        int to = range[1];
+        if (need >= to - from) {
+            int[] all = new int[to - from];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+        int[] histogram = new int[USAGE_BUCKETS];
+        for (int i = from; i < to; i++) {
+            histogram[Math.min(pool.usage(i), USAGE_BUCKETS - 1)]++;
+        }
+        int cap = 0;
+        long count = histogram[0];
+        while (count < need && cap < USAGE_BUCKETS - 1) {
+            count += histogram[++cap];
+        }
+        int limit = cap == USAGE_BUCKETS - 1 ? Integer.MAX_VALUE : cap;
+        int[] result = new int[(int) count];
+        int size = 0;
+        for (int i = from; i < to && size < result.length; i++) {
+            if (pool.usage(i) <= limit) {
+                result[size++] = i;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private Result search(QuestionPool pool, int[] slotWeights, int[] slotGroup, int[][] groupSlots,
+                          int[][] candidates, Integer target, int tolerance, SplittableRandom random) {
+        int n = slotWeights.length;
+        int[] picks = new int[n];
+        BitSet selected = new BitSet(pool.size());
+        long weightSum = 0;
+        long weighted = 0;
+        // 初始解：各题型候选题按难度等分为题位数层，每层随机抽一道
+        for (int g = 0; g < groupSlots.length; g++) {
+            int[] slots = groupSlots[g];
+            int[] group = candidates[g];
+            for (int j = 0; j < slots.length; j++) {
+                int lo = (int) ((long) j * group.length / slots.length);
+                int hi = (int) ((long) (j + 1) * group.length / slots.length);
+                int index = group[lo + random.nextInt(hi - lo)];
+                picks[slots[j]] = index;
+                selected.set(index);
+                weightSum += slotWeights[slots[j]];
+                weighted += (long) slotWeights[slots[j]] * pool.difficulty(index);
+            }
+        }
+        if (target == null) {
+            return new Result(pool, picks, weighted, weightSum, 0, true, 0);
+        }
+
+        // 局部搜索：error为加权难度和与目标的差，每次把一个题位换成能抵消误差的题目
+        long error = weighted - (long) target * weightSum;
+        long allowed = (long) tolerance * weightSum;
+        int iteration = 0;
+        for (; iteration < maxIterations && Math.abs(error) > allowed; iteration++) {
+            int slot = random.nextInt(n);
+            int current = picks[slot];
+            int weight = slotWeights[slot];
+            long desired = pool.difficulty(current) - error / weight;
+            int replacement = nearestFree(pool, candidates[slotGroup[slot]], desired, selected);
+            if (replacement < 0) {
+                continue;
+            }
+            long next = error + (long) weight * (pool.difficulty(replacement) - pool.difficulty(current));
+            if (Math.abs(next) < Math.abs(error)) {
+                selected.clear(current);
+                selected.set(replacement);
+                picks[slot] = replacement;
+                weighted += next - error;
+                error = next;
+            }
+        }
+        return new Result(pool, picks, weighted, weightSum, Math.abs(error), Math.abs(error) <= allowed, iteration);
+    }
+
+    /**
+     * 候选题中难度最接近desired且未被选中的题目，找不到时返回-1
+     */
+    private static int nearestFree(QuestionPool pool, int[] candidates, long desired, BitSet selected) {
+        int lo = 0;
+        int hi = candidates.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (pool.difficulty(candidates[mid]) < desired) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int left = lo - 1;
+        int right = lo;
+        for (int scanned = 0; scanned < SCAN_LIMIT && (left >= 0 || right < candidates.length); scanned++) {
+            boolean takeLeft = right >= candidates.length || left >= 0
+                    && desired - pool.difficulty(candidates[left]) <= pool.difficulty(candidates[right]) - desired;
+            int index = takeLeft ? candidates[left--] : candidates[right++];
+            if (!selected.get(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 组卷结果
+     */
+    public static final class Result {
+        private final int[] indexes;
+        private final int[] questionIds;
+        private final long weighted;
+        private final long weightSum;
+        private final boolean withinTolerance;
+        /** 加权难度和与目标的差的绝对值 */
+        private final long deviation;
+        private int iterations;
+
+        private Result(QuestionPool pool, int[] indexes, long weighted, long weightSum, long deviation,
+                       boolean withinTolerance, int iterations) {
+            this.indexes = indexes;
+            this.questionIds = new int[indexes.length];
+            for (int i = 0; i < indexes.length; i++) {
+                questionIds[i] = pool.id(indexes[i]);
+            }
+            this.weighted = weighted;
+            this.weightSum = weightSum;
+            this.withinTolerance = withinTolerance;
+            this.deviation = deviation;
+            this.iterations = iterations;
+        }
+
+        /**
+         * 各题位选中题目在题目池中的下标
+         */
+        public int[] getIndexes() {
+            return indexes;
+        }
+
+        /**
+         * 各题位选中的题目ID
+         */
+        public int[] getQuestionIds() {
+            return questionIds;
+        }
+
+        /**
+         * 按分值加权的平均难度，单位0.01
+         */
+        public int getDifficulty() {
+            return weightSum == 0 ? 0 : (int) Math.round((double) weighted / weightSum);
+        }
+
+        public boolean isWithinTolerance() {
+            return withinTolerance;
+        }
+
+        /**
+         * 局部搜索的替换尝试次数
+         */
+        public int getIterations() {
+            return iterations;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.exam.utils;
+
+/**
+ * 考生试卷变体
+ * 由考试ID和学生ID派生种子，确定考生看到的题目顺序和每道选择题的选项顺序，不保存任何映射：
+ * 选项顺序只取决于种子和题目ID，与题目顺序无关，批改时用同一种子即可把考生作答的选项还原为原始选项。
+ * 随机数按SplitMix64自行实现，不依赖JDK随机数的具体实现，升级JDK后仍能还原
+ */
+public final class PaperVariant {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private PaperVariant() {
+    }
+
+    /**
+     * 考生在考试中的变体种子
+     */
+    public static long seed(int examId, int studentId) {
+        return mix(((long) examId << 32) ^ (studentId & 0xFFFFFFFFL));
+    }
+
+    /**
+     * 题目顺序
+     * @return 第i个展示位置对应的原始题目下标
+     */
+    public static int[] questionOrder(long seed, int size) {
+        return shuffle(seed, size);
+    }
+
+    /**
+     * 选项顺序
+     * @return 第i个展示选项对应的原始选项下标
+     */
+    public static int[] optionOrder(long seed, int questionId, int optionCount) {
+        return shuffle(mix(seed ^ mix(questionId + GOLDEN_GAMMA)), optionCount);
+    }
+
+    /**
+     * 把考生看到的选项位掩码还原为原始选项位掩码，超出选项数的位原样保留
+     */
+    public static int toCanonicalMask(long seed, int questionId, int optionCount, int displayedMask) {
+        int[] order = optionOrder(seed, questionId, optionCount);
+        int mask = displayedMask & ~lowBits(optionCount);
+        for (int i = 0; i < optionCount; i++) {
+            if ((displayedMask & (1 << i)) != 0) {
+                mask |= 1 << order[i];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 把原始选项位掩码转换为考生看到的选项位掩码，用于回显作答
+     */
+    public static int toDisplayedMask(long seed, int questionId, int optionCount, int canonicalMask) {
+        int[] order = optionOrder(seed, questionId, optionCount);
+        int mask = canonicalMask & ~lowBits(optionCount);
+        for (int i = 0; i < optionCount; i++) {
+            if ((canonicalMask & (1 << order[i])) != 0) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    private static int lowBits(int count) {
+        return count >= Integer.SIZE ? -1 : (1 << count) - 1;
+    }
+
+    /**
+     * Fisher-Yates洗牌
+     */
+    private static int[] shuffle(long seed, int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        long state = seed;
+        for (int i = size - 1; i > 0; i--) {
+            state += GOLDEN_GAMMA;
+            int j = (int) (((mix(state) >>> 32) * (i + 1)) >>> 32);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
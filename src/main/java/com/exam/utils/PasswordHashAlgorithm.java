@@ -0,0 +1,35 @@
+package com.exam.utils;
+
+/**
+ * 密码哈希算法
+ * 存储格式由各算法自行识别，新增算法时实现此接口并注册到PasswordHasher
+ */
+public interface PasswordHashAlgorithm {
+
+    /**
+     * 算法标识，对应exam.password.algorithm
+     */
+    String id();
+
+    /**
+     * 是否为本算法生成的存储值
+     */
+    boolean supports(String encoded);
+
+    /**
+     * 计算存储值
+     */
+    String hash(String password);
+
+    /**
+     * 校验明文密码与存储值是否一致
+     */
+    boolean matches(String password, String encoded);
+
+    /**
+     * 存储值的参数是否低于当前配置，需要在下次登录时重新计算
+     */
+    default boolean needsRehash(String encoded) {
+        return false;
+    }
+}
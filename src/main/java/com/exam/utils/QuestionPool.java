@@ -0,0 +1,138 @@
+package com.exam.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 组卷题目池
+ * 单个学科的题目按题型、难度升序存放在基本类型数组中，以数组下标引用题目；
+ * 难度以0.01为单位，使用次数（被试卷引用的次数）组卷后累加
+ */
+public final class QuestionPool {
+
+    private static final int MAX_TYPE = (1 << 11) - 1;
+    private static final int MAX_DIFFICULTY = (1 << 20) - 1;
+
+    private final int[] ids;
+    private final int[] types;
+    private final int[] difficulties;
+    private final AtomicIntegerArray usages;
+    /** 题型 -> 该题型在数组中的起始下标，结束下标为下一个题型的起始下标 */
+    private final int[] typeValues;
+    private final int[] typeStarts;
+
+    private QuestionPool(int[] ids, int[] types, int[] difficulties, int[] usages) {
+        this.ids = ids;
+        this.types = types;
+        this.difficulties = difficulties;
+        this.usages = new AtomicIntegerArray(usages);
+        int distinct = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (i == 0 || types[i] != types[i - 1]) {
+                distinct++;
+            }
+        }
+        typeValues = new int[distinct];
+        typeStarts = new int[distinct + 1];
+        for (int i = 0, t = 0; i < types.length; i++) {
+            if (i == 0 || types[i] != types[i - 1]) {
+                typeValues[t] = types[i];
+                typeStarts[t++] = i;
+            }
+        }
+        typeStarts[distinct] = types.length;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public int type(int index) {
+        return types[index];
+    }
+
+    /**
+     * 难度，单位0.01
+     */
+    public int difficulty(int index) {
+        return difficulties[index];
+    }
+
+    public int usage(int index) {
+        return usages.get(index);
+    }
+
+    public void recordUsage(int index) {
+        usages.incrementAndGet(index);
+    }
+
+    /**
+     * 题型在数组中的下标范围[from, to)，题型不存在时返回null
+     */
+    public int[] range(int type) {
+        int t = Arrays.binarySearch(typeValues, type);
+        return t < 0 ? null : new int[]{typeStarts[t], typeStarts[t + 1]};
+    }
+
+    public static final class Builder {
+        private int[] ids = new int[1024];
+        private int[] types = new int[1024];
+        private int[] difficulties = new int[1024];
+        private int[] usages = new int[1024];
+        private int size;
+
+        /**
+         * @param type 题型，取值0~2047
+         * @param difficulty 难度，单位0.01，负数按0处理
+         */
+        public Builder add(int id, int type, int difficulty, int usage) {
+            if (type < 0 || type > MAX_TYPE) {
+                throw new IllegalArgumentException("题型超出范围：" + type);
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+                difficulties = Arrays.copyOf(difficulties, size * 2);
+                usages = Arrays.copyOf(usages, size * 2);
+            }
+            ids[size] = id;
+            types[size] = type;
+            difficulties[size] = Math.min(Math.max(difficulty, 0), MAX_DIFFICULTY);
+            usages[size] = usage;
+            size++;
+            return this;
+        }
+
+        /**
+         * 按题型、难度、录入顺序排序后生成题目池
+         */
+        public QuestionPool build() {
+            // 排序键：题型(11位) | 难度(20位) | 录入下标(低32位)
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) types[i] << 52) | ((long) difficulties[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            int[] sortedIds = new int[size];
+            int[] sortedTypes = new int[size];
+            int[] sortedDifficulties = new int[size];
+            int[] sortedUsages = new int[size];
+            for (int i = 0; i < size; i++) {
+                int source = (int) keys[i];
+                sortedIds[i] = ids[source];
+                sortedTypes[i] = types[source];
+                sortedDifficulties[i] = difficulties[source];
+                sortedUsages[i] = usages[source];
+            }
+            return new QuestionPool(sortedIds, sortedTypes, sortedDifficulties, sortedUsages);
+        }
+    }
+}
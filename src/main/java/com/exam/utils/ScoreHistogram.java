@@ -0,0 +1,123 @@
+package com.exam.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * 成绩直方图
+ * 按1分一档计数，可按任意分段重新聚合；非线程安全，由调用方加锁或使用快照
+ */
+public class ScoreHistogram {
+
+    /** 默认分段下界：0-59、60-69、70-79、80-89、90-满分 */
+    public static final int[] DEFAULT_BOUNDS = {0, 60, 70, 80, 90};
+
+    /** 下标为分数向下取整，超过满分的计入最后一档 */
+    private final int[] counts;
+    private int total;
+
+    /**
+     * @param maxScore 满分，决定档位数
+     */
+    public ScoreHistogram(int maxScore) {
+        this.counts = new int[Math.max(maxScore, 1) + 1];
+    }
+
+    private ScoreHistogram(int[] counts, int total) {
+        this.counts = counts;
+        this.total = total;
+    }
+
+    public void add(BigDecimal score) {
+        counts[indexOf(score)]++;
+        total++;
+    }
+
+    public void remove(BigDecimal score) {
+        int index = indexOf(score);
+        if (counts[index] > 0) {
+            counts[index]--;
+            total--;
+        }
+    }
+
+    /**
+     * 合并另一直方图的计数，满分不同时超出部分计入最后一档
+     */
+    public void addAll(ScoreHistogram other) {
+        for (int score = 0; score < other.counts.length; score++) {
+            counts[Math.min(score, counts.length - 1)] += other.counts[score];
+        }
+        total += other.total;
+    }
+
+    /**
+     * 样本总数
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * 满分
+     */
+    public int maxScore() {
+        return counts.length - 1;
+    }
+
+    /**
+     * 复制当前计数，供锁外读取
+     */
+    public ScoreHistogram snapshot() {
+        return new ScoreHistogram(counts.clone(), total);
+    }
+
+    /**
+     * 按固定分段宽度聚合，如10分一档、5分一档
+     */
+    public List<Map<String, Object>> distributionByWidth(int width, String suffix) {
+        if (width < 1) {
+            throw new IllegalArgumentException("分段宽度须大于0");
+        }
+        int[] bounds = new int[(maxScore() + width - 1) / width];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = i * width;
+        }
+        return distribution(bounds, suffix);
+    }
+
+    /**
+     * 按自定义分段下界聚合，结果按分数从高到低，只包含有数据的分段
+     * @param lowerBounds 升序的分段下界，第一项通常为0
+     * @param suffix 分段名称后缀，如"%"，可为空
+     * @return 每项包含score_range、count
+     */
+    public List<Map<String, Object>> distribution(int[] lowerBounds, String suffix) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        String tail = suffix == null ? "" : suffix;
+        for (int i = lowerBounds.length - 1; i >= 0; i--) {
+            int from = Math.max(lowerBounds[i], 0);
+            int to = i == lowerBounds.length - 1 ? maxScore() : Math.min(lowerBounds[i + 1] - 1, maxScore());
+            long count = 0;
+            for (int score = from; score <= to; score++) {
+                count += counts[score];
+            }
+            if (count > 0) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("score_range", from + "-" + to + tail);
+                row.put("count", count);
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(BigDecimal score) {
+        if (score == null || score.signum() < 0) {
+            return 0;
+        }
+        int index = score.setScale(0, RoundingMode.FLOOR).intValue();
+        return Math.min(index, counts.length - 1);
+    }
+}
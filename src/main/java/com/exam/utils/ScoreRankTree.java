@@ -0,0 +1,159 @@
+package com.exam.utils;
+
+import java.util.*;
+
+/**
+ * 成绩顺序统计树
+ * 以分数桶（0.01分为一档）为下标的树状数组，支持O(log n)的增删、名次与百分位查询，
+ * 另按分数桶降序索引学生，用于前N名查询。非线程安全，由调用方加锁
+ */
+public class ScoreRankTree {
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    /** 树状数组，下标从1开始，第i位对应分数桶i-1 */
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+    private int size;
+    private final Map<Integer, Integer> bucketByStudent = new HashMap<>();
+    private final TreeMap<Integer, Set<Integer>> studentsByBucket = new TreeMap<>(Comparator.reverseOrder());
+
+    /**
+     * 写入或更新学生分数桶
+     */
+    public void put(int studentId, int bucket) {
+        bucket = Math.max(bucket, 0);
+        Integer previous = bucketByStudent.put(studentId, bucket);
+        if (previous != null) {
+            if (previous == bucket) {
+                return;
+            }
+            detach(studentId, previous);
+        } else {
+            size++;
+        }
+        ensureCapacity(bucket);
+        add(bucket, 1);
+        studentsByBucket.computeIfAbsent(bucket, k -> new HashSet<>()).add(studentId);
+    }
+
+    /**
+     * 移除学生
+     * @return 学生原本存在时返回true
+     */
+    public boolean remove(int studentId) {
+        Integer previous = bucketByStudent.remove(studentId);
+        if (previous == null) {
+            return false;
+        }
+        detach(studentId, previous);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int studentId) {
+        return bucketByStudent.containsKey(studentId);
+    }
+
+    /**
+     * 学生数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 学生分数桶
+     * @return 学生不存在时返回null
+     */
+    public Integer bucketOf(int studentId) {
+        return bucketByStudent.get(studentId);
+    }
+
+    /**
+     * 名次，与RANK() OVER (ORDER BY score DESC)一致：同分同名次，后续名次跳过
+     * @return 学生不存在时返回null
+     */
+    public Integer rank(int studentId) {
+        Integer bucket = bucketByStudent.get(studentId);
+        return bucket == null ? null : countAbove(bucket) + 1;
+    }
+
+    /**
+     * 分数高于指定分数桶的学生数
+     */
+    public int countAbove(int bucket) {
+        return size - prefix(bucket);
+    }
+
+    /**
+     * 分数低于指定分数桶的学生数
+     */
+    public int countBelow(int bucket) {
+        return bucket <= 0 ? 0 : prefix(bucket - 1);
+    }
+
+    /**
+     * 前N名，按分数降序，同分按学生ID升序
+     * @return 每项为{学生ID, 分数桶, 名次}
+     */
+    public List<int[]> top(int n) {
+        List<int[]> result = new ArrayList<>(Math.min(n, size));
+        int before = 0;
+        for (Map.Entry<Integer, Set<Integer>> entry : studentsByBucket.entrySet()) {
+            if (result.size() >= n) {
+                break;
+            }
+            int rank = before + 1;
+            List<Integer> students = new ArrayList<>(entry.getValue());
+            Collections.sort(students);
+            for (int i = 0; i < students.size() && result.size() < n; i++) {
+                result.add(new int[]{students.get(i), entry.getKey(), rank});
+            }
+            before += students.size();
+        }
+        return result;
+    }
+
+    private void detach(int studentId, int bucket) {
+        add(bucket, -1);
+        Set<Integer> students = studentsByBucket.get(bucket);
+        students.remove(studentId);
+        if (students.isEmpty()) {
+            studentsByBucket.remove(bucket);
+        }
+    }
+
+    /**
+     * 分数桶小于等于bucket的学生数
+     */
+    private int prefix(int bucket) {
+        int sum = 0;
+        for (int i = Math.min(bucket + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void add(int bucket, int delta) {
+        for (int i = bucket + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * 分数桶超出容量时按2倍扩容并重建
+     */
+    private void ensureCapacity(int bucket) {
+        if (bucket + 1 < tree.length) {
+            return;
+        }
+        int capacity = tree.length - 1;
+        while (bucket + 1 > capacity) {
+            capacity <<= 1;
+        }
+        tree = new int[capacity + 1];
+        for (Map.Entry<Integer, Set<Integer>> entry : studentsByBucket.entrySet()) {
+            add(entry.getKey(), entry.getValue().size());
+        }
+    }
+}
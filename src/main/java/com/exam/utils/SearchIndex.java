@@ -0,0 +1,516 @@
+package com.exam.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 题目全文索引
+ * 由不可变的主段和最近变更组成：新增或修改的文档保存在内存中，主段中被替换或删除的文档只做标记，
+ * 调用{@link #compact()}后合并为新的主段。查询词全部命中的文档按BM25排序，可按题库、题型和难度过滤。
+ * 查询可并发执行，变更之间互斥
+ */
+public class SearchIndex {
+
+    /** 题库、题型或难度为空 */
+    public static final int NO_VALUE = -1;
+
+    /** 前缀查询词最多展开的词数 */
+    static final int MAX_EXPANSIONS = 1024;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private SearchSegment segment;
+    private BitSet removed = new BitSet();
+    private int removedCount;
+    private long removedLength;
+
+    private Map<Integer, Document> recent = new HashMap<>();
+    private long recentLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SearchIndex() {
+        this(SearchSegment.EMPTY);
+    }
+
+    private SearchIndex(SearchSegment segment) {
+        this.segment = segment;
+    }
+
+    /**
+     * 按题目ID升序添加文档的全量构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 新增或替换文档
+     */
+    public synchronized void upsert(Document doc) {
+        lock.writeLock().lock();
+        try {
+            remove(doc.questionId);
+            recent.put(doc.questionId, doc);
+            recentLength += doc.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     */
+    public synchronized void delete(int questionId) {
+        lock.writeLock().lock();
+        try {
+            remove(questionId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 把最近变更合并到主段，合并期间查询照常执行
+     */
+    public synchronized void compact() {
+        if (recent.isEmpty() && removedCount == 0) {
+            return;
+        }
+        SearchSegment merged = segment.merge(removed, recent.values());
+        lock.writeLock().lock();
+        try {
+            segment = merged;
+            removed = new BitSet();
+            removedCount = 0;
+            removedLength = 0;
+            recent = new HashMap<>();
+            recentLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 未合并到主段的变更数
+     */
+    public int pendingChanges() {
+        lock.readLock().lock();
+        try {
+            return recent.size() + removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.size() - removedCount + recent.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 主段的词数
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return segment.terms.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已索引的最大题目ID，没有文档时返回0
+     */
+    public int maxQuestionId() {
+        lock.readLock().lock();
+        try {
+            int max = segment.size() > 0 ? segment.questionIds[segment.size() - 1] : 0;
+            for (Integer questionId : recent.keySet()) {
+                max = Math.max(max, questionId);
+            }
+            return max;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 属于指定题库的题目ID
+     */
+    public List<Integer> questionIdsInBanks(Collection<Integer> qbIds) {
+        Set<Integer> banks = new HashSet<>(qbIds);
+        List<Integer> questionIds = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < segment.size(); i++) {
+                if (!removed.get(i) && banks.contains(segment.qbIds[i])) {
+                    questionIds.add(segment.questionIds[i]);
+                }
+            }
+            for (Document doc : recent.values()) {
+                if (banks.contains(doc.qbId)) {
+                    questionIds.add(doc.questionId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return questionIds;
+    }
+
+    /**
+     * 全文检索
+     * @param qbId 题库ID，为null时不限
+     * @param type 题型，为null时不限
+     * @param minDifficulty 最低难度（百分之一），为null时不限；限定难度时不含未设置难度的题目
+     * @param maxDifficulty 最高难度（百分之一），为null时不限
+     * @return 按相关度从高到低排列的命中结果，最多limit条
+     */
+    public List<Hit> search(String text, Integer qbId, Integer type, Integer minDifficulty, Integer maxDifficulty,
+                            int limit) {
+        List<String> query = BigramTokenizer.tokenizeQuery(text);
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Filter filter = new Filter(qbId, type, minDifficulty, maxDifficulty);
+        int groups = query.size();
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            SearchSegment base = segment;
+            SearchSegment.Postings[] postings = new SearchSegment.Postings[groups];
+            for (int g = 0; g < groups; g++) {
+                postings[g] = lookup(base, query.get(g));
+            }
+
+            // 最近变更中命中全部查询词的文档
+            int[] recentFreqs = new int[groups];
+            List<Document> recentMatches = new ArrayList<>();
+            List<int[]> recentTfs = new ArrayList<>();
+            for (Document doc : recent.values()) {
+                int[] tfs = new int[groups];
+                boolean all = true;
+                for (int g = 0; g < groups; g++) {
+                    tfs[g] = doc.tf(query.get(g));
+                    if (tfs[g] > 0) {
+                        recentFreqs[g]++;
+                    } else {
+                        all = false;
+                    }
+                }
+                if (all && filter.test(doc.qbId, doc.type, doc.difficulty)) {
+                    recentMatches.add(doc);
+                    recentTfs.add(tfs);
+                }
+            }
+
+            int n = base.size() - removedCount + recent.size();
+            if (n <= 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = Math.max(1.0, (double) (base.totalLength - removedLength + recentLength) / n);
+            double[] idf = new double[groups];
+            for (int g = 0; g < groups; g++) {
+                int df = Math.min(postings[g].docs.length + recentFreqs[g], n);
+                if (df == 0) {
+                    return new ArrayList<>();
+                }
+                idf[g] = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            }
+
+            for (int k = 0; k < recentMatches.size(); k++) {
+                Document doc = recentMatches.get(k);
+                offer(top, limit, doc.questionId, score(idf, recentTfs.get(k), doc.length, averageLength));
+            }
+
+            // 主段：从最短的倒排表出发依次求交
+            Integer[] order = new Integer[groups];
+            for (int g = 0; g < groups; g++) {
+                order[g] = g;
+            }
+            Arrays.sort(order, Comparator.comparingInt(g -> postings[g].docs.length));
+            SearchSegment.Postings lead = postings[order[0]];
+            int[] cursors = new int[groups];
+            int[] tfs = new int[groups];
+            candidates:
+            for (int i = 0; i < lead.docs.length; i++) {
+                int doc = lead.docs[i];
+                tfs[order[0]] = lead.tfs[i];
+                for (int k = 1; k < groups; k++) {
+                    SearchSegment.Postings other = postings[order[k]];
+                    int found = Arrays.binarySearch(other.docs, cursors[k], other.docs.length, doc);
+                    if (found < 0) {
+                        cursors[k] = -found - 1;
+                        if (cursors[k] >= other.docs.length) {
+                            break candidates;
+                        }
+                        continue candidates;
+                    }
+                    cursors[k] = found;
+                    tfs[order[k]] = other.tfs[found];
+                }
+                if (removed.get(doc) || !filter.test(base.qbIds[doc], base.types[doc], base.difficulties[doc])) {
+                    continue;
+                }
+                offer(top, limit, base.questionIds[doc], score(idf, tfs, base.lengths[doc], averageLength));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        return hits;
+    }
+
+    /**
+     * 合并最近变更后写出主段
+     */
+    public synchronized void write(OutputStream out) throws IOException {
+        compact();
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        segment.write(data);
+        data.flush();
+    }
+
+    /**
+     * 读取{@link #write(OutputStream)}写出的索引
+     */
+    public static SearchIndex read(InputStream in) throws IOException {
+        return new SearchIndex(SearchSegment.read(new DataInputStream(new BufferedInputStream(in, 1 << 16))));
+    }
+
+    private void remove(int questionId) {
+        int index = segment.indexOf(questionId);
+        if (index >= 0 && !removed.get(index)) {
+            removed.set(index);
+            removedCount++;
+            removedLength += segment.lengths[index];
+        }
+        Document previous = recent.remove(questionId);
+        if (previous != null) {
+            recentLength -= previous.length;
+        }
+    }
+
+    /**
+     * 查询词在主段中的倒排表，前缀词合并全部展开词的倒排表
+     */
+    private static SearchSegment.Postings lookup(SearchSegment base, String term) {
+        if (!BigramTokenizer.isPrefix(term)) {
+            int index = base.termIndex(term);
+            return index >= 0 ? base.postings(index) : new SearchSegment.Postings(new int[0], new int[0]);
+        }
+        int[] range = base.prefixRange(term);
+        int to = Math.min(range[1], range[0] + MAX_EXPANSIONS);
+        if (to - range[0] == 1) {
+            return base.postings(range[0]);
+        }
+        int total = 0;
+        for (int t = range[0]; t < to; t++) {
+            total += base.docFreqs[t];
+        }
+        // 文档编号在高32位，排序后相邻的同一文档累加词频
+        long[] entries = new long[total];
+        int size = 0;
+        for (int t = range[0]; t < to; t++) {
+            SearchSegment.Postings postings = base.postings(t);
+            for (int i = 0; i < postings.docs.length; i++) {
+                entries[size++] = (long) postings.docs[i] << 32 | postings.tfs[i];
+            }
+        }
+        Arrays.sort(entries);
+        int[] docs = new int[size];
+        int[] tfs = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int doc = (int) (entries[i] >>> 32);
+            int tf = (int) entries[i];
+            if (count > 0 && docs[count - 1] == doc) {
+                tfs[count - 1] += tf;
+            } else {
+                docs[count] = doc;
+                tfs[count++] = tf;
+            }
+        }
+        return new SearchSegment.Postings(Arrays.copyOf(docs, count), Arrays.copyOf(tfs, count));
+    }
+
+    private static double score(double[] idf, int[] tfs, int length, double averageLength) {
+        double norm = K1 * (1 - B + B * length / averageLength);
+        double score = 0;
+        for (int g = 0; g < idf.length; g++) {
+            score += idf[g] * tfs[g] * (K1 + 1) / (tfs[g] + norm);
+        }
+        return score;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, int limit, int questionId, double score) {
+        Hit hit = new Hit(questionId, score);
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (Hit.WORST_FIRST.compare(hit, top.peek()) > 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static int valueOf(Integer value) {
+        return value == null ? NO_VALUE : value;
+    }
+
+    /**
+     * 待索引的题目
+     */
+    public static final class Document {
+
+        final int questionId;
+        final int qbId;
+        final int type;
+        final int difficulty;
+        final int length;
+        /** 有序且不重复 */
+        final String[] terms;
+        final int[] tfs;
+
+        private Document(int questionId, int qbId, int type, int difficulty, String[] terms, int[] tfs, int length) {
+            this.questionId = questionId;
+            this.qbId = qbId;
+            this.type = type;
+            this.difficulty = difficulty;
+            this.terms = terms;
+            this.tfs = tfs;
+            this.length = length;
+        }
+
+        /**
+         * @param difficulty 难度（百分之一）
+         * @param tokens 分词结果，见{@link BigramTokenizer#tokenize(String)}
+         */
+        public static Document of(int questionId, Integer qbId, Integer type, Integer difficulty,
+                                  List<String> tokens) {
+            String[] sorted = tokens.toArray(new String[0]);
+            Arrays.sort(sorted);
+            String[] terms = new String[sorted.length];
+            int[] tfs = new int[sorted.length];
+            int count = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (count > 0 && terms[count - 1].equals(sorted[i])) {
+                    tfs[count - 1]++;
+                } else {
+                    terms[count] = sorted[i];
+                    tfs[count++] = 1;
+                }
+            }
+            terms = Arrays.copyOf(terms, count);
+            tfs = Arrays.copyOf(tfs, count);
+            return new Document(questionId, valueOf(qbId), valueOf(type), valueOf(difficulty), terms, tfs,
+                    tokens.size());
+        }
+
+        public int getQuestionId() {
+            return questionId;
+        }
+
+        /**
+         * 查询词的词频，前缀词累加全部以其开头的词
+         */
+        int tf(String term) {
+            int index = Arrays.binarySearch(terms, term);
+            if (!BigramTokenizer.isPrefix(term)) {
+                return index >= 0 ? tfs[index] : 0;
+            }
+            int tf = 0;
+            for (int i = index >= 0 ? index : -index - 1; i < terms.length && terms[i].startsWith(term); i++) {
+                tf += tfs[i];
+            }
+            return tf;
+        }
+    }
+
+    /**
+     * 命中结果
+     */
+    public static final class Hit {
+
+        /** 得分低的在前，同分时题目ID大的在前 */
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble((Hit hit) -> hit.score)
+                .thenComparing(Comparator.comparingInt((Hit hit) -> hit.questionId).reversed());
+
+        private final int questionId;
+        private final double score;
+
+        Hit(int questionId, double score) {
+            this.questionId = questionId;
+            this.score = score;
+        }
+
+        public int getQuestionId() {
+            return questionId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * 全量构建器
+     */
+    public static final class Builder {
+
+        private final SearchSegment.Builder segment = new SearchSegment.Builder();
+
+        private Builder() {
+        }
+
+        /**
+         * 添加文档，题目ID须严格递增
+         */
+        public Builder add(Document doc) {
+            segment.add(doc);
+            return this;
+        }
+
+        public SearchIndex build() {
+            return new SearchIndex(segment.build());
+        }
+    }
+
+    private static final class Filter {
+
+        private final int qbId;
+        private final int type;
+        private final Integer minDifficulty;
+        private final Integer maxDifficulty;
+
+        Filter(Integer qbId, Integer type, Integer minDifficulty, Integer maxDifficulty) {
+            this.qbId = qbId == null ? Integer.MIN_VALUE : qbId;
+            this.type = type == null ? Integer.MIN_VALUE : type;
+            this.minDifficulty = minDifficulty;
+            this.maxDifficulty = maxDifficulty;
+        }
+
+        boolean test(int docQbId, int docType, int docDifficulty) {
+            if (qbId != Integer.MIN_VALUE && docQbId != qbId || type != Integer.MIN_VALUE && docType != type) {
+                return false;
+            }
+            if (minDifficulty == null && maxDifficulty == null) {
+                return true;
+            }
+            return docDifficulty != NO_VALUE && (minDifficulty == null || docDifficulty >= minDifficulty)
+                    && (maxDifficulty == null || docDifficulty <= maxDifficulty);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.exam.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 倒排索引段
+ * 文档按题目ID升序编号，文档属性按列保存在基本类型数组中；词典有序，
+ * 倒排表按文档编号差值和词频变长编码后连续保存在一个字节数组中。段创建后不再修改，
+ * 持久化格式与内存结构一一对应
+ */
+final class SearchSegment {
+
+    private static final int MAGIC = 0x45585153;
+    private static final int VERSION = 1;
+
+    static final SearchSegment EMPTY = new Builder().build();
+
+    final int[] questionIds;
+    final int[] qbIds;
+    final int[] types;
+    final int[] difficulties;
+    final int[] lengths;
+    final long totalLength;
+
+    final String[] terms;
+    final int[] docFreqs;
+    /** 第i个词的倒排表位于postings[offsets[i], offsets[i + 1]) */
+    final int[] offsets;
+    final byte[] postings;
+
+    private SearchSegment(int[] questionIds, int[] qbIds, int[] types, int[] difficulties, int[] lengths,
+                          String[] terms, int[] docFreqs, int[] offsets, byte[] postings) {
+        this.questionIds = questionIds;
+        this.qbIds = qbIds;
+        this.types = types;
+        this.difficulties = difficulties;
+        this.lengths = lengths;
+        long total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        this.totalLength = total;
+        this.terms = terms;
+        this.docFreqs = docFreqs;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    int size() {
+        return questionIds.length;
+    }
+
+    /**
+     * 题目的文档编号，不存在时返回-1
+     */
+    int indexOf(int questionId) {
+        int index = Arrays.binarySearch(questionIds, questionId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * 词的编号，不存在时返回-1
+     */
+    int termIndex(String term) {
+        int index = Arrays.binarySearch(terms, term);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * 以prefix开头的词的编号范围[from, to)
+     */
+    int[] prefixRange(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(prefix)) {
+            to++;
+        }
+        return new int[]{from, to};
+    }
+
+    /**
+     * 解码词的倒排表
+     */
+    Postings postings(int term) {
+        int count = docFreqs[term];
+        int[] docs = new int[count];
+        int[] tfs = new int[count];
+        int[] position = {offsets[term]};
+        int doc = -1;
+        for (int i = 0; i < count; i++) {
+            doc += readVInt(postings, position);
+            docs[i] = doc;
+            tfs[i] = readVInt(postings, position);
+        }
+        return new Postings(docs, tfs);
+    }
+
+    /**
+     * 合并为新段
+     * @param removed 本段中已删除或被替换的文档
+     * @param added 新增或修改的文档，题目ID已在本段中的覆盖本段的文档
+     */
+    SearchSegment merge(BitSet removed, Collection<SearchIndex.Document> added) {
+        List<SearchIndex.Document> docs = new ArrayList<>(added);
+        docs.sort(Comparator.comparingInt(doc -> doc.questionId));
+
+        // 新文档表，记录本段文档和新增文档在新段中的编号
+        int n = size();
+        int[] remap = new int[n];
+        int[] addedIndexes = new int[docs.size()];
+        IntArray ids = new IntArray();
+        IntArray banks = new IntArray();
+        IntArray typeColumn = new IntArray();
+        IntArray difficultyColumn = new IntArray();
+        IntArray lengthColumn = new IntArray();
+        int i = 0;
+        int j = 0;
+        while (i < n || j < docs.size()) {
+            if (i < n && (removed.get(i) || j < docs.size() && questionIds[i] == docs.get(j).questionId)) {
+                remap[i++] = -1;
+            } else if (j >= docs.size() || i < n && questionIds[i] < docs.get(j).questionId) {
+                remap[i] = ids.size();
+                ids.add(questionIds[i]);
+                banks.add(qbIds[i]);
+                typeColumn.add(types[i]);
+                difficultyColumn.add(difficulties[i]);
+                lengthColumn.add(lengths[i]);
+                i++;
+            } else {
+                SearchIndex.Document doc = docs.get(j);
+                addedIndexes[j++] = ids.size();
+                ids.add(doc.questionId);
+                banks.add(doc.qbId);
+                typeColumn.add(doc.type);
+                difficultyColumn.add(doc.difficulty);
+                lengthColumn.add(doc.length);
+            }
+        }
+
+        // 新增文档的倒排表，按新编号升序
+        Map<String, IntArray> addedPostings = new HashMap<>();
+        for (int k = 0; k < docs.size(); k++) {
+            SearchIndex.Document doc = docs.get(k);
+            for (int t = 0; t < doc.terms.length; t++) {
+                IntArray pairs = addedPostings.computeIfAbsent(doc.terms[t], key -> new IntArray());
+                pairs.add(addedIndexes[k]);
+                pairs.add(doc.tfs[t]);
+            }
+        }
+        String[] addedTerms = addedPostings.keySet().toArray(new String[0]);
+        Arrays.sort(addedTerms);
+
+        // 按词归并两部分倒排表，文档全部删除的词不再保留
+        List<String> mergedTerms = new ArrayList<>(terms.length + addedTerms.length);
+        IntArray mergedFreqs = new IntArray();
+        IntArray mergedOffsets = new IntArray();
+        ByteArray out = new ByteArray(postings.length + addedTerms.length * 4);
+        int a = 0;
+        int b = 0;
+        while (a < terms.length || b < addedTerms.length) {
+            int cmp = a >= terms.length ? 1 : b >= addedTerms.length ? -1 : terms[a].compareTo(addedTerms[b]);
+            String term = cmp <= 0 ? terms[a] : addedTerms[b];
+            Postings left = cmp <= 0 ? postings(a++) : new Postings(new int[0], new int[0]);
+            IntArray right = cmp >= 0 ? addedPostings.get(addedTerms[b++]) : new IntArray();
+            int start = out.size();
+            int previous = -1;
+            int df = 0;
+            int l = 0;
+            int r = 0;
+            while (l < left.docs.length || r < right.size()) {
+                int leftDoc = l < left.docs.length ? remap[left.docs[l]] : Integer.MAX_VALUE;
+                if (l < left.docs.length && leftDoc < 0) {
+                    l++;
+                    continue;
+                }
+                int doc;
+                int tf;
+                if (r >= right.size() || leftDoc < right.get(r)) {
+                    doc = leftDoc;
+                    tf = left.tfs[l++];
+                } else {
+                    doc = right.get(r);
+                    tf = right.get(r + 1);
+                    r += 2;
+                }
+                out.writeVInt(doc - previous);
+                out.writeVInt(tf);
+                previous = doc;
+                df++;
+            }
+            if (df > 0) {
+                mergedTerms.add(term);
+                mergedFreqs.add(df);
+                mergedOffsets.add(start);
+            }
+        }
+        mergedOffsets.add(out.size());
+        return new SearchSegment(ids.toArray(), banks.toArray(), typeColumn.toArray(), difficultyColumn.toArray(),
+                lengthColumn.toArray(), mergedTerms.toArray(new String[0]), mergedFreqs.toArray(),
+                mergedOffsets.toArray(), out.toArray());
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(size());
+        for (int[] column : new int[][]{questionIds, qbIds, types, difficulties, lengths}) {
+            for (int value : column) {
+                out.writeInt(value);
+            }
+        }
+        out.writeInt(terms.length);
+        for (int i = 0; i < terms.length; i++) {
+            out.writeUTF(terms[i]);
+            out.writeInt(docFreqs[i]);
+            out.writeInt(offsets[i]);
+        }
+        out.writeInt(postings.length);
+        out.write(postings);
+    }
+
+    static SearchSegment read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("索引文件格式不匹配");
+        }
+        int n = in.readInt();
+        int[][] columns = new int[5][n];
+        for (int[] column : columns) {
+            for (int i = 0; i < n; i++) {
+                column[i] = in.readInt();
+            }
+        }
+        int termCount = in.readInt();
+        String[] terms = new String[termCount];
+        int[] docFreqs = new int[termCount];
+        int[] offsets = new int[termCount + 1];
+        for (int i = 0; i < termCount; i++) {
+            terms[i] = in.readUTF();
+            docFreqs[i] = in.readInt();
+            offsets[i] = in.readInt();
+        }
+        byte[] postings = new byte[in.readInt()];
+        in.readFully(postings);
+        offsets[termCount] = postings.length;
+        return new SearchSegment(columns[0], columns[1], columns[2], columns[3], columns[4],
+                terms, docFreqs, offsets, postings);
+    }
+
+    /**
+     * 按题目ID升序逐个添加文档来创建段，用于全量构建
+     */
+    static final class Builder {
+
+        private final IntArray ids = new IntArray();
+        private final IntArray qbIds = new IntArray();
+        private final IntArray types = new IntArray();
+        private final IntArray difficulties = new IntArray();
+        private final IntArray lengths = new IntArray();
+        private final Map<String, TermBuffer> buffers = new HashMap<>();
+
+        void add(SearchIndex.Document doc) {
+            int index = ids.size();
+            if (index > 0 && doc.questionId <= ids.get(index - 1)) {
+                throw new IllegalArgumentException("文档须按题目ID升序添加：" + doc.questionId);
+            }
+            ids.add(doc.questionId);
+            qbIds.add(doc.qbId);
+            types.add(doc.type);
+            difficulties.add(doc.difficulty);
+            lengths.add(doc.length);
+            for (int t = 0; t < doc.terms.length; t++) {
+                buffers.computeIfAbsent(doc.terms[t], key -> new TermBuffer()).add(index, doc.tfs[t]);
+            }
+        }
+
+        SearchSegment build() {
+            String[] terms = buffers.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int[] docFreqs = new int[terms.length];
+            int[] offsets = new int[terms.length + 1];
+            int total = 0;
+            for (TermBuffer buffer : buffers.values()) {
+                total += buffer.bytes.size();
+            }
+            ByteArray out = new ByteArray(total);
+            for (int i = 0; i < terms.length; i++) {
+                TermBuffer buffer = buffers.get(terms[i]);
+                offsets[i] = out.size();
+                docFreqs[i] = buffer.df;
+                out.write(buffer.bytes);
+            }
+            offsets[terms.length] = out.size();
+            return new SearchSegment(ids.toArray(), qbIds.toArray(), types.toArray(), difficulties.toArray(),
+                    lengths.toArray(), terms, docFreqs, offsets, out.toArray());
+        }
+    }
+
+    /**
+     * 解码后的倒排表
+     */
+    static final class Postings {
+
+        final int[] docs;
+        final int[] tfs;
+
+        Postings(int[] docs, int[] tfs) {
+            this.docs = docs;
+            this.tfs = tfs;
+        }
+    }
+
+    private static final class TermBuffer {
+
+        private final ByteArray bytes = new ByteArray(8);
+        private int previous = -1;
+        private int df;
+
+        void add(int doc, int tf) {
+            bytes.writeVInt(doc - previous);
+            bytes.writeVInt(tf);
+            previous = doc;
+            df++;
+        }
+    }
+
+    private static int readVInt(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static final class IntArray {
+
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class ByteArray {
+
+        private byte[] bytes;
+        private int size;
+
+        ByteArray(int capacity) {
+            bytes = new byte[Math.max(capacity, 8)];
+        }
+
+        void writeVInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void write(ByteArray other) {
+            ensure(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.exam.utils;
+
+import java.util.List;
+
+/**
+ * 64位SimHash指纹
+ * 每个词按64位哈希的各位对指纹各位投票，重复出现的词按次数加权；
+ * 内容相近的文本指纹的汉明距离小
+ */
+public final class SimHash {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * 计算指纹
+     * @param tokens 分词结果，见{@link BigramTokenizer#tokenize(String)}
+     */
+    public static long fingerprint(List<String> tokens) {
+        int[] votes = new int[Long.SIZE];
+        for (String token : tokens) {
+            long hash = hash(token);
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += (hash >>> bit & 1L) != 0 ? 1 : -1;
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 汉明距离
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * FNV-1a后再做一次混合，使各位分布均匀
+     */
+    static long hash(String token) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < token.length(); i++) {
+            hash = (hash ^ token.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
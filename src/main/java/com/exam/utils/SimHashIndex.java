@@ -0,0 +1,150 @@
+package com.exam.utils;
+
+import java.util.Arrays;
+
+/**
+ * SimHash近似重复索引
+ * 指纹分为maxDistance + 1段，汉明距离不超过maxDistance的两个指纹至少有一段完全相同，
+ * 每段各建一张哈希表，查询时只比较至少一段相同的指纹。哈希表以数组链表实现，
+ * 每个指纹每段只占一个int，百万级指纹也只需几十MB。同一段取值相同的指纹过多时，
+ * 每段只比较最近加入的MAX_PROBES个，结果可能漏报但不会误报。非线程安全
+ */
+public class SimHashIndex {
+
+    /** 每段最多比较的指纹数 */
+    static final int MAX_PROBES = 256;
+
+    private final int maxDistance;
+    private final int[] shifts;
+    private final long[] masks;
+
+    private long[] fingerprints = new long[16];
+    private int[] ids = new int[16];
+    private int size;
+
+    /** next[b][i]：第b段与第i个指纹同桶的上一个指纹 */
+    private int[][] next;
+    private int[][] heads;
+
+    /**
+     * @param maxDistance 判定为重复的最大汉明距离，0~7
+     */
+    public SimHashIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > 7) {
+            throw new IllegalArgumentException("最大汉明距离须在0~7之间：" + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        int blocks = maxDistance + 1;
+        shifts = new int[blocks];
+        masks = new long[blocks];
+        int shift = 0;
+        for (int b = 0; b < blocks; b++) {
+            int width = Long.SIZE / blocks + (b < Long.SIZE % blocks ? 1 : 0);
+            shifts[b] = shift;
+            masks[b] = width == Long.SIZE ? -1L : (1L << width) - 1;
+            shift += width;
+        }
+        next = new int[blocks][16];
+        heads = new int[blocks][32];
+        for (int[] head : heads) {
+            Arrays.fill(head, -1);
+        }
+    }
+
+    /**
+     * 加入指纹
+     */
+    public void add(int id, long fingerprint) {
+        if (size == fingerprints.length) {
+            int capacity = size * 2;
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            for (int b = 0; b < next.length; b++) {
+                next[b] = Arrays.copyOf(next[b], capacity);
+            }
+        }
+        fingerprints[size] = fingerprint;
+        ids[size] = id;
+        if (size >= heads[0].length / 2) {
+            rehash(heads[0].length * 2);
+        }
+        link(size);
+        size++;
+    }
+
+    /**
+     * 查找汉明距离不超过maxDistance的最近指纹，距离相同时取最早加入的
+     * @return 没有时返回null
+     */
+    public Match nearest(long fingerprint) {
+        int best = -1;
+        int bestDistance = maxDistance + 1;
+        int bucketMask = heads[0].length - 1;
+        for (int b = 0; b < shifts.length; b++) {
+            long key = fingerprint >>> shifts[b] & masks[b];
+            int probes = 0;
+            for (int e = heads[b][bucket(key, b) & bucketMask]; e >= 0 && probes < MAX_PROBES; e = next[b][e]) {
+                if ((fingerprints[e] >>> shifts[b] & masks[b]) != key) {
+                    continue;
+                }
+                probes++;
+                int distance = SimHash.distance(fingerprint, fingerprints[e]);
+                if (distance < bestDistance || distance == bestDistance && e < best) {
+                    bestDistance = distance;
+                    best = e;
+                }
+            }
+        }
+        return best >= 0 ? new Match(ids[best], bestDistance) : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int buckets) {
+        for (int b = 0; b < heads.length; b++) {
+            heads[b] = new int[buckets];
+            Arrays.fill(heads[b], -1);
+        }
+        for (int i = 0; i < size; i++) {
+            link(i);
+        }
+    }
+
+    private void link(int entry) {
+        int bucketMask = heads[0].length - 1;
+        for (int b = 0; b < shifts.length; b++) {
+            int bucket = bucket(fingerprints[entry] >>> shifts[b] & masks[b], b) & bucketMask;
+            next[b][entry] = heads[b][bucket];
+            heads[b][bucket] = entry;
+        }
+    }
+
+    private static int bucket(long key, int block) {
+        long h = (key + block) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 查找结果
+     */
+    public static final class Match {
+
+        private final int id;
+        private final int distance;
+
+        Match(int id, int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+}
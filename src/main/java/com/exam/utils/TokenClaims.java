@@ -0,0 +1,97 @@
+package com.exam.utils;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * token携带的授权信息
+ * 由服务端密钥签发，校验签名后即可用于授权判断，无需查询用户及教师、学生、管理员表
+ */
+public final class TokenClaims {
+
+    public static final String ROLE = "role";
+    public static final String STUDENT_ID = "sid";
+    public static final String TEACHER_ID = "tid";
+    public static final String ADMIN_ID = "aid";
+    public static final String COLLEGE_ID = "cid";
+    public static final String PERMISSION = "perm";
+    /** 签发时间（毫秒），标准iat只到秒，按用户吊销时需要更细的精度 */
+    public static final String ISSUED_AT_MILLIS = "iatms";
+
+    private final Integer userId;
+    private final Integer role;
+    private final Integer studentId;
+    private final Integer teacherId;
+    private final Integer adminId;
+    private final Integer collegeId;
+    private final Integer permission;
+    private final String tokenId;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    private TokenClaims(DecodedJWT jwt) {
+        this.userId = Integer.valueOf(jwt.getAudience().get(0));
+        this.role = jwt.getClaim(ROLE).asInt();
+        this.studentId = jwt.getClaim(STUDENT_ID).asInt();
+        this.teacherId = jwt.getClaim(TEACHER_ID).asInt();
+        this.adminId = jwt.getClaim(ADMIN_ID).asInt();
+        this.collegeId = jwt.getClaim(COLLEGE_ID).asInt();
+        this.permission = jwt.getClaim(PERMISSION).asInt();
+        this.tokenId = jwt.getId();
+        Long millis = jwt.getClaim(ISSUED_AT_MILLIS).asLong();
+        this.issuedAt = millis != null ? millis : jwt.getIssuedAt().getTime();
+        this.expiresAt = jwt.getExpiresAt().getTime();
+    }
+
+    /**
+     * 从已校验签名的token中读取
+     */
+    public static TokenClaims of(DecodedJWT jwt) {
+        return new TokenClaims(jwt);
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    /**
+     * 角色 0: 管理员；1: 教师；2: 学生
+     */
+    public Integer getRole() {
+        return role;
+    }
+
+    public Integer getStudentId() {
+        return studentId;
+    }
+
+    public Integer getTeacherId() {
+        return teacherId;
+    }
+
+    public Integer getAdminId() {
+        return adminId;
+    }
+
+    public Integer getCollegeId() {
+        return collegeId;
+    }
+
+    /**
+     * 教师权限 0: 可以组卷与发布所有考试；1: 可以组卷与发布普通考试；2: 可以组卷
+     */
+    public Integer getPermission() {
+        return permission;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -5,7 +5,8 @@ import cn.hutool.core.util.StrUtil;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.exam.entity.User;
-import com.exam.service.UserService;
+import com.exam.service.impl.TokenKeyRing;
+import com.exam.service.impl.TokenUserCache;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -21,18 +22,32 @@ import java.util.Date;
 @Component
 public class TokenUtils {
 
-    private static UserService staticUserService;
+    private static TokenUserCache staticTokenUserCache;
+
+    private static TokenKeyRing staticTokenKeyRing;
+
+    @Resource
+    private TokenUserCache tokenUserCache;
 
     @Resource
-    private UserService userService;
+    private TokenKeyRing tokenKeyRing;
 
     @PostConstruct
-    public void setUserService() {
-        staticUserService = userService;
+    public void setTokenUserCache() {
+        staticTokenUserCache = tokenUserCache;
+        staticTokenKeyRing = tokenKeyRing;
+    }
+
+    /**
+     * 以服务端密钥生成携带角色和学生、教师、管理员信息的token
+     */
+    public static String genToken(User user) {
+        return staticTokenKeyRing.issue(user);
     }
 
     /**
-     * 生成token
+     * 生成旧格式token，只携带用户ID
+     * @param sign 用户表中保存的密码，getCurrentUser以此校验签名，修改密码后旧token失效
      */
     public static String genToken(String userId, String sign) {
         return JWT.create().withAudience(userId) // 将 user id 保存到 token 里面,作为载荷
@@ -42,18 +57,48 @@ public class TokenUtils {
 
     /**
      * 获取当前登录的用户信息
+     * 校验token签名和有效期，已验证的token由缓存直接返回用户，不再查询数据库
      */
     public static User getCurrentUser() {
         try {
-            HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
-            String token = request.getHeader("token");
+            String token = currentToken();
             if (StrUtil.isNotBlank(token)) {
-                String userId = JWT.decode(token).getAudience().get(0);
-                return staticUserService.getById(Integer.valueOf(userId));
+                return staticTokenUserCache.resolve(token);
             }
         } catch (Exception e) {
             return null;
         }
         return null;
     }
+
+    /**
+     * 获取当前请求token携带的授权信息，只校验签名、有效期和吊销记录，不访问数据库
+     * @return 授权信息；未登录、token无效或为旧格式token时返回null
+     */
+    public static TokenClaims getCurrentClaims() {
+        try {
+            String token = currentToken();
+            if (StrUtil.isNotBlank(token)) {
+                return staticTokenKeyRing.verify(token);
+            }
+        } catch (Exception e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * 吊销当前请求的token，用于退出登录
+     */
+    public static void revokeCurrentToken() {
+        TokenClaims claims = getCurrentClaims();
+        if (claims != null) {
+            staticTokenKeyRing.revoke(claims);
+        }
+    }
+
+    private static String currentToken() {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+        return request.getHeader("token");
+    }
 } 
\ No newline at end of file
@@ -222,6 +222,7 @@ CREATE TABLE IF NOT EXISTS exam_student (
     retake_needed BOOLEAN DEFAULT FALSE COMMENT '是否需要重考',
     disciplinary BOOLEAN DEFAULT FALSE COMMENT '违纪标记',
     teacher_comment VARCHAR(100) COMMENT '教师评语',
+    variant_served BOOLEAN NOT NULL DEFAULT FALSE COMMENT '是否下发过打乱顺序的试卷',
     INDEX idx_es_id (es_id),
     INDEX idx_exam_id (exam_id),
     INDEX idx_student_id (student_id),
@@ -239,6 +240,7 @@ CREATE TABLE IF NOT EXISTS student_score (
     INDEX idx_score_id (score_id),
     INDEX idx_student_id (student_id),
     INDEX idx_exam_id (exam_id),
+    UNIQUE KEY uk_student_exam (student_id, exam_id),
     FOREIGN KEY (student_id) REFERENCES student(student_id),
     FOREIGN KEY (exam_id) REFERENCES exam(exam_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='学生成绩表';
@@ -265,19 +267,82 @@ CREATE TABLE IF NOT EXISTS student_question_score (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='学生题目成绩表';
 
 -- 日志表
+-- 按created_time分区，过期日志按分区整体删除；分区表不支持外键，且主键须包含分区列
+-- 分区由LogPartitionManager按exam.log-partition.granularity自动向后创建，这里只建初始分区
 CREATE TABLE IF NOT EXISTS log (
-    log_id INT PRIMARY KEY AUTO_INCREMENT COMMENT '日志ID',
-    user_id INT NOT NULL COMMENT '用户ID',
+    log_id INT NOT NULL AUTO_INCREMENT COMMENT '日志ID',
+    user_id INT COMMENT '用户ID',
     action_type INT NOT NULL COMMENT '0: INSERT、1: UPDATE、2: DELETE、3: LOGIN、4: SUBMIT_TEST',
     action_description TEXT COMMENT '操作描述',
-    created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
+    created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
     object_type TEXT COMMENT '操作对象',
     ip_address VARCHAR(50) COMMENT 'IP地址',
     device_info TEXT COMMENT '设备信息',
     status VARCHAR(20) COMMENT '操作状态',
-    INDEX idx_log_id (log_id),
+    replay_key CHAR(32) COMMENT '补写幂等键，仅溢出到本地文件的日志有值',
+    PRIMARY KEY (log_id, created_time),
     INDEX idx_user_id (user_id),
     INDEX idx_action_type (action_type),
-    INDEX idx_created_time (created_time),
-    FOREIGN KEY (user_id) REFERENCES user(user_id)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日志表'; 
\ No newline at end of file
+    INDEX idx_created_time (created_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日志表'
+PARTITION BY RANGE COLUMNS (created_time) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- 日志归档表，exam.log-partition.archive开启时过期分区删除前先复制到此表
+CREATE TABLE IF NOT EXISTS log_archive (
+    log_id INT NOT NULL COMMENT '日志ID',
+    user_id INT COMMENT '用户ID',
+    action_type INT NOT NULL COMMENT '操作类型',
+    action_description TEXT COMMENT '操作描述',
+    created_time DATETIME NOT NULL COMMENT '操作时间',
+    object_type TEXT COMMENT '操作对象',
+    ip_address VARCHAR(50) COMMENT 'IP地址',
+    device_info TEXT COMMENT '设备信息',
+    status VARCHAR(20) COMMENT '操作状态',
+    PRIMARY KEY (log_id, created_time),
+    INDEX idx_created_time (created_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日志归档表';
+
+-- 日志每分钟汇总，空值以0或空串存储
+CREATE TABLE IF NOT EXISTS log_rollup_minute (
+    stat_minute DATETIME NOT NULL COMMENT '统计分钟',
+    action_type INT NOT NULL COMMENT '操作类型',
+    status VARCHAR(20) NOT NULL DEFAULT '' COMMENT '操作状态',
+    user_id INT NOT NULL DEFAULT 0 COMMENT '用户ID',
+    ip_address VARCHAR(50) NOT NULL DEFAULT '' COMMENT 'IP地址',
+    object_type VARCHAR(255) NOT NULL DEFAULT '' COMMENT '操作对象，超出长度的log.object_type截断后汇总',
+    op_count BIGINT NOT NULL DEFAULT 0 COMMENT '操作次数',
+    UNIQUE KEY uk_rollup_minute (stat_minute, action_type, status, user_id, ip_address, object_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日志每分钟汇总表';
+
+-- 日志每日汇总，按小时细分
+CREATE TABLE IF NOT EXISTS log_rollup_day (
+    stat_date DATE NOT NULL COMMENT '统计日期',
+    hour_of_day TINYINT NOT NULL COMMENT '小时',
+    action_type INT NOT NULL COMMENT '操作类型',
+    status VARCHAR(20) NOT NULL DEFAULT '' COMMENT '操作状态',
+    user_id INT NOT NULL DEFAULT 0 COMMENT '用户ID',
+    ip_address VARCHAR(50) NOT NULL DEFAULT '' COMMENT 'IP地址',
+    object_type VARCHAR(255) NOT NULL DEFAULT '' COMMENT '操作对象，超出长度的log.object_type截断后汇总',
+    op_count BIGINT NOT NULL DEFAULT 0 COMMENT '操作次数',
+    UNIQUE KEY uk_rollup_day (stat_date, hour_of_day, action_type, status, user_id, ip_address, object_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='日志每日汇总表';
+
+-- 方法耗时快照，每个统计区间每个方法一行，耗时单位为微秒
+CREATE TABLE IF NOT EXISTS method_latency (
+    latency_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '快照ID',
+    method_name VARCHAR(255) NOT NULL COMMENT '服务方法或Mapper语句',
+    start_time DATETIME NOT NULL COMMENT '区间开始时间',
+    end_time DATETIME NOT NULL COMMENT '区间结束时间',
+    call_count BIGINT NOT NULL COMMENT '调用次数',
+    error_count BIGINT NOT NULL DEFAULT 0 COMMENT '异常次数',
+    total_us BIGINT NOT NULL COMMENT '总耗时',
+    min_us BIGINT NOT NULL COMMENT '最小耗时',
+    max_us BIGINT NOT NULL COMMENT '最大耗时',
+    p50_us BIGINT NOT NULL COMMENT '50分位耗时',
+    p99_us BIGINT NOT NULL COMMENT '99分位耗时',
+    p999_us BIGINT NOT NULL COMMENT '99.9分位耗时',
+    INDEX idx_end_time (end_time),
+    INDEX idx_method_name (method_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='方法耗时快照表';
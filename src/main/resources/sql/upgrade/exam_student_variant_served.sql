@@ -0,0 +1,7 @@
+-- 已有数据库升级：记录考生是否拿到打乱顺序的试卷
+-- 升级前下发的试卷无从区分，执行时须没有进行中的考试
+
+USE exam_system;
+
+ALTER TABLE exam_student
+    ADD COLUMN variant_served BOOLEAN NOT NULL DEFAULT FALSE COMMENT '是否下发过打乱顺序的试卷' AFTER teacher_comment;
@@ -0,0 +1,40 @@
+-- 已有数据库升级：未分区的日志表改为按created_time分区
+-- 从最早的日志所在月份起按月建分区，并向后预建3个月，之后由LogPartitionManager按配置继续预建；
+-- 分区表不支持外键，主键须包含分区列，RANGE COLUMNS不支持TIMESTAMP列。
+-- 改分区会重建整张日志表，应在停机维护时执行
+
+USE exam_system;
+
+SET @log_fk = (
+    SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+    WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'log'
+    LIMIT 1
+);
+SET @ddl = IF(@log_fk IS NULL, 'DO 0', CONCAT('ALTER TABLE log DROP FOREIGN KEY ', @log_fk));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE log
+    MODIFY COLUMN created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (log_id, created_time);
+
+SET SESSION group_concat_max_len = 1048576;
+SET @partitions = (
+    WITH RECURSIVE months (month_start) AS (
+        SELECT CAST(DATE_FORMAT(IFNULL(MIN(created_time), NOW()), '%Y-%m-01') AS DATE) FROM log
+        UNION ALL
+        SELECT month_start + INTERVAL 1 MONTH FROM months
+        WHERE month_start < CAST(DATE_FORMAT(NOW(), '%Y-%m-01') AS DATE) + INTERVAL 3 MONTH
+    )
+    SELECT GROUP_CONCAT(CONCAT('PARTITION p', DATE_FORMAT(month_start, '%Y%m'),
+                               ' VALUES LESS THAN (''', month_start + INTERVAL 1 MONTH, ''')')
+                        ORDER BY month_start SEPARATOR ', ')
+    FROM months
+);
+SET @ddl = CONCAT('ALTER TABLE log PARTITION BY RANGE COLUMNS (created_time) (', @partitions,
+                  ', PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,6 @@
+-- 已有数据库升级：审计日志补写幂等键，补写中断后重新补写时跳过已入库的日志
+
+USE exam_system;
+
+ALTER TABLE log
+    ADD COLUMN replay_key CHAR(32) COMMENT '补写幂等键，仅溢出到本地文件的日志有值' AFTER status;
@@ -0,0 +1,136 @@
+package com.exam.config;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseMapperStatementRegistrarTest {
+
+    private Configuration configuration;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configuration = new Configuration();
+        load("mapper/StudentMapper.xml");
+        load("mapper/StudentQuestionScoreMapper.xml");
+    }
+
+    @Test
+    void generateTypedStatements() {
+        // Act
+        int count = BaseMapperStatementRegistrar.registerStatements(configuration);
+
+        // Assert
+        assertTrue(count > 0);
+        MappedStatement selectById = configuration.getMappedStatement("com.exam.mapper.StudentMapper.selectById");
+        assertEquals("SELECT student_id, user_id, name, grade, college_id, other FROM student WHERE student_id = ?",
+                normalize(selectById.getBoundSql(1).getSql()));
+        assertEquals("com.exam.entity.Student", selectById.getResultMaps().get(0).getType().getName());
+
+        MappedStatement insert = configuration.getMappedStatement("com.exam.mapper.StudentMapper.insert");
+        assertArrayEquals(new String[]{"studentId"}, insert.getKeyProperties());
+
+        // XML中已定义的语句保持不变
+        MappedStatement ownInsert = configuration.getMappedStatement("com.exam.mapper.StudentQuestionScoreMapper.insert");
+        assertEquals("mapper/StudentQuestionScoreMapper.xml", ownInsert.getResource());
+    }
+
+    @Test
+    void conditionAcceptsKnownKeysOnly() {
+        // Arrange
+        BaseMapperStatementRegistrar.registerStatements(configuration);
+        MappedStatement statement = configuration.getMappedStatement("com.exam.mapper.StudentMapper.selectCountByCondition");
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("collegeId", 3);
+        condition.put("user_id", 7);
+        Map<String, Object> param = new HashMap<>();
+        param.put("condition", condition);
+
+        // Act
+        BoundSql boundSql = statement.getBoundSql(param);
+
+        // Assert
+        assertEquals("SELECT COUNT(*) FROM student WHERE user_id = ? AND college_id = ?", normalize(boundSql.getSql()));
+        assertEquals(2, boundSql.getParameterMappings().size());
+    }
+
+    @Test
+    void unknownConditionKeysRejected() {
+        // Arrange
+        BaseMapperStatementRegistrar.registerStatements(configuration);
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("collegId", 3);
+        Map<String, Object> param = new HashMap<>();
+        param.put("condition", condition);
+        Map<String, Object> columnParam = new HashMap<>();
+        columnParam.put("column", "name; DROP TABLE student");
+        columnParam.put("value", 1);
+
+        // Act & Assert：拼写错误的条件不再被忽略而匹配整张表
+        assertThrows(IllegalArgumentException.class, () -> configuration
+                .getMappedStatement("com.exam.mapper.StudentMapper.selectByCondition").getBoundSql(param));
+        assertThrows(IllegalArgumentException.class, () -> configuration
+                .getMappedStatement("com.exam.mapper.StudentMapper.selectByColumn").getBoundSql(columnParam));
+    }
+
+    @Test
+    void selectPageAfterSeeksByPrimaryKey() {
+        // Arrange
+        BaseMapperStatementRegistrar.registerStatements(configuration);
+        MappedStatement statement = configuration.getMappedStatement("com.exam.mapper.StudentMapper.selectPageAfter");
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("grade", "2023");
+        Map<String, Object> param = new HashMap<>();
+        param.put("condition", condition);
+        param.put("lastId", 100);
+        param.put("limit", 50);
+
+        // Act
+        String sql = normalize(statement.getBoundSql(param).getSql());
+
+        // Assert
+        assertTrue(sql.endsWith("FROM student WHERE grade = ? AND student_id > ? ORDER BY student_id LIMIT ?"), sql);
+    }
+
+    @Test
+    void generateForAllMappers() throws Exception {
+        // Arrange
+        Configuration all = new Configuration();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*Mapper.xml")) {
+            try (InputStream in = resource.getInputStream()) {
+                new XMLMapperBuilder(in, all, resource.toString(), all.getSqlFragments()).parse();
+            }
+        }
+
+        // Act
+        BaseMapperStatementRegistrar.registerStatements(all);
+
+        // Assert
+        assertEquals("SELECT paper_id, paper_name, paper_status, subject_id, teacher_id, created_time, exam_type, "
+                        + "academic_term, paper_difficulty FROM exam_paper WHERE paper_id = ?",
+                normalize(all.getMappedStatement("com.exam.mapper.ExamPaperMapper.selectById").getBoundSql(1).getSql()));
+        assertTrue(all.hasStatement("com.exam.mapper.SubjectMapper.selectAll"));
+        assertTrue(all.hasStatement("com.exam.mapper.LogMapper.updateById"));
+    }
+
+    private void load(String resource) throws Exception {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -154,7 +155,7 @@ public class StudentScoreMapperTest {
         StudentScore studentScore = new StudentScore();
         studentScore.setStudentId(studentId);
         studentScore.setExamId(examId);
-        studentScore.setScore(score);
+        studentScore.setScore(BigDecimal.valueOf(score));
         return studentScore;
     }
 } 
\ No newline at end of file
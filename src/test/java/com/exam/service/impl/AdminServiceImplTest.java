@@ -24,6 +24,9 @@ class AdminServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private TokenKeyRing tokenKeyRing;
+
     @InjectMocks
     private AdminServiceImpl adminService;
 
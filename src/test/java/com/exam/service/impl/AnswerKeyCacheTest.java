@@ -0,0 +1,83 @@
+package com.exam.service.impl;
+
+import com.exam.entity.QuestionOption;
+import com.exam.mapper.ExamPaperMapper;
+import com.exam.mapper.QuestionOptionMapper;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AnswerKeyCacheTest {
+
+    private ExamPaperMapper examPaperMapper;
+    private QuestionOptionMapper questionOptionMapper;
+    private AnswerKeyCache answerKeyCache;
+
+    @BeforeEach
+    void setUp() {
+        examPaperMapper = mock(ExamPaperMapper.class);
+        questionOptionMapper = mock(QuestionOptionMapper.class);
+        answerKeyCache = new AnswerKeyCache();
+        ReflectionTestUtils.setField(answerKeyCache, "examPaperMapper", examPaperMapper);
+        ReflectionTestUtils.setField(answerKeyCache, "questionOptionMapper", questionOptionMapper);
+
+        // 题目按试卷顺序返回：填空、多选(未标记选项，按题目答案)、判断
+        when(examPaperMapper.selectPaperQuestionsWithScore(10)).thenReturn(Arrays.asList(
+                paperQuestion(305, 3, "Hello  World", "3"),
+                paperQuestion(201, 1, "A,C", "4.5"),
+                paperQuestion(102, 2, "错误", "1")));
+        when(questionOptionMapper.selectByPaperId(10)).thenReturn(Collections.<QuestionOption>emptyList());
+    }
+
+    @Test
+    void loadOnceAndGrade() {
+        // Act
+        PaperAnswerKey key = answerKeyCache.get(10);
+        answerKeyCache.get(10);
+
+        // Assert
+        verify(examPaperMapper, times(1)).selectPaperQuestionsWithScore(10);
+        assertEquals(3, key.size());
+        assertEquals(102, key.questionId(0));
+        assertEquals(0, new BigDecimal("4.5").compareTo(key.maxScore(key.indexOf(201))));
+        assertTrue(key.indexOf(999) < 0);
+
+        assertEquals(0, new BigDecimal("4.5").compareTo(key.grade(201, "C A")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(key.grade(201, "A")));
+        assertEquals(0, BigDecimal.ONE.compareTo(key.grade(102, "×")));
+        // 填空题规范化后一致得满分，不一致留待人工批改
+        assertEquals(0, new BigDecimal("3").compareTo(key.grade(305, "ＨＥＬＬＯ world")));
+        assertNull(key.grade(305, "hello"));
+        assertNull(key.grade(999, "A"));
+    }
+
+    @Test
+    void invalidateReloads() {
+        // Arrange
+        answerKeyCache.get(10);
+
+        // Act
+        answerKeyCache.invalidate(10);
+        answerKeyCache.get(10);
+
+        // Assert
+        verify(examPaperMapper, times(2)).selectPaperQuestionsWithScore(10);
+        assertEquals(1, answerKeyCache.size());
+    }
+
+    private Map<String, Object> paperQuestion(int questionId, int type, String answer, String score) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("question_id", questionId);
+        row.put("type", type);
+        row.put("answer", answer);
+        row.put("question_score", new BigDecimal(score));
+        return row;
+    }
+}
@@ -0,0 +1,173 @@
+package com.exam.service.impl;
+
+import com.exam.common.ServiceException;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.mapper.StudentQuestionScoreMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AnswerSubmissionWriterTest {
+
+    private SqlSessionFactory sqlSessionFactory;
+    private SqlSession sqlSession;
+    private StudentQuestionScoreMapper mapper;
+    private ScoreHistogramCache scoreHistogramCache;
+    private AnswerSubmissionWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        sqlSessionFactory = mock(SqlSessionFactory.class);
+        sqlSession = mock(SqlSession.class);
+        mapper = mock(StudentQuestionScoreMapper.class);
+        when(sqlSessionFactory.openSession(ExecutorType.BATCH, false)).thenReturn(sqlSession);
+        when(sqlSession.getMapper(StudentQuestionScoreMapper.class)).thenReturn(mapper);
+
+        writer = new AnswerSubmissionWriter();
+        ReflectionTestUtils.setField(writer, "sqlSessionFactory", sqlSessionFactory);
+        scoreHistogramCache = mock(ScoreHistogramCache.class);
+        ReflectionTestUtils.setField(writer, "scoreHistogramCache", scoreHistogramCache);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 1000);
+        ReflectionTestUtils.setField(writer, "lingerMs", 50L);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMs", 10L);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    void submitAndFlush() throws Exception {
+        // Arrange
+        CompletableFuture<Integer> first = writer.submit(createAnswers(1, 1, 3));
+        CompletableFuture<Integer> second = writer.submit(createAnswers(1, 2, 3));
+
+        // Act
+        Integer flushed = writer.flush(1).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(6, flushed);
+        assertEquals(3, first.get(5, TimeUnit.SECONDS));
+        assertEquals(3, second.get(5, TimeUnit.SECONDS));
+        verify(mapper, times(6)).insert(any(StudentQuestionScore.class));
+        verify(sqlSession, atLeastOnce()).commit();
+        assertEquals(6L, writer.getStatistics().get("committedRows"));
+        verify(scoreHistogramCache, times(2)).applyQuestionScores(anyList());
+    }
+
+    @Test
+    void failedBatchCompletesExceptionally() {
+        // Arrange
+        doThrow(new RuntimeException("db down")).when(sqlSession).flushStatements();
+
+        // Act
+        CompletableFuture<Integer> future = writer.submit(createAnswers(2, 1, 2));
+
+        // Assert
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof ServiceException);
+        verify(sqlSession, never()).commit();
+    }
+
+    @Test
+    void failedBatchRetriesEachSubmission() throws Exception {
+        // Arrange：学生2的记录违反约束，合并写入整批失败
+        AtomicBoolean invalid = new AtomicBoolean();
+        doAnswer(invocation -> {
+            StudentQuestionScore record = invocation.getArgument(0);
+            if (record.getStudentId() == 2) {
+                invalid.set(true);
+            }
+            return 1;
+        }).when(mapper).insert(any(StudentQuestionScore.class));
+        doAnswer(invocation -> {
+            if (invalid.get()) {
+                throw new RuntimeException("duplicate key");
+            }
+            return Collections.emptyList();
+        }).when(sqlSession).flushStatements();
+        doAnswer(invocation -> {
+            invalid.set(false);
+            return null;
+        }).when(sqlSession).close();
+        writer.stop();
+        ReflectionTestUtils.setField(writer, "lingerMs", 1000L);
+        writer.start();
+
+        // Act
+        CompletableFuture<Integer> first = writer.submit(createAnswers(4, 1, 2));
+        CompletableFuture<Integer> bad = writer.submit(createAnswers(4, 2, 2));
+        CompletableFuture<Integer> third = writer.submit(createAnswers(4, 3, 2));
+        Integer flushed = writer.flush(4).get(5, TimeUnit.SECONDS);
+
+        // Assert：只有出错的提交失败
+        assertEquals(2, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, third.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof ServiceException);
+        assertEquals(4, flushed);
+        assertEquals(4L, writer.getStatistics().get("committedRows"));
+        assertEquals(2L, writer.getStatistics().get("failedRows"));
+        verify(scoreHistogramCache, times(2)).applyQuestionScores(anyList());
+    }
+
+    @Test
+    void rejectWhenQueueFull() throws Exception {
+        // Arrange
+        writer.stop();
+        writer = new AnswerSubmissionWriter();
+        ReflectionTestUtils.setField(writer, "sqlSessionFactory", sqlSessionFactory);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 1);
+        ReflectionTestUtils.setField(writer, "batchSize", 1000);
+        ReflectionTestUtils.setField(writer, "lingerMs", 50L);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMs", 10L);
+        // 写入阻塞，使队列无法被消费
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        doAnswer(invocation -> release.get()).when(sqlSession).commit();
+        writer.start();
+
+        // Act
+        writer.submit(createAnswers(3, 1, 1));
+        TimeUnit.MILLISECONDS.sleep(200);
+        writer.submit(createAnswers(3, 2, 1));
+
+        // Assert
+        assertThrows(ServiceException.class, () -> writer.submit(createAnswers(3, 3, 1)));
+        release.complete(null);
+    }
+
+    private List<StudentQuestionScore> createAnswers(int examId, int studentId, int count) {
+        List<StudentQuestionScore> answers = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            StudentQuestionScore answer = new StudentQuestionScore();
+            answer.setExamId(examId);
+            answer.setStudentId(studentId);
+            answer.setQuestionId(i);
+            answer.setScoreId(studentId);
+            answer.setAnswer("A");
+            answer.setScore(BigDecimal.ZERO);
+            answer.setStatus(0);
+            answers.add(answer);
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,208 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Log;
+import com.exam.mapper.LogMapper;
+import com.exam.utils.BoundedRingBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AuditLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LogMapper logMapper = mock(LogMapper.class);
+
+    private AuditLogWriter createWriter(int capacity, AuditLogWriter.OverflowPolicy policy) {
+        AuditLogWriter writer = new AuditLogWriter();
+        ReflectionTestUtils.setField(writer, "logMapper", logMapper);
+        ReflectionTestUtils.setField(writer, "logRollup", mock(LogRollup.class));
+        ReflectionTestUtils.setField(writer, "capacity", capacity);
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 20L);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", policy);
+        ReflectionTestUtils.setField(writer, "spillFile", tempDir.resolve("spill.ndjson").toString());
+        return writer;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchesAndFlushesOnStop() {
+        // Arrange
+        AuditLogWriter writer = createWriter(1024, AuditLogWriter.OverflowPolicy.BLOCK);
+        writer.start();
+
+        // Act
+        for (int i = 0; i < 250; i++) {
+            writer.append(createLog(i));
+        }
+        writer.stop();
+
+        // Assert：每批不超过batchSize，停止前全部写入
+        ArgumentCaptor<List<Log>> captor = ArgumentCaptor.forClass(List.class);
+        verify(logMapper, atLeast(3)).batchInsert(captor.capture());
+        int total = 0;
+        for (List<Log> batch : captor.getAllValues()) {
+            assertTrue(batch.size() <= 100);
+            total += batch.size();
+        }
+        assertEquals(250, total);
+        assertEquals(250L, writer.getStatistics().get("writtenRows"));
+    }
+
+    @Test
+    void spillsWhenFullAndReplaysOnStart() throws Exception {
+        // Arrange：写线程阻塞在第一批，队列填满后溢出到文件
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        }).when(logMapper).batchInsert(anyList());
+        AuditLogWriter writer = createWriter(2, AuditLogWriter.OverflowPolicy.SPILL);
+        writer.start();
+        writer.append(createLog(0));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        // Act
+        for (int i = 1; i <= 4; i++) {
+            writer.append(createLog(i));
+        }
+        release.countDown();
+        writer.stop();
+
+        // Assert
+        assertEquals(2L, writer.getStatistics().get("spilledRows"));
+        Path spill = tempDir.resolve("spill.ndjson");
+        assertEquals(2, Files.readAllLines(spill).size());
+
+        // 重新启动时补写溢出的日志并删除文件
+        reset(logMapper);
+        AuditLogWriter restarted = createWriter(2, AuditLogWriter.OverflowPolicy.SPILL);
+        restarted.start();
+        restarted.stop();
+        verify(logMapper).batchInsert(argThat(list -> list.size() == 2));
+        assertFalse(Files.exists(spill));
+    }
+
+    @Test
+    void failedBatchesAreKeptUntilWritten() throws Exception {
+        // Arrange：数据库不可用时批量插入失败
+        doThrow(new RuntimeException("connection refused")).when(logMapper).batchInsert(anyList());
+        AuditLogWriter writer = createWriter(1024, AuditLogWriter.OverflowPolicy.SPILL);
+        writer.start();
+        writer.append(createLog(1));
+        writer.append(createLog(2));
+        writer.stop();
+        Path spill = tempDir.resolve("spill.ndjson");
+        Path replaying = tempDir.resolve("spill.ndjson.replaying");
+
+        // Act：启动时数据库仍不可用
+        AuditLogWriter unavailable = createWriter(1024, AuditLogWriter.OverflowPolicy.SPILL);
+        unavailable.start();
+        unavailable.stop();
+        List<String> afterFailedReplay = Files.readAllLines(spill);
+
+        // 上次补写中断留下的待补写文件与新的溢出文件合并补写
+        Files.write(replaying, Collections.singletonList(afterFailedReplay.get(0)));
+        reset(logMapper);
+        AuditLogWriter restarted = createWriter(1024, AuditLogWriter.OverflowPolicy.SPILL);
+        restarted.start();
+        restarted.stop();
+
+        // Assert：失败的批次写入本地文件，补写失败时重新转存，成功后删除
+        assertEquals(2, afterFailedReplay.size());
+        verify(logMapper).batchInsert(argThat(list -> list.size() == 3));
+        assertFalse(Files.exists(spill));
+        assertFalse(Files.exists(replaying));
+    }
+
+    @Test
+    void fullBatchWakesWriter() {
+        // Arrange：刷新间隔远长于等待时间
+        AuditLogWriter writer = createWriter(1024, AuditLogWriter.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60000L);
+        writer.start();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            writer.append(createLog(i));
+        }
+
+        // Assert：满一批时由追加方唤醒写线程，不等刷新间隔
+        verify(logMapper, timeout(2000)).batchInsert(argThat(list -> list.size() == 100));
+        writer.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaySkipsRowsAlreadyWritten() throws Exception {
+        // Arrange：数据库不可用时两条日志溢出，上次补写中断前已写入第一条
+        doThrow(new RuntimeException("connection refused")).when(logMapper).batchInsert(anyList());
+        AuditLogWriter writer = createWriter(1024, AuditLogWriter.OverflowPolicy.SPILL);
+        writer.start();
+        writer.append(createLog(1));
+        writer.append(createLog(2));
+        writer.stop();
+        List<String> lines = Files.readAllLines(tempDir.resolve("spill.ndjson"));
+        String writtenKey = new ObjectMapper()
+                .readTree(lines.get(0)).get("replayKey").asText();
+        reset(logMapper);
+        when(logMapper.selectExistingReplayKeys(any(), any(), anyCollection()))
+                .thenReturn(Collections.singletonList(writtenKey));
+
+        // Act
+        AuditLogWriter restarted = createWriter(1024, AuditLogWriter.OverflowPolicy.SPILL);
+        restarted.start();
+        restarted.stop();
+
+        // Assert：按幂等键只补写未入库的日志
+        ArgumentCaptor<List<Log>> captor = ArgumentCaptor.forClass(List.class);
+        verify(logMapper).batchInsert(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(2, captor.getValue().get(0).getUserId());
+    }
+
+    @Test
+    void dropOldestKeepsNewest() {
+        // Arrange：未启动写线程，队列只进不出
+        AuditLogWriter writer = createWriter(2, AuditLogWriter.OverflowPolicy.DROP_OLDEST);
+        ReflectionTestUtils.setField(writer, "buffer", new BoundedRingBuffer<Log>(2));
+        ReflectionTestUtils.setField(writer, "running", true);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            writer.append(createLog(i));
+        }
+
+        // Assert
+        assertEquals(3L, writer.getStatistics().get("droppedRows"));
+        assertEquals(2, writer.getStatistics().get("queueSize"));
+    }
+
+    private Log createLog(int userId) {
+        Log log = new Log();
+        log.setUserId(userId);
+        log.setActionType(3);
+        log.setActionDescription("用户登录系统");
+        log.setCreatedTime(new Date());
+        log.setStatus("SUCCESS");
+        return log;
+    }
+}
@@ -0,0 +1,63 @@
+package com.exam.service.impl;
+
+import com.exam.common.CursorPage;
+import com.exam.common.ServiceException;
+import com.exam.entity.Admin;
+import com.exam.mapper.AdminMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class BaseServiceImplTest {
+
+    private AdminMapper adminMapper;
+    private AdminServiceImpl adminService;
+
+    @BeforeEach
+    void setUp() {
+        adminMapper = mock(AdminMapper.class);
+        adminService = new AdminServiceImpl();
+        ReflectionTestUtils.setField(adminService, "baseMapper", adminMapper);
+        ReflectionTestUtils.setField(adminService, "idProperty", "adminId");
+    }
+
+    @Test
+    void selectPageAfter() {
+        // Arrange
+        when(adminMapper.selectPageAfter(isNull(), isNull(), eq(3))).thenReturn(admins(1, 2, 5));
+        when(adminMapper.selectPageAfter(isNull(), eq(2), eq(3))).thenReturn(admins(5));
+
+        // Act
+        CursorPage<Admin> first = adminService.selectPageAfter(null, 2, null);
+        CursorPage<Admin> second = adminService.selectPageAfter(first.getNextCursor(), 2, null);
+
+        // Assert
+        assertEquals(2, first.getRecords().size());
+        assertTrue(first.isHasMore());
+        assertEquals(1, second.getRecords().size());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void rejectInvalidCursor() {
+        assertThrows(ServiceException.class, () -> adminService.selectPageAfter("not-a-cursor", 10, null));
+        assertThrows(ServiceException.class, () -> adminService.selectPageAfter(null, 0, null));
+    }
+
+    private List<Admin> admins(int... ids) {
+        List<Admin> admins = new ArrayList<>();
+        for (int id : ids) {
+            Admin admin = new Admin();
+            admin.setAdminId(id);
+            admins.add(admin);
+        }
+        return admins;
+    }
+}
@@ -0,0 +1,61 @@
+package com.exam.service.impl;
+
+import com.exam.mapper.ClassMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClassServiceImplTest {
+
+    private ClassMapper classMapper;
+    private ClassServiceImpl classService;
+
+    @BeforeEach
+    void setUp() {
+        classMapper = mock(ClassMapper.class);
+        classService = new ClassServiceImpl();
+        ReflectionTestUtils.setField(classService, "baseMapper", classMapper);
+    }
+
+    @Test
+    void getClassExamAnalyticsInOneQuery() {
+        // Arrange
+        Map<String, Object> scored = new HashMap<>();
+        scored.put("exam_id", 1);
+        scored.put("exam_name", "期中");
+        scored.put("avg_score", new BigDecimal("81.5000"));
+        scored.put("count_90", new BigDecimal(2));
+        scored.put("count_80", BigDecimal.ZERO);
+        scored.put("count_70", new BigDecimal(1));
+        scored.put("count_60", BigDecimal.ZERO);
+        scored.put("count_0", BigDecimal.ZERO);
+        Map<String, Object> empty = new HashMap<>();
+        empty.put("exam_id", 2);
+        empty.put("exam_name", "期末");
+        List<Integer> examIds = Arrays.asList(1, 2);
+        when(classMapper.selectExamScoreSummary(10, examIds)).thenReturn(Arrays.asList(scored, empty));
+
+        // Act
+        List<Map<String, Object>> result = classService.getClassExamAnalytics(10, examIds);
+
+        // Assert：无成绩的考试平均分为空、分布为空
+        assertEquals(2, result.size());
+        assertEquals(81.5, result.get(0).get("avgScore"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> distribution = (List<Map<String, Object>>) result.get(0).get("distribution");
+        assertEquals(2, distribution.size());
+        assertEquals("90-100", distribution.get(0).get("score_range"));
+        assertEquals(2L, distribution.get(0).get("count"));
+        assertEquals("70-79", distribution.get(1).get("score_range"));
+        assertNull(result.get(1).get("avgScore"));
+        assertTrue(((List<?>) result.get(1).get("distribution")).isEmpty());
+        verify(classMapper, times(1)).selectExamScoreSummary(10, examIds);
+        verifyNoMoreInteractions(classMapper);
+    }
+}
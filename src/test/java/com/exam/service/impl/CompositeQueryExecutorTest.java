@@ -0,0 +1,102 @@
+package com.exam.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeQueryExecutorTest {
+
+    private CompositeQueryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new CompositeQueryExecutor();
+        ReflectionTestUtils.setField(executor, "poolSize", 4);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 10);
+        ReflectionTestUtils.setField(executor, "timeoutMs", 2000L);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void runsSubQueriesConcurrently() {
+        // Arrange：三个子查询互相等待，顺序执行时会超时
+        CountDownLatch latch = new CountDownLatch(3);
+        CompositeQueryExecutor.CompositeQuery query = executor.query();
+        for (String key : Arrays.asList("a", "b", "c")) {
+            query.add(key, () -> {
+                latch.countDown();
+                return latch.await(1, TimeUnit.SECONDS) ? key : null;
+            });
+        }
+
+        // Act
+        Map<String, Object> results = query.execute();
+
+        // Assert
+        assertEquals("a", results.get("a"));
+        assertEquals("b", results.get("b"));
+        assertEquals("c", results.get("c"));
+        assertFalse(results.containsKey(CompositeQueryExecutor.INCOMPLETE_KEY));
+    }
+
+    @Test
+    void partialResultsOnFailureAndTimeout() {
+        // Act
+        Map<String, Object> results = executor.query()
+                .add("ok", () -> 1)
+                .add("failed", () -> {
+                    throw new IllegalStateException("boom");
+                })
+                .add("slow", () -> {
+                    Thread.sleep(5000);
+                    return 3;
+                }, 100)
+                .execute();
+
+        // Assert
+        assertEquals(1, results.get("ok"));
+        assertFalse(results.containsKey("failed"));
+        assertFalse(results.containsKey("slow"));
+        assertEquals(Arrays.asList("failed", "slow"), results.get(CompositeQueryExecutor.INCOMPLETE_KEY));
+    }
+
+    @Test
+    void rejectedSubQueriesReportedIncomplete() {
+        // Arrange：单线程、队列容量1，第三个子查询被拒绝
+        executor.stop();
+        executor = new CompositeQueryExecutor();
+        ReflectionTestUtils.setField(executor, "poolSize", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(executor, "timeoutMs", 2000L);
+        executor.start();
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+
+        // Act
+        Map<String, Object> results = executor.query()
+                .add("a", () -> release.await(1, TimeUnit.SECONDS))
+                .add("b", () -> 2)
+                .add("c", () -> {
+                    release.countDown();
+                    return Thread.currentThread() == caller;
+                })
+                .execute();
+
+        // Assert：被拒绝的子查询不在调用线程中执行
+        assertEquals(2, results.get("b"));
+        assertFalse(results.containsKey("c"));
+        assertEquals(Collections.singletonList("c"), results.get(CompositeQueryExecutor.INCOMPLETE_KEY));
+    }
+}
@@ -0,0 +1,161 @@
+package com.exam.service.impl;
+
+import com.exam.common.ServiceException;
+import com.exam.entity.*;
+import com.exam.mapper.ExamClassMapper;
+import com.exam.mapper.ExamMapper;
+import com.exam.mapper.ExamPaperMapper;
+import com.exam.mapper.QuestionOptionMapper;
+import com.exam.service.ClassService;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ExamAdmissionControllerTest {
+
+    private ExamMapper examMapper;
+    private ExamClassMapper examClassMapper;
+    private ClassService classService;
+    private ExamPaperMapper examPaperMapper;
+    private ExamAdmissionController controller;
+    private Exam exam;
+
+    @BeforeEach
+    void setUp() {
+        examMapper = mock(ExamMapper.class);
+        examClassMapper = mock(ExamClassMapper.class);
+        classService = mock(ClassService.class);
+        examPaperMapper = mock(ExamPaperMapper.class);
+        QuestionOptionMapper questionOptionMapper = mock(QuestionOptionMapper.class);
+        AnswerKeyCache answerKeyCache = mock(AnswerKeyCache.class);
+        controller = new ExamAdmissionController();
+        ReflectionTestUtils.setField(controller, "examMapper", examMapper);
+        ReflectionTestUtils.setField(controller, "examClassMapper", examClassMapper);
+        ReflectionTestUtils.setField(controller, "classService", classService);
+        ReflectionTestUtils.setField(controller, "examPaperMapper", examPaperMapper);
+        ReflectionTestUtils.setField(controller, "questionOptionMapper", questionOptionMapper);
+        ReflectionTestUtils.setField(controller, "answerKeyCache", answerKeyCache);
+        ReflectionTestUtils.setField(controller, "leadMinutes", 10);
+        ReflectionTestUtils.setField(controller, "admitsPerSecond", 1);
+
+        exam = new Exam();
+        exam.setExamId(1);
+        exam.setPaperId(9);
+        exam.setExamEndTime(new Date(System.currentTimeMillis() + 3600_000));
+        when(examMapper.selectByTimeRange(any(), any())).thenReturn(Collections.singletonList(exam));
+        when(examClassMapper.selectByExamId(1)).thenReturn(Arrays.asList(examClass(11), examClass(12)));
+        when(classService.getClassStudents(11)).thenReturn(Arrays.asList(student(1), student(2)));
+        when(classService.getClassStudents(12)).thenReturn(Arrays.asList(student(2), student(3)));
+
+        Question question = new Question();
+        question.setQuestionId(100);
+        question.setAnswer("A");
+        when(examPaperMapper.selectPaperQuestions(9)).thenReturn(Collections.singletonList(question));
+        QuestionOption option = new QuestionOption();
+        option.setQuestionId(100);
+        option.setContent("A. 选项");
+        option.setIsCorrect(true);
+        when(questionOptionMapper.selectByPaperId(9)).thenReturn(Collections.singletonList(option));
+        when(answerKeyCache.get(9)).thenReturn(new PaperAnswerKey(9, new int[]{100}, new byte[]{0},
+                new int[]{500}, new int[]{1}, new byte[]{1}, new byte[]{-1}, new String[1]));
+    }
+
+    @Test
+    void prewarmLoadsPaperWithoutAnswers() {
+        // Act
+        controller.prewarm();
+        ExamAdmissionController.Admission admission = controller.admit(1, 1);
+
+        // Assert：入场不再查询数据库
+        verify(examMapper, never()).selectById(any());
+        verify(examClassMapper, times(1)).selectByExamId(1);
+        assertTrue(admission.isAdmitted());
+        Question question = admission.getQuestions().get(0);
+        assertNull(question.getAnswer());
+        assertNull(question.getOptions().get(0).getIsCorrect());
+        assertEquals(0, new BigDecimal("5").compareTo(question.getScore()));
+    }
+
+    @Test
+    void excessStudentsQueuedWithWaitHints() {
+        // Arrange：每秒放行1人
+        controller.prewarm();
+        controller.admit(1, 1);
+
+        // Act
+        ExamAdmissionController.Admission second = controller.admit(1, 2);
+        ExamAdmissionController.Admission third = controller.admit(1, 3);
+        ExamAdmissionController.Admission retry = controller.admit(1, 2);
+
+        // Assert：重复申请沿用原入场时间
+        assertFalse(second.isAdmitted());
+        assertNull(second.getQuestions());
+        assertTrue(second.getWaitMillis() > 0 && second.getWaitMillis() <= 1000);
+        assertTrue(third.getWaitMillis() > 1000 && third.getWaitMillis() <= 2000);
+        assertEquals(2, third.getPosition());
+        assertTrue(retry.getWaitMillis() <= second.getWaitMillis());
+        assertEquals(2, third.getQueueDepth());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = ((List<Map<String, Object>>) controller.getStatistics().get("exams")).get(0);
+        assertEquals(3, stats.get("roster_size"));
+        assertEquals(1L, stats.get("admitted"));
+    }
+
+    @Test
+    void rejectsStudentsOutsideRoster() {
+        // Act & Assert
+        controller.prewarm();
+        assertThrows(ServiceException.class, () -> controller.admit(1, 99));
+
+        // 试卷变更后重新加载
+        controller.invalidatePapers(Collections.singletonList(9));
+        when(examMapper.selectById(1)).thenReturn(exam);
+        controller.admit(1, 1);
+        verify(examClassMapper, times(2)).selectByExamId(1);
+    }
+
+    @Test
+    void invalidateAgainAfterTransactionCompletes() {
+        // Arrange：事务提交前有并发请求以旧数据重新加载
+        controller.prewarm();
+        when(examMapper.selectById(1)).thenReturn(exam);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            controller.invalidate(1);
+            controller.admit(1, 1);
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        controller.admit(1, 1);
+
+        // Assert：完成后再次失效，之后的入场重新加载
+        verify(examClassMapper, times(3)).selectByExamId(1);
+    }
+
+    private static ExamClass examClass(int classId) {
+        ExamClass examClass = new ExamClass();
+        examClass.setExamId(1);
+        examClass.setClassId(classId);
+        return examClass;
+    }
+
+    private static Student student(int studentId) {
+        Student student = new Student();
+        student.setStudentId(studentId);
+        return student;
+    }
+}
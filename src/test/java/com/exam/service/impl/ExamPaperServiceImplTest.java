@@ -0,0 +1,29 @@
+package com.exam.service.impl;
+
+import com.exam.common.ServiceException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamPaperServiceImplTest {
+
+    @Test
+    void allocateScoresToTotal() {
+        // Arrange：单选、多选、简答各一题，默认2+4+10分
+        int[] types = {1, 2, 5};
+
+        // Act
+        int[] defaults = ExamPaperServiceImpl.allocateScores(types, null);
+        int[] scaled = ExamPaperServiceImpl.allocateScores(types, new BigDecimal("25"));
+
+        // Assert：以0.5分为单位
+        assertArrayEquals(new int[]{4, 8, 20}, defaults);
+        assertEquals(50, Arrays.stream(scaled).sum());
+        assertTrue(scaled[2] > scaled[1] && scaled[1] > scaled[0]);
+        assertThrows(ServiceException.class, () -> ExamPaperServiceImpl.allocateScores(types, new BigDecimal("10.3")));
+        assertThrows(ServiceException.class, () -> ExamPaperServiceImpl.allocateScores(types, new BigDecimal("1")));
+    }
+}
@@ -0,0 +1,186 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Exam;
+import com.exam.entity.QuestionOption;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.entity.StudentScore;
+import com.exam.mapper.ExamMapper;
+import com.exam.mapper.ExamPaperMapper;
+import com.exam.mapper.ExamStudentMapper;
+import com.exam.mapper.QuestionOptionMapper;
+import com.exam.mapper.StudentQuestionScoreMapper;
+import com.exam.mapper.StudentScoreMapper;
+import com.exam.utils.AnswerUtils;
+import com.exam.utils.PaperVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GradingServiceImplTest {
+
+    @Mock
+    private ExamMapper examMapper;
+
+    @Mock
+    private ExamPaperMapper examPaperMapper;
+
+    @Mock
+    private QuestionOptionMapper questionOptionMapper;
+
+    @Mock
+    private StudentQuestionScoreMapper studentQuestionScoreMapper;
+
+    @Mock
+    private StudentScoreMapper studentScoreMapper;
+
+    @Mock
+    private ExamStudentMapper examStudentMapper;
+
+    @Mock
+    private AnswerSubmissionWriter answerSubmissionWriter;
+
+    @Mock
+    private ScoreRankingCache scoreRankingCache;
+
+    @Mock
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @InjectMocks
+    private GradingServiceImpl gradingService;
+
+    private PaperVariants paperVariants;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AnswerKeyCache answerKeyCache = new AnswerKeyCache();
+        ReflectionTestUtils.setField(answerKeyCache, "examPaperMapper", examPaperMapper);
+        ReflectionTestUtils.setField(answerKeyCache, "questionOptionMapper", questionOptionMapper);
+        ReflectionTestUtils.setField(gradingService, "answerKeyCache", answerKeyCache);
+        paperVariants = new PaperVariants();
+        ReflectionTestUtils.setField(paperVariants, "examStudentMapper", examStudentMapper);
+        ReflectionTestUtils.setField(gradingService, "paperVariants", paperVariants);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gradeObjectiveQuestions() {
+        // Arrange：变体开关开启，但考生均未拿到变体，按原始选项批改
+        Exam exam = new Exam();
+        exam.setExamId(1);
+        exam.setPaperId(10);
+        when(examMapper.selectById(1)).thenReturn(exam);
+        when(answerSubmissionWriter.flush(1)).thenReturn(CompletableFuture.completedFuture(0));
+
+        // 题目101单选(B正确)，102多选(A、C正确)，103判断(答案"正确")，104简答
+        when(examPaperMapper.selectPaperQuestionsWithScore(10)).thenReturn(Arrays.asList(
+                paperQuestion(101, 0, null, "2"),
+                paperQuestion(102, 1, null, "4"),
+                paperQuestion(103, 2, "正确", "1"),
+                paperQuestion(104, 4, "略", "10")));
+        when(questionOptionMapper.selectByPaperId(10)).thenReturn(Arrays.asList(
+                option(101, false), option(101, true), option(101, false),
+                option(102, true), option(102, false), option(102, true)));
+
+        List<StudentQuestionScore> records = new ArrayList<>();
+        records.add(answer(1, 1, 101, "B", null));
+        records.add(answer(2, 1, 102, "A,C", null));
+        records.add(answer(3, 1, 103, "对", null));
+        records.add(answer(4, 1, 104, "...", new BigDecimal("7")));
+        records.add(answer(5, 2, 101, "A", null));
+        records.add(answer(6, 2, 102, "A", null));
+        records.add(answer(7, 2, 103, "F", null));
+        when(studentQuestionScoreMapper.selectByExamId(1)).thenReturn(records);
+
+        // Act
+        Map<String, Object> result = gradingService.gradeObjectiveQuestions(1);
+
+        // Assert
+        assertEquals(2, result.get("studentCount"));
+        assertEquals(6, result.get("gradedCount"));
+
+        ArgumentCaptor<List<StudentScore>> totals = ArgumentCaptor.forClass(List.class);
+        verify(studentScoreMapper).batchUpsertScores(totals.capture());
+        Map<Integer, BigDecimal> totalByStudent = new HashMap<>();
+        totals.getValue().forEach(s -> totalByStudent.put(s.getStudentId(), s.getScore()));
+        assertEquals(0, new BigDecimal("14").compareTo(totalByStudent.get(1)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(totalByStudent.get(2)));
+
+        ArgumentCaptor<List<Map<String, Object>>> graded = ArgumentCaptor.forClass(List.class);
+        verify(studentQuestionScoreMapper).batchUpdateScore(graded.capture());
+        assertEquals(6, graded.getValue().size());
+        assertTrue(graded.getValue().stream().noneMatch(r -> r.get("recordId").equals(4)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gradeVariantAnswers() {
+        // Arrange：作答为考生看到的选项字母
+        when(examStudentMapper.selectVariantStudentIds(1)).thenReturn(Collections.singletonList(1));
+        Exam exam = new Exam();
+        exam.setExamId(1);
+        exam.setPaperId(10);
+        when(examMapper.selectById(1)).thenReturn(exam);
+        when(answerSubmissionWriter.flush(1)).thenReturn(CompletableFuture.completedFuture(0));
+        when(examPaperMapper.selectPaperQuestionsWithScore(10)).thenReturn(Arrays.asList(
+                paperQuestion(101, 0, null, "2"),
+                paperQuestion(102, 1, null, "4")));
+        when(questionOptionMapper.selectByPaperId(10)).thenReturn(Arrays.asList(
+                option(101, false), option(101, true), option(101, false), option(101, false),
+                option(102, true), option(102, false), option(102, true), option(102, false)));
+        long seed = PaperVariant.seed(1, 1);
+        String single = AnswerUtils.formatChoiceMask(PaperVariant.toDisplayedMask(seed, 101, 4, 0b0010));
+        String multiple = AnswerUtils.formatChoiceMask(PaperVariant.toDisplayedMask(seed, 102, 4, 0b0101));
+        when(studentQuestionScoreMapper.selectByExamId(1)).thenReturn(Arrays.asList(
+                answer(1, 1, 101, single, null),
+                answer(2, 1, 102, multiple, null)));
+
+        // Act
+        gradingService.gradeObjectiveQuestions(1);
+
+        // Assert
+        ArgumentCaptor<List<StudentScore>> totals = ArgumentCaptor.forClass(List.class);
+        verify(studentScoreMapper).batchUpsertScores(totals.capture());
+        assertEquals(0, new BigDecimal("6").compareTo(totals.getValue().get(0).getScore()));
+    }
+
+    private Map<String, Object> paperQuestion(int questionId, int type, String answer, String score) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("question_id", questionId);
+        row.put("type", type);
+        row.put("answer", answer);
+        row.put("question_score", new BigDecimal(score));
+        return row;
+    }
+
+    private QuestionOption option(int questionId, boolean correct) {
+        QuestionOption option = new QuestionOption();
+        option.setQuestionId(questionId);
+        option.setIsCorrect(correct);
+        return option;
+    }
+
+    private StudentQuestionScore answer(int recordId, int studentId, int questionId, String answer, BigDecimal score) {
+        StudentQuestionScore record = new StudentQuestionScore();
+        record.setRecordId(recordId);
+        record.setExamId(1);
+        record.setStudentId(studentId);
+        record.setQuestionId(questionId);
+        record.setScoreId(studentId);
+        record.setAnswer(answer);
+        record.setScore(score);
+        record.setStatus(0);
+        return record;
+    }
+}
@@ -0,0 +1,54 @@
+package com.exam.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyMetricsTest {
+
+    @Test
+    void statisticsSortedByTotalTime() {
+        // Arrange
+        LatencyMetrics metrics = new LatencyMetrics();
+        metrics.record("ExamServiceImpl.getExamStatistics", TimeUnit.MILLISECONDS.toNanos(40), false);
+        metrics.record("ExamServiceImpl.getExamStatistics", TimeUnit.MILLISECONDS.toNanos(60), true);
+        metrics.record("com.exam.mapper.ExamMapper.selectById", TimeUnit.MILLISECONDS.toNanos(1), false);
+
+        // Act
+        List<Map<String, Object>> statistics = metrics.getStatistics();
+
+        // Assert
+        assertEquals(2, statistics.size());
+        Map<String, Object> slowest = statistics.get(0);
+        assertEquals("ExamServiceImpl.getExamStatistics", slowest.get("method"));
+        assertEquals(2L, slowest.get("call_count"));
+        assertEquals(1L, slowest.get("error_count"));
+        assertEquals(50.0, (Double) slowest.get("avg_ms"), 0.001);
+        assertEquals(60.0, (Double) slowest.get("max_ms"), 0.001);
+    }
+
+    @Test
+    void drainIntervalsReturnsOnlyNewCalls() {
+        // Arrange
+        LatencyMetrics metrics = new LatencyMetrics();
+        metrics.record("UserServiceImpl.login", 1000, true);
+        metrics.record("UserServiceImpl.logout", 1000, false);
+        metrics.drainIntervals();
+        metrics.record("UserServiceImpl.login", 2000, false);
+        metrics.record("UserServiceImpl.login", 3000, true);
+
+        // Act
+        Map<String, LatencyMetrics.Interval> intervals = metrics.drainIntervals();
+
+        // Assert：无新调用的方法不出现
+        assertEquals(1, intervals.size());
+        LatencyMetrics.Interval login = intervals.get("UserServiceImpl.login");
+        assertEquals(2, login.getHistogram().getCount());
+        assertEquals(1, login.getErrors());
+        assertTrue(metrics.drainIntervals().isEmpty());
+    }
+}
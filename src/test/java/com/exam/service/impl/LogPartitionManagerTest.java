@@ -0,0 +1,140 @@
+package com.exam.service.impl;
+
+import com.exam.mapper.LogMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LogPartitionManagerTest {
+
+    private LogMapper logMapper;
+    private LogPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        logMapper = mock(LogMapper.class);
+        manager = new LogPartitionManager();
+        ReflectionTestUtils.setField(manager, "logMapper", logMapper);
+        ReflectionTestUtils.setField(manager, "granularity", LogPartitionManager.Granularity.MONTH);
+        ReflectionTestUtils.setField(manager, "precreate", 2);
+    }
+
+    @Test
+    void ensurePartitionsCreatesMissingMonths() {
+        // Arrange：已有到2026-10-01为止的分区
+        when(logMapper.selectPartitions()).thenReturn(Arrays.asList(
+                partition("p202609", "'2026-10-01 00:00:00'"),
+                partition(LogPartitionManager.FUTURE_PARTITION, "MAXVALUE")));
+
+        // Act
+        int created = manager.ensurePartitions(LocalDate.of(2026, 10, 18));
+
+        // Assert：当前月及向后2个月
+        assertEquals(3, created);
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("p202610", "2026-11-01");
+        expected.put("p202611", "2026-12-01");
+        expected.put("p202612", "2027-01-01");
+        verifyAddedInOrder(expected);
+        verify(logMapper, never()).selectEarliestCreatedTime();
+    }
+
+    @Test
+    void firstSplitStartsFromEarliestLog() {
+        // Arrange：只有p_future，历史日志从2026-08开始
+        when(logMapper.selectPartitions()).thenReturn(Collections.singletonList(
+                partition(LogPartitionManager.FUTURE_PARTITION, "MAXVALUE")));
+        when(logMapper.selectEarliestCreatedTime()).thenReturn(java.sql.Timestamp.valueOf("2026-08-20 09:30:00"));
+
+        // Act
+        int created = manager.ensurePartitions(LocalDate.of(2026, 10, 18));
+
+        // Assert：历史月份各自成区，一次拆分完成
+        assertEquals(5, created);
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("p202608", "2026-09-01");
+        expected.put("p202609", "2026-10-01");
+        expected.put("p202610", "2026-11-01");
+        expected.put("p202611", "2026-12-01");
+        expected.put("p202612", "2027-01-01");
+        verifyAddedInOrder(expected);
+    }
+
+    @Test
+    void ensurePartitionsSkipsUnpartitionedTable() {
+        // Arrange
+        when(logMapper.selectPartitions()).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertEquals(0, manager.ensurePartitions(LocalDate.of(2026, 10, 18)));
+        verify(logMapper, never()).addPartitions(anyMap());
+    }
+
+    @Test
+    void dropExpiredArchivesWholePartitionsOnly() {
+        // Arrange
+        ReflectionTestUtils.setField(manager, "archive", true);
+        when(logMapper.selectPartitions()).thenReturn(Arrays.asList(
+                partition("p202607", "'2026-08-01'"),
+                partition("p202608", "'2026-09-01'"),
+                partition("p202609", "'2026-10-01'"),
+                partition(LogPartitionManager.FUTURE_PARTITION, "MAXVALUE")));
+        when(logMapper.archivePartition("p202607")).thenReturn(12);
+        when(logMapper.archivePartition("p202608")).thenReturn(25);
+
+        // Act：截止时间落在2026-09分区内
+        int rows = manager.dropExpired(LocalDateTime.of(2026, 9, 15, 8, 0));
+
+        // Assert：返回归档的实际行数
+        assertEquals(37, rows);
+        verify(logMapper).archivePartition("p202607");
+        verify(logMapper).dropPartition("p202607");
+        verify(logMapper).dropPartition("p202608");
+        verify(logMapper, never()).dropPartition("p202609");
+        verify(logMapper, never()).dropPartition(LogPartitionManager.FUTURE_PARTITION);
+    }
+
+    @Test
+    void dropExpiredCountsRowsBeforeDropping() {
+        // Arrange
+        when(logMapper.selectPartitions()).thenReturn(Arrays.asList(
+                partition("p202608", "'2026-09-01'"),
+                partition(LogPartitionManager.FUTURE_PARTITION, "MAXVALUE")));
+        when(logMapper.countPartitionRows("p202608")).thenReturn(42);
+
+        // Act
+        int rows = manager.dropExpired(LocalDateTime.of(2026, 9, 15, 8, 0));
+
+        // Assert
+        assertEquals(42, rows);
+        InOrder inOrder = inOrder(logMapper);
+        inOrder.verify(logMapper).countPartitionRows("p202608");
+        inOrder.verify(logMapper).dropPartition("p202608");
+        verify(logMapper, never()).archivePartition(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyAddedInOrder(Map<String, String> expected) {
+        ArgumentCaptor<Map<String, String>> partitions = ArgumentCaptor.forClass(Map.class);
+        verify(logMapper).addPartitions(partitions.capture());
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(partitions.getValue().entrySet()));
+    }
+
+    private Map<String, Object> partition(String name, String description) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("partition_name", name);
+        row.put("description", description);
+        return row;
+    }
+}
@@ -0,0 +1,280 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Log;
+import com.exam.entity.User;
+import com.exam.mapper.LogMapper;
+import com.exam.mapper.UserMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LogRollupTest {
+
+    private LogMapper logMapper;
+    private LogMapper sessionMapper;
+    private UserMapper userMapper;
+    private LogRollup rollup;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        logMapper = mock(LogMapper.class);
+        sessionMapper = mock(LogMapper.class);
+        userMapper = mock(UserMapper.class);
+        SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+        SqlSession session = mock(SqlSession.class);
+        when(sqlSessionFactory.openSession()).thenReturn(session);
+        when(session.getMapper(LogMapper.class)).thenReturn(sessionMapper);
+        Cursor<Map<String, Object>> empty = cursor(Collections.emptyList());
+        when(sessionMapper.streamRollupCounts(any(), any())).thenReturn(empty);
+
+        rollup = new LogRollup();
+        ReflectionTestUtils.setField(rollup, "sqlSessionFactory", sqlSessionFactory);
+        ReflectionTestUtils.setField(rollup, "logMapper", logMapper);
+        ReflectionTestUtils.setField(rollup, "userMapper", userMapper);
+    }
+
+    @Test
+    void rebuildLoadsHourlyCountsFromLogTable() {
+        // Arrange
+        Cursor<Map<String, Object>> rows = cursor(Arrays.asList(
+                row("2026-10-17 09:00:00", 3, "SUCCESS", 1, "10.0.0.1", "EXAM", 5L),
+                row("2026-10-18 14:00:00", 0, "ERROR", null, "10.0.0.2", "SYSTEM", 2L)));
+        when(sessionMapper.streamRollupCounts(any(), any())).thenReturn(rows);
+        when(userMapper.selectByIds(any())).thenReturn(Collections.singletonList(user(1, "alice")));
+
+        // Act
+        rollup.rebuild();
+
+        // Assert
+        assertEquals(5L, countOf(rollup.countByOperationType(), "action_type", 3));
+        assertEquals(2L, countOf(rollup.countByStatus(), "status", "ERROR"));
+        assertEquals("10.0.0.1", rollup.countByIpAddress().get(0).get("ip_address"));
+        List<Map<String, Object>> daily = rollup.countDailyOperations(null, null);
+        assertEquals(2, daily.size());
+        assertEquals(java.sql.Date.valueOf("2026-10-17"), daily.get(0).get("date"));
+        Map<String, Object> frequent = rollup.getFrequentUsers(1).get(0);
+        assertEquals(1, frequent.get("user_id"));
+        assertEquals("alice", frequent.get("username"));
+        assertEquals(5L, frequent.get("operation_count"));
+    }
+
+    @Test
+    void frequentUsersLoadsUsernamesInOneQuery() {
+        // Arrange
+        rollup.record(Arrays.asList(
+                log(7, 3, "2026-10-18T08:15:00"),
+                log(7, 3, "2026-10-18T08:20:00"),
+                log(8, 3, "2026-10-18T08:25:00"),
+                log(null, 3, "2026-10-18T08:30:00")));
+        when(userMapper.selectByIds(any())).thenReturn(Arrays.asList(user(7, "alice"), user(8, "bob")));
+
+        // Act
+        List<Map<String, Object>> frequent = rollup.getFrequentUsers(3);
+
+        // Assert：匿名日志不查询用户
+        assertEquals(3, frequent.size());
+        assertEquals("alice", frequent.get(0).get("username"));
+        verify(userMapper).selectByIds(new HashSet<>(Arrays.asList(7, 8)));
+        verify(userMapper, never()).selectById(any());
+    }
+
+    @Test
+    void expireDropsHoursBeforeCutoffFromTotals() {
+        // Arrange
+        rollup.record(Arrays.asList(
+                log(7, 3, "2026-10-16T08:00:00"),
+                log(8, 4, "2026-10-16T09:10:00"),
+                log(7, 3, "2026-10-18T08:15:00")));
+
+        // Act：截止时间所在小时保留
+        rollup.expire(LocalDateTime.parse("2026-10-16T09:30:00"));
+
+        // Assert：过期小时从合计、用户和分时索引中移除
+        assertEquals(1L, countOf(rollup.countByOperationType(), "action_type", 3));
+        assertEquals(1L, countOf(rollup.countByOperationType(), "action_type", 4));
+        assertEquals(2, rollup.countDailyOperations(null, null).size());
+        assertEquals(2, rollup.getFrequentUsers(10).size());
+        assertEquals(1, rollup.analyzeUserBehavior(7, null, null).size());
+
+        rollup.expire(LocalDateTime.parse("2026-10-17T00:00:00"));
+        assertEquals(0L, countOf(rollup.countByOperationType(), "action_type", 4));
+        assertEquals(1, rollup.getFrequentUsers(10).size());
+        assertEquals(1, rollup.countByIpAddress().size());
+    }
+
+    @Test
+    void flushDropsHoursOutsideRetention() {
+        // Arrange
+        ReflectionTestUtils.setField(rollup, "retentionDays", 1);
+        rollup.record(Arrays.asList(
+                log(7, 3, LocalDateTime.now().minusDays(3).toString()),
+                log(7, 3, LocalDateTime.now().toString())));
+
+        // Act
+        rollup.flush();
+
+        // Assert
+        assertEquals(1L, countOf(rollup.countByOperationType(), "action_type", 3));
+        assertEquals(1, rollup.countDailyOperations(null, null).size());
+    }
+
+    @Test
+    void rebuildMergesRecordsMissedByBackfillByLogId() {
+        // Arrange：回填期间到达两条早于截止时间的日志，只有日志1被回填统计
+        Log counted = log(7, 3, "2026-10-18T08:15:00");
+        counted.setLogId(1);
+        Log missed = log(7, 3, "2026-10-18T08:20:00");
+        missed.setLogId(2);
+        Cursor<Map<String, Object>> rows = cursor(Collections.singletonList(
+                row("2026-10-18 08:00:00", 3, "SUCCESS", 7, "10.0.0.1", "EXAM", 1L)));
+        when(sessionMapper.streamRollupCounts(any(), any())).thenAnswer(invocation -> {
+            rollup.record(Arrays.asList(counted, missed));
+            return rows;
+        });
+        when(sessionMapper.selectExistingLogIds(any(), any(), any())).thenReturn(Collections.singletonList(1));
+
+        // Act
+        rollup.rebuild();
+
+        // Assert：未被回填的日志2补入，已回填的日志1不重复计数
+        assertEquals(2L, countOf(rollup.countByOperationType(), "action_type", 3));
+    }
+
+    @Test
+    void recordUpdatesRangesAndUserBehavior() {
+        // Arrange
+        rollup.rebuild();
+
+        // Act
+        rollup.record(Arrays.asList(
+                log(7, 3, "2026-10-18T08:15:00"),
+                log(7, 3, "2026-10-18T08:40:00"),
+                log(7, 4, "2026-10-18T10:05:00"),
+                log(8, 3, "2026-10-16T08:00:00")));
+
+        // Assert：范围按小时取整，起点所在小时计入
+        List<Map<String, Object>> daily = rollup.countDailyOperations(
+                date("2026-10-18T08:30:00"), date("2026-10-18T23:59:59"));
+        assertEquals(1, daily.size());
+        assertEquals(3L, daily.get(0).get("count"));
+
+        List<Map<String, Object>> behavior = rollup.analyzeUserBehavior(7,
+                date("2026-10-18T00:00:00"), date("2026-10-18T23:59:59"));
+        assertEquals(2, behavior.size());
+        assertEquals("08", behavior.get(0).get("hour_of_day"));
+        assertEquals(2L, behavior.get(0).get("action_count"));
+        assertEquals("10", behavior.get(1).get("hour_of_day"));
+
+        List<Map<String, Object>> operations = rollup.getSystemOperations(
+                date("2026-10-01T00:00:00"), date("2026-10-31T00:00:00"));
+        assertEquals("2026-10-18", operations.get(0).get("operation_date"));
+        assertEquals("2026-10-16", operations.get(operations.size() - 1).get("operation_date"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesFinishedMinutesOnly() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        rollup.record(Arrays.asList(
+                log(7, 3, now.minusMinutes(10).toString()),
+                log(7, 3, now.minusMinutes(10).toString()),
+                log(7, 3, now.toString())));
+
+        // Act
+        rollup.flush();
+
+        // Assert：当前分钟留待下次写入
+        ArgumentCaptor<List<Map<String, Object>>> minutes = ArgumentCaptor.forClass(List.class);
+        verify(logMapper).upsertRollupMinute(minutes.capture());
+        assertEquals(1, minutes.getValue().size());
+        assertEquals(2L, minutes.getValue().get(0).get("op_count"));
+        verify(logMapper).upsertRollupDay(anyList());
+
+        reset(logMapper);
+        rollup.flush();
+        verify(logMapper, never()).upsertRollupMinute(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushKeepsMinutesWhenWriteFails() {
+        // Arrange
+        rollup.record(Collections.singletonList(log(7, 3, LocalDateTime.now().minusMinutes(10).toString())));
+        when(logMapper.upsertRollupMinute(anyList())).thenThrow(new RuntimeException("db down"));
+
+        // Act
+        rollup.flush();
+        reset(logMapper);
+        rollup.flush();
+
+        // Assert
+        ArgumentCaptor<List<Map<String, Object>>> minutes = ArgumentCaptor.forClass(List.class);
+        verify(logMapper).upsertRollupMinute(minutes.capture());
+        assertEquals(1L, minutes.getValue().get(0).get("op_count"));
+    }
+
+    private static long countOf(List<Map<String, Object>> rows, String column, Object value) {
+        for (Map<String, Object> row : rows) {
+            if (Objects.equals(value, row.get(column))) {
+                return (Long) row.get("count");
+            }
+        }
+        return 0;
+    }
+
+    private static Map<String, Object> row(String hour, Integer actionType, String status, Integer userId,
+                                           String ip, String objectType, long count) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("stat_hour", hour);
+        row.put("action_type", actionType);
+        row.put("status", status);
+        row.put("user_id", userId);
+        row.put("ip_address", ip);
+        row.put("object_type", objectType);
+        row.put("op_count", count);
+        return row;
+    }
+
+    private static Log log(Integer userId, Integer actionType, String time) {
+        Log log = new Log();
+        log.setUserId(userId);
+        log.setActionType(actionType);
+        log.setStatus("SUCCESS");
+        log.setObjectType("EXAM");
+        log.setIpAddress("10.0.0.1");
+        log.setCreatedTime(date(time));
+        return log;
+    }
+
+    private static User user(Integer userId, String username) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static Date date(String time) {
+        return Date.from(LocalDateTime.parse(time).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<Map<String, Object>> cursor(List<Map<String, Object>> rows) {
+        Cursor<Map<String, Object>> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(rows.iterator());
+        return cursor;
+    }
+}
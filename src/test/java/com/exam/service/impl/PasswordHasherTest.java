@@ -0,0 +1,104 @@
+package com.exam.service.impl;
+
+import com.exam.common.ServiceException;
+import com.exam.utils.Pbkdf2PasswordHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.stop();
+    }
+
+    @Test
+    void legacyMd5MatchesAndNeedsRehash() {
+        // Arrange
+        passwordHasher = hasher(1000, 1, 10);
+        String md5 = DigestUtils.md5DigestAsHex("secret".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        String encoded = passwordHasher.hash("secret");
+
+        // Assert
+        assertTrue(passwordHasher.matches("secret", md5));
+        assertFalse(passwordHasher.matches("wrong", md5));
+        assertTrue(passwordHasher.needsRehash(md5));
+        assertTrue(encoded.startsWith("$" + Pbkdf2PasswordHash.ID + "$1000$"));
+        assertTrue(passwordHasher.matches("secret", encoded));
+        assertFalse(passwordHasher.matches("wrong", encoded));
+        assertFalse(passwordHasher.needsRehash(encoded));
+        assertFalse(passwordHasher.matches("secret", null));
+        assertNotEquals(encoded, passwordHasher.hash("secret"));
+    }
+
+    @Test
+    void lowerIterationsNeedRehash() {
+        // Arrange
+        PasswordHasher old = hasher(1000, 1, 10);
+        String encoded = old.hash("secret");
+        old.stop();
+
+        // Act
+        passwordHasher = hasher(2000, 1, 10);
+
+        // Assert：旧参数的密码仍可校验，但需要重新计算
+        assertTrue(passwordHasher.matches("secret", encoded));
+        assertTrue(passwordHasher.needsRehash(encoded));
+    }
+
+    @Test
+    void rejectsWhenQueueFull() throws Exception {
+        // Arrange：1个线程、队列容量1，先占满线程和队列
+        passwordHasher = hasher(1000, 1, 1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHasher, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<Boolean> blocker = () -> release.await(5, TimeUnit.SECONDS);
+        executor.submit(blocker);
+        executor.submit(blocker);
+
+        // Act & Assert
+        assertThrows(ServiceException.class, () -> passwordHasher.hash("secret"));
+        release.countDown();
+        assertEquals(1L, passwordHasher.getStatistics().get("rejected"));
+    }
+
+    @Test
+    void limitsLoginAttemptsPerUser() {
+        // Arrange
+        passwordHasher = hasher(1000, 1, 10);
+
+        // Act：每分钟限3次
+        for (int i = 0; i < 3; i++) {
+            passwordHasher.checkLoginRate("alice");
+        }
+
+        // Assert：其他用户不受影响
+        assertThrows(ServiceException.class, () -> passwordHasher.checkLoginRate("alice"));
+        passwordHasher.checkLoginRate("bob");
+        assertEquals(1L, passwordHasher.getStatistics().get("rate_limited"));
+    }
+
+    private static PasswordHasher hasher(int iterations, int threads, int queueCapacity) {
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "algorithm", Pbkdf2PasswordHash.ID);
+        ReflectionTestUtils.setField(hasher, "iterations", iterations);
+        ReflectionTestUtils.setField(hasher, "threads", threads);
+        ReflectionTestUtils.setField(hasher, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(hasher, "timeoutMs", 5000L);
+        ReflectionTestUtils.setField(hasher, "userLimitPerMinute", 3);
+        ReflectionTestUtils.setField(hasher, "ipLimitPerMinute", 0);
+        hasher.start();
+        return hasher;
+    }
+}
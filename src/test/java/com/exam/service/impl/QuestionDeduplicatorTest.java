@@ -0,0 +1,53 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Question;
+import com.exam.mapper.QuestionMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QuestionDeduplicatorTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void libraryScanComparesWithinBankOnly() {
+        // Arrange：题目2是题目1复制到题库20的副本，题目3与题目1在同一题库重复
+        QuestionMapper questionMapper = mock(QuestionMapper.class);
+        SqlSession session = mock(SqlSession.class);
+        SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+        when(sqlSessionFactory.openSession()).thenReturn(session);
+        when(session.getMapper(QuestionMapper.class)).thenReturn(questionMapper);
+        Cursor<Question> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(Arrays.asList(
+                question(1, 10, "下列哪一项是Java的基本数据类型"),
+                question(2, 20, "下列哪一项是Java的基本数据类型"),
+                question(3, 10, "下列哪一项是Java的基本数据类型")).iterator());
+        when(questionMapper.streamSearchDocuments(null)).thenReturn(cursor);
+        QuestionDeduplicator deduplicator = new QuestionDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "sqlSessionFactory", sqlSessionFactory);
+
+        // Act
+        List<Map<String, Object>> found = deduplicator.scan(null);
+
+        // Assert：其他题库的副本不算重复
+        assertEquals(1, found.size());
+        assertEquals(3, found.get(0).get("questionId"));
+        assertEquals(1, found.get(0).get("duplicateOf"));
+    }
+
+    private static Question question(int questionId, int qbId, String content) {
+        Question question = new Question();
+        question.setQuestionId(questionId);
+        question.setQbId(qbId);
+        question.setType(0);
+        question.setContent(content);
+        return question;
+    }
+}
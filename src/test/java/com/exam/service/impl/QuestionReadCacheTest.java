@@ -0,0 +1,144 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Question;
+import com.exam.mapper.QuestionBankMapper;
+import com.exam.mapper.QuestionMapper;
+import com.exam.utils.CacheStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QuestionReadCacheTest {
+
+    private QuestionMapper questionMapper;
+    private QuestionBankMapper questionBankMapper;
+
+    @BeforeEach
+    void setUp() {
+        questionMapper = mock(QuestionMapper.class);
+        questionBankMapper = mock(QuestionBankMapper.class);
+        when(questionMapper.selectByPaperId(1)).thenReturn(questions(11, 12));
+        when(questionMapper.selectByPaperId(2)).thenReturn(questions(21, 22));
+        when(questionMapper.selectByPaperId(3)).thenReturn(new ArrayList<>());
+        when(questionBankMapper.selectQuestions(5)).thenReturn(questions(51));
+    }
+
+    @Test
+    void servesCopiesUntilInvalidated() {
+        // Arrange
+        QuestionReadCache cache = cache(100, null);
+
+        // Act
+        List<Question> first = cache.getPaperQuestions(1);
+        first.get(0).setContent("changed");
+        List<Question> second = cache.getPaperQuestions(1);
+        cache.invalidatePaper(1);
+        cache.getPaperQuestions(1);
+        cache.getPaperQuestions(3);
+        cache.getPaperQuestions(3);
+
+        // Assert：命中时不查询数据库且返回副本，失效后重新加载，空结果不缓存
+        assertEquals("题目11", second.get(0).getContent());
+        verify(questionMapper, times(2)).selectByPaperId(1);
+        verify(questionMapper, times(2)).selectByPaperId(3);
+        Map<?, ?> paperStats = (Map<?, ?>) cache.getStatistics().get(QuestionReadCache.PAPER_QUESTIONS);
+        assertEquals(1L, paperStats.get("hits"));
+        assertEquals(4L, paperStats.get("misses"));
+    }
+
+    @Test
+    void discardsLoadRacingWithInvalidation() {
+        // Arrange：加载期间题目被修改
+        QuestionReadCache cache = cache(100, null);
+        when(questionBankMapper.selectQuestions(5)).thenAnswer(invocation -> {
+            cache.clearQuestions();
+            return questions(51);
+        }).thenReturn(questions(51));
+
+        // Act
+        cache.getBankQuestions(5);
+        cache.getBankQuestions(5);
+        cache.getBankQuestions(5);
+
+        // Assert：第一次加载的结果不缓存
+        verify(questionBankMapper, times(2)).selectQuestions(5);
+    }
+
+    @Test
+    void evictsByItemCountAndSharesSecondLevel() {
+        // Arrange：每个区域本地最多3道题
+        Map<Object, Object> shared = new ConcurrentHashMap<>();
+        QuestionReadCache node1 = cache(3, store(shared));
+        QuestionReadCache node2 = cache(3, store(shared));
+
+        // Act
+        node1.getPaperQuestions(1);
+        node1.getPaperQuestions(2);
+        node2.getPaperQuestions(1);
+        node1.getPaperQuestions(1);
+        node2.invalidatePaper(2);
+
+        // Assert：其他实例从二级缓存读取，本地超出容量时淘汰最久未使用的试卷，失效同时删除二级缓存
+        verify(questionMapper, times(1)).selectByPaperId(1);
+        verify(questionMapper, times(1)).selectByPaperId(2);
+        Map<?, ?> stats1 = (Map<?, ?>) node1.getStatistics().get(QuestionReadCache.PAPER_QUESTIONS);
+        Map<?, ?> stats2 = (Map<?, ?>) node2.getStatistics().get(QuestionReadCache.PAPER_QUESTIONS);
+        assertEquals(2L, stats1.get("evictions"));
+        assertEquals(1L, stats1.get("store_hits"));
+        assertEquals(1L, stats2.get("store_hits"));
+        assertFalse(shared.containsKey(QuestionReadCache.PAPER_QUESTIONS + ":2"));
+        assertTrue(shared.containsKey(QuestionReadCache.PAPER_QUESTIONS + ":1"));
+    }
+
+    private QuestionReadCache cache(long maxItems, CacheStore store) {
+        QuestionReadCache cache = new QuestionReadCache();
+        ReflectionTestUtils.setField(cache, "questionMapper", questionMapper);
+        ReflectionTestUtils.setField(cache, "questionBankMapper", questionBankMapper);
+        ReflectionTestUtils.setField(cache, "cacheStore", store);
+        ReflectionTestUtils.setField(cache, "maxItems", maxItems);
+        cache.init();
+        return cache;
+    }
+
+    private static CacheStore store(Map<Object, Object> shared) {
+        return new CacheStore() {
+            @Override
+            public Object get(String region, Object key) {
+                return shared.get(region + ":" + key);
+            }
+
+            @Override
+            public void put(String region, Object key, Object value) {
+                shared.put(region + ":" + key, value);
+            }
+
+            @Override
+            public void remove(String region, Object key) {
+                shared.remove(region + ":" + key);
+            }
+
+            @Override
+            public void clear(String region) {
+                shared.keySet().removeIf(key -> key.toString().startsWith(region + ":"));
+            }
+        };
+    }
+
+    private static List<Question> questions(int... ids) {
+        List<Question> questions = new ArrayList<>();
+        for (int id : ids) {
+            Question question = new Question();
+            question.setQuestionId(id);
+            question.setContent("题目" + id);
+            question.setType(0);
+            questions.add(question);
+        }
+        return questions;
+    }
+}
@@ -0,0 +1,162 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Exam;
+import com.exam.entity.StudentClass;
+import com.exam.entity.StudentQuestionScore;
+import com.exam.entity.StudentScore;
+import com.exam.mapper.ExamMapper;
+import com.exam.mapper.StudentClassMapper;
+import com.exam.mapper.StudentQuestionScoreMapper;
+import com.exam.mapper.StudentScoreMapper;
+import com.exam.service.impl.AnswerKeyCache.PaperAnswerKey;
+import com.exam.utils.ScoreHistogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ScoreHistogramCacheTest {
+
+    private StudentScoreMapper studentScoreMapper;
+    private StudentClassMapper studentClassMapper;
+    private ExamMapper examMapper;
+    private AnswerKeyCache answerKeyCache;
+    private ScoreHistogramCache scoreHistogramCache;
+
+    @BeforeEach
+    void setUp() {
+        studentScoreMapper = mock(StudentScoreMapper.class);
+        studentClassMapper = mock(StudentClassMapper.class);
+        examMapper = mock(ExamMapper.class);
+        answerKeyCache = mock(AnswerKeyCache.class);
+        scoreHistogramCache = new ScoreHistogramCache();
+        ReflectionTestUtils.setField(scoreHistogramCache, "studentScoreMapper", studentScoreMapper);
+        ReflectionTestUtils.setField(scoreHistogramCache, "studentClassMapper", studentClassMapper);
+        ReflectionTestUtils.setField(scoreHistogramCache, "examMapper", examMapper);
+        ReflectionTestUtils.setField(scoreHistogramCache, "answerKeyCache", answerKeyCache);
+        when(studentScoreMapper.selectByExamId(1)).thenReturn(Arrays.asList(
+                score(1, "92"), score(2, "85"), score(3, "71"), score(4, "40")));
+        when(studentClassMapper.selectByClassId(10)).thenReturn(Arrays.asList(member(1), member(3)));
+    }
+
+    @Test
+    void examAndClassHistograms() {
+        // Act
+        ScoreHistogram exam = scoreHistogramCache.getExamHistogram(1);
+        ScoreHistogram clazz = scoreHistogramCache.getClassHistogram(1, 10);
+
+        // Assert
+        assertEquals(4, exam.total());
+        assertEquals(2, clazz.total());
+        assertEquals("90-100", clazz.distribution(ScoreHistogram.DEFAULT_BOUNDS, null).get(0).get("score_range"));
+        verify(studentScoreMapper, times(1)).selectByExamId(1);
+    }
+
+    @Test
+    void applyScoresMovesBuckets() {
+        // Arrange
+        scoreHistogramCache.getClassHistogram(1, 10);
+
+        // Act
+        scoreHistogramCache.applyScores(Arrays.asList(score(3, "95"), score(5, "99")), false);
+        scoreHistogramCache.applyScores(Collections.singletonList(score(6, "50")), true);
+
+        // Assert：更新只作用于已有学生，班级直方图随成员成绩移动
+        ScoreHistogram exam = scoreHistogramCache.getExamHistogram(1);
+        assertEquals(5, exam.total());
+        assertEquals(2L, exam.distribution(ScoreHistogram.DEFAULT_BOUNDS, null).get(0).get("count"));
+        List<Map<String, Object>> clazz = scoreHistogramCache.getClassHistogram(1, 10)
+                .distribution(ScoreHistogram.DEFAULT_BOUNDS, null);
+        assertEquals(1, clazz.size());
+        assertEquals(2L, clazz.get(0).get("count"));
+        verify(studentScoreMapper, times(1)).selectByExamId(1);
+        verify(studentClassMapper, times(1)).selectByClassId(10);
+    }
+
+    @Test
+    void sizedByPaperTotalAndSkipsRacingLoad() {
+        // Arrange：考试2的试卷共两题各75分，加载读到提交前的成绩后成绩提交
+        Exam exam = new Exam();
+        exam.setExamId(2);
+        exam.setPaperId(7);
+        when(examMapper.selectById(2)).thenReturn(exam);
+        when(answerKeyCache.get(7)).thenReturn(new PaperAnswerKey(7, new int[]{1, 2}, new byte[]{0, 4},
+                new int[]{7500, 7500}, new int[2], new byte[2], new byte[2], new String[2]));
+        when(studentScoreMapper.selectByExamId(2)).thenAnswer(invocation -> {
+            scoreHistogramCache.applyScores(Collections.singletonList(score(2, 3, "80")), true);
+            return Collections.singletonList(score(2, 1, "140"));
+        }).thenReturn(Arrays.asList(score(2, 1, "140"), score(2, 3, "80")));
+
+        // Act
+        scoreHistogramCache.getExamHistogram(2);
+        ScoreHistogram histogram = scoreHistogramCache.getExamHistogram(2);
+        scoreHistogramCache.getExamHistogram(2);
+
+        // Assert：满分取试卷总分，高于100分的成绩不被截断；与提交交错的加载结果不写入缓存
+        assertEquals(150, histogram.maxScore());
+        assertEquals(2, histogram.total());
+        assertEquals("100-150", histogram.distributionByWidth(50, null).get(0).get("score_range"));
+        verify(studentScoreMapper, times(2)).selectByExamId(2);
+    }
+
+    @Test
+    void questionHistogramSkipsUngraded() {
+        // Arrange：题目1满分10分，已批改的得分为10分和5分
+        StudentQuestionScoreMapper studentQuestionScoreMapper = mock(StudentQuestionScoreMapper.class);
+        ReflectionTestUtils.setField(scoreHistogramCache, "studentQuestionScoreMapper", studentQuestionScoreMapper);
+        Exam exam = new Exam();
+        exam.setExamId(3);
+        exam.setPaperId(8);
+        when(examMapper.selectById(3)).thenReturn(exam);
+        when(answerKeyCache.get(8)).thenReturn(new PaperAnswerKey(8, new int[]{1}, new byte[]{4},
+                new int[]{1000}, new int[1], new byte[1], new byte[1], new String[1]));
+        when(studentQuestionScoreMapper.selectGradedScoresByExamAndQuestion(3, 1))
+                .thenReturn(Arrays.asList(new BigDecimal("10"), new BigDecimal("5")));
+        scoreHistogramCache.getQuestionHistogram(3, 1);
+
+        // Act：提交时补0的未批改记录和得分为空的记录
+        scoreHistogramCache.applyQuestionScores(Arrays.asList(
+                answer(3, 1, "0", 0), answer(3, 1, null, 1), answer(3, 1, "8", 1)));
+
+        // Assert：只有已批改的8分计入
+        ScoreHistogram histogram = scoreHistogramCache.getQuestionHistogram(3, 1);
+        assertEquals(3, histogram.total());
+        assertEquals(1L, histogram.distribution(ScoreHistogram.DEFAULT_BOUNDS, "%").get(0).get("count"));
+    }
+
+    private StudentQuestionScore answer(int examId, int questionId, String score, int status) {
+        StudentQuestionScore record = new StudentQuestionScore();
+        record.setExamId(examId);
+        record.setQuestionId(questionId);
+        record.setStudentId(1);
+        record.setScore(score == null ? null : new BigDecimal(score));
+        record.setStatus(status);
+        return record;
+    }
+
+    private StudentScore score(int examId, int studentId, String value) {
+        StudentScore score = score(studentId, value);
+        score.setExamId(examId);
+        return score;
+    }
+
+    private StudentScore score(int studentId, String value) {
+        StudentScore score = new StudentScore();
+        score.setExamId(1);
+        score.setStudentId(studentId);
+        score.setScore(new BigDecimal(value));
+        return score;
+    }
+
+    private StudentClass member(int studentId) {
+        StudentClass studentClass = new StudentClass();
+        studentClass.setStudentId(studentId);
+        studentClass.setClassId(10);
+        return studentClass;
+    }
+}
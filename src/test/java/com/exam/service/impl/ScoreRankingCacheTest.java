@@ -0,0 +1,140 @@
+package com.exam.service.impl;
+
+import com.exam.entity.StudentScore;
+import com.exam.mapper.StudentScoreMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ScoreRankingCacheTest {
+
+    private StudentScoreMapper studentScoreMapper;
+    private ScoreRankingCache scoreRankingCache;
+
+    @BeforeEach
+    void setUp() {
+        studentScoreMapper = mock(StudentScoreMapper.class);
+        scoreRankingCache = new ScoreRankingCache();
+        ReflectionTestUtils.setField(scoreRankingCache, "studentScoreMapper", studentScoreMapper);
+        when(studentScoreMapper.selectByExamId(1)).thenReturn(Arrays.asList(
+                score(1, "90"), score(2, "80.5"), score(3, "70"), score(4, "60")));
+    }
+
+    @Test
+    void rankPercentileAndTop() {
+        // Act & Assert
+        assertEquals(2, scoreRankingCache.getRank(1, 2));
+        assertEquals(0, new BigDecimal("50.00").compareTo(scoreRankingCache.getPercentile(1, 2)));
+        List<Map<String, Object>> top = scoreRankingCache.getTop(1, 1);
+        assertEquals(1, top.get(0).get("student_id"));
+        assertEquals(0, new BigDecimal("90").compareTo((BigDecimal) top.get(0).get("score")));
+        verify(studentScoreMapper, times(1)).selectByExamId(1);
+    }
+
+    @Test
+    void applyScoresIncrementally() {
+        // Arrange
+        scoreRankingCache.getRank(1, 1);
+
+        // Act
+        scoreRankingCache.applyScores(Arrays.asList(score(4, "95"), score(5, "99")), false);
+        scoreRankingCache.applyScores(Collections.singletonList(score(6, "85")), true);
+
+        // Assert：更新只作用于已有学生，新增写入新学生
+        assertEquals(1, scoreRankingCache.getRank(1, 4));
+        assertNull(scoreRankingCache.getRank(1, 5));
+        assertEquals(3, scoreRankingCache.getRank(1, 6));
+        assertEquals(5, scoreRankingCache.getCount(1));
+        verify(studentScoreMapper, times(1)).selectByExamId(1);
+    }
+
+    @Test
+    void loadRacingWithCommitIsNotCached() {
+        // Arrange：加载读到提交前的成绩后，成绩提交并应用
+        when(studentScoreMapper.selectByExamId(1)).thenAnswer(invocation -> {
+            scoreRankingCache.applyScores(Collections.singletonList(score(5, "99")), true);
+            return Arrays.asList(score(1, "90"), score(2, "80.5"));
+        }).thenReturn(Arrays.asList(score(1, "90"), score(2, "80.5"), score(5, "99")));
+        ReflectionTestUtils.setField(scoreRankingCache, "maxExams", 1);
+        when(studentScoreMapper.selectByExamId(2)).thenReturn(Collections.emptyList());
+
+        // Act
+        scoreRankingCache.getCount(1);
+        Integer rank = scoreRankingCache.getRank(1, 5);
+        scoreRankingCache.getCount(2);
+        scoreRankingCache.getCount(1);
+
+        // Assert：旧结果不写入缓存，超出容量时淘汰最久未查询的考试
+        assertEquals(1, rank);
+        verify(studentScoreMapper, times(3)).selectByExamId(1);
+    }
+
+    @Test
+    void concurrentFirstQueriesShareOneLoad() throws Exception {
+        // Arrange：首次加载阻塞到其他查询都已发起
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(studentScoreMapper.selectByExamId(1)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Arrays.asList(score(1, "90"), score(2, "80.5"));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Act
+            List<Future<Integer>> counts = new ArrayList<>();
+            counts.add(executor.submit(() -> scoreRankingCache.getCount(1)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                counts.add(executor.submit(() -> scoreRankingCache.getCount(1)));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            // Assert
+            for (Future<Integer> count : counts) {
+                assertEquals(2, count.get(5, TimeUnit.SECONDS));
+            }
+            verify(studentScoreMapper, times(1)).selectByExamId(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void writeToOtherExamKeepsLoad() {
+        // Arrange：加载考试1期间考试2的成绩提交
+        when(studentScoreMapper.selectByExamId(1)).thenAnswer(invocation -> {
+            StudentScore other = score(7, "50");
+            other.setExamId(2);
+            scoreRankingCache.applyScores(Collections.singletonList(other), true);
+            return Arrays.asList(score(1, "90"), score(2, "80.5"));
+        });
+
+        // Act
+        scoreRankingCache.getCount(1);
+        scoreRankingCache.getCount(1);
+
+        // Assert：其他考试的写入不丢弃本考试的加载结果
+        verify(studentScoreMapper, times(1)).selectByExamId(1);
+    }
+
+    private StudentScore score(int studentId, String value) {
+        StudentScore score = new StudentScore();
+        score.setExamId(1);
+        score.setStudentId(studentId);
+        score.setScore(new BigDecimal(value));
+        return score;
+    }
+}
@@ -0,0 +1,167 @@
+package com.exam.service.impl;
+
+import com.exam.entity.Admin;
+import com.exam.entity.Student;
+import com.exam.entity.Teacher;
+import com.exam.entity.User;
+import com.exam.mapper.AdminMapper;
+import com.exam.mapper.StudentMapper;
+import com.exam.mapper.TeacherMapper;
+import com.exam.utils.TokenClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenKeyRingTest {
+
+    private TeacherMapper teacherMapper;
+    private StudentMapper studentMapper;
+    private AdminMapper adminMapper;
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        teacherMapper = mock(TeacherMapper.class);
+        studentMapper = mock(StudentMapper.class);
+        Teacher teacher = new Teacher();
+        teacher.setTeacherId(7);
+        teacher.setCollegeId(3);
+        teacher.setPermission(1);
+        when(teacherMapper.selectByUserId(1)).thenReturn(teacher);
+        Student student = new Student();
+        student.setStudentId(42);
+        student.setCollegeId(5);
+        when(studentMapper.selectByUserId(2)).thenReturn(student);
+        adminMapper = mock(AdminMapper.class);
+        Admin admin = new Admin();
+        admin.setAdminId(9);
+        when(adminMapper.selectByUserId(3)).thenReturn(admin);
+        environment = new MockEnvironment();
+    }
+
+    @Test
+    void issuedClaimsVerifyWithoutQueries() {
+        // Arrange
+        TokenKeyRing keyRing = keyRing("k1:secret1", "k1");
+        String teacherToken = keyRing.issue(user(1, 1));
+        String studentToken = keyRing.issue(user(2, 2));
+        clearInvocations(teacherMapper, studentMapper);
+
+        // Act
+        TokenClaims teacher = keyRing.verify(teacherToken);
+        TokenClaims student = keyRing.verify(studentToken);
+
+        // Assert
+        verifyNoInteractions(teacherMapper, studentMapper);
+        assertEquals(1, teacher.getUserId());
+        assertEquals(1, teacher.getRole());
+        assertEquals(7, teacher.getTeacherId());
+        assertEquals(3, teacher.getCollegeId());
+        assertEquals(1, teacher.getPermission());
+        assertNull(teacher.getStudentId());
+        assertEquals(42, student.getStudentId());
+        assertEquals(5, student.getCollegeId());
+        assertNull(keyRing.verify(teacherToken.substring(0, teacherToken.length() - 2) + "xx"));
+    }
+
+    @Test
+    void rotatedKeysStillVerify() {
+        // Arrange
+        String oldToken = keyRing("k1:secret1", "k1").issue(user(2, 2));
+
+        // Act：新密钥签发，旧密钥保留校验
+        TokenKeyRing rotated = keyRing("k1:secret1,k2:secret2", "k2");
+        String newToken = rotated.issue(user(2, 2));
+
+        // Assert
+        assertNotNull(rotated.verify(oldToken));
+        assertNotNull(rotated.verify(newToken));
+        assertNull(keyRing("k2:secret2", "k2").verify(oldToken));
+    }
+
+    @Test
+    void revokedTokensRejected() {
+        // Arrange
+        TokenKeyRing keyRing = keyRing("k1:secret1", "k1");
+        String logout = keyRing.issue(user(2, 2));
+        String other = keyRing.issue(user(2, 2));
+        String teacher = keyRing.issue(user(1, 1));
+
+        // Act
+        keyRing.revoke(keyRing.verify(logout));
+        keyRing.revokeTeachers(Collections.singletonList(7));
+
+        // Assert：按token吊销不影响同一用户的其他token
+        assertNull(keyRing.verify(logout));
+        assertNotNull(keyRing.verify(other));
+        assertNull(keyRing.verify(teacher));
+
+        keyRing.revokeUsers(Collections.singletonList(2));
+        assertNull(keyRing.verify(other));
+        keyRing.purge();
+        assertEquals(1, keyRing.getStatistics().get("revoked_users"));
+    }
+
+    @Test
+    void revocationAppliedAfterCommit() {
+        // Arrange
+        TokenKeyRing keyRing = keyRing("k1:secret1", "k1");
+        String student = keyRing.issue(user(2, 2));
+        String admin = keyRing.issue(user(3, 0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            keyRing.revokeStudents(Collections.singletonList(42));
+            keyRing.revokeAdmins(Collections.singletonList(9));
+            // 提交前以旧信息签发的token
+            String issuedBeforeCommit = keyRing.issue(user(2, 2));
+            assertNotNull(keyRing.verify(student));
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Assert：提交后吊销，包括提交前签发的token
+            assertNull(keyRing.verify(student));
+            assertNull(keyRing.verify(admin));
+            assertNull(keyRing.verify(issuedBeforeCommit));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void randomKeyOnlyInDevProfiles() {
+        // Act & Assert：未配置密钥时仅开发和测试环境允许启动
+        assertThrows(IllegalStateException.class, () -> keyRing("", null));
+        environment.setActiveProfiles("test");
+        TokenKeyRing keyRing = keyRing("", null);
+        assertNotNull(keyRing.verify(keyRing.issue(user(2, 2))));
+    }
+
+    private TokenKeyRing keyRing(String keys, String activeKey) {
+        TokenKeyRing keyRing = new TokenKeyRing();
+        ReflectionTestUtils.setField(keyRing, "teacherMapper", teacherMapper);
+        ReflectionTestUtils.setField(keyRing, "studentMapper", studentMapper);
+        ReflectionTestUtils.setField(keyRing, "adminMapper", adminMapper);
+        ReflectionTestUtils.setField(keyRing, "environment", environment);
+        ReflectionTestUtils.setField(keyRing, "keys", keys);
+        ReflectionTestUtils.setField(keyRing, "activeKeyId", activeKey);
+        ReflectionTestUtils.setField(keyRing, "expireHours", 2);
+        keyRing.init();
+        return keyRing;
+    }
+
+    private static User user(int userId, int role) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setRole(role);
+        return user;
+    }
+}
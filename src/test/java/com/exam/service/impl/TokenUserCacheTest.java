@@ -0,0 +1,129 @@
+package com.exam.service.impl;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.exam.entity.User;
+import com.exam.mapper.UserMapper;
+import com.exam.utils.TokenUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenUserCacheTest {
+
+    private UserMapper userMapper;
+    private TokenUserCache tokenUserCache;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = mock(UserMapper.class);
+        tokenUserCache = new TokenUserCache();
+        ReflectionTestUtils.setField(tokenUserCache, "userMapper", userMapper);
+        ReflectionTestUtils.setField(tokenUserCache, "tokenKeyRing", mock(TokenKeyRing.class));
+        ReflectionTestUtils.setField(tokenUserCache, "maxSize", 2);
+        when(userMapper.selectById(1)).thenReturn(user(1, "hash1"));
+        when(userMapper.selectById(2)).thenReturn(user(2, "hash2"));
+        when(userMapper.selectById(3)).thenReturn(user(3, "hash3"));
+    }
+
+    @Test
+    void verifiedTokenServedFromCache() {
+        // Arrange
+        String token = TokenUtils.genToken("1", "hash1");
+
+        // Act
+        User first = tokenUserCache.resolve(token);
+        first.setUsername("changed");
+        User second = tokenUserCache.resolve(token);
+
+        // Assert：只查询一次，返回副本
+        verify(userMapper, times(1)).selectById(1);
+        assertEquals(1, second.getUserId());
+        assertEquals("user1", second.getUsername());
+        assertEquals(1L, tokenUserCache.getStatistics().get("hits"));
+    }
+
+    @Test
+    void rejectsForgedAndExpiredTokens() {
+        // Arrange
+        String forged = TokenUtils.genToken("1", "other");
+        String expired = JWT.create().withAudience("1").withExpiresAt(new Date(System.currentTimeMillis() - 1000))
+                .sign(Algorithm.HMAC256("hash1"));
+
+        // Act & Assert
+        assertNull(tokenUserCache.resolve(forged));
+        assertNull(tokenUserCache.resolve(expired));
+        assertNull(tokenUserCache.resolve("not-a-token"));
+        assertEquals(0, tokenUserCache.getStatistics().get("size"));
+    }
+
+    @Test
+    void invalidateReloadsUser() {
+        // Arrange
+        String token1 = TokenUtils.genToken("1", "hash1");
+        String token2 = TokenUtils.genToken("2", "hash2");
+        tokenUserCache.resolve(token1);
+        tokenUserCache.resolve(token2);
+
+        // Act：用户1修改密码
+        when(userMapper.selectById(1)).thenReturn(user(1, "hash1-new"));
+        tokenUserCache.invalidateAll(Arrays.asList(1));
+
+        // Assert：旧token签名不再有效，用户2仍命中缓存
+        assertNull(tokenUserCache.resolve(token1));
+        assertNotNull(tokenUserCache.resolve(token2));
+        verify(userMapper, times(1)).selectById(2);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        // Arrange
+        String token1 = TokenUtils.genToken("1", "hash1");
+        String token2 = TokenUtils.genToken("2", "hash2");
+        String token3 = TokenUtils.genToken("3", "hash3");
+        tokenUserCache.resolve(token1);
+        tokenUserCache.resolve(token2);
+        tokenUserCache.resolve(token1);
+
+        // Act
+        tokenUserCache.resolve(token3);
+        tokenUserCache.resolve(token1);
+        tokenUserCache.resolve(token2);
+
+        // Assert：容量为2，最久未使用的用户2被淘汰
+        verify(userMapper, times(1)).selectById(1);
+        verify(userMapper, times(2)).selectById(2);
+    }
+
+    @Test
+    void purgeRemovesExpiredEntries() throws InterruptedException {
+        // Arrange
+        String shortLived = JWT.create().withAudience("1")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 1500)).sign(Algorithm.HMAC256("hash1"));
+        String token2 = TokenUtils.genToken("2", "hash2");
+        assertNotNull(tokenUserCache.resolve(shortLived));
+        tokenUserCache.resolve(token2);
+
+        // Act
+        Thread.sleep(1600);
+        tokenUserCache.purge();
+
+        // Assert：只清理已过期的条目
+        assertEquals(1, tokenUserCache.getStatistics().get("size"));
+    }
+
+    private static User user(int userId, String password) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername("user" + userId);
+        user.setPassword(password);
+        user.setStatus(true);
+        return user;
+    }
+}
@@ -0,0 +1,744 @@
+package com.exam.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * 批量测试数据生成器
+ * 按规模生成一所大学的完整数据：学院、课程、教师、班级、学生、题库、题目及选项、试卷、考试、成绩和逐题作答。
+ * 同一规模和种子生成的数据完全相同；主键从1连续分配，可由Scale上的方法直接推算。
+ * 数据可经批量JDBC直接写入，也可写成CSV文件后用LOAD DATA导入
+ */
+public class BulkDataGenerator {
+
+    /** 所有用户的明文密码 */
+    public static final String PASSWORD = "password";
+
+    private static final String[] FAMILY_NAMES = {"张", "李", "王", "赵", "刘", "陈", "杨", "黄", "周", "吴",
+            "徐", "孙", "胡", "朱", "高", "林", "何", "郭", "马", "罗"};
+    private static final String[] GIVEN_NAMES = {"伟", "芳", "娜", "秀英", "敏", "静", "丽", "强", "磊", "洋",
+            "艳", "勇", "军", "杰", "娟", "涛", "明", "超", "秀兰", "霞"};
+    private static final String[] TOPICS = {"Java多线程", "数据库索引", "设计模式", "网络协议", "算法复杂度",
+            "面向对象", "函数式编程", "微服务架构", "缓存机制", "消息队列", "事务隔离", "垃圾回收",
+            "操作系统调度", "编译原理", "分布式一致性", "数据结构"};
+    private static final String[] TEMPLATES = {"下列关于%s的说法中，正确的是？", "下列关于%s的说法中，错误的是？",
+            "%s的基本原理是什么？", "请简要说明%s的主要特点。", "分析%s的优缺点。", "简述%s的应用场景。"};
+    private static final String[] OPTION_TEXTS = {"这是正确的说法", "这种说法不完全正确", "这种说法是错误的",
+            "这种说法需要具体分析"};
+
+    /** 各题型分值，下标为题型 */
+    private static final int[] TYPE_SCORES = {0, 2, 4, 1, 3, 10};
+
+    private final Scale scale;
+    private final long seed;
+    private final Timestamp baseTime;
+
+    public BulkDataGenerator(Scale scale, long seed) {
+        this.scale = scale;
+        this.seed = seed;
+        // 时间以固定起点推算，保证结果可重现
+        this.baseTime = Timestamp.valueOf(LocalDateTime.of(2025, 9, 1, 8, 0));
+    }
+
+    public Scale getScale() {
+        return scale;
+    }
+
+    /**
+     * 生成全部数据，按外键依赖顺序写入
+     * @return 各表写入的行数
+     */
+    public Map<String, Long> generate(RowSink sink) throws IOException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("college", colleges(sink));
+        counts.put("subject", subjects(sink));
+        counts.put("user", users(sink));
+        counts.put("teacher", teachers(sink));
+        counts.put("student", students(sink));
+        counts.put("class", classes(sink));
+        counts.put("student_class", studentClasses(sink));
+        counts.put("question_bank", questionBanks(sink));
+        counts.put("question", questions(sink));
+        counts.put("question_option", questionOptions(sink));
+        int[][] paperQuestions = paperQuestions();
+        counts.put("exam_paper", papers(sink));
+        counts.put("exam_paper_question", paperQuestionRows(sink, paperQuestions));
+        counts.put("exam", exams(sink));
+        counts.put("exam_class", examClasses(sink));
+        counts.putAll(results(sink, paperQuestions));
+        return counts;
+    }
+
+    private long colleges(RowSink sink) throws IOException {
+        sink.begin("college", "college_id", "college_name", "description", "created_time");
+        for (int id = 1; id <= scale.colleges; id++) {
+            sink.row(id, "第" + id + "学院", null, baseTime);
+        }
+        return sink.end();
+    }
+
+    private long subjects(RowSink sink) throws IOException {
+        sink.begin("subject", "subject_id", "subject_name", "description", "college_id");
+        for (int id = 1; id <= scale.subjects(); id++) {
+            sink.row(id, TOPICS[(id - 1) % TOPICS.length] + (id - 1) / TOPICS.length, null, scale.collegeOfSubject(id));
+        }
+        return sink.end();
+    }
+
+    private long users(RowSink sink) throws IOException {
+        SplittableRandom random = random("user");
+        String password = DigestUtils.md5DigestAsHex(PASSWORD.getBytes(StandardCharsets.UTF_8));
+        sink.begin("user", "user_id", "username", "password", "role", "status", "sex", "phone", "email",
+                "created_time");
+        for (int id = 1; id <= scale.teachers + scale.students; id++) {
+            sink.row(id, Scale.username(id), password, id <= scale.teachers ? 1 : 2, true, random.nextBoolean(),
+                    "1" + (3000000000L + random.nextInt(1000000000)), "u" + id + "@example.com", baseTime);
+        }
+        return sink.end();
+    }
+
+    private long teachers(RowSink sink) throws IOException {
+        SplittableRandom random = random("teacher");
+        sink.begin("teacher", "teacher_id", "user_id", "name", "permission", "college_id", "other");
+        for (int id = 1; id <= scale.teachers; id++) {
+            sink.row(id, id, name(random), 1 + random.nextInt(3), (id - 1) % scale.colleges + 1, null);
+        }
+        return sink.end();
+    }
+
+    private long students(RowSink sink) throws IOException {
+        SplittableRandom random = random("student");
+        sink.begin("student", "student_id", "user_id", "name", "grade", "college_id", "other");
+        for (int id = 1; id <= scale.students; id++) {
+            sink.row(id, scale.studentUserId(id), name(random), String.valueOf(2021 + random.nextInt(4)),
+                    (id - 1) % scale.colleges + 1, null);
+        }
+        return sink.end();
+    }
+
+    private long classes(RowSink sink) throws IOException {
+        sink.begin("class", "class_id", "teacher_id", "class_name", "subject_id", "final_exam");
+        for (int id = 1; id <= scale.classes(); id++) {
+            sink.row(id, (id - 1) % scale.teachers + 1, "班级" + id, scale.subjectOfClass(id), false);
+        }
+        return sink.end();
+    }
+
+    private long studentClasses(RowSink sink) throws IOException {
+        sink.begin("student_class", "sc_id", "student_id", "class_id", "status", "join_time", "left_time");
+        int id = 0;
+        for (int student = 1; student <= scale.students; student++) {
+            for (int j = 0; j < scale.classesPerStudent; j++) {
+                sink.row(++id, student, scale.classOfStudent(student, j), true, baseTime, null);
+            }
+        }
+        return sink.end();
+    }
+
+    private long questionBanks(RowSink sink) throws IOException {
+        sink.begin("question_bank", "qb_id", "qb_name", "subject_id");
+        for (int id = 1; id <= scale.questionBanks(); id++) {
+            sink.row(id, "题库" + id, scale.subjectOfBank(id));
+        }
+        return sink.end();
+    }
+
+    private long questions(RowSink sink) throws IOException {
+        SplittableRandom random = random("question");
+        sink.begin("question", "question_id", "qb_id", "content", "answer", "type", "difficulty");
+        for (int id = 1; id <= scale.questions(); id++) {
+            int type = Scale.typeOf(id);
+            String content = String.format(TEMPLATES[random.nextInt(TEMPLATES.length)],
+                    TOPICS[random.nextInt(TOPICS.length)]) + "（" + id + "）";
+            sink.row(id, scale.bankOfQuestion(id), content, answerOf(type), type,
+                    BigDecimal.valueOf(10 + random.nextInt(81), 2));
+        }
+        return sink.end();
+    }
+
+    private long questionOptions(RowSink sink) throws IOException {
+        sink.begin("question_option", "option_id", "question_id", "content", "is_correct");
+        int id = 0;
+        for (int question = 1; question <= scale.questions(); question++) {
+            if (!Scale.hasOptions(Scale.typeOf(question))) {
+                continue;
+            }
+            for (int i = 0; i < OPTION_TEXTS.length; i++) {
+                sink.row(++id, question, (char) ('A' + i) + ". " + OPTION_TEXTS[i], i == 0);
+            }
+        }
+        return sink.end();
+    }
+
+    /**
+     * 每份试卷从所属课程的题库中不重复地抽题
+     */
+    private int[][] paperQuestions() {
+        SplittableRandom random = random("paper_question");
+        int[][] result = new int[scale.papers() + 1][];
+        for (int paper = 1; paper <= scale.papers(); paper++) {
+            int subject = scale.subjectOfPaper(paper);
+            int first = scale.firstQuestionOfSubject(subject);
+            int available = scale.questionBanksPerSubject * scale.questionsPerBank;
+            int count = Math.min(scale.questionsPerPaper, available);
+            Set<Integer> chosen = new LinkedHashSet<>();
+            while (chosen.size() < count) {
+                chosen.add(first + random.nextInt(available));
+            }
+            result[paper] = chosen.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    private long papers(RowSink sink) throws IOException {
+        sink.begin("exam_paper", "paper_id", "paper_name", "paper_status", "subject_id", "teacher_id",
+                "created_time", "exam_type", "academic_term", "paper_difficulty");
+        for (int id = 1; id <= scale.papers(); id++) {
+            sink.row(id, "试卷" + id, 1, scale.subjectOfPaper(id), (id - 1) % scale.teachers + 1, baseTime,
+                    id % 2 == 0 ? 1 : 0, baseTime, new BigDecimal("0.50"));
+        }
+        return sink.end();
+    }
+
+    private long paperQuestionRows(RowSink sink, int[][] paperQuestions) throws IOException {
+        sink.begin("exam_paper_question", "epq_id", "paper_id", "question_id", "question_order", "question_score");
+        int id = 0;
+        for (int paper = 1; paper <= scale.papers(); paper++) {
+            for (int i = 0; i < paperQuestions[paper].length; i++) {
+                int question = paperQuestions[paper][i];
+                sink.row(++id, paper, question, i + 1, TYPE_SCORES[Scale.typeOf(question)]);
+            }
+        }
+        return sink.end();
+    }
+
+    private long exams(RowSink sink) throws IOException {
+        sink.begin("exam", "exam_id", "exam_name", "subject_id", "paper_id", "exam_start_time", "exam_end_time",
+                "exam_duration", "created_time", "teacher_id", "exam_status", "exam_type");
+        for (int id = 1; id <= scale.exams(); id++) {
+            Timestamp start = startOf(id);
+            sink.row(id, "考试" + id, scale.subjectOfPaper(scale.paperOfExam(id)), scale.paperOfExam(id), start,
+                    new Timestamp(start.getTime() + 2 * 3600_000L), 120, baseTime, (id - 1) % scale.teachers + 1,
+                    2, id % 2 == 0 ? 1 : 0);
+        }
+        return sink.end();
+    }
+
+    private long examClasses(RowSink sink) throws IOException {
+        sink.begin("exam_class", "ec_id", "exam_id", "class_id", "create_time");
+        int id = 0;
+        for (int exam = 1; exam <= scale.exams(); exam++) {
+            for (int clazz : scale.classesOfSubject(scale.subjectOfPaper(scale.paperOfExam(exam)))) {
+                sink.row(++id, exam, clazz, baseTime);
+            }
+        }
+        return sink.end();
+    }
+
+    /**
+     * 考生、成绩和逐题作答，三张表交替写入，按考试逐个生成
+     */
+    private Map<String, Long> results(RowSink sink, int[][] paperQuestions) throws IOException {
+        SplittableRandom random = random("result");
+        int[][] members = scale.classMembers();
+        List<int[]> examStudents = new ArrayList<>();
+        for (int exam = 1; exam <= scale.exams(); exam++) {
+            BitSet seen = new BitSet(scale.students + 1);
+            List<Integer> students = new ArrayList<>();
+            for (int clazz : scale.classesOfSubject(scale.subjectOfPaper(scale.paperOfExam(exam)))) {
+                for (int student : members[clazz]) {
+                    if (!seen.get(student)) {
+                        seen.set(student);
+                        students.add(student);
+                    }
+                }
+            }
+            examStudents.add(students.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        sink.begin("exam_student", "es_id", "exam_id", "student_id", "student_start_time", "student_submit_time",
+                "absent", "retake_needed", "disciplinary", "teacher_comment");
+        int id = 0;
+        for (int exam = 1; exam <= scale.exams(); exam++) {
+            Timestamp start = startOf(exam);
+            for (int student : examStudents.get(exam - 1)) {
+                sink.row(++id, exam, student, start, new Timestamp(start.getTime() + 3600_000L), false, false,
+                        false, null);
+            }
+        }
+        counts.put("exam_student", sink.end());
+
+        // 成绩由逐题得分汇总，先按考试生成逐题得分再写成绩；不生成逐题作答的考试直接随机成绩
+        sink.begin("student_score", "score_id", "student_id", "exam_id", "score", "upload_time");
+        List<int[]> answerScores = new ArrayList<>();
+        int scoreId = 0;
+        for (int exam = 1; exam <= scale.exams(); exam++) {
+            int[] questions = paperQuestions[scale.paperOfExam(exam)];
+            boolean answered = exam <= scale.answeredExams;
+            for (int student : examStudents.get(exam - 1)) {
+                int total;
+                if (answered) {
+                    // 每名学生的能力决定答对概率
+                    double ability = 0.4 + random.nextDouble() * 0.6;
+                    int[] scores = new int[questions.length];
+                    total = 0;
+                    for (int i = 0; i < questions.length; i++) {
+                        int full = TYPE_SCORES[Scale.typeOf(questions[i])];
+                        scores[i] = random.nextDouble() < ability ? full : 0;
+                        total += scores[i];
+                    }
+                    answerScores.add(scores);
+                } else {
+                    total = 40 + random.nextInt(61);
+                }
+                sink.row(++scoreId, student, exam, BigDecimal.valueOf(total), startOf(exam));
+            }
+        }
+        counts.put("student_score", sink.end());
+
+        sink.begin("student_question_score", "record_id", "exam_id", "student_id", "question_id", "score_id",
+                "answer", "score", "status");
+        long recordId = 0;
+        int answeredIndex = 0;
+        scoreId = 0;
+        for (int exam = 1; exam <= scale.exams(); exam++) {
+            int[] questions = paperQuestions[scale.paperOfExam(exam)];
+            for (int student : examStudents.get(exam - 1)) {
+                scoreId++;
+                if (exam > scale.answeredExams) {
+                    continue;
+                }
+                int[] scores = answerScores.get(answeredIndex++);
+                for (int i = 0; i < questions.length; i++) {
+                    int type = Scale.typeOf(questions[i]);
+                    String answer = scores[i] > 0 ? answerOf(type) : wrongAnswerOf(type);
+                    sink.row(++recordId, exam, student, questions[i], scoreId, answer, scores[i], 1);
+                }
+            }
+        }
+        counts.put("student_question_score", sink.end());
+        return counts;
+    }
+
+    private Timestamp startOf(int exam) {
+        return new Timestamp(baseTime.getTime() + (long) exam * 24 * 3600_000L);
+    }
+
+    /**
+     * 题目的标准答案；选择题为A，判断题为"正确"
+     */
+    private static String answerOf(int type) {
+        switch (type) {
+            case 1:
+            case 2:
+                return "A";
+            case 3:
+                return "正确";
+            case 4:
+                return "缓存";
+            default:
+                return "要点一；要点二；要点三";
+        }
+    }
+
+    private static String wrongAnswerOf(int type) {
+        switch (type) {
+            case 1:
+            case 2:
+                return "B";
+            case 3:
+                return "错误";
+            default:
+                return "不会";
+        }
+    }
+
+    private static String name(SplittableRandom random) {
+        return FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)] + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+    }
+
+    /**
+     * 每张表使用独立的随机序列，调整一张表的规模不影响其他表的数据
+     */
+    private SplittableRandom random(String table) {
+        return new SplittableRandom(seed * 31 + table.hashCode());
+    }
+
+    /**
+     * 数据规模，各表主键均从1连续分配
+     */
+    public static class Scale {
+        public int colleges = 10;
+        public int subjectsPerCollege = 10;
+        public int teachers = 1000;
+        public int students = 100_000;
+        /** 每门课程的班级数 */
+        public int classesPerSubject = 20;
+        /** 每名学生选修的班级数，不超过班级总数 */
+        public int classesPerStudent = 4;
+        public int questionBanksPerSubject = 5;
+        public int questionsPerBank = 100;
+        public int papersPerSubject = 2;
+        public int questionsPerPaper = 50;
+        public int examsPerPaper = 1;
+        /** 生成逐题作答的考试数，从第1场起；其余考试只有总成绩 */
+        public int answeredExams = 20;
+
+        /**
+         * 按学生数等比例缩放的一所大学，学生数为100000时题目为50000道
+         */
+        public static Scale university(int students) {
+            Scale scale = new Scale();
+            double factor = students / 100_000.0;
+            scale.students = students;
+            scale.colleges = Math.max(1, (int) Math.round(10 * factor));
+            scale.teachers = Math.max(scale.colleges, (int) Math.round(1000 * factor));
+            scale.classesPerStudent = Math.min(scale.classesPerStudent, scale.classes());
+            scale.answeredExams = Math.max(1, (int) Math.round(20 * factor));
+            return scale;
+        }
+
+        public static String username(int userId) {
+            return "u" + userId;
+        }
+
+        /**
+         * 题型1到5轮流分配
+         */
+        public static int typeOf(int questionId) {
+            return (questionId - 1) % 5 + 1;
+        }
+
+        /**
+         * 单选和多选题各有4个选项，A为正确选项
+         */
+        public static boolean hasOptions(int type) {
+            return type <= 2;
+        }
+
+        public int subjects() {
+            return colleges * subjectsPerCollege;
+        }
+
+        public int classes() {
+            return subjects() * classesPerSubject;
+        }
+
+        public int questionBanks() {
+            return subjects() * questionBanksPerSubject;
+        }
+
+        public int questions() {
+            return questionBanks() * questionsPerBank;
+        }
+
+        public int papers() {
+            return subjects() * papersPerSubject;
+        }
+
+        public int exams() {
+            return papers() * examsPerPaper;
+        }
+
+        public int collegeOfSubject(int subjectId) {
+            return (subjectId - 1) / subjectsPerCollege + 1;
+        }
+
+        /** 学生的用户ID排在全部教师之后 */
+        public int studentUserId(int studentId) {
+            return teachers + studentId;
+        }
+
+        public int subjectOfClass(int classId) {
+            return (classId - 1) % subjects() + 1;
+        }
+
+        /**
+         * 学生选修的第j个班级，同一学生的各班级互不相同
+         */
+        public int classOfStudent(int studentId, int j) {
+            return (int) (((long) (studentId - 1) * classesPerStudent + j) % classes()) + 1;
+        }
+
+        public List<Integer> classesOfSubject(int subjectId) {
+            List<Integer> result = new ArrayList<>();
+            for (int clazz = subjectId; clazz <= classes(); clazz += subjects()) {
+                result.add(clazz);
+            }
+            return result;
+        }
+
+        public int subjectOfBank(int qbId) {
+            return (qbId - 1) / questionBanksPerSubject + 1;
+        }
+
+        public int bankOfQuestion(int questionId) {
+            return (questionId - 1) / questionsPerBank + 1;
+        }
+
+        public int firstQuestionOfSubject(int subjectId) {
+            return (subjectId - 1) * questionBanksPerSubject * questionsPerBank + 1;
+        }
+
+        public int subjectOfPaper(int paperId) {
+            return (paperId - 1) / papersPerSubject + 1;
+        }
+
+        public int paperOfExam(int examId) {
+            return (examId - 1) / examsPerPaper + 1;
+        }
+
+        /**
+         * 各班级的学生，下标为班级ID
+         */
+        int[][] classMembers() {
+            int classes = classes();
+            int[] sizes = new int[classes + 1];
+            for (int student = 1; student <= students; student++) {
+                for (int j = 0; j < classesPerStudent; j++) {
+                    sizes[classOfStudent(student, j)]++;
+                }
+            }
+            int[][] members = new int[classes + 1][];
+            for (int clazz = 1; clazz <= classes; clazz++) {
+                members[clazz] = new int[sizes[clazz]];
+                sizes[clazz] = 0;
+            }
+            for (int student = 1; student <= students; student++) {
+                for (int j = 0; j < classesPerStudent; j++) {
+                    int clazz = classOfStudent(student, j);
+                    members[clazz][sizes[clazz]++] = student;
+                }
+            }
+            return members;
+        }
+    }
+
+    /**
+     * 行输出目标，每张表依次调用begin、若干次row、end
+     */
+    public interface RowSink extends Closeable {
+
+        void begin(String table, String... columns) throws IOException;
+
+        void row(Object... values) throws IOException;
+
+        /**
+         * @return 该表写入的行数
+         */
+        long end() throws IOException;
+    }
+
+    /**
+     * 经批量JDBC写入，需连接参数rewriteBatchedStatements=true才能合并为多行INSERT；
+     * 写入期间关闭外键和唯一性检查，每批提交一次
+     */
+    public static class JdbcSink implements RowSink {
+
+        private final Connection connection;
+        private final int batchSize;
+        private final boolean mysql;
+        private PreparedStatement statement;
+        private int pending;
+        private long rows;
+
+        public JdbcSink(Connection connection, int batchSize) throws SQLException {
+            this.connection = connection;
+            this.batchSize = batchSize;
+            this.mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            connection.setAutoCommit(false);
+            if (mysql) {
+                execute("SET FOREIGN_KEY_CHECKS = 0");
+                execute("SET UNIQUE_CHECKS = 0");
+            }
+        }
+
+        @Override
+        public void begin(String table, String... columns) throws IOException {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                    .append(String.join(", ", columns)).append(") VALUES (");
+            for (int i = 0; i < columns.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            try {
+                statement = connection.prepareStatement(sql.append(')').toString());
+            } catch (SQLException e) {
+                throw new IOException("准备写入" + table + "失败", e);
+            }
+            pending = 0;
+            rows = 0;
+        }
+
+        @Override
+        public void row(Object... values) throws IOException {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    statement.setObject(i + 1, values[i]);
+                }
+                statement.addBatch();
+                rows++;
+                if (++pending >= batchSize) {
+                    flush();
+                }
+            } catch (SQLException e) {
+                throw new IOException("批量写入失败", e);
+            }
+        }
+
+        @Override
+        public long end() throws IOException {
+            try {
+                flush();
+                statement.close();
+            } catch (SQLException e) {
+                throw new IOException("批量写入失败", e);
+            }
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (mysql) {
+                    execute("SET FOREIGN_KEY_CHECKS = 1");
+                    execute("SET UNIQUE_CHECKS = 1");
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                throw new IOException("提交失败", e);
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                connection.commit();
+                pending = 0;
+            }
+        }
+
+        private void execute(String sql) throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * 每张表写成一个CSV文件，并生成按依赖顺序导入全部文件的load.sql：
+     * mysql --local-infile=1 exam_system &lt; load.sql
+     */
+    public static class CsvSink implements RowSink {
+
+        private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private final Path directory;
+        private final Writer script;
+        private Writer writer;
+        private long rows;
+
+        public CsvSink(Path directory) throws IOException {
+            this.directory = Files.createDirectories(directory);
+            this.script = Files.newBufferedWriter(directory.resolve("load.sql"), StandardCharsets.UTF_8);
+            script.write("SET FOREIGN_KEY_CHECKS = 0;\nSET UNIQUE_CHECKS = 0;\n");
+        }
+
+        @Override
+        public void begin(String table, String... columns) throws IOException {
+            Path file = directory.resolve(table + ".csv");
+            writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                    1 << 16);
+            rows = 0;
+            script.write("LOAD DATA LOCAL INFILE '" + file.toAbsolutePath().toString().replace("\\", "/")
+                    + "' INTO TABLE `" + table + "` CHARACTER SET utf8mb4 FIELDS TERMINATED BY ',' "
+                    + "OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' ("
+                    + String.join(", ", columns) + ");\n");
+        }
+
+        @Override
+        public void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                write(values[i]);
+            }
+            writer.write('\n');
+            rows++;
+        }
+
+        @Override
+        public long end() throws IOException {
+            writer.close();
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            script.write("SET FOREIGN_KEY_CHECKS = 1;\nSET UNIQUE_CHECKS = 1;\n");
+            script.close();
+        }
+
+        private void write(Object value) throws IOException {
+            if (value == null) {
+                writer.write("\\N");
+            } else if (value instanceof Boolean) {
+                writer.write((Boolean) value ? '1' : '0');
+            } else if (value instanceof Number) {
+                writer.write(value.toString());
+            } else {
+                String text = value instanceof Timestamp
+                        ? DATE_TIME.format(((Timestamp) value).toLocalDateTime())
+                        : value.toString();
+                writer.write('"');
+                writer.write(text.replace("\\", "\\\\").replace("\"", "\\\""));
+                writer.write('"');
+            }
+        }
+    }
+
+    /**
+     * 命令行入口
+     * 参数：--students=100000 --seed=1 以及 --csv=目录 或 --url=JDBC地址 --user=用户名 --password=密码
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 2) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        Scale scale = Scale.university(Integer.parseInt(options.getOrDefault("students", "100000")));
+        BulkDataGenerator generator = new BulkDataGenerator(scale, Long.parseLong(options.getOrDefault("seed", "1")));
+
+        long start = System.nanoTime();
+        Map<String, Long> counts;
+        if (options.containsKey("csv")) {
+            try (CsvSink sink = new CsvSink(Paths.get(options.get("csv")))) {
+                counts = generator.generate(sink);
+            }
+        } else {
+            try (Connection connection = DriverManager.getConnection(options.get("url"),
+                    options.getOrDefault("user", "root"), options.getOrDefault("password", ""));
+                 JdbcSink sink = new JdbcSink(connection, 5000)) {
+                counts = generator.generate(sink);
+            }
+        }
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        counts.forEach((table, rows) -> System.out.println(table + ": " + rows));
+        System.out.printf("共%d行，用时%.1f秒，%.0f行/分钟%n", total, seconds, total / seconds * 60);
+    }
+}
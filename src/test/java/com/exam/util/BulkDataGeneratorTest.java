@@ -0,0 +1,114 @@
+package com.exam.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkDataGeneratorTest {
+
+    @Test
+    void sameSeedGeneratesSameRows() throws Exception {
+        // Arrange
+        BulkDataGenerator.Scale scale = BulkDataGenerator.Scale.university(2000);
+
+        // Act
+        ListSink first = new ListSink();
+        new BulkDataGenerator(scale, 7).generate(first);
+        ListSink second = new ListSink();
+        new BulkDataGenerator(scale, 7).generate(second);
+        ListSink other = new ListSink();
+        new BulkDataGenerator(scale, 8).generate(other);
+
+        // Assert
+        assertEquals(first.tables, second.tables);
+        assertNotEquals(first.tables.get("question"), other.tables.get("question"));
+    }
+
+    @Test
+    void rowsMatchScaleAndReferenceExistingKeys() throws Exception {
+        // Arrange
+        BulkDataGenerator.Scale scale = BulkDataGenerator.Scale.university(2000);
+        ListSink sink = new ListSink();
+
+        // Act
+        Map<String, Long> counts = new BulkDataGenerator(scale, 1).generate(sink);
+
+        // Assert
+        assertEquals(scale.teachers + scale.students, counts.get("user"));
+        assertEquals(scale.questions(), counts.get("question"));
+        assertEquals((long) scale.students * scale.classesPerStudent, counts.get("student_class"));
+        assertEquals(counts.get("exam_student"), counts.get("student_score"));
+        assertEquals(scale.exams(), counts.get("exam"));
+        // 每行成绩的学生都在考试所属课程的班级中
+        Set<String> members = new HashSet<>();
+        for (List<Object> row : sink.tables.get("student_class")) {
+            members.add(row.get(1) + ":" + scale.subjectOfClass((Integer) row.get(2)));
+        }
+        for (List<Object> row : sink.tables.get("student_score")) {
+            int subject = scale.subjectOfPaper(scale.paperOfExam((Integer) row.get(2)));
+            assertTrue(members.contains(row.get(1) + ":" + subject));
+        }
+        // 逐题作答引用的成绩与学生、考试一致
+        Map<Object, List<Object>> scores = new HashMap<>();
+        sink.tables.get("student_score").forEach(row -> scores.put(row.get(0), row));
+        for (List<Object> row : sink.tables.get("student_question_score")) {
+            List<Object> score = scores.get(row.get(4));
+            assertEquals(score.get(1), row.get(2));
+            assertEquals(score.get(2), row.get(1));
+        }
+        assertTrue(counts.get("student_question_score") > 0);
+    }
+
+    @Test
+    void csvSinkWritesNullAndQuotedText() throws Exception {
+        // Arrange
+        Path directory = Files.createTempDirectory("bulk");
+
+        // Act
+        try (BulkDataGenerator.CsvSink sink = new BulkDataGenerator.CsvSink(directory)) {
+            sink.begin("college", "college_id", "college_name", "description");
+            sink.row(1, "计算机\"学院\"", null);
+            assertEquals(1, sink.end());
+        }
+
+        // Assert
+        assertEquals("1,\"计算机\\\"学院\\\"\",\\N\n",
+                new String(Files.readAllBytes(directory.resolve("college.csv")), StandardCharsets.UTF_8));
+        String script = new String(Files.readAllBytes(directory.resolve("load.sql")), StandardCharsets.UTF_8);
+        assertTrue(script.contains("INTO TABLE `college`"));
+        assertTrue(script.contains("(college_id, college_name, description)"));
+    }
+
+    /**
+     * 把各表的行收集到内存中
+     */
+    private static class ListSink implements BulkDataGenerator.RowSink {
+        private final Map<String, List<List<Object>>> tables = new LinkedHashMap<>();
+        private List<List<Object>> rows;
+
+        @Override
+        public void begin(String table, String... columns) {
+            rows = new ArrayList<>();
+            tables.put(table, rows);
+        }
+
+        @Override
+        public void row(Object... values) {
+            rows.add(Arrays.asList(values));
+        }
+
+        @Override
+        public long end() {
+            return rows.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
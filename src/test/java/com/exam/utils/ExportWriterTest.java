@@ -0,0 +1,47 @@
+package com.exam.utils;
+
+import com.exam.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWriterTest {
+
+    @Test
+    void writeCsvRow() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = new ExportWriter(out);
+
+        // Act
+        writer.writeCsvRow(1, "张三", null, "a,b", "say \"hi\"", new BigDecimal("95.50"));
+        writer.flush();
+
+        // Assert
+        assertEquals("1,张三,,\"a,b\",\"say \"\"hi\"\"\",95.50\r\n", out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    void writeJsonLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = new ExportWriter(out);
+        Question question = new Question();
+        question.setQuestionId(7);
+        question.setContent("1+1=?");
+
+        // Act
+        writer.writeJsonLine(question);
+        writer.writeJsonLine(question);
+        writer.flush();
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"questionId\":7,\"content\":\"1+1=?\"}", lines[0]);
+    }
+}
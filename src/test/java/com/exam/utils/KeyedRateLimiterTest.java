@@ -0,0 +1,39 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedRateLimiterTest {
+
+    @Test
+    void refillsOverTime() {
+        // Arrange：每分钟60次，即每秒补充1次
+        KeyedRateLimiter limiter = new KeyedRateLimiter(60);
+        long start = 0;
+        for (int i = 0; i < 60; i++) {
+            assertTrue(limiter.tryAcquire("a", start));
+        }
+
+        // Act & Assert
+        assertFalse(limiter.tryAcquire("a", start));
+        assertTrue(limiter.tryAcquire("b", start));
+        assertFalse(limiter.tryAcquire("a", start + TimeUnit.MILLISECONDS.toNanos(500)));
+        assertTrue(limiter.tryAcquire("a", start + TimeUnit.MILLISECONDS.toNanos(1500)));
+        assertFalse(limiter.tryAcquire("a", start + TimeUnit.MILLISECONDS.toNanos(1600)));
+    }
+
+    @Test
+    void disabledWhenZero() {
+        // Arrange
+        KeyedRateLimiter limiter = new KeyedRateLimiter(0);
+
+        // Act & Assert
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire("a"));
+        }
+        assertEquals(0, limiter.size());
+    }
+}
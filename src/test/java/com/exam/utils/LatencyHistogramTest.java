@@ -0,0 +1,66 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundsAreContiguous() {
+        // Arrange & Act & Assert：每个桶的上界加1落在下一个桶
+        for (int index = 0; index < 2000; index++) {
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            assertEquals(index + 1, LatencyHistogram.indexOf(highest + 1));
+        }
+    }
+
+    @Test
+    void percentilesWithinRelativeError() {
+        // Arrange：1到10000微秒各一次
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        // Act
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Assert
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1), snapshot.getMin());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10000), snapshot.getMax());
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(5000), snapshot.percentile(50));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(9900), snapshot.percentile(99));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(9990), snapshot.percentile(99.9));
+        assertEquals(snapshot.getMax(), snapshot.percentile(100));
+    }
+
+    @Test
+    void sinceReturnsIntervalCounts() {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(500));
+        LatencyHistogram.Snapshot first = histogram.snapshot();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+
+        // Act
+        LatencyHistogram.Snapshot interval = histogram.snapshot().since(first);
+
+        // Assert：区间内不含之前的500毫秒
+        assertEquals(2, interval.getCount());
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(3), interval.getMax());
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(2), interval.getMin());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5) / 2.0, interval.getMean(), 1);
+        assertEquals(0, histogram.snapshot().since(histogram.snapshot()).getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 64 + 1,
+                "expected " + expected + " but was " + actual);
+    }
+}
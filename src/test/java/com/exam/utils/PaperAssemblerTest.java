@@ -0,0 +1,103 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaperAssemblerTest {
+
+    @Test
+    void poolSortedByTypeAndDifficulty() {
+        // Arrange
+        QuestionPool pool = QuestionPool.builder()
+                .add(1, 2, 80, 0)
+                .add(2, 0, 50, 3)
+                .add(3, 2, 10, 1)
+                .add(4, 0, 20, 0)
+                .build();
+
+        // Act & Assert
+        assertArrayEquals(new int[]{0, 2}, pool.range(0));
+        assertArrayEquals(new int[]{2, 4}, pool.range(2));
+        assertNull(pool.range(1));
+        assertEquals(4, pool.id(0));
+        assertEquals(3, pool.id(2));
+        assertEquals(3, pool.usage(1));
+    }
+
+    @Test
+    void meetsDifficultyOnLargePool() {
+        // Arrange：20万题，5种题型，难度0.10~0.90
+        SplittableRandom random = new SplittableRandom(7);
+        QuestionPool.Builder builder = QuestionPool.builder();
+        for (int id = 1; id <= 200_000; id++) {
+            builder.add(id, id % 5, 10 + random.nextInt(81), 0);
+        }
+        QuestionPool pool = builder.build();
+        int[] types = new int[100];
+        int[] weights = new int[100];
+        for (int i = 0; i < 100; i++) {
+            types[i] = i % 5;
+            weights[i] = i % 5 == 4 ? 20 : 4;
+        }
+
+        // Act
+        PaperAssembler.Result result = new PaperAssembler(8, 5000)
+                .assemble(pool, types, weights, 70, 2, new SplittableRandom(1));
+
+        // Assert：题型与题位一致，不重复，加权难度在0.68~0.72之间
+        assertTrue(result.isWithinTolerance());
+        assertTrue(Math.abs(result.getDifficulty() - 70) <= 2);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(types[i], pool.type(result.getIndexes()[i]));
+            assertTrue(ids.add(result.getQuestionIds()[i]));
+        }
+    }
+
+    @Test
+    void prefersLeastUsedQuestions() {
+        // Arrange：偶数ID的题目已被多次使用
+        QuestionPool.Builder builder = QuestionPool.builder();
+        for (int id = 1; id <= 1000; id++) {
+            builder.add(id, 0, 40 + id % 20, id % 2 == 0 ? 5 : 0);
+        }
+        QuestionPool pool = builder.build();
+        int[] types = new int[10];
+        int[] weights = new int[10];
+        Arrays.fill(weights, 4);
+
+        // Act
+        PaperAssembler.Result result = new PaperAssembler(8, 5000)
+                .assemble(pool, types, weights, 50, 5, new SplittableRandom(3));
+
+        // Assert
+        assertTrue(result.isWithinTolerance());
+        for (int id : result.getQuestionIds()) {
+            assertEquals(1, id % 2);
+        }
+    }
+
+    @Test
+    void reportsShortageAndUnreachableDifficulty() {
+        // Arrange
+        QuestionPool.Builder builder = QuestionPool.builder();
+        for (int id = 1; id <= 20; id++) {
+            builder.add(id, 0, 30, 0);
+        }
+        QuestionPool pool = builder.build();
+        PaperAssembler assembler = new PaperAssembler(8, 1000);
+
+        // Act & Assert：题目不足返回null，难度无法满足时给出最接近的结果
+        assertNull(assembler.assemble(pool, new int[]{1}, new int[]{4}, 30, 5, new SplittableRandom(1)));
+        PaperAssembler.Result result = assembler.assemble(pool, new int[5], new int[]{4, 4, 4, 4, 4},
+                80, 5, new SplittableRandom(1));
+        assertFalse(result.isWithinTolerance());
+        assertEquals(30, result.getDifficulty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaperVariantTest {
+
+    @Test
+    void deterministicPermutations() {
+        // Arrange
+        long seed = PaperVariant.seed(7, 1001);
+
+        // Act
+        int[] order = PaperVariant.questionOrder(seed, 50);
+        int[] other = PaperVariant.questionOrder(PaperVariant.seed(7, 1002), 50);
+
+        // Assert：同一考生结果固定，是0~49的排列，不同考生顺序不同
+        assertArrayEquals(order, PaperVariant.questionOrder(seed, 50));
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, sorted[i]);
+        }
+        assertFalse(Arrays.equals(order, other));
+        assertArrayEquals(PaperVariant.optionOrder(seed, 33, 4), PaperVariant.optionOrder(seed, 33, 4));
+    }
+
+    @Test
+    void masksRoundTrip() {
+        // Arrange
+        long seed = PaperVariant.seed(3, 42);
+
+        // Act & Assert：全部4选项组合都能还原，超出选项数的位保留
+        for (int mask = 0; mask < 16; mask++) {
+            int displayed = PaperVariant.toDisplayedMask(seed, 9, 4, mask);
+            assertEquals(Integer.bitCount(mask), Integer.bitCount(displayed));
+            assertEquals(mask, PaperVariant.toCanonicalMask(seed, 9, 4, displayed));
+        }
+        assertEquals(1 << 5, PaperVariant.toCanonicalMask(seed, 9, 4, 1 << 5) & (1 << 5));
+    }
+}
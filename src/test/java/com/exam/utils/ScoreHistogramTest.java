@@ -0,0 +1,59 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreHistogramTest {
+
+    @Test
+    void defaultAndRebucketedDistribution() {
+        // Arrange
+        ScoreHistogram histogram = new ScoreHistogram(100);
+        histogram.add(new BigDecimal("95.5"));
+        histogram.add(new BigDecimal("89.99"));
+        histogram.add(new BigDecimal("60"));
+        histogram.add(new BigDecimal("120"));
+        histogram.add(new BigDecimal("30"));
+
+        // Act
+        List<Map<String, Object>> defaults = histogram.distribution(ScoreHistogram.DEFAULT_BOUNDS, null);
+        List<Map<String, Object>> byFive = histogram.distributionByWidth(5, null);
+
+        // Assert：与原分组查询的分段一致，超过满分计入最后一档
+        assertEquals(4, defaults.size());
+        assertEquals("90-100", defaults.get(0).get("score_range"));
+        assertEquals(2L, defaults.get(0).get("count"));
+        assertEquals("80-89", defaults.get(1).get("score_range"));
+        assertEquals("0-59", defaults.get(3).get("score_range"));
+        assertEquals("95-100", byFive.get(0).get("score_range"));
+        assertEquals(2L, byFive.get(0).get("count"));
+        assertEquals("85-89", byFive.get(1).get("score_range"));
+    }
+
+    @Test
+    void removeSnapshotAndMerge() {
+        // Arrange
+        ScoreHistogram histogram = new ScoreHistogram(100);
+        histogram.add(new BigDecimal("70"));
+        histogram.add(new BigDecimal("75"));
+        ScoreHistogram snapshot = histogram.snapshot();
+
+        // Act
+        histogram.remove(new BigDecimal("70"));
+        ScoreHistogram merged = new ScoreHistogram(100);
+        merged.addAll(histogram);
+        merged.addAll(snapshot);
+
+        // Assert
+        assertEquals(1, histogram.total());
+        assertEquals(2, snapshot.total());
+        assertEquals(3, merged.total());
+        assertEquals(3L, merged.distribution(new int[]{0, 70}, "%").get(0).get("count"));
+        assertEquals("70-100%", merged.distribution(new int[]{0, 70}, "%").get(0).get("score_range"));
+    }
+}
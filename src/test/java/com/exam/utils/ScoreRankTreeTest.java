@@ -0,0 +1,53 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreRankTreeTest {
+
+    @Test
+    void rankWithTies() {
+        // Arrange
+        ScoreRankTree tree = new ScoreRankTree();
+        tree.put(1, 9000);
+        tree.put(2, 9550);
+        tree.put(3, 9000);
+        tree.put(4, 6000);
+
+        // Act & Assert：与RANK()一致，同分同名次
+        assertEquals(1, tree.rank(2));
+        assertEquals(2, tree.rank(1));
+        assertEquals(2, tree.rank(3));
+        assertEquals(4, tree.rank(4));
+        assertNull(tree.rank(5));
+        assertEquals(1, tree.countBelow(9000));
+        assertEquals(0, tree.countBelow(6000));
+    }
+
+    @Test
+    void updateRemoveAndTop() {
+        // Arrange
+        ScoreRankTree tree = new ScoreRankTree();
+        tree.put(1, 8000);
+        tree.put(2, 7000);
+        tree.put(3, 7000);
+
+        // Act
+        tree.put(2, 9000);
+        tree.remove(1);
+        // 超出初始容量时扩容
+        tree.put(4, 50000);
+
+        // Assert
+        assertEquals(3, tree.size());
+        assertEquals(2, tree.rank(2));
+        assertEquals(3, tree.rank(3));
+        List<int[]> top = tree.top(2);
+        assertEquals(2, top.size());
+        assertArrayEquals(new int[]{4, 50000, 1}, top.get(0));
+        assertArrayEquals(new int[]{2, 9000, 2}, top.get(1));
+    }
+}
@@ -0,0 +1,90 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @Test
+    void tokenizeMixedText() {
+        // Act
+        List<String> tokens = BigramTokenizer.tokenize("Java中的线程池，ＪＶＭ调优");
+        List<String> query = BigramTokenizer.tokenizeQuery("线程池 j");
+
+        // Assert：中文切为二元词并补末字，全角转半角、字母小写；查询不补末字
+        assertEquals(Arrays.asList("java", "中的", "的线", "线程", "程池", "池", "jvm", "调优", "优"), tokens);
+        assertEquals(Arrays.asList("线程", "程池", "j"), query);
+        assertFalse(BigramTokenizer.isPrefix("线程"));
+        assertTrue(BigramTokenizer.isPrefix("池"));
+        assertTrue(BigramTokenizer.isPrefix("j"));
+    }
+
+    @Test
+    void rankAndFilter() {
+        // Arrange
+        SearchIndex index = SearchIndex.builder()
+                .add(document(1, 10, 0, 30, "下列关于线程池的说法正确的是"))
+                .add(document(2, 10, 1, 60, "线程池的核心线程数与最大线程数，线程池拒绝策略"))
+                .add(document(3, 20, 0, 80, "线程安全的集合类"))
+                .add(document(4, 20, 2, null, "进程与线程池的区别"))
+                .build();
+
+        // Act
+        List<Integer> all = ids(index.search("线程池", null, null, null, null, 10));
+        List<Integer> bank = ids(index.search("线程池", 20, null, null, null, 10));
+        List<Integer> range = ids(index.search("线程池", null, null, 20, 50, 10));
+        List<Integer> single = ids(index.search("集", null, null, null, null, 10));
+
+        // Assert：词频高的排在前面；按题库、难度过滤，限定难度时不含未设置难度的题目；单字按前缀匹配
+        assertEquals(2, all.get(0).intValue());
+        assertEquals(3, all.size());
+        assertEquals(Arrays.asList(4), bank);
+        assertEquals(Arrays.asList(1), range);
+        assertEquals(Arrays.asList(3), single);
+        assertTrue(index.search("数据库", null, null, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void incrementalUpdatesAndPersistence() throws Exception {
+        // Arrange
+        SearchIndex index = SearchIndex.builder()
+                .add(document(1, 10, 0, 30, "操作系统进程调度"))
+                .add(document(2, 10, 0, 40, "操作系统内存管理"))
+                .build();
+
+        // Act
+        index.upsert(document(2, 10, 0, 40, "数据库索引结构"));
+        index.upsert(document(5, 11, 1, 50, "数据库事务隔离级别"));
+        index.delete(1);
+        List<Integer> beforeCompact = ids(index.search("数据库", null, null, null, null, 10));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        SearchIndex restored = SearchIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+        // Assert：变更立即可查，写出前合并，读回的索引结果一致
+        assertEquals(Arrays.asList(2, 5), beforeCompact.stream().sorted().collect(Collectors.toList()));
+        assertTrue(index.search("操作系统", null, null, null, null, 10).isEmpty());
+        assertEquals(0, index.pendingChanges());
+        assertEquals(2, restored.size());
+        assertEquals(5, restored.maxQuestionId());
+        assertEquals(beforeCompact, ids(restored.search("数据库", null, null, null, null, 10)));
+        assertEquals(Arrays.asList(5), ids(restored.search("事务", 11, 1, null, null, 10)));
+        assertEquals(Arrays.asList(5), restored.questionIdsInBanks(Arrays.asList(11)));
+    }
+
+    private static SearchIndex.Document document(int questionId, int qbId, int type, Integer difficulty,
+                                                 String content) {
+        return SearchIndex.Document.of(questionId, qbId, type, difficulty, BigramTokenizer.tokenize(content));
+    }
+
+    private static List<Integer> ids(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(SearchIndex.Hit::getQuestionId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.exam.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimHashIndexTest {
+
+    private static final String OPTIONS = "A. 线程安全 B. 可以重入 C. 需要显式释放 D. 非公平锁";
+
+    @Test
+    void detectsNearDuplicateText() {
+        // Arrange
+        SimHashIndex index = new SimHashIndex(3);
+        index.add(1, fingerprint("下列关于Java多线程的说法中，正确的是？" + OPTIONS));
+        index.add(2, fingerprint("简述TCP三次握手的过程。"));
+
+        // Act
+        SimHashIndex.Match punctuation = index.nearest(fingerprint("下列关于Java多线程的说法中，正确的是（ ）" + OPTIONS));
+        SimHashIndex.Match spacing = index.nearest(fingerprint("简述 TCP 三次握手的过程"));
+        SimHashIndex.Match opposite = index.nearest(fingerprint("下列关于Java多线程的说法中，错误的是？" + OPTIONS));
+        SimHashIndex.Match other = index.nearest(fingerprint("简述TCP四次挥手的过程。"));
+
+        // Assert：只改标点和空格的视为重复，题意相反或内容不同的不视为重复
+        assertEquals(1, punctuation.getId());
+        assertEquals(2, spacing.getId());
+        assertNull(opposite);
+        assertNull(other);
+    }
+
+    @Test
+    void findsAllFingerprintsWithinDistance() {
+        // Arrange
+        SplittableRandom random = new SplittableRandom(7);
+        SimHashIndex index = new SimHashIndex(3);
+        long[] fingerprints = new long[20000];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = random.nextLong();
+            index.add(i + 1, fingerprints[i]);
+        }
+
+        // Act & Assert：翻转不超过3位总能找回原指纹，距离相同时取最早加入的
+        for (int i = 0; i < fingerprints.length; i += 7) {
+            long variant = fingerprints[i];
+            int flips = i % 4;
+            for (int k = 0; k < flips; k++) {
+                variant ^= 1L << (i * 13 + k * 17) % 64;
+            }
+            SimHashIndex.Match match = index.nearest(variant);
+            assertNotNull(match);
+            assertEquals(i + 1, match.getId());
+            assertEquals(SimHash.distance(variant, fingerprints[i]), match.getDistance());
+        }
+        index.add(99999, fingerprints[0]);
+        assertEquals(1, index.nearest(fingerprints[0]).getId());
+        assertThrows(IllegalArgumentException.class, () -> new SimHashIndex(8));
+    }
+
+    private static long fingerprint(String text) {
+        return SimHash.fingerprint(BigramTokenizer.tokenize(text));
+    }
+}